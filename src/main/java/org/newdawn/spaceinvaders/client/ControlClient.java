@@ -0,0 +1,274 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.newdawn.spaceinvaders.client.multiplay.communication.CompressionRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.LoginResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SignUpResponse;
+import org.newdawn.spaceinvaders.client.multiplay.network.FrameInflater;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageCodec;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageType;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 로그인/회원가입/랭킹 요청을 주고받는 오래 유지되는 제어 연결.
+ * 요청마다 소켓을 새로 열지 않고, 상관 ID 를 붙여 한 연결로 여러 요청을 보냅니다.
+ * 응답은 도착하는 대로 수신 스레드에서 {@link NetworkListener} 로 전달됩니다.
+ * <p>
+ * 연결은 첫 요청 때 열고, 끊기면 다음 요청 때 다시 엽니다. 끊길 때 응답을 받지 못한 요청은
+ * {@link NetworkListener#onRequestFailed} 로 알립니다.
+ */
+public class ControlClient {
+
+    /**
+     * 기본 서버에 연결할 수 없을 때 대신 쓸 로컬 서버를 띄웁니다. 세션 동안 한 번만 호출됩니다.
+     */
+    public interface Fallback {
+        /** @return 띄운 서버의 포트 */
+        int start() throws IOException;
+    }
+
+    private static final String FALLBACK_HOST = "localhost";
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    // 로컬 서버 JVM 이 뜰 때까지 짧은 간격으로 연결을 다시 시도한다.
+    private static final long FALLBACK_WAIT_MS = 10_000;
+    private static final long FALLBACK_POLL_MS = 100;
+
+    private final NetworkListener listener;
+    private final String host;
+    private final int port;
+    private final Fallback fallback;
+    private final AtomicInteger nextCorrelationId = new AtomicInteger();
+    // 연결과 쓰기는 이 스레드에서만 한다. 호출한 UI 스레드는 기다리지 않는다.
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "control-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 연결을 바꾸는 것은 sender 스레드뿐이다.
+    private volatile Session session;
+    private int fallbackPort = -1;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    public ControlClient(NetworkListener listener, String host, int port) {
+        this(listener, host, port, null);
+    }
+
+    /**
+     * @param fallback 기본 서버에 연결할 수 없을 때 쓸 서버. 없으면 null
+     */
+    public ControlClient(NetworkListener listener, String host, int port, Fallback fallback) {
+        this.listener = listener;
+        this.host = host;
+        this.port = port;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 요청을 보냅니다. 바로 반환하며, 응답은 리스너로 전달됩니다.
+     */
+    public void request(Object request) {
+        sender.execute(() -> send(request));
+    }
+
+    public void close() {
+        sender.shutdownNow();
+        Session current = session;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void send(Object request) {
+        int correlationId = nextCorrelationId.incrementAndGet();
+        Session current = null;
+        try {
+            current = openSession();
+            current.pending.put(correlationId, request);
+            current.write(MessageCodec.encodeRequest(correlationId, request));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "[클라이언트 로그] 제어 요청 전송 실패: {0}", e.getMessage());
+            if (current == null || current.pending.remove(correlationId) != null) {
+                listener.onRequestFailed(request, e.getMessage());
+            }
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+
+    private Session openSession() throws IOException {
+        if (session != null && !session.socket.isClosed()) {
+            return session;
+        }
+        Session opened = new Session(connect());
+        try {
+            opened.write(MessageCodec.encode(new JoinRequest(JoinRequest.Role.CONTROL)));
+            if (Boolean.getBoolean("spaceinvaders.compression")) {
+                opened.write(MessageCodec.encode(new CompressionRequest(true)));
+            }
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        opened.start();
+        session = opened;
+        return opened;
+    }
+
+    private Socket connect() throws IOException {
+        if (fallbackPort >= 0) {
+            return connectWhenReady(FALLBACK_HOST, fallbackPort);
+        }
+        try {
+            return connect(host, port);
+        } catch (IOException e) {
+            if (fallback == null) {
+                throw e;
+            }
+            logger.log(Level.INFO, "[클라이언트 로그] {0}:{1} 연결 실패, 로컬 서버를 사용합니다.", new Object[]{host, port});
+            fallbackPort = fallback.start();
+            return connectWhenReady(FALLBACK_HOST, fallbackPort);
+        }
+    }
+
+    private static Socket connectWhenReady(String host, int port) throws IOException {
+        long deadline = System.currentTimeMillis() + FALLBACK_WAIT_MS;
+        while (true) {
+            try {
+                return connect(host, port);
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(FALLBACK_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("로컬 서버 대기 중 중단됨");
+            }
+        }
+    }
+
+    private static Socket connect(String host, int port) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void dispatch(Object response) {
+        if (response instanceof LoginResponse res) {
+            listener.onLoginResponse(res);
+        } else if (response instanceof SignUpResponse res) {
+            listener.onSignUpResponse(res);
+        } else if (response instanceof RankResponse res) {
+            listener.onRankResponse(res);
+        } else {
+            logger.log(Level.WARNING, "[클라이언트 로그] 알 수 없는 응답: {0}", response.getClass().getName());
+        }
+    }
+
+    /**
+     * 연결 하나와 그 연결로 보낸 요청들. 끊기면 자기 요청만 실패로 알린다.
+     */
+    private final class Session {
+        final Socket socket;
+        final DataOutputStream out;
+        final DataInputStream in;
+        final Map<Integer, Object> pending = new ConcurrentHashMap<>();
+
+        Session(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        }
+
+        void write(ByteBuffer frame) throws IOException {
+            NetworkClient.writeFrame(out, frame);
+        }
+
+        void start() {
+            Thread reader = new Thread(this::readLoop, "control-listener");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private void readLoop() {
+            FrameInflater inflater = new FrameInflater();
+            String reason = "Server disconnected.";
+            try {
+                while (true) {
+                    ByteBuffer frame = MessageCodec.readFrame(in);
+                    int type = frame.get() & 0xFF;
+                    if (type == MessageType.COMPRESSED) {
+                        frame = inflater.inflate(frame);
+                        type = frame.get() & 0xFF;
+                    }
+                    if (type == MessageType.RESPONSE) {
+                        handleResponse(frame);
+                    } else if (type == MessageType.COMPRESSION) {
+                        logger.log(Level.INFO, "[클라이언트 로그] 제어 연결 압축 사용: {0}", frame.get() != 0);
+                    } else {
+                        logger.log(Level.FINE, "[클라이언트 로그] 제어 연결에서 무시한 메시지: {0}", type);
+                    }
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    reason = e.getMessage();
+                }
+            } finally {
+                inflater.end();
+                close();
+                failPending(reason);
+            }
+        }
+
+        private void handleResponse(ByteBuffer frame) {
+            int correlationId = frame.getInt();
+            int type = frame.get() & 0xFF;
+            Object response = MessageCodec.decode(type, frame);
+            if (pending.remove(correlationId) == null) {
+                logger.log(Level.WARNING, "[클라이언트 로그] 요청을 찾을 수 없는 응답: {0}", correlationId);
+                return;
+            }
+            dispatch(response);
+        }
+
+        private void failPending(String reason) {
+            for (Integer correlationId : pending.keySet()) {
+                Object request = pending.remove(correlationId);
+                if (request != null) {
+                    listener.onRequestFailed(request, reason);
+                }
+            }
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 이미 닫힌 소켓
+            }
+        }
+    }
+}
@@ -2,7 +2,9 @@ package org.newdawn.spaceinvaders.client;
 
 import org.newdawn.spaceinvaders.LocalServerManager;
 import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
 import org.newdawn.spaceinvaders.client.multiplay.PlayerInput;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
 import org.newdawn.spaceinvaders.client.multiplay.communication.LoginResponse;
 import org.newdawn.spaceinvaders.client.multiplay.communication.RankRequest;
 import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
@@ -14,7 +16,6 @@ import java.awt.event.*;
 import java.awt.image.BufferStrategy;
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,7 +24,8 @@ public class Game extends Canvas implements NetworkListener {
     private static final String DEFAULT_HOST = "localhost";
     private static final int SINGLE_PLAYER_PORT = 1234;
     private static final int MULTIPLAYER_DEFAULT_PORT = 12345;
-    private static final int RANK_SERVER_PORT = 12346;
+    // 기본 서버가 없을 때 로그인/랭킹 요청용으로 띄우는 로컬 서버 포트
+    private static final int CONTROL_SERVER_PORT = 12346;
 
     //그리기 변수
     private JFrame container;
@@ -32,9 +34,18 @@ public class Game extends Canvas implements NetworkListener {
     private transient BufferStrategy strategy;
     private static final String WINDOW_TITLE = "Space Invaders";
     private transient NetworkClient networkClient;
+    private transient ControlClient controlClient;
     private transient LocalServerManager localServerManager;
 
     private boolean wasPPressed = false;
+    private boolean wasF3Pressed = false;
+    private int inputSequence = 0;
+    private int lastSentButtons = -1;
+    private long lastInputSentNanos;
+    private static final long INPUT_KEEPALIVE_NANOS = 500_000_000L;
+    // -Dspaceinvaders.spectate=true 면 멀티플레이 접속을 관전으로 한다. 중계 서버 주소를 넣어도 된다.
+    private final boolean spectator = Boolean.getBoolean("spaceinvaders.spectate");
+    private final transient ShipPredictor shipPredictor = new ShipPredictor();
 
     // 게임 상태 변수
     private volatile boolean isGameLoopRunning = false;
@@ -45,6 +56,7 @@ public class Game extends Canvas implements NetworkListener {
 
     private transient LoginFrame loginFrame;
     private transient Process singlePlayServerProcess;
+    private transient Process controlServerProcess;
     private static final Logger logger = Logger.getLogger(Game.class.getName());
 
     public Game() {
@@ -55,8 +67,14 @@ public class Game extends Canvas implements NetworkListener {
         gamePanel.setLayout(null);
 
         this.gameRenderer = new GameRenderer();
+        this.gameRenderer.setShipPredictor(shipPredictor);
         this.networkClient = new NetworkClient(this);
+        this.gameRenderer.setNetworkStats(networkClient.getStats());
         this.localServerManager = new LocalServerManager();
+        this.controlClient = new ControlClient(this, DEFAULT_HOST, MULTIPLAYER_DEFAULT_PORT, () -> {
+            controlServerProcess = localServerManager.startServerProcess(CONTROL_SERVER_PORT, null, "[Control Server]");
+            return CONTROL_SERVER_PORT;
+        });
 
         this.setBounds(0, 0, 800, 600);
         gamePanel.add(this);
@@ -67,8 +85,10 @@ public class Game extends Canvas implements NetworkListener {
         container.addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
+                controlClient.close();
                 if (localServerManager != null){
                     localServerManager.cleanupServerProcess(singlePlayServerProcess);
+                    localServerManager.cleanupServerProcess(controlServerProcess);
                 }
                 System.exit(0);
             }
@@ -95,7 +115,8 @@ public class Game extends Canvas implements NetworkListener {
         new Thread(() -> {
             try {
 
-                networkClient.startMultiplay(serverAdress, port);
+                networkClient.startMultiplay(serverAdress, port,
+                        spectator ? JoinRequest.Role.SPECTATOR : JoinRequest.Role.PLAYER);
                 isGameLoopRunning = true;
                 isConnecting = false;
                 gameLoop();
@@ -143,25 +164,44 @@ public class Game extends Canvas implements NetworkListener {
     }
 
     private void handleInput(){
+        boolean isF3Pressed = inputManager.isF3Pressed();
+        if (isF3Pressed && !wasF3Pressed) {
+            gameRenderer.toggleNetworkOverlay();
+        }
+        wasF3Pressed = isF3Pressed;
+        if (spectator) {
+            return; // 관전자는 입력을 보내지 않는다.
+        }
+        int buttons = 0;
         if (inputManager.isLeftPressed()){
-            networkClient.sendToServer(new PlayerInput(PlayerInput.Action.MOVE_LEFT));
+            buttons |= InputState.LEFT;
         }
         if (inputManager.isRightPressed()){
-            networkClient.sendToServer(new PlayerInput(PlayerInput.Action.MOVE_RIGHT));
+            buttons |= InputState.RIGHT;
         }
         if (inputManager.isFirePressed()){
-            networkClient.sendToServer(new PlayerInput(PlayerInput.Action.FIRE));
+            buttons |= InputState.FIRE;
         }
-        if (!inputManager.isLeftPressed() && !inputManager.isRightPressed()){
-            networkClient.sendToServer(new PlayerInput(PlayerInput.Action.STOP));
+        // 버튼 상태가 바뀌었을 때와 keepalive 주기에만 보낸다. 서버는 받은 상태를 매 틱 적용한다.
+        long now = System.nanoTime();
+        if (buttons != lastSentButtons || now - lastInputSentNanos >= INPUT_KEEPALIVE_NANOS){
+            networkClient.sendToServer(new InputState(buttons, ++inputSequence));
+            lastSentButtons = buttons;
+            lastInputSentNanos = now;
+            // 서버 응답을 기다리지 않고 내 우주선을 먼저 움직인다.
+            shipPredictor.recordInput(inputSequence, InputState.direction(buttons), now);
         }
         boolean isPPressed = inputManager.isPPressed();
         if (isPPressed && !wasPPressed) {
-            networkClient.sendToServer(new PlayerInput(PlayerInput.Action.SKIP_STAGE));
+            sendInput(PlayerInput.Action.SKIP_STAGE);
         }
         wasPPressed = isPPressed;
     }
 
+    private void sendInput(PlayerInput.Action action){
+        networkClient.sendToServer(new PlayerInput(action, ++inputSequence));
+    }
+
 
     private boolean checkGameOver() {
         return (currentGameState != null && currentGameState.getRemainingLives() <= 0);
@@ -214,39 +254,8 @@ public class Game extends Canvas implements NetworkListener {
     }
 
     private void onRankClicked() {
-        Process serverProcess = null;
-        String tempPort = String.valueOf(RANK_SERVER_PORT);
-
-        try {
-            serverProcess = localServerManager.startServerProcess(
-                    RANK_SERVER_PORT,null,"[Rank Server]"
-            );
-            Thread.sleep(1000);
-
-            Object response = networkClient.sendRequestWithTempConnection(DEFAULT_HOST,RANK_SERVER_PORT,new RankRequest());
-            handleRankResponse(response);
-
-        } catch (IOException | ClassNotFoundException ex) {
-            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(container, "랭킹 정보를 가져오는 데 실패했습니다: " + ex.getMessage()));
-            ex.printStackTrace();
-        } catch (InterruptedException ex){
-            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(container, "랭킹 확인 작업이 중단되었습니다."));
-            Thread.currentThread().interrupt();
-        } finally {
-            localServerManager.cleanupServerProcess(serverProcess);
-        }
-    }
-
-    private void handleRankResponse(Object response) {
-        if (response instanceof RankResponse res) { // Java 16+ 패턴 매칭
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    new RankBoard(res.getRanking());
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(container, "랭킹 보드를 표시할 수 없습니다.");
-                }
-            });
-        }
+        // 응답은 onRankResponse 로 온다.
+        controlClient.request(new RankRequest());
     }
 
     private void onOnlineClicked() {
@@ -291,6 +300,8 @@ public class Game extends Canvas implements NetworkListener {
         isGameLoopRunning = false;
         isConnecting = false;
         currentGameState = null;
+        shipPredictor.reset();
+        lastSentButtons = -1;
         networkClient.disconnectIfConnected();
 
         localServerManager.cleanupServerProcess(this.singlePlayServerProcess);
@@ -328,7 +339,7 @@ public class Game extends Canvas implements NetworkListener {
     }
 
     public void performLoginOrSignUp(Object request) {
-        networkClient.performLoginOrSignUp(request);
+        controlClient.request(request);
     }
 
     @Override
@@ -340,10 +351,6 @@ public class Game extends Canvas implements NetworkListener {
         gameRenderer.setStrategy(strategy);
     }
 
-    public ObjectOutputStream getOutputStream(){
-        return networkClient.getOutputStream();
-    }
-
     private void showLoginFrame(){
         if (loginFrame == null || !loginFrame.frame.isVisible()){
             loginFrame = new LoginFrame(this);
@@ -354,6 +361,8 @@ public class Game extends Canvas implements NetworkListener {
     @Override
     public void onGameStateUpdate(GameState newState) {
         this.currentGameState = newState;
+        shipPredictor.reconcile(newState, System.nanoTime());
+        gameRenderer.onSnapshot(newState);
     }
 
     @Override
@@ -410,6 +419,11 @@ public class Game extends Canvas implements NetworkListener {
         });
     }
 
+    @Override
+    public void onRequestFailed(Object request, String reason) {
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(container, "서버 통신 오류: " + reason));
+    }
+
     public static void main(String[] argv) {
         Game game = new Game();
 
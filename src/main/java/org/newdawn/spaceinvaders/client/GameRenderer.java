@@ -1,9 +1,9 @@
 package org.newdawn.spaceinvaders.client;
 
 
-import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
 import org.newdawn.spaceinvaders.client.multiplay.GameState;
-import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.*;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
 
 import java.awt.*;
 import java.awt.image.BufferStrategy;
@@ -28,7 +28,13 @@ public class GameRenderer {
 
     private BufferStrategy strategy;
     private GameState currentGameState;
+    private final SnapshotInterpolator interpolator = new SnapshotInterpolator();
+    private ShipPredictor shipPredictor;
     private static final int MAX_LIVES = 3; // UI 그리기를 위한 상수
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private NetworkStats networkStats;
+    // F3 으로 켜고 끈다. -Dspaceinvaders.netOverlay=true 면 처음부터 켜져 있다.
+    private volatile boolean overlayVisible = Boolean.getBoolean("spaceinvaders.netOverlay");
 
     public GameRenderer(){
         loadSprites();
@@ -36,8 +42,36 @@ public class GameRenderer {
     public void setStrategy(BufferStrategy strategy){
         this.strategy = strategy;
     }
+    /**
+     * 내 우주선은 보간된 과거 위치 대신 예측 위치에 그립니다.
+     */
+    public void setShipPredictor(ShipPredictor shipPredictor){
+        this.shipPredictor = shipPredictor;
+    }
+    public void setNetworkStats(NetworkStats networkStats){
+        this.networkStats = networkStats;
+    }
+
+    public void toggleNetworkOverlay(){
+        overlayVisible = !overlayVisible;
+    }
+
+    /**
+     * 네트워크 스레드에서 새 스냅샷을 받을 때마다 호출합니다.
+     */
+    public void onSnapshot(GameState state){
+        interpolator.add(state, System.nanoTime());
+    }
+
     public void render(GameState state){
-        this.currentGameState = state;
+        if (state == null) {
+            interpolator.reset();
+            this.currentGameState = null;
+        } else {
+            // 최신 상태 대신 보간 버퍼에서 조금 과거의 부드러운 상태를 그린다.
+            GameState interpolated = interpolator.sample(System.nanoTime());
+            this.currentGameState = interpolated != null ? interpolated : state;
+        }
 
         if (strategy == null) return;
 
@@ -102,16 +136,37 @@ public class GameRenderer {
     private void drawGameState(Graphics2D g) {
         drawEntities(g);
         drawHud(g);
+        if (overlayVisible && networkStats != null) {
+            drawNetworkOverlay(g);
+        }
+    }
+
+    private void drawNetworkOverlay(Graphics2D g) {
+        networkStats.sample(System.nanoTime());
+        int rtt = networkStats.getRoundTripMicros();
+        String[] lines = {
+                "RTT    " + (rtt < 0 ? "-" : String.format("%.1f ms", rtt / 1000.0)),
+                "IN     " + String.format("%.1f KB/s", networkStats.getBytesPerSecond() / 1024.0),
+                "SNAP   " + networkStats.getSnapshotsPerSecond() + "/s" + (networkStats.isUdp() ? " UDP" : " TCP"),
+                "DECODE " + String.format("%.1f us", networkStats.getDecodeMicros())
+        };
+        g.setFont(OVERLAY_FONT);
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(640, 8, 150, 14 * lines.length + 8);
+        g.setColor(Color.GREEN);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 648, 24 + i * 14);
+        }
     }
 
     private void drawEntities(Graphics2D g) {
-        java.util.Map<Integer, Entity> entitiesToDraw = currentGameState.getEntities();
-        if (entitiesToDraw == null) {
+        WorldSnapshot world = currentGameState.getWorld();
+        if (world == null) {
             return;
         }
 
-        for (Entity entity : entitiesToDraw.values()) {
-            drawEntity(g, entity);
+        for (int i = 0; i < world.size(); i++) {
+            drawEntity(g, world, i);
         }
     }
     private void drawHud(Graphics2D g) {
@@ -126,23 +181,21 @@ public class GameRenderer {
         }
     }
 
-    private void drawEntity(Graphics2D g, Entity entity) {
+    private void drawEntity(Graphics2D g, WorldSnapshot world, int index) {
         Sprite spriteToDraw = null;
 
-        switch (entity.getType()) {
+        switch (world.getType(index)) {
             case PLAYER:
-                ServerPlayerShipEntity ship = (ServerPlayerShipEntity) entity;
-                spriteToDraw = shipSprite[ship.getUpgradeCount()];
+                spriteToDraw = shipSprite[world.getVariant(index)];
                 break;
             case ALIEN:
-                drawAlien(g, entity);
+                drawAlien(g, world, index);
                 break;
             case REFLECT_ALIEN:
                 spriteToDraw = this.reflectAlienSprite;
                 break;
             case SHOT:
-                ServerShotEntity shot = (ServerShotEntity) entity;
-                spriteToDraw = shotSprite[shot.getUpgradeLevel()];
+                spriteToDraw = shotSprite[world.getVariant(index)];
                 break;
             case ITEM:
                 spriteToDraw = this.itemSprite;
@@ -151,11 +204,10 @@ public class GameRenderer {
                 spriteToDraw = this.alienShotSprite;
                 break;
             case METEOR:
-                int frameNumber = ((ServerMeteoriteEntity) entity).getFrameNumber();
-                spriteToDraw = this.meteorFrames[frameNumber];
+                spriteToDraw = this.meteorFrames[world.getVariant(index)];
                 break;
             case BOSS:
-                drawBoss(g, entity);
+                drawBoss(g, world, index);
                 break;
             case LASER:
                 spriteToDraw = this.bossLaserSprite;
@@ -165,22 +217,28 @@ public class GameRenderer {
         }
 
         if (spriteToDraw != null) {
-            spriteToDraw.draw(g, (int) entity.getX(), (int) entity.getY());
+            int x = world.getX(index);
+            int y = world.getY(index);
+            if (shipPredictor != null && world.getType(index) == EntityType.PLAYER
+                    && world.getId(index) == shipPredictor.getShipId()) {
+                x = shipPredictor.getX(System.nanoTime());
+                y = shipPredictor.getY();
+            }
+            spriteToDraw.draw(g, x, y);
         }
     }
-    private void drawAlien(Graphics2D g, Entity entity) {
-        int frame = ((ServerAlienEntity) entity).getFrameNumber();
-        Sprite spriteToDraw = this.alienFrames[frame];
-        spriteToDraw.draw(g, (int) entity.getX(), (int) entity.getY());
+    private void drawAlien(Graphics2D g, WorldSnapshot world, int index) {
+        Sprite spriteToDraw = this.alienFrames[world.getVariant(index)];
+        int x = world.getX(index);
+        int y = world.getY(index);
+        spriteToDraw.draw(g, x, y);
 
         int barWidth = 40;
         int barHeight = 3;
-        int barx = (int) entity.getX();
-        int bary = (int) entity.getY() + (int) entity.getHeight() + 2;
+        int barx = x;
+        int bary = y + spriteToDraw.getHeight() + 2;
 
-        int alienMaxHp = entity.getMaxHP();
-        int alienCurrentHp = entity.getCurrentHP();
-        double healthPercent = (double) alienCurrentHp / alienMaxHp;
+        double healthPercent = (double) world.getHealth(index) / WorldSnapshot.FULL_HEALTH;
 
         g.setColor(Color.red);
         g.fillRect(barx, bary, barWidth, barHeight);
@@ -189,31 +247,32 @@ public class GameRenderer {
         g.fillRect(barx, bary, (int) (barWidth * healthPercent), barHeight);
     }
 
-    private void drawBoss(Graphics2D g, Entity entity) {
-        int bossFrame = ((ServerBossEntity) entity).getFrameNumber();
+    private void drawBoss(Graphics2D g, WorldSnapshot world, int index) {
+        int bossFrame = world.getVariant(index);
+        int x = world.getX(index);
+        int y = world.getY(index);
         Sprite baseSprite = this.bossSprite;
         Sprite effectSprite = (bossFrame == 1) ? this.bossChargingSprite : null;
 
         if (baseSprite != null) {
-            baseSprite.draw(g, (int) entity.getX(), (int) entity.getY());
+            baseSprite.draw(g, x, y);
             if (effectSprite != null) {
-                int effectX = (int) entity.getX() + (baseSprite.getWidth() / 2) - (effectSprite.getWidth() / 2);
-                int effectY = (int) entity.getY() + (baseSprite.getHeight() / 2) - (effectSprite.getHeight() / 2);
+                int effectX = x + (baseSprite.getWidth() / 2) - (effectSprite.getWidth() / 2);
+                int effectY = y + (baseSprite.getHeight() / 2) - (effectSprite.getHeight() / 2);
                 effectSprite.draw(g, effectX, effectY);
             }
         }
-        int maxHP = entity.getMaxHP();
-        int currentHP = entity.getCurrentHP();
+        int health = world.getHealth(index);
 
-        if (maxHP > 0) {
+        if (health > 0) {
             int bossBarWidth = 100;
             int bossBarHeight = 10;
-            int barX = (int) entity.getX() + (baseSprite.getWidth() / 2) - (bossBarWidth / 2);
-            int barY = (int) entity.getY() - 15;
+            int barX = x + (baseSprite.getWidth() / 2) - (bossBarWidth / 2);
+            int barY = y - 15;
 
             g.setColor(Color.RED);
             g.fillRect(barX, barY, bossBarWidth, bossBarHeight);
-            double bossHealthPercent = (double) currentHP / maxHP;
+            double bossHealthPercent = (double) health / WorldSnapshot.FULL_HEALTH;
             g.setColor(Color.GREEN);
             g.fillRect(barX, barY, (int) (bossBarWidth * bossHealthPercent), bossBarHeight);
             g.setColor(Color.WHITE);
@@ -10,6 +10,7 @@ public class InputManager extends KeyAdapter{
     private boolean firePressed = false;
     private boolean waitingForKeyPress = true;
     private boolean pPressed = false;
+    private boolean f3Pressed = false;
 
     @Override
     public void keyPressed(KeyEvent e) {
@@ -28,6 +29,9 @@ public class InputManager extends KeyAdapter{
         if (e.getKeyCode() == KeyEvent.VK_P) {
             pPressed = true;
         }
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            f3Pressed = true;
+        }
     }
 
     @Override
@@ -44,6 +48,9 @@ public class InputManager extends KeyAdapter{
         if (e.getKeyCode() == KeyEvent.VK_P) {
             pPressed = false;
         }
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            f3Pressed = false;
+        }
     }
 
     @Override
@@ -72,6 +79,8 @@ public class InputManager extends KeyAdapter{
 
     public boolean isPPressed() { return pPressed; }
 
+    public boolean isF3Pressed() { return f3Pressed; }
+
     public boolean isWaitingForKeyPress() {
         return waitingForKeyPress;
     }
@@ -1,25 +1,49 @@
 package org.newdawn.spaceinvaders.client;
 
 import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.communication.CompressionRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
 import org.newdawn.spaceinvaders.client.multiplay.communication.LoginResponse;
 import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
 import org.newdawn.spaceinvaders.client.multiplay.communication.SignUpResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SnapshotAck;
+import org.newdawn.spaceinvaders.client.multiplay.network.*;
 
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.*;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class NetworkClient {
 
+    // 끊긴 뒤 같은 세션으로 다시 붙기를 시도하는 시간. 서버의 재접속 유예 시간보다 짧게 잡는다.
+    private static final long RESUME_WAIT_MS = 10_000;
+    private static final long RESUME_RETRY_MS = 250;
+
     private final NetworkListener listener;
 
     private Socket socket;
-    private ObjectOutputStream outputStream;
-    private ObjectInputStream inputStream;
+    private DataOutputStream outputStream;
+    private DataInputStream inputStream;
     private Object connLock = new Object();
+    // 디코더는 다시 붙을 때마다 바뀌므로 바뀌지 않는 객체로 잠근다. 아래 두 필드는 이것을 잡고 쓴다.
+    private final Object snapshotLock = new Object();
+    private SnapshotDecoder snapshotDecoder;
+    private int lastSnapshotSequence;
+    // 서버가 UDP 를 제안하면 만든다. 게임플레이(스냅샷/입력/이벤트)만 UDP 로 주고받는다.
+    private volatile UdpClient udpClient;
+    private final NetworkStats stats = new NetworkStats();
+    private String address;
+    private int port;
+    // 서버가 참가 때 준 세션 토큰. 0 이면 끊겼을 때 다시 붙지 않는다.
+    private volatile long sessionToken;
+    private volatile boolean compressionRequested;
+    // disconnectIfConnected 로 직접 끊었으면 다시 붙지 않는다.
+    private volatile boolean closedByUser;
 
     Logger logger = Logger.getLogger(getClass().getName());
 
@@ -27,56 +51,213 @@ public class NetworkClient {
         this.listener = listener;
     }
 
+    public NetworkStats getStats(){
+        return stats;
+    }
+
     public void startMultiplay(String address, int port) throws IOException {
-        socket = new Socket(address, port);
-        socket.setTcpNoDelay(true);
+        startMultiplay(address, port, JoinRequest.Role.PLAYER);
+    }
 
-        // 스트림 생성 순서 + flush
-        outputStream = new ObjectOutputStream(socket.getOutputStream());
-        outputStream.flush();
-        inputStream  = new ObjectInputStream(socket.getInputStream());
+    /**
+     * @param role PLAYER 면 우주선을 받아 참가하고, SPECTATOR 면 스냅샷만 받습니다. 관전은 중계 서버에 붙어도 됩니다.
+     *             플레이어 연결이 잠깐 끊기면 세션 토큰으로 다시 붙어 같은 우주선을 이어서 조종합니다.
+     */
+    public void startMultiplay(String address, int port, JoinRequest.Role role) throws IOException {
+        stats.reset();
+        this.address = address;
+        this.port = port;
+        sessionToken = 0;
+        compressionRequested = false;
+        closedByUser = false;
+        connect(role);
+
+        if (Boolean.getBoolean("spaceinvaders.compression")) {
+            setCompression(true);
+        }
+    }
+
+    private void connect(JoinRequest.Role role) throws IOException {
+        Socket newSocket = new Socket(address, port);
+        newSocket.setTcpNoDelay(true);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+        synchronized (connLock) {
+            socket = newSocket;
+            outputStream = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+            inputStream  = in;
+        }
+        // 다시 붙을 때는 서버가 키프레임부터 보내므로 디코더와 받은 번호도 새로 시작한다.
+        // 이전 세션의 UDP 스레드가 아직 스냅샷을 넘기는 중일 수 있으므로 잠그고 바꾼다.
+        synchronized (snapshotLock) {
+            snapshotDecoder = new SnapshotDecoder();
+            lastSnapshotSequence = -1;
+        }
+        // 로그인/랭킹 요청은 ControlClient 가 따로 보내므로 이 연결은 게임 참가(또는 관전)용이다.
+        sendToServer(new JoinRequest(role, sessionToken));
 
         Thread listenerThread = new Thread(() -> {
-            final Socket s = socket;
-            final ObjectInputStream in = inputStream;
+            final Socket s = newSocket;
+            // 압축 스트림은 연결마다 따로 이어지므로 연결과 수명을 같이한다.
+            final FrameInflater inflater = new FrameInflater();
+            boolean lost = false;
             try {
                 logger.info("[클라이언트 로그] 서버로부터 메시지 수신 대기 시작.");
                 while (!Thread.currentThread().isInterrupted()
                         && s != null && !s.isClosed()) {
-                    Object msg = in.readObject();
-                    logger.log(Level.INFO,"[클라이언트 로그] 서버로부터 메시지 수신: {0}", msg.getClass().getSimpleName());
-
-                    if (msg instanceof String) {
-                        String signal = (String) msg;
-                        // "VICTORY" 신호인지 확인한다.
-                        if (signal.equals("VICTORY")) {
-
-                            listener.onVictory();
-                            break; // 신호를 처리했으니 리스너 스레드는 종료.
-                        }
-                    } else if (msg instanceof GameState) {
-                        listener.onGameStateUpdate((GameState) msg);
-                    } else if (msg instanceof LoginResponse loginResponseMsg) {
-                        listener.onLoginResponse(loginResponseMsg);
-                    } else if (msg instanceof SignUpResponse signUpResponseMsg) {
-                        listener.onSignUpResponse(signUpResponseMsg);
-                    } else if (msg instanceof RankResponse res ) {
-                        listener.onRankResponse(res);
+                    ByteBuffer frame = MessageCodec.readFrame(in);
+                    stats.recordBytes(MessageCodec.LENGTH_SIZE + frame.remaining());
+                    int type = frame.get() & 0xFF;
+                    if (type == MessageType.COMPRESSED) {
+                        frame = inflater.inflate(frame);
+                        type = frame.get() & 0xFF;
                     }
+                    logger.log(Level.FINE,"[클라이언트 로그] 서버로부터 메시지 수신: {0}", type);
+
+                    if (type == MessageType.VICTORY) {
+                        listener.onVictory();
+                        break; // 신호를 처리했으니 리스너 스레드는 종료.
+                    } else if (type == MessageType.SNAPSHOT) {
+                        handleSnapshot(frame);
+                    } else if (type == MessageType.PING) {
+                        long sentNanos = frame.getLong();
+                        stats.setRoundTripMicros(frame.getInt());
+                        sendFrame(MessageCodec.encodePong(sentNanos));
+                    } else if (type == MessageType.SESSION) {
+                        sessionToken = frame.getLong();
+                        logger.log(Level.INFO, "[클라이언트 로그] 우주선 {0} 세션 {1}",
+                                new Object[]{frame.getInt(), frame.get() != 0 ? "재개" : "시작"});
+                    } else if (type == MessageType.UDP_OFFER) {
+                        startUdp(s, frame.getInt());
+                    } else if (type == MessageType.COMPRESSION) {
+                        logger.log(Level.INFO, "[클라이언트 로그] 서버 압축 사용: {0}", frame.get() != 0);
+                    } else {
+                        dispatchResponse(MessageCodec.decode(type, frame));
+                    }
+                }
+            } catch (IOException ex) {
+                lost = !closedByUser;
+                if (!lost || sessionToken == 0) {
+                    ex.printStackTrace();
                 }
             } catch (Exception ex) {
                 ex.printStackTrace();
             } finally {
-                disconnectIfConnected();
-                listener.onDisconnected("Server disconnected.");
+                inflater.end();
+                if (!(lost && sessionToken != 0 && resume(role))) {
+                    closeConnection();
+                    listener.onDisconnected("Server disconnected.");
+                }
             }
         }, "server-listener");
         listenerThread.setDaemon(true);
         listenerThread.start();
     }
 
+    // 끊긴 연결을 정리하고 같은 세션 토큰으로 다시 붙는다. 리스너 스레드에서 부른다.
+    private boolean resume(JoinRequest.Role role) {
+        closeConnection();
+        logger.info("[클라이언트 로그] 서버 연결이 끊겨 다시 붙습니다.");
+        long deadline = System.currentTimeMillis() + RESUME_WAIT_MS;
+        while (!closedByUser && System.currentTimeMillis() < deadline) {
+            try {
+                connect(role);
+                if (compressionRequested) {
+                    sendToServer(new CompressionRequest(true));
+                }
+                return true;
+            } catch (IOException e) {
+                logger.log(Level.FINE, "[클라이언트 로그] 재접속 실패: {0}", e.getMessage());
+            }
+            try {
+                Thread.sleep(RESUME_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 서버 -> 클라이언트 압축을 이 연결에 대해 켜거나 끕니다. 서버가 허용하지 않으면 무시됩니다.
+     */
+    public boolean setCompression(boolean enabled) {
+        compressionRequested = enabled;
+        return sendToServer(new CompressionRequest(enabled));
+    }
+
+    private void startUdp(Socket tcpSocket, int token) throws IOException {
+        DatagramLink link = SimulatedLink.wrapIfConfigured(new UdpLink(new DatagramSocket()));
+        InetSocketAddress serverAddress = new InetSocketAddress(tcpSocket.getInetAddress(), tcpSocket.getPort());
+        UdpClient client = new UdpClient(link, serverAddress, token, new UdpClient.Listener() {
+            @Override
+            public void onSnapshot(ByteBuffer payload) {
+                stats.recordBytes(payload.remaining());
+                handleSnapshot(payload);
+            }
+
+            @Override
+            public void onReliable(ByteBuffer message) {
+                if ((message.get() & 0xFF) == MessageType.VICTORY) {
+                    listener.onVictory();
+                    disconnectIfConnected();
+                }
+            }
+        });
+        udpClient = client;
+        client.start();
+        stats.setUdp(true);
+        logger.info("[클라이언트 로그] UDP 게임플레이 전송 사용.");
+    }
+
+    /**
+     * TCP 와 UDP 양쪽에서 스냅샷이 올 수 있으므로 디코더는 한 번에 하나씩만 쓴다.
+     * 이미 받은 것보다 오래된 스냅샷은 버린다.
+     */
+    private void handleSnapshot(ByteBuffer payload) {
+        GameState state;
+        synchronized (snapshotLock) {
+            long start = System.nanoTime();
+            state = snapshotDecoder.decode(payload);
+            stats.recordSnapshot(System.nanoTime() - start);
+            if (state == null || state.getWorld().getSequence() <= lastSnapshotSequence) {
+                return;
+            }
+            lastSnapshotSequence = state.getWorld().getSequence();
+        }
+        listener.onGameStateUpdate(state);
+        UdpClient udp = udpClient;
+        if (udp != null) {
+            udp.acknowledgeInputs(state.getLastInputSequence());
+        }
+        if (udp != null && udp.isEstablished()) {
+            udp.sendSnapshotAck(state.getWorld().getSequence());
+        } else {
+            sendToServer(new SnapshotAck(state.getWorld().getSequence()));
+        }
+    }
+
+    private void dispatchResponse(Object msg) {
+        if (msg instanceof LoginResponse loginResponseMsg) {
+            listener.onLoginResponse(loginResponseMsg);
+        } else if (msg instanceof SignUpResponse signUpResponseMsg) {
+            listener.onSignUpResponse(signUpResponseMsg);
+        } else if (msg instanceof RankResponse res ) {
+            listener.onRankResponse(res);
+        }
+    }
+
     public void disconnectIfConnected() {
+        closedByUser = true;
+        closeConnection();
+    }
+
+    private void closeConnection() {
         synchronized (connLock) {
+            if (udpClient != null) {
+                udpClient.close();
+                udpClient = null;
+            }
             try { if (inputStream != null)  inputStream.close(); } catch (IOException ignored) {ignored.printStackTrace(); }
             try { if (outputStream != null) outputStream.close(); } catch (IOException ignored) {ignored.printStackTrace(); }
             try { if (socket != null)       socket.close(); }      catch (IOException ignored) {ignored.printStackTrace(); }
@@ -85,48 +266,27 @@ public class NetworkClient {
     }
 
     public synchronized boolean sendToServer(Object object){
+        // UDP 는 서버가 HELLO 에 답한 뒤에만 쓴다. 방화벽 등으로 UDP 가 막혀 있으면 입력도 TCP 로 보낸다.
+        UdpClient udp = udpClient;
+        if (udp != null && udp.isEstablished() && object instanceof InputState state) {
+            udp.sendInput(state);
+            return true;
+        }
+        return sendFrame(MessageCodec.encode(object));
+    }
+
+    private synchronized boolean sendFrame(ByteBuffer frame){
         if (outputStream == null) return false;
         try {
-            outputStream.writeObject(object);
-            outputStream.reset();
-            outputStream.flush();
+            writeFrame(outputStream, frame);
             return true;
         } catch (IOException e){
             return false;
         }
     }
 
-    public Object sendRequestWithTempConnection(String host, int port, Object request) throws IOException, ClassNotFoundException {
-        try (Socket tempSocket = new Socket(host, port);
-             ObjectOutputStream tempOut = new ObjectOutputStream(tempSocket.getOutputStream())) {
-
-            tempOut.writeObject(request);
-            tempOut.flush();
-
-            try (ObjectInputStream tempIn = new ObjectInputStream(tempSocket.getInputStream())) {
-                return tempIn.readObject();
-            }
-        }
-    }
-
-    public void performLoginOrSignUp(Object request) {
-        String host = "localhost";
-        int port = 12345;
-        new Thread(() -> {
-            try {
-                Object response = sendRequestWithTempConnection(host, port, request);
-                if (response instanceof LoginResponse loginResponse) {
-                    listener.onLoginResponse(loginResponse);
-                } else if (response instanceof SignUpResponse signUpResponse) {
-                    listener.onSignUpResponse(signUpResponse);
-                }
-            } catch (IOException | ClassNotFoundException ex) {
-                listener.onDisconnected("서버 통신 오류: " + ex.getMessage());
-            }
-        }).start();
-    }
-
-    public ObjectOutputStream getOutputStream(){
-        return outputStream;
+    static void writeFrame(DataOutputStream out, ByteBuffer frame) throws IOException {
+        out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        out.flush();
     }
 }
@@ -18,4 +18,9 @@ public interface NetworkListener {
     void onRankResponse(RankResponse response);
 
     void onDisconnected(String reason);
+
+    /**
+     * 제어 연결로 보낸 요청이 응답을 받지 못하고 실패했을 때 호출됩니다.
+     */
+    void onRequestFailed(Object request, String reason);
 }
@@ -0,0 +1,105 @@
+package org.newdawn.spaceinvaders.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 클라이언트 쪽 네트워크 진단 값. 수신 스레드들이 기록하고 렌더링 스레드가 {@link #sample(long)} 으로
+ * 1초 단위 값을 만들어 오버레이에 그립니다. RTT 는 서버가 PING 에 실어 보내 준 값입니다.
+ */
+public class NetworkStats {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+    private volatile int roundTripMicros = -1;
+    private volatile boolean udp;
+    // 아래는 sample() 을 부르는 렌더링 스레드만 쓴다.
+    private long windowStart = -1;
+    private long lastBytes;
+    private long lastSnapshots;
+    private long lastDecodeNanos;
+    private long bytesPerSecond;
+    private long snapshotsPerSecond;
+    private double decodeMicros;
+
+    public void recordBytes(int bytes) {
+        bytesReceived.addAndGet(bytes);
+    }
+
+    public void recordSnapshot(long decodeNanos) {
+        snapshots.incrementAndGet();
+        this.decodeNanos.addAndGet(decodeNanos);
+    }
+
+    /**
+     * @param micros 서버가 잰 왕복 시간. 아직 모르면 음수
+     */
+    public void setRoundTripMicros(int micros) {
+        this.roundTripMicros = micros;
+    }
+
+    public void setUdp(boolean udp) {
+        this.udp = udp;
+    }
+
+    /**
+     * 창이 1초를 넘었으면 초당 값을 새로 계산합니다.
+     */
+    public void sample(long now) {
+        if (windowStart < 0) {
+            windowStart = now;
+            return;
+        }
+        long elapsed = now - windowStart;
+        if (elapsed < WINDOW_NANOS) {
+            return;
+        }
+        long bytes = bytesReceived.get();
+        long count = snapshots.get();
+        long decode = decodeNanos.get();
+        bytesPerSecond = (bytes - lastBytes) * WINDOW_NANOS / elapsed;
+        snapshotsPerSecond = Math.round((double) (count - lastSnapshots) * WINDOW_NANOS / elapsed);
+        decodeMicros = count == lastSnapshots ? 0 : (decode - lastDecodeNanos) / 1000.0 / (count - lastSnapshots);
+        lastBytes = bytes;
+        lastSnapshots = count;
+        lastDecodeNanos = decode;
+        windowStart = now;
+    }
+
+    public void reset() {
+        bytesReceived.set(0);
+        snapshots.set(0);
+        decodeNanos.set(0);
+        roundTripMicros = -1;
+        udp = false;
+        windowStart = -1;
+        lastBytes = 0;
+        lastSnapshots = 0;
+        lastDecodeNanos = 0;
+        bytesPerSecond = 0;
+        snapshotsPerSecond = 0;
+        decodeMicros = 0;
+    }
+
+    public int getRoundTripMicros() {
+        return roundTripMicros;
+    }
+
+    public boolean isUdp() {
+        return udp;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getSnapshotsPerSecond() {
+        return snapshotsPerSecond;
+    }
+
+    public double getDecodeMicros() {
+        return decodeMicros;
+    }
+}
@@ -0,0 +1,132 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * 내 우주선 위치를 서버 응답을 기다리지 않고 미리 계산합니다.
+ * <p>
+ * 보낸 이동 입력을 번호와 함께 기억해 두고, 스냅샷이 오면 서버가 처리한 입력까지는 버린 뒤
+ * 서버 위치에서 아직 처리되지 않은 입력을 다시 적용해 현재 위치를 구합니다.
+ * 이동 속도와 화면 경계는 {@link ServerPlayerShipEntity} 와 같은 규칙을 씁니다.
+ * 네트워크 수신 스레드와 게임 루프가 함께 쓰므로 메서드는 동기화되어 있습니다.
+ */
+public class ShipPredictor {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    // 서버가 한동안 응답하지 않아도 무한정 쌓이지 않도록 제한
+    private static final int MAX_PENDING = 256;
+
+    private static final class PendingInput {
+        final int sequence;
+        final int direction;
+        long durationNanos;
+
+        PendingInput(int sequence, int direction) {
+            this.sequence = sequence;
+            this.direction = direction;
+        }
+    }
+
+    private final ArrayDeque<PendingInput> pending = new ArrayDeque<>();
+    private int shipId = -1;
+    private double baseX;
+    private int baseY;
+    private long lastInputNanos;
+    private int lastDirection;
+    private long reconciledNanos;
+
+    /**
+     * 이동 입력을 보낼 때마다 호출합니다.
+     * @param direction -1 왼쪽, 0 정지, 1 오른쪽
+     */
+    public synchronized void recordInput(int sequence, int direction, long nowNanos) {
+        PendingInput last = pending.peekLast();
+        if (last != null) {
+            last.durationNanos += nowNanos - lastInputNanos;
+        }
+        lastInputNanos = nowNanos;
+        lastDirection = direction;
+        if (pending.size() == MAX_PENDING) {
+            pending.pollFirst();
+        }
+        pending.addLast(new PendingInput(sequence, direction));
+    }
+
+    /**
+     * 스냅샷을 받을 때마다 호출해 서버 위치로 보정합니다.
+     */
+    public synchronized void reconcile(GameState state, long nowNanos) {
+        WorldSnapshot world = state.getWorld();
+        int index = indexOf(world, state.getPlayerShipId());
+        if (index < 0) {
+            shipId = -1;
+            return;
+        }
+        shipId = state.getPlayerShipId();
+        baseX = WorldSnapshot.toPixels(world.getFixedX(index));
+        baseY = world.getY(index);
+        reconciledNanos = nowNanos;
+        int acknowledged = state.getLastInputSequence();
+        while (!pending.isEmpty() && pending.peekFirst().sequence <= acknowledged) {
+            pending.pollFirst();
+        }
+    }
+
+    public synchronized boolean hasShip() {
+        return shipId >= 0;
+    }
+
+    public synchronized int getShipId() {
+        return shipId;
+    }
+
+    public synchronized int getY() {
+        return baseY;
+    }
+
+    /**
+     * 서버 위치에 처리되지 않은 입력을 순서대로 적용한 현재 예측 위치.
+     */
+    public synchronized int getX(long nowNanos) {
+        double x = baseX;
+        if (pending.isEmpty()) {
+            // 입력이 모두 처리됐으면 서버도 마지막 방향으로 계속 움직이고 있다.
+            x = ServerPlayerShipEntity.clampX(x + move(lastDirection, nowNanos - reconciledNanos));
+            return (int) Math.round(x);
+        }
+        Iterator<PendingInput> it = pending.iterator();
+        while (it.hasNext()) {
+            PendingInput input = it.next();
+            long duration = it.hasNext() ? input.durationNanos : input.durationNanos + (nowNanos - lastInputNanos);
+            x = ServerPlayerShipEntity.clampX(x + move(input.direction, duration));
+        }
+        return (int) Math.round(x);
+    }
+
+    private static double move(int direction, long durationNanos) {
+        return direction * ServerPlayerShipEntity.MOVE_SPEED * durationNanos / NANOS_PER_SECOND;
+    }
+
+    public synchronized void reset() {
+        pending.clear();
+        shipId = -1;
+        lastDirection = 0;
+    }
+
+    private static int indexOf(WorldSnapshot world, int id) {
+        if (id < 0) {
+            return -1;
+        }
+        for (int i = 0; i < world.size(); i++) {
+            if (world.getId(i) == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,141 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.Server;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
+
+/**
+ * 클라이언트 보간 버퍼. 서버는 시뮬레이션(120Hz)보다 낮은 주기로 스냅샷을 보내므로
+ * 받은 스냅샷을 조금 늦게 재생하면서 두 스냅샷 사이의 위치를 선형 보간해 그립니다.
+ * <p>
+ * 시간 축은 스냅샷에 담긴 서버 틱입니다. 도착 시각과 서버 시간의 차이(지연)를 추정해 두고,
+ * 현재 시각에서 그 지연과 스냅샷 간격 두 개만큼 뺀 지점을 그립니다.
+ * 네트워크 수신 스레드와 렌더링 스레드가 함께 쓰므로 메서드는 동기화되어 있습니다.
+ */
+public class SnapshotInterpolator {
+
+    private static final int BUFFER_SIZE = 8;
+    private static final long NANOS_PER_TICK = 1_000_000_000L / Server.TICKS_PER_SECOND;
+    // 스냅샷 몇 개 분량만큼 늦게 그릴지. 하나가 늦게 오거나 빠져도 끊기지 않도록 2개.
+    // 서버의 지연 보상도 이 값을 쓰므로 Server 쪽 상수를 따른다.
+    private static final int DELAY_SNAPSHOTS = Server.INTERPOLATION_DELAY_SNAPSHOTS;
+    // 이보다 멀리 움직였으면 리스폰 같은 순간이동으로 보고 보간하지 않는다.
+    private static final int SNAP_DISTANCE = 100;
+    private static final int SNAP_DISTANCE_FIXED = SNAP_DISTANCE << WorldSnapshot.FRACTION_BITS;
+    // 지연 추정치가 늘어나는 쪽으로는 천천히 따라간다.
+    private static final int OFFSET_SMOOTHING = 32;
+
+    private final GameState[] states = new GameState[BUFFER_SIZE];
+    private final long[] serverTimes = new long[BUFFER_SIZE];
+    private int head = 0;
+    private int count = 0;
+
+    private boolean hasOffset = false;
+    private long offset;
+    private long interval = NANOS_PER_TICK;
+
+    private final WorldSnapshot blended = new WorldSnapshot();
+
+    /**
+     * @param receivedNanos 스냅샷을 받은 시각 ({@link System#nanoTime()})
+     */
+    public synchronized void add(GameState state, long receivedNanos) {
+        WorldSnapshot world = state.getWorld();
+        long serverTime = world.getTick() * NANOS_PER_TICK;
+        if (count > 0) {
+            long newest = serverTimes[(head + count - 1) % BUFFER_SIZE];
+            if (serverTime <= newest) {
+                if (serverTime < newest) {
+                    reset(); // 서버 재시작 등으로 틱이 되돌아감
+                } else {
+                    return;
+                }
+            } else {
+                interval = serverTime - newest;
+            }
+        }
+        updateOffset(receivedNanos - serverTime);
+
+        if (count == BUFFER_SIZE) {
+            head = (head + 1) % BUFFER_SIZE;
+            count--;
+        }
+        int slot = (head + count) % BUFFER_SIZE;
+        states[slot] = state;
+        serverTimes[slot] = serverTime;
+        count++;
+    }
+
+    /**
+     * 지금 그려야 할 상태를 돌려줍니다. 반환된 월드는 다음 호출 때 재사용되므로 바로 그려야 합니다.
+     * @return 받은 스냅샷이 없으면 null
+     */
+    public synchronized GameState sample(long nowNanos) {
+        if (count == 0) {
+            return null;
+        }
+        long renderTime = nowNanos - offset - interval * DELAY_SNAPSHOTS;
+        int oldest = head;
+        if (renderTime <= serverTimes[oldest]) {
+            return states[oldest];
+        }
+        for (int i = 1; i < count; i++) {
+            int to = (head + i) % BUFFER_SIZE;
+            if (renderTime <= serverTimes[to]) {
+                int from = (head + i - 1) % BUFFER_SIZE;
+                double alpha = (double) (renderTime - serverTimes[from]) / (serverTimes[to] - serverTimes[from]);
+                return blend(states[from], states[to], alpha);
+            }
+        }
+        // 버퍼를 다 따라잡았으면 외삽하지 않고 최신 스냅샷을 그대로 쓴다.
+        return states[(head + count - 1) % BUFFER_SIZE];
+    }
+
+    public synchronized void reset() {
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            states[i] = null;
+        }
+        head = 0;
+        count = 0;
+        hasOffset = false;
+        interval = NANOS_PER_TICK;
+    }
+
+    private void updateOffset(long sample) {
+        if (!hasOffset || sample < offset) {
+            // 더 빨리 도착한 스냅샷이 실제 지연에 더 가깝다.
+            offset = sample;
+            hasOffset = true;
+        } else {
+            offset += (sample - offset) / OFFSET_SMOOTHING;
+        }
+    }
+
+    private GameState blend(GameState fromState, GameState toState, double alpha) {
+        WorldSnapshot from = fromState.getWorld();
+        WorldSnapshot to = toState.getWorld();
+        blended.clear(to.getSequence());
+        blended.setTick(to.getTick());
+        int f = 0;
+        for (int t = 0; t < to.size(); t++) {
+            int id = to.getId(t);
+            while (f < from.size() && from.getId(f) < id) {
+                f++;
+            }
+            // 양자화된 고정소수점 그대로 보간해 픽셀 미만 움직임도 살린다.
+            int x = to.getFixedX(t);
+            int y = to.getFixedY(t);
+            if (f < from.size() && from.getId(f) == id && from.getType(f) == to.getType(t)) {
+                int fx = from.getFixedX(f);
+                int fy = from.getFixedY(f);
+                if (Math.abs(x - fx) + Math.abs(y - fy) <= SNAP_DISTANCE_FIXED) {
+                    x = (int) Math.round(fx + (x - fx) * alpha);
+                    y = (int) Math.round(fy + (y - fy) * alpha);
+                }
+            }
+            blended.add(id, to.getType(t), x, y, to.getHealth(t), to.getVariant(t));
+        }
+        return new GameState(blended, toState.getCurrentScore(), toState.getRemainingLives(), toState.getStatus(),
+                toState.getPlayerShipId(), toState.getLastInputSequence());
+    }
+}
@@ -1,55 +1,123 @@
 package org.newdawn.spaceinvaders.client.multiplay;
 
 import org.newdawn.spaceinvaders.client.multiplay.communication.*;
+import org.newdawn.spaceinvaders.client.multiplay.network.Connection;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageCodec;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageType;
+import org.newdawn.spaceinvaders.client.multiplay.network.UdpServer;
 
-import java.io.*;
-import java.net.Socket;
+import javax.management.ObjectName;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class ClientHandler implements Runnable {
+/**
+ * 연결 하나에 대한 서버 측 처리. 메시지는 NetworkServer 의 IO 스레드에서 전달되므로
+ * DB 를 쓰는 로그인/회원가입/랭킹 요청은 서버의 DB 작업 스레드로 넘깁니다.
+ * 연결은 첫 JOIN 메시지로 역할이 정해지며, CONTROL 연결은 우주선 없이 요청/응답만 주고받습니다.
+ * SPECTATOR 연결은 우주선 없이 스냅샷만 받습니다.
+ * <p>
+ * 참가한 플레이어는 세션 토큰을 받습니다. 연결이 끊겨도 유예 시간 동안 우주선과 점수가 남고,
+ * 같은 토큰으로 다시 JOIN 하면 새 연결이 그 우주선을 넘겨받습니다.
+ */
+public class ClientHandler {
 
     private ServerGame serverGame;
-    private Socket socket;
+    private Connection connection;
     private Server server;
-    private ObjectOutputStream outputStream;
-    private ObjectInputStream inputStream;
-    private int playershipId;
+    private volatile int playershipId;
     private Login loginHost;
-    private boolean joined = false;
+    private volatile boolean joined = false;
     private String pendingUsername = null;
+    private volatile int ackedSequence = -1;
+    // UDP 세션 토큰. 0 이면 UDP 를 쓰지 않고 모두 TCP 로 보낸다.
+    private volatile int udpToken = 0;
+    private boolean victorySent = false;
+    private volatile JoinRequest.Role role;
+    // 세션 토큰. 0 이면 세션이 없다.
+    private volatile long sessionToken = 0;
+    // 받은 입력 번호 중 가장 큰 값. 끊길 때 버튼을 놓는 입력에 쓴다.
+    private volatile int lastInputSequence = -1;
+    // 입력은 TCP(IO 스레드)와 UDP(수신 스레드) 양쪽에서 올 수 있으므로 번호 비교와 적용을 묶는다.
+    private final Object inputLock = new Object();
+    private final ClientStats stats = new ClientStats(this);
+    private ObjectName mbeanName;
+    // 상관 ID 없이 온 요청. 응답도 봉투 없이 보낸다.
+    private static final int NO_CORRELATION = -1;
     private static final Logger logger = Logger.getLogger(ClientHandler.class.getName());
 
 
-    public ClientHandler(Server server,ServerGame serverGame, Socket socket, int playershipId, Login loginHost) {
-        try {
-            this.socket = socket;
-            this.server = server;
-            this.serverGame = serverGame;
-            this.outputStream = new ObjectOutputStream(socket.getOutputStream());
-            this.outputStream.flush();
-            this.inputStream = new ObjectInputStream(socket.getInputStream());
-            this.playershipId = playershipId;
-            this.loginHost = loginHost;
-        } catch (IOException e) {
-            e.printStackTrace();
+    public ClientHandler(Server server, ServerGame serverGame, Connection connection, int playershipId, Login loginHost) {
+        this.connection = connection;
+        this.server = server;
+        this.serverGame = serverGame;
+        this.playershipId = playershipId;
+        this.loginHost = loginHost;
+    }
+
+    public void onConnected() {
+        logger.log(Level.FINE, "[핸들러 로그] 연결 역할 대기: {0}", connection.getRemoteAddress());
+    }
+
+    private void offerUdpSession() {
+        UdpServer udpServer = server.getUdpServer();
+        if (udpServer == null) {
+            return;
         }
+        int token;
+        do {
+            token = ThreadLocalRandom.current().nextInt();
+        } while (token == 0);
+        udpServer.register(token, new UdpServer.Listener() {
+            @Override
+            public void onInputState(InputState state) {
+                handleInputState(state);
+            }
+
+            @Override
+            public void onSnapshotAck(int sequence) {
+                handleSnapshotAck(new SnapshotAck(sequence));
+            }
+        });
+        this.udpToken = token;
+        connection.send(MessageCodec.encodeUdpOffer(token));
     }
 
-    public void run() {
-        try {
-           handleSinglePlayerAutoJoin();
-            while (!socket.isClosed()) {
-                Object receivedInput = inputStream.readObject();
-                processMessage(receivedInput);
+    public void onMessage(int type, ByteBuffer payload) {
+        if (type == MessageType.PONG) {
+            stats.recordRoundTrip(System.nanoTime() - payload.getLong());
+        } else if (type == MessageType.REQUEST) {
+            int correlationId = payload.getInt();
+            int innerType = payload.get() & 0xFF;
+            processMessage(MessageCodec.decode(innerType, payload), correlationId);
+        } else {
+            processMessage(MessageCodec.decode(type, payload), NO_CORRELATION);
+        }
+    }
 
+    public void onDisconnected() {
+        // 제어/관전 연결이거나 참가 전에 끊겼으면 지울 우주선이 없다.
+        if (ownsShip()) {
+            if (sessionToken == 0) {
+                // 세션이 없으면 우주선을 바로 제거한다.
+                serverGame.removePlayerEntity(this.playershipId);
+            } else if (server.getSessions().detach(sessionToken, this, System.nanoTime())) {
+                // 다시 붙을 때까지 우주선과 점수를 남겨 둔다. 누르던 버튼은 놓은 상태로 바꾼다.
+                serverGame.processPlayerInput(this.playershipId, new InputState(0, lastInputSequence));
+                logger.log(Level.INFO, "[핸들러 로그] 연결 끊김. 우주선 {0} 를 재접속 대기 상태로 둡니다.", playershipId);
             }
-        } catch (IOException | ClassNotFoundException e) {
-            // 클라이언트 연결이 끊기는 등 예외가 발생하면 루프가 종료되고 이 부분이 실행됩니다.
-            serverGame.removeEntity(this.playershipId);
-        } finally {
-            cleanupResources();
+            // 세션을 새 연결이 넘겨받았으면 우주선은 그대로 둔다.
+        }
+        if (udpToken != 0) {
+            server.getUdpServer().unregister(udpToken);
         }
+        server.onClientDisconnected(this);
+    }
+
+    private boolean ownsShip() {
+        return role == JoinRequest.Role.PLAYER && joined && playershipId >= 0;
     }
 
     private void handleSinglePlayerAutoJoin() {
@@ -59,26 +127,80 @@ public class ClientHandler implements Runnable {
             this.playershipId = serverGame.spawnPlayerEntity();
             String name = "Player 1";
             server.getPlayerDataMap().putIfAbsent(this.playershipId, new PlayerData(name));
+            this.sessionToken = server.getSessions().issue(this.playershipId, this);
+            connection.send(MessageCodec.encodeSession(sessionToken, playershipId, false));
             logger.info("[핸들러 로그] 싱글플레이어 생성 완료.");
             server.onPlayerJoined(this);
         }
     }
 
-    private void processMessage(Object receivedInput) throws IOException {
+    private void processMessage(Object receivedInput, int correlationId) {
         if (receivedInput instanceof LoginRequest req) {
-            handleLoginRequest(req);
+            server.submitDatabaseTask(() -> handleLoginRequest(req, correlationId));
         } else if (receivedInput instanceof SignUpRequest req) {
-            handleSignUpRequest(req);
+            server.submitDatabaseTask(() -> handleSignUpRequest(req, correlationId));
         } else if (receivedInput instanceof RankRequest) {
-            handleRankRequest();
+            server.submitDatabaseTask(() -> handleRankRequest(correlationId));
+        } else if (receivedInput instanceof JoinRequest req) {
+            handleJoinRequest(req);
+        } else if (receivedInput instanceof InputState inputState) {
+            handleInputState(inputState);
         } else if (receivedInput instanceof PlayerInput playerInput) {
             handlePlayerInput(playerInput);
+        } else if (receivedInput instanceof SnapshotAck ack) {
+            handleSnapshotAck(ack);
+        } else if (receivedInput instanceof CompressionRequest req) {
+            handleCompressionRequest(req);
         } else {
             logger.log(Level.WARNING, "알 수 없는 타입의 메시지 수신: {0}", receivedInput.getClass().getName());
         }
     }
 
-    private void handleLoginRequest(LoginRequest req) throws IOException {
+    private void handleJoinRequest(JoinRequest req) {
+        if (role != null) {
+            logger.log(Level.WARNING, "[핸들러 로그] 역할이 이미 정해진 연결의 JOIN 무시: {0}", role);
+            return;
+        }
+        role = req.getRole();
+        if (role == JoinRequest.Role.PLAYER) {
+            offerUdpSession();
+            if (req.getSessionToken() != 0 && resumeSession(req.getSessionToken())) {
+                return;
+            }
+            handleSinglePlayerAutoJoin();
+        } else if (role == JoinRequest.Role.SPECTATOR) {
+            logger.log(Level.INFO, "[핸들러 로그] 관전자 연결: {0}", connection.getRemoteAddress());
+        } else {
+            logger.log(Level.INFO, "[핸들러 로그] 제어 연결: {0}", connection.getRemoteAddress());
+        }
+    }
+
+    /**
+     * 끊겼던 세션의 우주선에 이 연결을 다시 붙입니다. 기준 스냅샷이 없으므로 다음 스냅샷은 키프레임으로 갑니다.
+     *
+     * @return 토큰이 만료되어 새로 참가해야 하면 false
+     */
+    private boolean resumeSession(long token) {
+        int shipId = server.getSessions().resume(token, this, ClientHandler::supersede);
+        if (shipId < 0) {
+            logger.log(Level.INFO, "[핸들러 로그] 만료된 세션 토큰. 새로 참가합니다: {0}", connection.getRemoteAddress());
+            return false;
+        }
+        this.playershipId = shipId;
+        this.sessionToken = token;
+        this.joined = true;
+        connection.send(MessageCodec.encodeSession(token, shipId, true));
+        server.onSessionResumed(this);
+        logger.log(Level.INFO, "[핸들러 로그] 세션 재접속: 우주선 {0}, {1}", new Object[]{shipId, connection.getRemoteAddress()});
+        return true;
+    }
+
+    // 같은 세션으로 새 연결이 들어왔는데 이 연결이 아직 닫히지 않은 경우
+    private void supersede() {
+        connection.close();
+    }
+
+    private void handleLoginRequest(LoginRequest req, int correlationId) {
         boolean ok = loginHost.login(req.getUsername(), req.getPassword());
         if (ok) {
             String newName = req.getUsername();
@@ -87,26 +209,44 @@ public class ClientHandler implements Runnable {
                 return playerData;
             });
         }
-        outputStream.writeObject(new LoginResponse(ok, req.getUsername()));
+        reply(correlationId, new LoginResponse(ok, req.getUsername()));
     }
 
-    private void handleSignUpRequest(SignUpRequest req) throws IOException {
+    private void handleSignUpRequest(SignUpRequest req, int correlationId) {
         boolean ok = loginHost.signUp(req.getUsername(), req.getPassword());
         if (ok) {
             this.pendingUsername = req.getUsername();
         }
-        outputStream.writeObject(new SignUpResponse(ok, ok ? "Sign up successful!" : "Username already exists"));
+        reply(correlationId, new SignUpResponse(ok, ok ? "Sign up successful!" : "Username already exists"));
     }
 
-    private void handleRankRequest() throws IOException {
-        RankResponse response = new RankResponse(loginHost.getAllScore());
-        outputStream.writeObject(response);
+    private void handleRankRequest(int correlationId) {
+        reply(correlationId, new RankResponse(loginHost.getAllScore()));
     }
 
-    private void handlePlayerInput(PlayerInput playerInput) {
+    private void reply(int correlationId, Object response) {
+        if (correlationId == NO_CORRELATION) {
+            connection.send(MessageCodec.encode(response));
+        } else {
+            connection.send(MessageCodec.encodeResponse(correlationId, response));
+        }
+    }
+
+    private void handleCompressionRequest(CompressionRequest req) {
+        boolean enabled = req.isEnabled() && server.isCompressionAllowed();
+        connection.setCompression(enabled);
+        connection.send(MessageCodec.encodeFlag(MessageType.COMPRESSION, enabled));
+        logger.log(Level.INFO, "[핸들러 로그] 압축 {0}: {1}",
+                new Object[]{enabled ? "사용" : "사용 안 함", connection.getRemoteAddress()});
+    }
+
+    private boolean ensureJoined() {
+        if (role == JoinRequest.Role.SPECTATOR) {
+            return false; // 관전자의 입력은 무시하고 우주선도 만들지 않는다.
+        }
         if (!joined) {
             if (pendingUsername == null) {
-                return; // 아직 이름이 없으면 입력을 무시
+                return false; // 아직 이름이 없으면 입력을 무시
             }
             joined = true;
             if (this.playershipId < 0) {
@@ -115,36 +255,105 @@ public class ClientHandler implements Runnable {
             server.getPlayerDataMap().put(this.playershipId, new PlayerData(pendingUsername));
             server.onPlayerJoined(this);
         }
-        serverGame.processPlayerInput(this.playershipId, playerInput);
+        return true;
+    }
+
+    private void handlePlayerInput(PlayerInput playerInput) {
+        if (!ensureJoined()) {
+            return;
+        }
+        synchronized (inputLock) {
+            lastInputSequence = Math.max(lastInputSequence, playerInput.getSequence());
+            serverGame.processPlayerInput(this.playershipId, playerInput);
+        }
     }
 
-    private void cleanupResources() {
-        // finally 블록에 있던 복잡한 try-catch-ignored 로직
-        try { if (inputStream != null) inputStream.close(); } catch (IOException ignored) { /* ignored */ }
-        try { if (outputStream != null) outputStream.close(); } catch (IOException ignored) { /* ignored */ }
-        try { if (socket != null) socket.close(); } catch (IOException ignored) { /* ignored */ }
+    private void handleInputState(InputState inputState) {
+        if (!ensureJoined()) {
+            return;
+        }
+        synchronized (inputLock) {
+            // 늦게 도착한 예전 버튼 상태가 새 상태를 덮지 않도록 버린다. (UdpServer 와 같은 규칙)
+            if (inputState.getSequence() <= lastInputSequence) {
+                return;
+            }
+            lastInputSequence = inputState.getSequence();
+            serverGame.processPlayerInput(this.playershipId, inputState);
+        }
+    }
 
-        // 연결 종료 사실을 서버에 알리는 것도 여기서 처리
-        server.onClientDisconnected(this);
+    private void handleSnapshotAck(SnapshotAck ack) {
+        // 순서가 뒤바뀐 ack 로 기준이 과거로 돌아가지 않도록 최신 값만 유지
+        if (ack.getSequence() > ackedSequence) {
+            ackedSequence = ack.getSequence();
+        }
+    }
+
+    /**
+     * 연결 확인 겸 RTT 를 재는 PING 을 보냅니다. 지난번에 잰 RTT 도 함께 알려 클라이언트가 표시할 수 있게 합니다.
+     */
+    public void sendPing(){
+        long roundTrip = stats.getRoundTripNanos();
+        connection.send(MessageCodec.encodePing(System.nanoTime(), roundTrip < 0 ? -1 : (int) (roundTrip / 1000)));
+    }
+
+    public ClientStats getStats(){ return stats; }
+
+    void setMBeanName(ObjectName mbeanName){ this.mbeanName = mbeanName; }
+
+    ObjectName getMBeanName(){ return mbeanName; }
+
+    public SocketAddress getRemoteAddress(){ return connection.getRemoteAddress(); }
+
+    public JoinRequest.Role getRole(){ return role; }
+
+    public boolean isUdp(){ return udpToken != 0 && server.getUdpServer().isEstablished(udpToken); }
+
+    public long getBytesReceived(){
+        return connection.getBytesRead() + (udpToken != 0 ? server.getUdpServer().getBytesReceived(udpToken) : 0);
+    }
+
+    public long getBytesSent(){
+        return connection.getBytesWritten() + (udpToken != 0 ? server.getUdpServer().getBytesSent(udpToken) : 0);
     }
 
+    public long getWriteStallNanos(){ return connection.getWriteStallNanos(); }
+
     public int getPlayershipId(){ return playershipId; }
 
-    public void sendUpdate(Object state){
-        try {
-            logger.info("[핸들러 로그] 클라이언트로 GameState 업데이트 전송 시도...");
-            outputStream.writeObject(state);
-            outputStream.reset();
-            outputStream.flush();
-        } catch (IOException e) {
-            try{
-                socket.close();
-            } catch (IOException ex){
-                // intentionally ignored
-            }
-            server.onClientDisconnected(this);
+    /** 게임에 참가한 플레이어 연결인지 */
+    public boolean isJoined(){ return joined; }
+
+    public boolean isSpectator(){ return role == JoinRequest.Role.SPECTATOR; }
+
+    /** 참가한 플레이어와 관전자만 스냅샷과 승리 신호를 받는다. */
+    public boolean receivesSnapshots(){ return joined || isSpectator(); }
+
+    public int getAckedSequence(){ return ackedSequence; }
+
+    public int getOutboundQueueDepth(){ return connection.getQueueDepth(); }
+
+    public long getDroppedSnapshots(){ return connection.getDroppedSnapshots(); }
+
+    /** 아직 보내지 못한 스냅샷은 이 스냅샷으로 대체된다. 두 버퍼는 복사되므로 반환 뒤 다시 써도 된다. */
+    public void sendSnapshot(ByteBuffer header, ByteBuffer world){
+        // UDP 세션이 있으면 UDP 로, 데이터그램에 안 들어가는 큰 스냅샷이나 세션이 없으면 TCP 로 보낸다.
+        if (udpToken != 0 && server.getUdpServer().sendSnapshot(udpToken, header, world)) {
+            return;
+        }
+        connection.sendSnapshot(header, world);
+    }
+
+    public void sendVictory(){
+        if (victorySent) {
+            return;
+        }
+        victorySent = true;
+        if (udpToken != 0 && server.getUdpServer().sendReliable(udpToken, MessageType.VICTORY, new byte[0])) {
+            return;
         }
+        connection.send(MessageCodec.encodeSignal(MessageType.VICTORY));
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+/**
+ * {@link ClientHandler} 하나의 진단 값. 누적 값은 연결에서 읽고, 초당 값은 {@link #sample()} 때 계산합니다.
+ */
+public class ClientStats implements ClientStatsMBean {
+
+    private static final double SMOOTHING = 0.125;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final ClientHandler handler;
+    private volatile long roundTripNanos = -1;
+    private volatile double smoothedRoundTripNanos = -1;
+    private volatile long bytesInPerSecond;
+    private volatile long bytesOutPerSecond;
+    private volatile long writeStallNanosPerSecond;
+    // 아래는 sample() 을 부르는 통계 스레드만 쓴다.
+    private long lastSampleNanos = System.nanoTime();
+    private long lastBytesIn;
+    private long lastBytesOut;
+    private long lastWriteStallNanos;
+
+    public ClientStats(ClientHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * PONG 을 받은 IO 스레드에서 호출합니다.
+     */
+    public void recordRoundTrip(long nanos) {
+        roundTripNanos = nanos;
+        double smoothed = smoothedRoundTripNanos;
+        smoothedRoundTripNanos = smoothed < 0 ? nanos : smoothed + SMOOTHING * (nanos - smoothed);
+    }
+
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    /**
+     * @return 평활화한 RTT. 아직 재지 못했으면 음수
+     */
+    public long getSmoothedRoundTripNanos() {
+        return (long) smoothedRoundTripNanos;
+    }
+
+    /**
+     * 지난 호출 이후의 바이트 수와 대기 시간을 초당 값으로 바꿉니다. 1초마다 한 스레드에서만 호출합니다.
+     */
+    public void sample() {
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - lastSampleNanos);
+        long bytesIn = handler.getBytesReceived();
+        long bytesOut = handler.getBytesSent();
+        long stall = handler.getWriteStallNanos();
+        bytesInPerSecond = (bytesIn - lastBytesIn) * 1_000_000_000L / elapsed;
+        bytesOutPerSecond = (bytesOut - lastBytesOut) * 1_000_000_000L / elapsed;
+        writeStallNanosPerSecond = (stall - lastWriteStallNanos) * 1_000_000_000L / elapsed;
+        lastBytesIn = bytesIn;
+        lastBytesOut = bytesOut;
+        lastWriteStallNanos = stall;
+        lastSampleNanos = now;
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return String.valueOf(handler.getRemoteAddress());
+    }
+
+    @Override
+    public String getRole() {
+        return String.valueOf(handler.getRole());
+    }
+
+    @Override
+    public int getPlayerShipId() {
+        return handler.getPlayershipId();
+    }
+
+    @Override
+    public boolean isUdp() {
+        return handler.isUdp();
+    }
+
+    @Override
+    public double getRoundTripMillis() {
+        long nanos = roundTripNanos;
+        return nanos < 0 ? -1 : nanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getSmoothedRoundTripMillis() {
+        double nanos = smoothedRoundTripNanos;
+        return nanos < 0 ? -1 : nanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long getBytesInPerSecond() {
+        return bytesInPerSecond;
+    }
+
+    @Override
+    public long getBytesOutPerSecond() {
+        return bytesOutPerSecond;
+    }
+
+    @Override
+    public double getWriteStallMillisPerSecond() {
+        return writeStallNanosPerSecond / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return handler.getOutboundQueueDepth();
+    }
+
+    @Override
+    public long getDroppedSnapshots() {
+        return handler.getDroppedSnapshots();
+    }
+
+    @Override
+    public int getAckedSequence() {
+        return handler.getAckedSequence();
+    }
+}
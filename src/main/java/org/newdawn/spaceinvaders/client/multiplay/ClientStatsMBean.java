@@ -0,0 +1,36 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+/**
+ * 연결 하나의 네트워크 상태. JConsole 등에서
+ * org.newdawn.spaceinvaders:type=Client,port=&lt;서버 포트&gt;,id=&lt;연결 번호&gt; 로 볼 수 있습니다.
+ * 초당 값은 서버가 1초마다 갱신합니다.
+ */
+public interface ClientStatsMBean {
+
+    String getRemoteAddress();
+
+    String getRole();
+
+    int getPlayerShipId();
+
+    boolean isUdp();
+
+    /** 마지막 PING 의 왕복 시간. 아직 응답이 없으면 -1 */
+    double getRoundTripMillis();
+
+    /** 왕복 시간의 이동 평균 (TCP 의 SRTT 와 같은 1/8 가중치) */
+    double getSmoothedRoundTripMillis();
+
+    long getBytesInPerSecond();
+
+    long getBytesOutPerSecond();
+
+    /** 지난 1초 동안 소켓 버퍼가 가득 차서 쓰기를 기다린 시간 */
+    double getWriteStallMillisPerSecond();
+
+    int getQueueDepth();
+
+    long getDroppedSnapshots();
+
+    int getAckedSequence();
+}
@@ -2,17 +2,39 @@ package org.newdawn.spaceinvaders.client.multiplay;
 
 import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.*;
 
-import java.util.Random;
+import java.util.List;
 
 public class EntityFactory {
 
     private final ServerGame game;
     private final EntityManager manager;
-    private final Random random = new Random();
+    // 몇 초 안에 사라지는 엔티티는 제거될 때 풀로 돌아와 다시 쓴다.
+    private final EntityPool<ServerShotEntity> playerShots = new EntityPool<>("playerShot", ServerShotEntity.class);
+    private final EntityPool<ServerAlienShotEntity> alienShots = new EntityPool<>("alienShot", ServerAlienShotEntity.class);
+    private final EntityPool<ServerEvolveItemEntity> items = new EntityPool<>("item", ServerEvolveItemEntity.class);
+    private final EntityPool<ServerMeteoriteEntity> meteors = new EntityPool<>("meteor", ServerMeteoriteEntity.class);
 
     public EntityFactory(ServerGame game, EntityManager manager) {
         this.game = game;
         this.manager = manager;
+        manager.setRemovalListener(this::recycle);
+    }
+
+    public List<EntityPool<?>> getPools() {
+        return List.of(playerShots, alienShots, items, meteors);
+    }
+
+    /**
+     * EntityManager 에서 제거된 엔티티를 종류에 맞는 풀로 돌려놓습니다. 풀이 없는 종류는 버립니다.
+     */
+    private void recycle(Entity entity) {
+        switch (entity.getType()) {
+            case SHOT -> playerShots.release(entity);
+            case ALIEN_SHOT -> alienShots.release(entity);
+            case ITEM -> items.release(entity);
+            case METEOR -> meteors.release(entity);
+            default -> { }
+        }
     }
 //스테이지 엔티티 생성
     public ServerAlienEntity createAlien(double x, double y, double moveSpeed, int hp, boolean isAttacking) {
@@ -40,26 +62,47 @@ public class EntityFactory {
     public ServerShotEntity createPlayerShot(ServerPlayerShipEntity playerShip) {
         int owner = playerShip.getId();
         int shipUpgradeCount = playerShip.getUpgradeCount();
-        ServerShotEntity shot = new ServerShotEntity(game, playerShip.getX(), playerShip.getY(), owner, shipUpgradeCount);
+        ServerShotEntity shot = playerShots.acquire();
+        if (shot == null) {
+            shot = new ServerShotEntity(game, playerShip.getX(), playerShip.getY(), owner, shipUpgradeCount);
+        } else {
+            shot.reset(playerShip.getX(), playerShip.getY(), owner, shipUpgradeCount);
+        }
+        shot.setRewindTicks(playerShip.getRewindTicks());
         manager.addEntity(shot);
         return shot;
     }
     //와계인 보스 관련 생성
     public ServerAlienShotEntity createAlienShot(double x, double y) {
-        ServerAlienShotEntity shot = new ServerAlienShotEntity(game, x, y);
+        ServerAlienShotEntity shot = alienShots.acquire();
+        if (shot == null) {
+            shot = new ServerAlienShotEntity(game, x, y);
+        } else {
+            shot.reset(x, y);
+        }
         manager.addEntity(shot);
         return shot;
     }
 
     public ServerEvolveItemEntity createItemDrop(double x, double y) {
-        ServerEvolveItemEntity item = new ServerEvolveItemEntity(game, x, y);
+        ServerEvolveItemEntity item = items.acquire();
+        if (item == null) {
+            item = new ServerEvolveItemEntity(game, x, y);
+        } else {
+            item.reset(x, y);
+        }
         manager.addEntity(item);
         return item;
     }
 
     public ServerMeteoriteEntity createMeteor() {
-        int randomX = random.nextInt(800);
-        ServerMeteoriteEntity meteorite = new ServerMeteoriteEntity(game, randomX, -50);
+        int randomX = game.getRandom().nextInt(800);
+        ServerMeteoriteEntity meteorite = meteors.acquire();
+        if (meteorite == null) {
+            meteorite = new ServerMeteoriteEntity(game, randomX, -50);
+        } else {
+            meteorite.reset(randomX, -50);
+        }
         manager.addEntity(meteorite);
         return meteorite;
     }
@@ -78,9 +121,8 @@ public class EntityFactory {
     }
 
     public ServerAlienShotEntity createBossShotgunShot(double x, double y, double dx) {
-        ServerAlienShotEntity shot = new ServerAlienShotEntity(game, x, y);
+        ServerAlienShotEntity shot = createAlienShot(x, y);
         shot.setHorizontalMovement(dx);
-        manager.addEntity(shot);
         return shot;
     }
 
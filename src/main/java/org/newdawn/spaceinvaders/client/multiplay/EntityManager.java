@@ -1,64 +1,382 @@
 package org.newdawn.spaceinvaders.client.multiplay;
 
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.CollisionMatrix;
 import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerShotEntity;
+import org.newdawn.spaceinvaders.client.multiplay.collision.Bounds;
+import org.newdawn.spaceinvaders.client.multiplay.collision.Broadphase;
+import org.newdawn.spaceinvaders.client.multiplay.collision.PairList;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.function.Consumer;
 
 public class EntityManager {
 
-    private final Map<Integer, Entity> entities = new TreeMap<>();
-    private final ArrayList<Integer> removeList = new ArrayList<>();
-    private int smallestAvailableId = 0;
+    private final EntityStore entities = new EntityStore();
+    // 플레이어 우주선 id 는 IO 스레드에서 미리 발급한다. 게임 루프가 쓰는 할당기와 같이 쓰면
+    // 발급 순서가 스레드 타이밍에 따라 달라져 리플레이가 어긋나므로 구간을 나눈다.
+    public static final int PLAYER_ID_BASE = 1 << 30;
+    // 게임 루프 스레드(와 그 전의 스테이지 초기화)만 쓴다.
+    private final IdAllocator ids = new IdAllocator(0);
+    // IO 스레드가 발급하고 게임 루프 스레드가 돌려받는다. 잠그고 쓴다.
+    private final IdAllocator playerIds = new IdAllocator(PLAYER_ID_BASE);
+    // 슬롯 번호 → 목록에 있는 엔티티. 추가할 때 넣고 틱이 끝나 실제로 빠질 때 지운다. 게임 루프 스레드만 쓴다.
+    private Entity[] bySlot = new Entity[64];
+    private Entity[] playersBySlot = new Entity[8];
+    private Consumer<Entity> removalListener;
+    private final PositionHistory history = new PositionHistory();
+
+    // 충돌 후보를 추리는 단계. null 이면 모든 쌍을 비교한다.
+    private Broadphase broadphase = Broadphase.configured();
+    // CollisionMatrix 에서 반응이 없는 쌍은 판정하지 않는다. false 면 예전처럼 모든 쌍에 handleCollision 을 부른다.
+    private boolean collisionFilter = true;
+    // 아래는 충돌 판정용 작업 배열. 게임 루프 스레드만 쓰고 틱마다 재사용한다.
+    private final Bounds bounds = new Bounds();
+    private final PairList pairs = new PairList();
+    private Entity[] ordered = new Entity[64];
+    // 엔티티별 후보 목록 (CSR). neighbours[neighbourStart[i] .. neighbourStart[i + 1]) 가 i 의 후보다.
+    private int[] neighbourStart = new int[65];
+    private int[] neighbourCursor = new int[64];
+    private int[] neighbours = new int[256];
+    // 모든 엔티티와 비교해야 하는 엔티티. 되돌린 위치로 판정하는 총알과 충돌 처리 중에 움직인 엔티티
+    private boolean[] wide = new boolean[64];
+    private int[] wideList = new int[16];
+    private int wideCount;
+    private int[] candidates = new int[64];
 
     public EntityManager() {
+        entities.setRemovalListener(this::removed);
+    }
+
+    /**
+     * @param broadphase null 이면 모든 쌍을 비교합니다.
+     */
+    public void setBroadphase(Broadphase broadphase) {
+        this.broadphase = broadphase;
+    }
+
+    /**
+     * 비교용. 결과는 같고 걸리는 시간만 다릅니다.
+     */
+    public void setCollisionFilter(boolean collisionFilter) {
+        this.collisionFilter = collisionFilter;
+    }
 
+    /**
+     * 틱이 끝나 실제로 목록에서 빠진 엔티티마다 한 번씩 불립니다. (EntityFactory 의 풀)
+     * 이때는 그 엔티티를 가리키는 곳이 남아 있지 않아야 합니다.
+     */
+    public void setRemovalListener(Consumer<Entity> removalListener) {
+        this.removalListener = removalListener;
     }
 
+    /**
+     * 비어 있는 슬롯으로 새 id 를 발급합니다. 제거된 엔티티의 슬롯은 세대를 올려 다시 씁니다.
+     */
     public int getNextAvailableId() {
-        return smallestAvailableId++;
+        return ids.allocate();
+    }
+
+    /**
+     * 어느 스레드에서든 호출할 수 있습니다.
+     */
+    public int reservePlayerId() {
+        synchronized (playerIds) {
+            return playerIds.allocate();
+        }
+    }
+
+    public static boolean isPlayerId(int id) {
+        return (id & PLAYER_ID_BASE) != 0;
+    }
+
+    /**
+     * 이 id 를 받은 엔티티가 아직 제거되지 않았는지. 슬롯이 다시 쓰였으면 예전 id 는 false 입니다.
+     */
+    public boolean isLive(int id) {
+        if (isPlayerId(id)) {
+            synchronized (playerIds) {
+                return playerIds.isLive(id);
+            }
+        }
+        return ids.isLive(id);
     }
 
     public void addEntity(Entity entity) {
-        entities.put(entity.getId(), entity);
+        entities.add(entity);
+        int id = entity.getId();
+        int slot = IdAllocator.slot(id);
+        if (isPlayerId(id)) {
+            playersBySlot = ensureSlot(playersBySlot, slot);
+            playersBySlot[slot] = entity;
+        } else {
+            bySlot = ensureSlot(bySlot, slot);
+            bySlot[slot] = entity;
+        }
     }
 
+    /**
+     * 틱이 끝날 때 제거합니다. 그 전까지는 목록에 남아 있습니다.
+     */
     public void removeEntity(int id) {
-        removeList.add(id);
+        entities.remove(id);
     }
 
+    /**
+     * 슬롯 번호로 바로 찾습니다. 제거된 엔티티의 예전 id 로는 찾지 못합니다. 게임 루프 스레드에서만 부릅니다.
+     */
     public Entity getEntity(int id) {
-        return entities.get(id);
+        Entity[] table = isPlayerId(id) ? playersBySlot : bySlot;
+        int slot = IdAllocator.slot(id);
+        Entity entity = slot < table.length ? table[slot] : null;
+        return entity != null && entity.getId() == id ? entity : null;
     }
 
+    // 틱이 끝나 목록에서 빠진 엔티티. 슬롯을 비우고 돌려준 뒤 풀에 넘긴다.
+    private void removed(Entity entity) {
+        int id = entity.getId();
+        int slot = IdAllocator.slot(id);
+        if (isPlayerId(id)) {
+            if (slot < playersBySlot.length && playersBySlot[slot] == entity) {
+                playersBySlot[slot] = null;
+            }
+            synchronized (playerIds) {
+                playerIds.release(id);
+            }
+        } else {
+            if (slot < bySlot.length && bySlot[slot] == entity) {
+                bySlot[slot] = null;
+            }
+            ids.release(id);
+        }
+        if (removalListener != null) {
+            removalListener.accept(entity);
+        }
+    }
+
+    private static Entity[] ensureSlot(Entity[] table, int slot) {
+        return slot < table.length ? table : Arrays.copyOf(table, Math.max(slot + 1, table.length * 2));
+    }
+
+    /**
+     * id 순 엔티티 목록. 읽기 전용이고, 돌려받은 맵은 이후 추가/제거에도 바뀌지 않습니다.
+     * 최신 목록이 필요하면 다시 부릅니다. 맵과 그 안의 엔티티는 게임 루프 스레드에서만 읽습니다.
+     * 다른 스레드는 Server 가 스냅샷을 보낼 때 떠 두는 WorldSnapshot 을 씁니다.
+     */
     public Map<Integer, Entity> getEntities() {
-        return entities;
+        return entities.view();
     }
 
     public void updateAll() {
-        // 동시성 문제를 피하기 위해 엔티티 목록의 복사본을 만듭니다.
-        final Map<Integer, Entity> entitiesCopy = new TreeMap<>(entities);
+        // 이번 틱에 돌 목록. 바뀌지 않는 배열이라 도중에 추가/제거해도 복사할 필요가 없다.
+        final List<Entity> frame = entities.view().values();
 
         // 1. 모든 엔티티의 상태를 업데이트합니다. (ServerGame.tickEntities)
-        for (final Entity entity: entitiesCopy.values()) {
+        for (final Entity entity: frame) {
             entity.tick();
         }
 
+        // 지연 보상 판정에 쓰도록 이동이 끝난 위치를 남긴다.
+        history.record(frame);
+
         // 2. 엔티티 간의 충돌을 감지하고 처리합니다. (ServerGame.handleCollisions)
-        for (final Entity entity1 : entitiesCopy.values()) {
-            for (final Entity entity2 : entitiesCopy.values()) {
-                if (entity1.isColliding(entity2)) {
-                    entity1.handleCollision(entity2);
+        if (broadphase == null) {
+            for (final Entity entity1 : frame) {
+                for (final Entity entity2 : frame) {
+                    if (responds(entity1, entity2) && isColliding(entity1, entity2)) {
+                        collide(entity1, entity2);
+                    }
                 }
             }
+        } else {
+            handleCollisions(frame);
         }
 
         // 3. 제거 목록에 포함된 엔티티를 정리합니다. (ServerGame.removeDeadEntities)
-        for (Integer id: removeList){
-            entities.remove(id);
+        entities.applyRemovals();
+    }
+
+    /**
+     * 브로드페이즈로 후보를 추린 충돌 처리. 모든 쌍을 비교할 때와 같은 쌍을 같은 순서
+     * (entity1 의 id 순, 그 안에서 entity2 의 id 순) 로 처리합니다.
+     * <p>
+     * 후보는 충돌 처리 전 위치로 찾습니다. 처리 중에 움직인 엔티티(부활한 우주선)와 지연 보상으로 과거 위치를
+     * 보는 총알은 후보 목록 대신 모든 엔티티와 비교합니다. 충돌 처리는 부딪힌 두 엔티티만 옮긴다고 가정합니다.
+     */
+    private void handleCollisions(Collection<Entity> snapshot) {
+        int count = snapshot.size();
+        ensureCapacity(count);
+        bounds.reset(count);
+        int index = 0;
+        for (Entity entity : snapshot) {
+            ordered[index] = entity;
+            bounds.set(index, entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight());
+            if (collisionFilter) {
+                bounds.setFilter(index, CollisionMatrix.category(entity.getType()), CollisionMatrix.mask(entity.getType()));
+            }
+            wide[index] = false;
+            index++;
         }
-        removeList.clear();
+        wideCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (ordered[i] instanceof ServerShotEntity shot && shot.getCollisionRewindTicks() > 0) {
+                markWide(i);
+            }
+        }
+        pairs.clear();
+        broadphase.findPairs(bounds, pairs);
+        buildNeighbours(count);
+
+        for (int i = 0; i < count; i++) {
+            if (wide[i]) {
+                collideWithAll(i, 0, count);
+                continue;
+            }
+            Entity entity1 = ordered[i];
+            int candidateCount = gatherCandidates(i);
+            for (int k = 0; k < candidateCount; k++) {
+                int j = candidates[k];
+                if (responds(entity1, ordered[j]) && isColliding(entity1, ordered[j])) {
+                    collide(entity1, ordered[j]);
+                    trackMoved(i);
+                    trackMoved(j);
+                    if (wide[i]) {
+                        // 방금 옮겨졌으면 나머지는 새 위치로 모두와 비교한다.
+                        collideWithAll(i, j + 1, count);
+                        break;
+                    }
+                }
+            }
+        }
+        // 다 쓴 엔티티를 붙잡고 있지 않는다.
+        Arrays.fill(ordered, 0, count, null);
     }
-}
 
+    private void collideWithAll(int i, int from, int count) {
+        Entity entity1 = ordered[i];
+        for (int j = from; j < count; j++) {
+            if (responds(entity1, ordered[j]) && isColliding(entity1, ordered[j])) {
+                collide(entity1, ordered[j]);
+                trackMoved(j);
+            }
+        }
+    }
+
+    // i 의 후보와 모두와 비교할 엔티티를 합쳐 오름차순으로 candidates 에 넣는다.
+    private int gatherCandidates(int i) {
+        int start = neighbourStart[i];
+        int length = neighbourStart[i + 1] - start;
+        if (candidates.length < length + wideCount) {
+            candidates = new int[Math.max(length + wideCount, candidates.length * 2)];
+        }
+        System.arraycopy(neighbours, start, candidates, 0, length);
+        if (wideCount == 0) {
+            return length;
+        }
+        System.arraycopy(wideList, 0, candidates, length, wideCount);
+        int total = length + wideCount;
+        Arrays.sort(candidates, 0, total);
+        int unique = 0;
+        for (int k = 0; k < total; k++) {
+            int j = candidates[k];
+            if (j != i && (unique == 0 || candidates[unique - 1] != j)) {
+                candidates[unique++] = j;
+            }
+        }
+        return unique;
+    }
+
+    private void buildNeighbours(int count) {
+        Arrays.fill(neighbourStart, 0, count + 1, 0);
+        int pairCount = pairs.size();
+        for (int p = 0; p < pairCount; p++) {
+            neighbourStart[pairs.getFirst(p) + 1]++;
+            neighbourStart[pairs.getSecond(p) + 1]++;
+        }
+        for (int i = 0; i < count; i++) {
+            neighbourStart[i + 1] += neighbourStart[i];
+            neighbourCursor[i] = neighbourStart[i];
+        }
+        if (neighbours.length < pairCount * 2) {
+            neighbours = new int[Math.max(pairCount * 2, neighbours.length * 2)];
+        }
+        for (int p = 0; p < pairCount; p++) {
+            int i = pairs.getFirst(p);
+            int j = pairs.getSecond(p);
+            neighbours[neighbourCursor[i]++] = j;
+            neighbours[neighbourCursor[j]++] = i;
+        }
+        for (int i = 0; i < count; i++) {
+            Arrays.sort(neighbours, neighbourStart[i], neighbourStart[i + 1]);
+        }
+    }
+
+    private void trackMoved(int index) {
+        Entity entity = ordered[index];
+        if (!wide[index] && bounds.differs(index, entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight())) {
+            markWide(index);
+        }
+    }
+
+    private void markWide(int index) {
+        wide[index] = true;
+        if (wideCount == wideList.length) {
+            wideList = Arrays.copyOf(wideList, wideCount * 2);
+        }
+        wideList[wideCount++] = index;
+    }
+
+    private void ensureCapacity(int count) {
+        if (ordered.length < count) {
+            int capacity = Math.max(count, ordered.length * 2);
+            ordered = new Entity[capacity];
+            neighbourStart = new int[capacity + 1];
+            neighbourCursor = new int[capacity];
+            wide = new boolean[capacity];
+        }
+    }
+
+    private boolean responds(Entity self, Entity other) {
+        return !collisionFilter || CollisionMatrix.responds(self, other);
+    }
+
+    private void collide(Entity self, Entity other) {
+        if (collisionFilter) {
+            CollisionMatrix.collide(self, other);
+        } else {
+            self.handleCollision(other);
+        }
+    }
+
+    public PositionHistory getHistory() {
+        return history;
+    }
+
+    // 지연 보상 중인 플레이어 총알이 끼면 상대를 그 클라이언트가 보던 위치로 되돌려 판정한다.
+    // (a, b) 와 (b, a) 는 같은 결과가 나온다.
+    private boolean isColliding(Entity a, Entity b) {
+        if (a instanceof ServerShotEntity shot && shot.getCollisionRewindTicks() > 0) {
+            return isCollidingRewound(shot, b);
+        }
+        if (b instanceof ServerShotEntity shot && shot.getCollisionRewindTicks() > 0) {
+            return isCollidingRewound(shot, a);
+        }
+        return a.isColliding(b);
+    }
+
+    private boolean isCollidingRewound(ServerShotEntity shot, Entity target) {
+        PositionHistory.Frame frame = history.frame(shot.getCollisionRewindTicks());
+        int index = frame == null ? -1 : frame.indexOf(target.getId());
+        if (index < 0 || shot == target) {
+            // 그때는 없던 엔티티거나 기록이 모자라면 지금 위치로 판정한다.
+            return shot.isColliding(target);
+        }
+        double x = frame.getX(index);
+        double y = frame.getY(index);
+        return shot.getX() < x + target.getWidth() && shot.getX() + shot.getWidth() > x
+                && shot.getY() < y + target.getHeight() && shot.getY() + shot.getHeight() > y;
+    }
+}
@@ -0,0 +1,115 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+
+import java.util.ArrayDeque;
+
+/**
+ * 잠깐 쓰고 버리는 엔티티 한 종류(총알, 아이템, 운석)의 풀. EntityManager 에서 제거된 엔티티가 돌아오고,
+ * EntityFactory 가 꺼내 쓴 뒤 각 엔티티의 reset 으로 생성자와 같은 상태(새 id 포함)로 되돌립니다.
+ * <p>
+ * 꺼내고 돌려놓는 것은 게임 루프 스레드만 합니다. 통계는 JMX 로 아무 스레드에서나 읽습니다.
+ * 정확히 그 클래스인 엔티티만 받으므로 테스트용 익명 하위 클래스는 섞이지 않습니다.
+ */
+public class EntityPool<T extends Entity> implements EntityPoolMBean {
+
+    // 보스전 샷건과 양쪽 플레이어 총알이 화면에 동시에 있는 수보다 넉넉하게
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * -Dspaceinvaders.entityPoolCapacity 로 정한 풀 크기. 0 이면 풀을 쓰지 않습니다.
+     */
+    public static int configuredCapacity() {
+        return Math.max(0, Integer.getInteger("spaceinvaders.entityPoolCapacity", DEFAULT_CAPACITY));
+    }
+
+    private final String name;
+    private final Class<T> type;
+    private final int capacity;
+    private final ArrayDeque<T> free;
+    // 게임 루프 스레드만 쓰고 통계 스레드가 읽는다.
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long released;
+    private volatile long dropped;
+    private volatile int freeCount;
+
+    public EntityPool(String name, Class<T> type) {
+        this(name, type, configuredCapacity());
+    }
+
+    public EntityPool(String name, Class<T> type, int capacity) {
+        this.name = name;
+        this.type = type;
+        this.capacity = capacity;
+        this.free = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * @return 다시 쓸 엔티티. 풀이 비었으면 null 이고, 부른 쪽이 새로 만듭니다. 받은 엔티티는 반드시 reset 합니다.
+     */
+    public T acquire() {
+        T entity = free.pollLast();
+        freeCount = free.size();
+        if (entity == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entity;
+    }
+
+    /**
+     * 제거된 엔티티를 돌려놓습니다. 다른 클래스면 받지 않습니다.
+     *
+     * @return 풀이 받았는지
+     */
+    public boolean release(Entity entity) {
+        if (entity.getClass() != type) {
+            return false;
+        }
+        if (free.size() >= capacity) {
+            dropped++;
+            return false;
+        }
+        free.addLast(type.cast(entity));
+        freeCount = free.size();
+        released++;
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getFree() {
+        return freeCount;
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getHits() {
+        return hits;
+    }
+
+    @Override
+    public long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public long getReleased() {
+        return released;
+    }
+
+    @Override
+    public long getDropped() {
+        return dropped;
+    }
+}
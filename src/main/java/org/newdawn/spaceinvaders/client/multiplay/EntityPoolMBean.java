@@ -0,0 +1,27 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+/**
+ * 엔티티 풀 하나의 진단 값. org.newdawn.spaceinvaders:type=EntityPool,port=&lt;서버 포트&gt;,name=&lt;풀 이름&gt; 로 등록됩니다.
+ * 누적 값이며 서버가 시작된 뒤부터 셉니다.
+ */
+public interface EntityPoolMBean {
+
+    String getName();
+
+    /** 지금 풀에서 기다리는 엔티티 수 */
+    int getFree();
+
+    int getCapacity();
+
+    /** 풀에 있던 엔티티를 다시 쓴 횟수 */
+    long getHits();
+
+    /** 풀이 비어 새로 만든 횟수 */
+    long getMisses();
+
+    /** 제거된 엔티티를 풀에 돌려놓은 횟수 */
+    long getReleased();
+
+    /** 풀이 가득 차 돌려놓지 못하고 버린 횟수 */
+    long getDropped();
+}
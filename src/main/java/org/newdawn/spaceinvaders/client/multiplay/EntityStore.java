@@ -0,0 +1,199 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * EntityManager 의 엔티티 목록. id 순으로 정렬한 배열을 바뀔 때마다 새로 만들어 끼우는(copy-on-write) 방식이라,
+ * 한 번 얻은 {@link View} 의 배열은 다시 바뀌지 않으므로 틱을 돌면서 복사할 필요가 없습니다.
+ * <p>
+ * 추가는 모아 두었다가 다음에 목록을 읽을 때 반영하고, 제거는 틱이 끝날 때({@link #applyRemovals()}) 반영합니다.
+ * 반영해도 이미 나눠 준 View 는 그대로이므로 틱 도중에 추가/제거해도 반복이 깨지지 않습니다.
+ * <p>
+ * 모든 메서드와 View, 그 안의 엔티티는 게임 루프 스레드(와 그 전의 스테이지 초기화)에서만 읽고 씁니다.
+ * 엔티티는 틱마다 바뀌고 풀에서 다시 쓰일 때 새 id 를 받으므로, 다른 스레드는 Server 가 떠 둔 WorldSnapshot 을 읽습니다.
+ */
+final class EntityStore {
+
+    private static final Comparator<Entity> BY_ID = Comparator.comparingInt(Entity::getId);
+
+    private View view = new View(new Entity[0]);
+    private final ArrayList<Entity> added = new ArrayList<>();
+    private int[] removed = new int[16];
+    private int removedCount;
+    private Consumer<Entity> removalListener;
+
+    void setRemovalListener(Consumer<Entity> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    void add(Entity entity) {
+        added.add(entity);
+    }
+
+    void remove(int id) {
+        if (removedCount == removed.length) {
+            removed = Arrays.copyOf(removed, removedCount * 2);
+        }
+        removed[removedCount++] = id;
+    }
+
+    /**
+     * 지금까지 추가한 엔티티를 반영한 목록. 제거는 {@link #applyRemovals()} 전까지 남아 있습니다.
+     * 게임 루프 스레드에서만 부릅니다.
+     */
+    View view() {
+        if (!added.isEmpty()) {
+            publish(false);
+        }
+        return view;
+    }
+
+    /**
+     * 제거 요청을 반영합니다. 틱이 끝날 때 부릅니다.
+     */
+    void applyRemovals() {
+        if (!added.isEmpty() || removedCount > 0) {
+            publish(true);
+        }
+    }
+
+    private void publish(boolean withRemovals) {
+        Entity[] current = view.entities;
+        int removedIds = withRemovals ? removedCount : 0;
+        Arrays.sort(removed, 0, removedIds);
+        added.sort(BY_ID);
+
+        Entity[] next = new Entity[current.length + added.size()];
+        int size = 0;
+        int a = 0;
+        for (Entity entity : current) {
+            while (a < added.size() && added.get(a).getId() < entity.getId()) {
+                size = keep(next, size, added.get(a++), removedIds);
+            }
+            // 같은 id 로 다시 넣으면 TreeMap.put 처럼 새 엔티티로 바꾼다.
+            if (a < added.size() && added.get(a).getId() == entity.getId()) {
+                entity = added.get(a++);
+            }
+            size = keep(next, size, entity, removedIds);
+        }
+        while (a < added.size()) {
+            size = keep(next, size, added.get(a++), removedIds);
+        }
+        added.clear();
+        if (withRemovals) {
+            removedCount = 0;
+        }
+        view = new View(size == next.length ? next : Arrays.copyOf(next, size));
+    }
+
+    private int keep(Entity[] next, int size, Entity entity, int removedIds) {
+        if (removedIds > 0 && Arrays.binarySearch(removed, 0, removedIds, entity.getId()) >= 0) {
+            if (removalListener != null) {
+                removalListener.accept(entity);
+            }
+            return size;
+        }
+        // 같은 id 가 연달아 추가된 경우 나중 것만 남긴다.
+        if (size > 0 && next[size - 1].getId() == entity.getId()) {
+            next[size - 1] = entity;
+            return size;
+        }
+        next[size] = entity;
+        return size + 1;
+    }
+
+    /**
+     * 바뀌지 않는 id → 엔티티 맵. values() 는 id 오름차순 리스트이고 get 은 이진 탐색입니다.
+     */
+    static final class View extends AbstractMap<Integer, Entity> {
+
+        private final Entity[] entities;
+        private final List<Entity> values;
+
+        private View(Entity[] entities) {
+            this.entities = entities;
+            this.values = Collections.unmodifiableList(Arrays.asList(entities));
+        }
+
+        @Override
+        public int size() {
+            return entities.length;
+        }
+
+        @Override
+        public Entity get(Object key) {
+            int index = key instanceof Integer id ? indexOf(id) : -1;
+            return index >= 0 ? entities[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer id && indexOf(id) >= 0;
+        }
+
+        @Override
+        public List<Entity> values() {
+            return values;
+        }
+
+        @Override
+        public Set<Entry<Integer, Entity>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, Entity>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < entities.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Entity> next() {
+                            if (next >= entities.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Entity entity = entities[next++];
+                            return new SimpleImmutableEntry<>(entity.getId(), entity);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return entities.length;
+                }
+            };
+        }
+
+        private int indexOf(int id) {
+            int low = 0;
+            int high = entities.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = entities[mid].getId();
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+}
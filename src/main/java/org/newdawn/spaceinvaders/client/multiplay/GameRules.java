@@ -4,6 +4,7 @@ import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
 import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerAlienEntity;
 import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
 import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerReflectAlienEntity;
+import java.util.ArrayList;
 import java.util.logging.Logger;
 
 public class GameRules {
@@ -16,6 +17,8 @@ public class GameRules {
     private int alienCount;
     private boolean bossClear = false;
     private final Logger logger = Logger.getLogger(getClass().getName());
+    // applyHeldInputs 에서 발사할 우주선. 순회 중에는 엔티티 목록에 총알을 넣을 수 없어서 모아 두었다 쏜다.
+    private final ArrayList<ServerPlayerShipEntity> firing = new ArrayList<>();
 
     public GameRules(ServerGame game, EntityManager manager, EntityFactory factory, StageManager stageManager) {
         this.game = game;
@@ -43,17 +46,15 @@ public class GameRules {
         }
 
         ServerPlayerShipEntity playerShipEntity = (ServerPlayerShipEntity) playerShip;
+        playerShipEntity.setLastInputSequence(receivedInput.getSequence());
 
+        // 이동은 InputState 와 같은 버튼 상태로 바꿔서 매 틱 적용되게 한다.
         switch (receivedInput.getAction()){
             case MOVE_LEFT:
-                if (!playerShipEntity.isPlayerStunned()){
-                    playerShip.setHorizontalMovement(-playerShip.getMoveSpeed());
-                }
+                playerShipEntity.setHeldButtons(InputState.LEFT);
                 break;
             case MOVE_RIGHT:
-                if (!playerShipEntity.isPlayerStunned()){
-                    playerShip.setHorizontalMovement(playerShip.getMoveSpeed());
-                }
+                playerShipEntity.setHeldButtons(InputState.RIGHT);
                 break;
             case FIRE:
                 if (!playerShipEntity.isPlayerStunned()){
@@ -61,7 +62,7 @@ public class GameRules {
                 }
                 break;
             case STOP:
-                playerShip.setHorizontalMovement(0);
+                playerShipEntity.setHeldButtons(0);
                 break;
             case SKIP_STAGE:
                 stageManager.progressToNextStage();
@@ -69,8 +70,42 @@ public class GameRules {
         }
     }
 
+    /**
+     * 버튼 상태만 기록합니다. 실제 이동/발사는 {@link #applyHeldInputs()} 에서 매 틱 적용됩니다.
+     */
+    public void processPlayerInput(int playerShipId, InputState inputState){
+        if (manager.getEntity(playerShipId) instanceof ServerPlayerShipEntity playerShip){
+            playerShip.setHeldButtons(inputState.getButtons());
+            playerShip.setLastInputSequence(inputState.getSequence());
+        }
+    }
+
+    /**
+     * 각 우주선이 마지막으로 받은 버튼 상태를 이번 틱에 적용합니다.
+     */
+    public void applyHeldInputs(){
+        for (Entity entity : manager.getEntities().values()){
+            if (!(entity instanceof ServerPlayerShipEntity playerShip)){
+                continue;
+            }
+            if (playerShip.isPlayerStunned()){
+                playerShip.setHorizontalMovement(0);
+                continue;
+            }
+            int buttons = playerShip.getHeldButtons();
+            playerShip.setHorizontalMovement(InputState.direction(buttons) * playerShip.getMoveSpeed());
+            if ((buttons & InputState.FIRE) != 0){
+                firing.add(playerShip);
+            }
+        }
+        for (int i = 0; i < firing.size(); i++){
+            tryToFire(firing.get(i));
+        }
+        firing.clear();
+    }
+
     public void tryToFire(ServerPlayerShipEntity playerShip){
-        if (System.currentTimeMillis() - playerShip.getLastFireTime() < 500){
+        if (game.getTimeMillis() - playerShip.getLastFireTime() < 500){
             return;
         }
         playerShip.setLastFireTime();
@@ -85,7 +120,7 @@ public class GameRules {
 
         decrementAlienCount(); // 외계인 수 감소 및 승리 확인
 
-        if(Math.random()<0.2){
+        if(game.getRandom().nextDouble()<0.2){
             factory.createItemDrop(alien.getX(), alien.getY());
         }
 
@@ -119,7 +154,7 @@ public class GameRules {
             if (deadPlayerData.getLives() <= 0){
                 manager.removeEntity(deadPlayerId);
                 // DB에 점수 저장
-                game.getLoginHost().insertScore(deadPlayerData.getId(), deadPlayerData.getScore());
+                game.insertScore(deadPlayerData.getId(), deadPlayerData.getScore());
             } else {
                 // 플레이어 부활
                 Entity ship = manager.getEntity(deadPlayerId);
@@ -135,7 +170,7 @@ public class GameRules {
         PlayerData killerData = game.getPlayerDataMap().get(killerId);
         if (killerData != null) {
             killerData.increaseBossKilledScore();
-            game.getLoginHost().insertScore(killerData.getId(), killerData.getScore());
+            game.insertScore(killerData.getId(), killerData.getScore());
             logger.info("보스 처치! 최종 승리!");
         }
         this.bossClear = true;
@@ -144,7 +179,7 @@ public class GameRules {
     public void handleGameWin() {
         // 점수 저장 로직
         for (PlayerData data : game.getPlayerDataMap().values()) {
-            game.getLoginHost().insertScore(data.getId(), data.getScore());
+            game.insertScore(data.getId(), data.getScore());
         }
         this.bossClear = true; // 게임 승리 플래그를 설정합니다.
     }
@@ -1,28 +1,37 @@
 package org.newdawn.spaceinvaders.client.multiplay;
 
-import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
 
-import java.io.Serializable;
-import java.util.Map;
-
-public class GameState implements Serializable {
+public class GameState {
 
     public enum GameStatus {PLAYING, GAME_OVER, STAGE_CLEAR}
 
-    private Map<Integer, Entity> entities;
+    private final WorldSnapshot world;
     private final int currentScore;
     private final int remainingLives;
     private final GameStatus status;
+    private final int playerShipId;
+    private final int lastInputSequence;
+
+    public GameState(WorldSnapshot world, int score, int lives, GameStatus status){
+        this(world, score, lives, status, -1, -1);
+    }
 
-    public GameState(Map<Integer, Entity> entities, int score, int lives, GameStatus status){
-        this.entities = entities;
+    /**
+     * @param playerShipId 이 클라이언트가 조종하는 우주선 id. 없으면 -1
+     * @param lastInputSequence 스냅샷 시점까지 서버가 처리한 마지막 입력 번호. 없으면 -1
+     */
+    public GameState(WorldSnapshot world, int score, int lives, GameStatus status, int playerShipId, int lastInputSequence){
+        this.world = world;
         this.currentScore = score;
         this.remainingLives = lives;
         this.status = status;
+        this.playerShipId = playerShipId;
+        this.lastInputSequence = lastInputSequence;
     }
 
-    public Map<Integer, Entity> getEntities(){
-        return entities;
+    public WorldSnapshot getWorld(){
+        return world;
     }
     public int getCurrentScore(){
         return currentScore;
@@ -33,4 +42,10 @@ public class GameState implements Serializable {
     public GameStatus getStatus(){
         return status;
     }
+    public int getPlayerShipId(){
+        return playerShipId;
+    }
+    public int getLastInputSequence(){
+        return lastInputSequence;
+    }
 }
@@ -0,0 +1,117 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import java.util.Arrays;
+
+/**
+ * 슬롯 번호와 세대를 하나의 int 로 묶은 엔티티 id 를 발급합니다.
+ * <pre>
+ * [0][구간 1비트][세대 14비트][슬롯 16비트]
+ * </pre>
+ * 엔티티가 제거되면 슬롯을 돌려받아 다시 쓰고, 그때 세대를 올립니다. 그래서 슬롯 번호로 배열에서 바로 찾을 수 있고,
+ * 예전 엔티티의 id 를 들고 있던 곳(총알의 ownerId, 지연 보상 기록 등)은 세대가 달라 새 엔티티와 섞이지 않습니다.
+ * 돌려받은 슬롯은 먼저 비운 것부터 다시 써서, 한 슬롯의 세대가 한 바퀴 돌아 같은 id 가 다시 나오기까지 최대한 오래 걸리게 합니다.
+ * <p>
+ * 스레드 안전하지 않습니다. 여러 스레드가 쓰면 부르는 쪽에서 동기화합니다.
+ */
+final class IdAllocator {
+
+    static final int SLOT_BITS = 16;
+    static final int MAX_SLOTS = 1 << SLOT_BITS;
+    static final int GENERATION_BITS = 14;
+    private static final int SLOT_MASK = MAX_SLOTS - 1;
+    private static final int GENERATION_MASK = (1 << GENERATION_BITS) - 1;
+    // 구간(base) 을 뺀 나머지 비트
+    private static final int LOCAL_MASK = (1 << (SLOT_BITS + GENERATION_BITS)) - 1;
+
+    private final int base;
+    private int[] generations = new int[64];
+    private boolean[] used = new boolean[64];
+    private int slotCount;
+    // 비운 슬롯의 원형 큐
+    private int[] free = new int[64];
+    private int freeHead;
+    private int freeSize;
+
+    /**
+     * @param base 이 할당기가 내는 id 에 모두 들어가는 구간 비트. 0 이거나 1 &lt;&lt; 30 입니다.
+     */
+    IdAllocator(int base) {
+        this.base = base;
+    }
+
+    static int slot(int id) {
+        return id & SLOT_MASK;
+    }
+
+    static int generation(int id) {
+        return (id >>> SLOT_BITS) & GENERATION_MASK;
+    }
+
+    int allocate() {
+        int slot;
+        if (freeSize > 0) {
+            slot = free[freeHead];
+            freeHead = (freeHead + 1) % free.length;
+            freeSize--;
+        } else {
+            if (slotCount == MAX_SLOTS) {
+                throw new IllegalStateException("엔티티 슬롯이 모자랍니다. 최대 " + MAX_SLOTS);
+            }
+            slot = slotCount++;
+            if (slot == generations.length) {
+                grow();
+            }
+        }
+        used[slot] = true;
+        return base | generations[slot] << SLOT_BITS | slot;
+    }
+
+    /**
+     * 슬롯을 돌려받습니다. 이미 돌려받았거나 이 할당기가 낸 적 없는 id 면 아무 일도 하지 않습니다.
+     *
+     * @return 돌려받았는지
+     */
+    boolean release(int id) {
+        if (!isLive(id)) {
+            return false;
+        }
+        int slot = slot(id);
+        used[slot] = false;
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        free[(freeHead + freeSize) % free.length] = slot;
+        freeSize++;
+        return true;
+    }
+
+    /**
+     * 이 id 를 받은 엔티티가 아직 살아 있는지. 돌려받은 뒤의 예전 id 는 false 입니다.
+     */
+    boolean isLive(int id) {
+        if ((id & ~LOCAL_MASK) != base) {
+            return false;
+        }
+        int slot = slot(id);
+        return slot < slotCount && used[slot] && generations[slot] == generation(id);
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    int getLiveCount() {
+        return slotCount - freeSize;
+    }
+
+    // 원형 큐는 펼쳐서 옮긴다. 큐에 든 슬롯 수는 slotCount 를 넘지 않는다.
+    private void grow() {
+        int capacity = generations.length * 2;
+        generations = Arrays.copyOf(generations, capacity);
+        used = Arrays.copyOf(used, capacity);
+        int[] unrolled = new int[capacity];
+        for (int i = 0; i < freeSize; i++) {
+            unrolled[i] = free[(freeHead + i) % free.length];
+        }
+        free = unrolled;
+        freeHead = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.newdawn.spaceinvaders.client.multiplay.journal.MatchJournal;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * IO 스레드에서 들어온 입력과 명령(플레이어 생성/제거)을 모아 두었다가
+ * 틱 시작 시 게임 루프 스레드에서 한 번에 적용합니다.
+ * 덕분에 엔티티 목록은 게임 루프 스레드만 건드립니다.
+ * <p>
+ * 한 틱 안에서 같은 우주선의 버튼 상태는 마지막 것만 남기고,
+ * 적용 순서는 도착 순서가 아니라 우주선 id 순서(같은 우주선은 보낸 순서)로 고정합니다.
+ */
+public class InputQueue {
+
+    private static final class Entry {
+        final int shipId;
+        final InputState state;
+        final PlayerInput input;
+
+        Entry(int shipId, InputState state, PlayerInput input) {
+            this.shipId = shipId;
+            this.state = state;
+            this.input = input;
+        }
+    }
+
+    private static final Comparator<Entry> BY_SHIP = Comparator.comparingInt(e -> e.shipId);
+
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> inputs = new ConcurrentLinkedQueue<>();
+    // 게임 루프 스레드 전용
+    private final ArrayList<Entry> batch = new ArrayList<>();
+    private long coalesced = 0;
+
+    public void submit(int shipId, InputState state) {
+        inputs.add(new Entry(shipId, state, null));
+    }
+
+    public void submit(int shipId, PlayerInput input) {
+        inputs.add(new Entry(shipId, null, input));
+    }
+
+    /**
+     * 엔티티를 추가/제거하는 작업을 다음 틱 시작에 실행되도록 넘깁니다. 입력보다 먼저, 넣은 순서대로 실행됩니다.
+     */
+    public void execute(Runnable command) {
+        commands.add(command);
+    }
+
+    /**
+     * 게임 루프 스레드에서만 호출합니다.
+     */
+    public void drain(GameRules rules) {
+        drain(rules, null, 0);
+    }
+
+    /**
+     * @param journal 실제로 적용한 입력을 적용한 순서대로 남길 저널. 없으면 null
+     * @param tick 이번 틱 번호
+     */
+    public void drain(GameRules rules, MatchJournal journal, int tick) {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+        }
+
+        Entry entry;
+        while ((entry = inputs.poll()) != null) {
+            batch.add(entry);
+        }
+        // List.sort 는 안정 정렬이므로 같은 우주선의 입력은 보낸 순서가 유지된다.
+        batch.sort(BY_SHIP);
+
+        InputState latest = null;
+        for (int i = 0; i < batch.size(); i++) {
+            entry = batch.get(i);
+            if (entry.state != null) {
+                if (latest != null) {
+                    coalesced++;
+                }
+                latest = entry.state;
+            } else {
+                if (journal != null) {
+                    journal.input(tick, entry.shipId, entry.input);
+                }
+                rules.processPlayerInput(entry.shipId, entry.input);
+            }
+            boolean lastOfShip = i + 1 == batch.size() || batch.get(i + 1).shipId != entry.shipId;
+            if (lastOfShip && latest != null) {
+                if (journal != null) {
+                    journal.state(tick, entry.shipId, latest);
+                }
+                rules.processPlayerInput(entry.shipId, latest);
+                latest = null;
+            }
+        }
+        batch.clear();
+    }
+
+    /**
+     * 다음 틱 시작에 실행될 명령 수.
+     */
+    public int getPendingCommandCount() {
+        return commands.size();
+    }
+
+    /**
+     * 같은 틱에 더 새로운 상태가 와서 적용되지 않은 버튼 상태 수.
+     */
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+}
@@ -0,0 +1,43 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+/**
+ * 현재 누르고 있는 버튼 상태. 매 프레임 보내지 않고 상태가 바뀔 때와
+ * 주기적인 keepalive 때만 보내며, 서버는 다음 상태가 올 때까지 매 틱 이 상태를 적용합니다.
+ */
+public class InputState {
+
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int FIRE = 1 << 2;
+
+    private final int buttons;
+    private final int sequence;
+
+    public InputState(int buttons, int sequence){
+        this.buttons = buttons;
+        this.sequence = sequence;
+    }
+
+    public int getButtons(){
+        return buttons;
+    }
+
+    public int getSequence(){
+        return sequence;
+    }
+
+    public boolean isHeld(int button){
+        return (buttons & button) != 0;
+    }
+
+    /**
+     * 좌우를 동시에 누르면 오른쪽이 이깁니다. (예전 입력 처리 순서와 같음)
+     * @return -1 왼쪽, 0 정지, 1 오른쪽
+     */
+    public static int direction(int buttons){
+        if ((buttons & RIGHT) != 0) {
+            return 1;
+        }
+        return (buttons & LEFT) != 0 ? -1 : 0;
+    }
+}
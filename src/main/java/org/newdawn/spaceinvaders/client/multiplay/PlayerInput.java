@@ -12,11 +12,20 @@ public class PlayerInput implements Serializable {
     }
 
     private Action action;
+    // 클라이언트가 매기는 입력 번호. 서버가 어디까지 처리했는지 스냅샷으로 돌려준다.
+    private int sequence;
 
     public PlayerInput(Action action){
+        this(action, 0);
+    }
+    public PlayerInput(Action action, int sequence){
         this.action = action;
+        this.sequence = sequence;
     }
     public  Action getAction(){
         return action;
     }
+    public int getSequence(){
+        return sequence;
+    }
 }
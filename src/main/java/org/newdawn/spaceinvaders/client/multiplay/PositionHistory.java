@@ -0,0 +1,95 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+
+import java.util.Arrays;
+
+/**
+ * 지난 몇 백 ms 동안의 엔티티 위치를 틱 단위로 보관하는 링 버퍼. 지연 보상 판정에서
+ * "그 클라이언트가 보고 있던 화면"의 위치를 찾는 데 씁니다.
+ * <p>
+ * 틱마다 id, x, y 를 기본형 배열에 덮어쓰므로 평소에는 할당하지 않습니다. 엔티티 수가
+ * 배열보다 많아질 때만 해당 칸의 배열을 두 배로 늘립니다. 게임 루프 스레드에서만 사용합니다.
+ */
+public class PositionHistory {
+
+    // 120Hz 기준 400ms. 이보다 오래된 화면으로는 되돌리지 않는다.
+    public static final int CAPACITY = 48;
+    private static final int INITIAL_ENTITIES = 64;
+
+    private final Frame[] frames = new Frame[CAPACITY];
+    private int head = -1;
+    private int recorded = 0;
+
+    public PositionHistory() {
+        for (int i = 0; i < CAPACITY; i++) {
+            frames[i] = new Frame();
+        }
+    }
+
+    /**
+     * 이번 틱의 위치를 기록합니다. entities 는 id 오름차순이어야 합니다. (EntityManager 의 목록 순서)
+     */
+    public void record(Iterable<Entity> entities) {
+        head = (head + 1) % CAPACITY;
+        if (recorded < CAPACITY) {
+            recorded++;
+        }
+        Frame frame = frames[head];
+        frame.count = 0;
+        for (Entity entity : entities) {
+            frame.add(entity.getId(), entity.getX(), entity.getY());
+        }
+    }
+
+    /**
+     * @param ticksAgo 0 이면 마지막으로 기록한 틱
+     * @return 그 틱의 위치. 아직 기록이 없거나 보관 범위를 벗어나면 null
+     */
+    public Frame frame(int ticksAgo) {
+        if (ticksAgo < 0 || ticksAgo >= recorded) {
+            return null;
+        }
+        return frames[(head - ticksAgo + CAPACITY) % CAPACITY];
+    }
+
+    public void clear() {
+        head = -1;
+        recorded = 0;
+    }
+
+    /**
+     * 한 틱의 위치들. 다음 기록 때 덮어쓰이므로 받은 틱 안에서만 사용해야 합니다.
+     */
+    public static final class Frame {
+        private int[] ids = new int[INITIAL_ENTITIES];
+        private double[] xs = new double[INITIAL_ENTITIES];
+        private double[] ys = new double[INITIAL_ENTITIES];
+        private int count;
+
+        private void add(int id, double x, double y) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                xs = Arrays.copyOf(xs, count * 2);
+                ys = Arrays.copyOf(ys, count * 2);
+            }
+            ids[count] = id;
+            xs[count] = x;
+            ys[count] = y;
+            count++;
+        }
+
+        /**
+         * @return id 의 위치 번호. 그 틱에 없던 엔티티면 음수
+         */
+        public int indexOf(int id) {
+            return Arrays.binarySearch(ids, 0, count, id);
+        }
+
+        public double getX(int index) { return xs[index]; }
+
+        public double getY(int index) { return ys[index]; }
+
+        public int size() { return count; }
+    }
+}
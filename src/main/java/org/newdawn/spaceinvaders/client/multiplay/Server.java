@@ -1,84 +1,226 @@
 package org.newdawn.spaceinvaders.client.multiplay;
 
 
-import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
-
+import org.newdawn.spaceinvaders.client.multiplay.journal.MatchJournal;
+import org.newdawn.spaceinvaders.client.multiplay.network.Connection;
+import org.newdawn.spaceinvaders.client.multiplay.network.NetworkServer;
+import org.newdawn.spaceinvaders.client.multiplay.network.SharedSnapshotEncoder;
+import org.newdawn.spaceinvaders.client.multiplay.network.SnapshotCodec;
+import org.newdawn.spaceinvaders.client.multiplay.network.SimulatedLink;
+import org.newdawn.spaceinvaders.client.multiplay.network.SnapshotHistory;
+import org.newdawn.spaceinvaders.client.multiplay.network.UdpLink;
+import org.newdawn.spaceinvaders.client.multiplay.network.UdpServer;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
-import java.util.ArrayList;
+import java.lang.management.ManagementFactory;
+import java.net.DatagramSocket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.*;
 
 
-public class Server implements Runnable{
+public class Server implements Runnable, NetworkServer.Listener {
 
     Logger logger = Logger.getLogger(getClass().getName());
     public static final int TICKS_PER_SECOND = 120;
+    // 시뮬레이션과 별개인 스냅샷 전송 주기. -Dspaceinvaders.snapshotRate=60 처럼 바꿀 수 있다.
+    public static final int DEFAULT_SNAPSHOTS_PER_SECOND = 30;
     public static final int DEFAULT_PORT_NUMBER = 12345;
-
-
-    private ServerSocket serverSocket;
+    // 클라이언트는 받은 스냅샷을 이만큼(스냅샷 간격 단위) 늦게 그린다. 지연 보상도 이 값을 더해 되돌린다.
+    public static final int INTERPOLATION_DELAY_SNAPSHOTS = 2;
+    // 연결 수와 관계없이 고정된 IO 스레드 수
+    private static final int IO_THREADS = 2;
+    private static final int DATABASE_THREADS = 2;
+    // PING 주기이자 초당 통계 갱신 주기
+    private static final long STATS_INTERVAL_MS = 1000;
+    private static final String MBEAN_DOMAIN = "org.newdawn.spaceinvaders";
+    // 연결이 끊긴 플레이어의 우주선을 남겨 두는 시간. -Dspaceinvaders.resumeGraceMillis=0 이면 바로 지운다.
+    public static final long DEFAULT_RESUME_GRACE_MS = 15_000;
+    private static final DateTimeFormatter JOURNAL_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+
+    private NetworkServer networkServer;
+    // -Dspaceinvaders.udp=true 일 때만 만든다. 없으면 모든 통신이 TCP 로 간다.
+    private UdpServer udpServer;
     private volatile boolean isRunning = true;
     private final ServerGame serverGame;
-    private final ArrayList<ClientHandler> clientHandlers;
+    private final List<ClientHandler> clientHandlers = new CopyOnWriteArrayList<>();
     protected Map<Integer, PlayerData> playerDataMap = new ConcurrentHashMap<>();
     private Login loginHost;
     private final int maxPlayers;
     private final java.util.Set<ClientHandler> joined = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
     private volatile boolean gameStarted = false;
-    private List<ClientHandler> toRemove = new java.util.ArrayList<>();
+    private final SessionRegistry<ClientHandler> sessions = new SessionRegistry<>(TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("spaceinvaders.resumeGraceMillis", DEFAULT_RESUME_GRACE_MS)));
+    private final ExecutorService databaseExecutor = Executors.newFixedThreadPool(DATABASE_THREADS, r -> {
+        Thread thread = new Thread(r, "db-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SnapshotHistory snapshotHistory = new SnapshotHistory();
+    private final SharedSnapshotEncoder snapshotEncoder = new SharedSnapshotEncoder(snapshotHistory);
+    // 클라이언트별 스냅샷 헤더. 게임 루프 스레드만 쓰며 연결에 넘길 때 복사된다.
+    private final ByteBuffer snapshotHeader = ByteBuffer.allocate(SnapshotCodec.HEADER_SIZE);
+    private int snapshotSequence = 0;
+    private final int ticksPerSnapshot;
+    // 게임 루프 스레드만 올리고, JMX 에서 읽는다.
+    private volatile long tickCount = 0;
+    private final ServerStats stats = new ServerStats(this);
+    private final AtomicInteger nextClientNumber = new AtomicInteger();
+    private final ScheduledExecutorService statsExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "net-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int port;
+    // 클라이언트가 요청하면 연결별로 압축을 켠다. CPU 를 아껴야 하면 -Dspaceinvaders.compression.allowed=false
+    private final boolean compressionAllowed =
+            Boolean.parseBoolean(System.getProperty("spaceinvaders.compression.allowed", "true"));
+    // 원격 플레이어의 총알을 그 클라이언트가 보던 화면 기준으로 판정한다. 끄려면 -Dspaceinvaders.lagCompensation=false
+    private final boolean lagCompensation =
+            Boolean.parseBoolean(System.getProperty("spaceinvaders.lagCompensation", "true"));
 
     public Server(int port, int maxPlayers){
+        this(port, maxPlayers, Integer.getInteger("spaceinvaders.snapshotRate", DEFAULT_SNAPSHOTS_PER_SECOND));
+    }
+
+    /**
+     * @param snapshotsPerSecond 초당 스냅샷 전송 횟수. 틱 단위로 나누어 떨어지지 않으면 가까운 간격으로 맞춥니다.
+     */
+    public Server(int port, int maxPlayers, int snapshotsPerSecond){
         this.serverGame = new ServerGame(this);
         this.loginHost = new Login();
         this.maxPlayers = maxPlayers;
+        this.ticksPerSnapshot = ticksPerSnapshot(snapshotsPerSecond);
         try {
-            this.serverSocket = new ServerSocket(port);
-            logger.log(Level.INFO,"Server started on port: {0} for {1}", new Object[]{ port, maxPlayers });
+            this.networkServer = new NetworkServer(port, IO_THREADS, this);
+            if (Boolean.getBoolean("spaceinvaders.udp")) {
+                // TCP 와 같은 포트 번호의 UDP 소켓을 쓴다.
+                this.udpServer = new UdpServer(SimulatedLink.wrapIfConfigured(new UdpLink(new DatagramSocket(port))));
+                logger.log(Level.INFO, "UDP gameplay transport enabled on port {0}", port);
+            }
+            this.port = networkServer.getPort();
+            registerMBean(stats, "type=Server,port=" + this.port);
+            for (EntityPool<?> pool : serverGame.getEntityFactory().getPools()) {
+                registerMBean(pool, "type=EntityPool,port=" + this.port + ",name=" + pool.getName());
+            }
+            logger.log(Level.INFO,"Server started on port: {0} for {1}, {2} snapshots/s",
+                    new Object[]{ port, maxPlayers, TICKS_PER_SECOND / ticksPerSnapshot });
         } catch (final IOException e) {
             e.printStackTrace();
             System.exit(1);
         }
-        clientHandlers = new ArrayList<>();
     }
 
     @Override
     public void run() {
-        startAcceptClientsLoop();
-    }
-
-    private void startAcceptClientsLoop() {
         logger.log(Level.INFO, "Accepting Clients. Max players: {0}", maxPlayers);
-        while (isRunning) {
-            try {
-                handleNewClientConnection();
-            } catch (final IOException e) {
-                if (isRunning) {
-                    logger.log(Level.WARNING, "클라이언트 소켓 수락 중 오류 발생", e);
-                } else {
-                    logger.info("서버 소켓 닫힘 (종료 신호). 클라이언트 수락 루프를 종료합니다.");
-                }
-            }
+        networkServer.start();
+        if (udpServer != null) {
+            udpServer.start();
         }
+        statsExecutor.scheduleAtFixedRate(this::sampleStats, STATS_INTERVAL_MS, STATS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        try {
+            networkServer.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("서버 소켓 닫힘 (종료 신호). 클라이언트 수락 루프를 종료합니다.");
     }
 
-    private void handleNewClientConnection() throws IOException {
-        final Socket socket = serverSocket.accept();
-
+    @Override
+    public void onConnected(Connection connection) {
         if (!isRunning) {
-            socket.close();
+            connection.close();
             return;
         }
 
         logger.log(Level.INFO, "A new client has connected. Players: {0}", (clientHandlers.size() + 1));
-        final boolean isSinglePlayer = (maxPlayers == 1);
-        final ClientHandler clientHandler = new ClientHandler(this, serverGame, socket, -1, loginHost);
+        final ClientHandler clientHandler = new ClientHandler(this, serverGame, connection, -1, loginHost);
+        connection.setAttachment(clientHandler);
         clientHandlers.add(clientHandler);
-        new Thread(clientHandler).start();
+        clientHandler.setMBeanName(registerMBean(clientHandler.getStats(),
+                "type=Client,port=" + port + ",id=" + nextClientNumber.incrementAndGet()));
+        clientHandler.onConnected();
+    }
+
+    @Override
+    public void onMessage(Connection connection, int type, ByteBuffer payload) {
+        ((ClientHandler) connection.getAttachment()).onMessage(type, payload);
+    }
+
+    @Override
+    public void onDisconnected(Connection connection) {
+        ClientHandler clientHandler = (ClientHandler) connection.getAttachment();
+        if (clientHandler != null) {
+            clientHandler.onDisconnected();
+        }
+    }
+
+    /**
+     * DB 를 쓰는 블로킹 작업은 IO 스레드를 막지 않도록 별도 스레드에서 실행합니다.
+     */
+    public void submitDatabaseTask(Runnable task) {
+        databaseExecutor.execute(task);
+    }
+
+    // 모든 연결에 PING 을 보내고 초당 통계를 갱신한다. 재접속 유예가 지난 우주선도 여기서 지운다.
+    private void sampleStats() {
+        try {
+            for (int shipId : sessions.expire(System.nanoTime())) {
+                serverGame.removePlayerEntity(shipId);
+                logger.log(Level.INFO, "[서버 로그] 재접속 유예 시간이 지나 우주선 {0} 를 제거합니다.", shipId);
+            }
+            for (ClientHandler clientHandler : clientHandlers) {
+                clientHandler.sendPing();
+                if (lagCompensation && clientHandler.isJoined()) {
+                    long roundTrip = clientHandler.getStats().getSmoothedRoundTripNanos();
+                    serverGame.setRewindTicks(clientHandler.getPlayershipId(), rewindTicks(roundTrip, ticksPerSnapshot));
+                }
+            }
+            stats.sample(clientHandlers);
+        } catch (RuntimeException e) {
+            // 예외가 나가면 다음 주기 실행이 취소되므로 여기서 끊는다.
+            logger.log(Level.WARNING, "통계 갱신 실패", e);
+        }
+    }
+
+    private ObjectName registerMBean(Object mbean, String properties) {
+        try {
+            ObjectName name = new ObjectName(MBEAN_DOMAIN + ":" + properties);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+            return name;
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "MBean 등록 실패: {0}", e.getMessage());
+            return null;
+        }
+    }
+
+    void unregisterMBean(ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            logger.log(Level.FINE, "MBean 해제 실패", e);
+        }
     }
 
     private void startGameloop() {
@@ -106,26 +248,53 @@ public class Server implements Runnable{
             }
 
             serverGame.tick();
-            sendUpdatesToAll();
+            tickCount++;
+            if (tickCount % ticksPerSnapshot == 0) {
+                sendUpdatesToAll();
+            }
             last = next;
         }
+        serverGame.closeJournal();
+    }
+
+    // -Dspaceinvaders.journal.dir=경로 가 있으면 이번 경기의 입력 저널을 그 폴더에 남긴다.
+    private void openJournal() {
+        String dir = System.getProperty("spaceinvaders.journal.dir");
+        if (dir == null) {
+            return;
+        }
+        Path path = Paths.get(dir, "match-" + LocalDateTime.now().format(JOURNAL_NAME) + "-" + port + ".journal");
+        try {
+            Files.createDirectories(path.getParent());
+            serverGame.setJournal(MatchJournal.create(path, serverGame.getSeed(), TICKS_PER_SECOND));
+            logger.log(Level.INFO, "[서버 로그] 경기 저널 기록: {0}", path);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "경기 저널을 만들지 못했습니다: {0}", e.getMessage());
+        }
     }
 
     private void sendUpdatesToAll() {
 
         if (serverGame.isBossClear()) {
             for (final ClientHandler clientHandler : clientHandlers) {
+                if (!clientHandler.receivesSnapshots()) {
+                    continue;
+                }
                 // "VICTORY" 글자를 보낸다.
-                clientHandler.sendUpdate("VICTORY");
+                clientHandler.sendVictory();
             }
         }
-        java.util.Map<Integer, Entity> originEntities = serverGame.getEntities();
-        TreeMap<Integer, Entity> entitiesCopy;
-
-        synchronized (originEntities) {
-            entitiesCopy = new TreeMap<>(originEntities);
-        }
+        long encodeStart = System.nanoTime();
+        // 엔티티 목록은 게임 루프 스레드만 바꾸므로 복사 없이 바로 읽는다.
+        WorldSnapshot worldSnapshot = snapshotHistory.next(snapshotSequence++);
+        worldSnapshot.capture(worldSnapshot.getSequence(), serverGame.getEntities().values());
+        worldSnapshot.setTick((int) tickCount);
+        snapshotEncoder.begin(worldSnapshot);
         for (final ClientHandler clientHandler : clientHandlers) {
+            // 제어 연결과 아직 참가하지 않은 연결에는 보내지 않는다. 관전자는 우주선 없이 받는다.
+            if (!clientHandler.receivesSnapshots()) {
+                continue;
+            }
             int lives = 3;
             int score = 0;
 
@@ -137,20 +306,42 @@ public class Server implements Runnable{
                     score = pd.getScore();
                 }
             }
-            GameState currentState = new GameState(entitiesCopy, score, lives, GameState.GameStatus.PLAYING);
-            try {
-                clientHandler.sendUpdate(currentState);
-            } catch (RuntimeException e) {
-                toRemove.add(clientHandler);
-            }
-        }
-        for (ClientHandler ch : toRemove) {
-            onClientDisconnected(ch);
+            // 월드 부분은 같은 기준 스냅샷끼리 공유하고, 점수/목숨 헤더만 클라이언트별로 만든다.
+            ByteBuffer world = snapshotEncoder.worldFor(clientHandler.getAckedSequence());
+            snapshotHeader.clear();
+            SnapshotCodec.encodeHeader(score, lives, GameState.GameStatus.PLAYING, clientHandler.getPlayershipId(),
+                    serverGame.getLastInputSequence(clientHandler.getPlayershipId()), snapshotHeader);
+            snapshotHeader.flip();
+            clientHandler.sendSnapshot(snapshotHeader, world);
         }
+        stats.recordSnapshotEncode(System.nanoTime() - encodeStart);
 
     }
 
 
+    /**
+     * 클라이언트가 발사 입력을 보낸 순간 보고 있던 화면이 서버 현재 틱보다 몇 틱 전인지 계산합니다.
+     * 입력이 오는 편도 시간 + 스냅샷이 가는 편도 시간(합쳐서 RTT)에 보간 지연을 더하고, 보관 범위로 자릅니다.
+     *
+     * @param roundTripNanos 측정한 RTT. 아직 모르면 음수
+     */
+    static int rewindTicks(long roundTripNanos, int ticksPerSnapshot) {
+        if (roundTripNanos < 0) {
+            return 0;
+        }
+        long ticks = Math.round((double) roundTripNanos * TICKS_PER_SECOND / 1_000_000_000L)
+                + (long) INTERPOLATION_DELAY_SNAPSHOTS * ticksPerSnapshot;
+        return (int) Math.min(PositionHistory.CAPACITY - 1, ticks);
+    }
+
+    static int ticksPerSnapshot(int snapshotsPerSecond) {
+        if (snapshotsPerSecond <= 0) {
+            throw new IllegalArgumentException("snapshotsPerSecond must be positive: " + snapshotsPerSecond);
+        }
+        int ticks = Math.round((float) TICKS_PER_SECOND / snapshotsPerSecond);
+        return Math.max(1, Math.min(TICKS_PER_SECOND, ticks));
+    }
+
     // Server.java 파일
 
     public synchronized void onPlayerJoined(ClientHandler ch) {
@@ -168,15 +359,28 @@ public class Server implements Runnable{
             logger.info("[서버 로그] 참가자 수 충족! 게임 루프를 시작합니다."); // ▼▼▼ 로그 추가 ▼▼▼
             gameStarted = true;
 //            serverGame.initializeFirstStage();
+            openJournal();
             new Thread(this::startGameloop).start();
         } else {
             logger.info("[서버 로그] 아직 참가자를 더 기다립니다."); // ▼▼▼ 로그 추가 ▼▼▼
         }
     }
 
+    /**
+     * 세션 토큰으로 다시 붙은 플레이어. 게임이 이미 시작됐어도 원래 자리로 돌아온다.
+     */
+    public synchronized void onSessionResumed(ClientHandler ch) {
+        if (!gameStarted) {
+            onPlayerJoined(ch);
+            return;
+        }
+        joined.add(ch);
+    }
+
     public synchronized void onClientDisconnected(ClientHandler ch) {
         clientHandlers.remove(ch);   // 접속 목록에서 제거
         joined.remove(ch);           // 참가 집합에서도 제거
+        unregisterMBean(ch.getMBeanName());
         logger.info("Client removed. Now: " + clientHandlers.size());
 
         if(clientHandlers.isEmpty()) {
@@ -188,6 +392,36 @@ public class Server implements Runnable{
 
     public Login getLoginHost(){ return loginHost; }
 
+    public SessionRegistry<ClientHandler> getSessions(){ return sessions; }
+
+    public UdpServer getUdpServer(){ return udpServer; }
+
+    public boolean isCompressionAllowed(){ return compressionAllowed; }
+
+    public int getConnectionCount(){ return clientHandlers.size(); }
+
+    public int getPort(){ return port; }
+
+    ServerGame getServerGame(){ return serverGame; }
+
+    List<ClientHandler> getClientHandlers(){ return clientHandlers; }
+
+    public int getPlayerCount(){ return joined.size(); }
+
+    public int getSpectatorCount(){
+        int count = 0;
+        for (ClientHandler clientHandler : clientHandlers) {
+            if (clientHandler.isSpectator()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isGameStarted(){ return gameStarted; }
+
+    public long getTickCount(){ return tickCount; }
+
     // server to one client
 
     public static void main(String[] args) {
@@ -0,0 +1,101 @@
+package org.newdawn.spaceinvaders.client.multiplay.ServerEntity;
+
+import static org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType.*;
+
+/**
+ * 어떤 종류끼리 부딪혔을 때 무슨 일이 일어나는지 정한 표. (자신 종류, 상대 종류) 로 찾고,
+ * 칸이 비어 있으면 그 쌍은 아무 일도 없으므로 겹침 판정도 하지 않습니다.
+ * <p>
+ * 종류가 없는 엔티티(type == null, 테스트용)는 모든 엔티티와 판정하고 자기 handleCollision 을 부릅니다.
+ */
+public final class CollisionMatrix {
+
+    @FunctionalInterface
+    interface Response {
+        void handle(Entity self, Entity other);
+    }
+
+    private static final int TYPES = EntityType.values().length;
+    // 종류가 없는 엔티티의 비트. 어느 종류의 마스크에도 들어 있다.
+    private static final int UNTYPED = 1 << 31;
+    private static final Response[] RESPONSES = new Response[TYPES * TYPES];
+    private static final int[] MASKS = new int[TYPES];
+
+    static {
+        Response killShip = (self, other) -> ((ServerPlayerShipEntity) self).hitByEnemy();
+        on(PLAYER, ALIEN, killShip);
+        on(PLAYER, REFLECT_ALIEN, killShip);
+        on(PLAYER, ALIEN_SHOT, killShip);
+        on(PLAYER, ITEM, (ship, item) -> ((ServerPlayerShipEntity) ship).pickUp(item));
+        on(PLAYER, METEOR, (ship, meteor) -> ((ServerPlayerShipEntity) ship).applyStun(1500));
+        on(PLAYER, LASER, (ship, laser) -> ((ServerPlayerShipEntity) ship).hitByLaser());
+
+        on(ALIEN, SHOT, (alien, shot) -> ((ServerAlienEntity) alien).hit(shot, ((ServerShotEntity) shot).getDamage()));
+        on(REFLECT_ALIEN, SHOT, (alien, shot) -> ((ServerReflectAlienEntity) alien).hitByShot(shot));
+        on(BOSS, SHOT, (boss, shot) -> ((ServerBossEntity) boss).hit(shot, ((ServerShotEntity) shot).getDamage()));
+        on(BOSS, PLAYER, (boss, ship) -> boss.game.notifyDeath(ship.getId()));
+
+        on(ALIEN_SHOT, PLAYER, (shot, ship) -> shot.game.removeEntity(shot.getId()));
+        on(ITEM, PLAYER, (item, ship) -> item.game.removeEntity(item.getId()));
+        on(METEOR, PLAYER, (meteor, ship) -> meteor.game.removeEntity(meteor.getId()));
+        on(METEOR, SHOT, (meteor, shot) -> {
+            meteor.game.removeEntity(meteor.getId());
+            meteor.game.removeEntity(shot.getId());
+        });
+        // SHOT, LASER 는 스스로 반응하지 않는다. 외계인끼리도 마찬가지.
+    }
+
+    private CollisionMatrix() {
+    }
+
+    private static void on(EntityType self, EntityType other, Response response) {
+        RESPONSES[self.ordinal() * TYPES + other.ordinal()] = response;
+        MASKS[self.ordinal()] |= 1 << other.ordinal();
+        MASKS[other.ordinal()] |= 1 << self.ordinal();
+    }
+
+    /**
+     * self.handleCollision(other) 가 무언가를 하는지. false 면 겹쳐도 부를 필요가 없습니다.
+     */
+    public static boolean responds(Entity self, Entity other) {
+        EntityType selfType = self.getType();
+        EntityType otherType = other.getType();
+        return selfType == null || otherType == null
+                || RESPONSES[selfType.ordinal() * TYPES + otherType.ordinal()] != null;
+    }
+
+    /**
+     * 부딪힌 self 의 반응을 표에서 찾아 실행합니다. 종류가 없는 쪽이 끼면 self.handleCollision 을 부릅니다.
+     */
+    public static void collide(Entity self, Entity other) {
+        if (self.getType() == null || other.getType() == null) {
+            self.handleCollision(other);
+        } else {
+            respond(self, other);
+        }
+    }
+
+    // Entity.handleCollision 의 기본 구현. 종류가 없으면 아무 일도 없다.
+    static void respond(Entity self, Entity other) {
+        EntityType selfType = self.getType();
+        EntityType otherType = other.getType();
+        if (selfType == null || otherType == null) {
+            return;
+        }
+        Response response = RESPONSES[selfType.ordinal() * TYPES + otherType.ordinal()];
+        if (response != null) {
+            response.handle(self, other);
+        }
+    }
+
+    /**
+     * 브로드페이즈 필터용 비트. 두 엔티티는 (mask(a) &amp; category(b)) != 0 일 때만 어느 한쪽이라도 반응합니다.
+     */
+    public static int category(EntityType type) {
+        return type == null ? -1 : 1 << type.ordinal();
+    }
+
+    public static int mask(EntityType type) {
+        return type == null ? -1 : MASKS[type.ordinal()] | UNTYPED;
+    }
+}
@@ -15,15 +15,37 @@ public abstract class Entity implements Serializable {
     protected int currentHP, maxHP;
 
     protected Entity(final ServerGame game, double width, double height, double x, double y) {
+        this(game, game.getNextAvailableId(), width, height, x, y);
+    }
+
+    /**
+     * id 를 미리 받아 둔 엔티티용. (IO 스레드에서 예약하는 플레이어 우주선)
+     */
+    protected Entity(final ServerGame game, int id, double width, double height, double x, double y) {
         this.game = game;
         this.factory = game.getEntityFactory(); // GameRules에도 접근이 필요하면 game.getGameRules()도 추가
-        this.id = this.game.getNextAvailableId();
+        this.id = id;
         this.width = width;
         this.height = height;
         this.x = x;
         this.y = y;
     }
 
+    /**
+     * 풀에서 다시 꺼낸 엔티티를 새로 만든 것처럼 되돌립니다. 생성자처럼 새 id 를 받고,
+     * 이동 값과 체력은 0 으로 돌아가므로 하위 클래스의 reset 이 자기 기본값을 다시 넣습니다.
+     */
+    protected void reuse(double x, double y) {
+        this.id = game.getNextAvailableId();
+        this.x = x;
+        this.y = y;
+        this.dx = 0;
+        this.dy = 0;
+        this.moveSpeed = 0;
+        this.currentHP = 0;
+        this.maxHP = 0;
+    }
+
     public void setHorizontalMovement(double dx){ this.dx = dx; }
     public int getCurrentHP(){return currentHP; }
     public int getMaxHP(){return maxHP; }
@@ -43,7 +65,12 @@ public abstract class Entity implements Serializable {
         this.y += this.dy / Server.TICKS_PER_SECOND;
     }
 
-    public abstract void handleCollision(Entity otherEntity);
+    /**
+     * 부딪힌 상대에 대한 반응. 종류별 반응은 CollisionMatrix 의 표에 있습니다.
+     */
+    public void handleCollision(Entity otherEntity) {
+        CollisionMatrix.respond(this, otherEntity);
+    }
 
     public boolean isColliding(Entity otherEntity) {
         return getX() < otherEntity.getX() + otherEntity.getWidth() && getX() + getWidth() > otherEntity.getX()
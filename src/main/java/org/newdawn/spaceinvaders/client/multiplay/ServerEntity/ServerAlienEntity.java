@@ -36,7 +36,7 @@ public class ServerAlienEntity extends Entity {
             }
         }
         if (attacking){
-            if (Math.random()< 0.001){
+            if (game.getRandom().nextDouble()< 0.001){
                 game.alienFires(this);
             }
         }
@@ -74,12 +74,4 @@ public class ServerAlienEntity extends Entity {
             game.notifyDeath(this.getId());
         }
     }
-
-
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerShotEntity) {
-           hit(otherEntity, ((ServerShotEntity) otherEntity).getDamage());
-        }
-    }
 }
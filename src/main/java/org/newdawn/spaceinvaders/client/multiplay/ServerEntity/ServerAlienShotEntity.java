@@ -8,6 +8,18 @@ public class ServerAlienShotEntity extends Entity {
     public ServerAlienShotEntity(ServerGame game, double x, double y) {
         super(game, 10, 10, x, y);
         this.type = EntityType.ALIEN_SHOT;
+        init();
+    }
+
+    /**
+     * 풀에서 꺼낸 총알을 생성자와 같은 상태로 되돌립니다. 가로 이동은 0 이 됩니다.
+     */
+    public void reset(double x, double y) {
+        reuse(x, y);
+        init();
+    }
+
+    private void init() {
         moveSpeed = 300;
         dy = moveSpeed;
     }
@@ -21,12 +33,4 @@ public class ServerAlienShotEntity extends Entity {
         super.tick();
         if (getY() > 600 || getY() < -50 || getX() < -50 || getX() > 850){ this.game.removeEntity(this.getId()); }
     }
-
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerPlayerShipEntity) {
-            game.removeEntity(this.getId());
-
-        }
-    }
 }
@@ -30,13 +30,13 @@ public class ServerBossEntity extends Entity {
         this.dx = moveSpeed;
         this.type = EntityType.BOSS;
 
-        this.lastPatternTime = System.currentTimeMillis();
+        this.lastPatternTime = game.getTimeMillis();
         chooseNextPattern();
         this.laserHitbox = new Rectangle();
     }
 
     private void chooseNextPattern() {
-        int rand = (int) (Math.random() * 3);
+        int rand = game.getRandom().nextInt(3);
         if (rand == 0) currentPattern = Pattern.SUMMON_MINIONS;
         else if (rand == 1) currentPattern = Pattern.SHOTGUN_BLAST;
         else currentPattern = Pattern.LASER_BEAM;
@@ -49,21 +49,21 @@ public class ServerBossEntity extends Entity {
         }
         if (isCharging) {
             frameNumber = 1;
-            if (System.currentTimeMillis() - laserPhaseStartTime > 2000) {
+            if (game.getTimeMillis() - laserPhaseStartTime > 2000) {
                 isCharging = false;
                 factory.createBossLaser(this);
 
-                laserPhaseStartTime = System.currentTimeMillis();
+                laserPhaseStartTime = game.getTimeMillis();
                 chooseNextPattern();
             }
             return;
         } else frameNumber = 0;
 
         if (isFiringLaser) {
-            if (System.currentTimeMillis() - laserPhaseStartTime > 4000) {
+            if (game.getTimeMillis() - laserPhaseStartTime > 4000) {
                 isFiringLaser = false;
                 factory.createBossLaser(this);
-                lastPatternTime = System.currentTimeMillis();
+                lastPatternTime = game.getTimeMillis();
                 chooseNextPattern();
             }
             return;
@@ -72,7 +72,7 @@ public class ServerBossEntity extends Entity {
         // 일반 이동 및 패턴 실행 타이머
         if (!isCharging && !isFiringLaser) {
             super.tick();
-            if (System.currentTimeMillis() - lastPatternTime > patternCooldown) {
+            if (game.getTimeMillis() - lastPatternTime > patternCooldown) {
                 executePattern();
             }
         }
@@ -91,7 +91,7 @@ public class ServerBossEntity extends Entity {
             game.removeEntity(this.getId());
         }
         game.removeEntity(otherEntity.getId());
-        if (Math.random()<0.2){
+        if (game.getRandom().nextDouble()<0.2){
             factory.createItemDrop(this.x, this.y);
         }
     }
@@ -119,23 +119,14 @@ public class ServerBossEntity extends Entity {
                 laserBeam(); // 이건 상태 변경이라 보스가 직접 처리
                 break;
         }
-        lastPatternTime = System.currentTimeMillis();
+        lastPatternTime = game.getTimeMillis();
         chooseNextPattern();
     }
 
     // 레이저 패턴은 상태 변경이므로 보스가 직접 관리
     private void laserBeam() {
         isCharging = true;
-        laserPhaseStartTime = System.currentTimeMillis();
-    }
-
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerShotEntity) {
-            hit(otherEntity,((ServerShotEntity)otherEntity).getDamage());
-        } else if (otherEntity instanceof ServerPlayerShipEntity) {
-            game.notifyDeath(otherEntity.getId());
-        }
+        laserPhaseStartTime = game.getTimeMillis();
     }
 
 }
\ No newline at end of file
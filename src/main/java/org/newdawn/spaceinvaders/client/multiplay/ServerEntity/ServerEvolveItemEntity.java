@@ -8,9 +8,21 @@ public class ServerEvolveItemEntity extends Entity {
 
     public ServerEvolveItemEntity(ServerGame game, double x, double y) {
         super(game, 29, 26, x, y);
+        init();
+        this.type = EntityType.ITEM;
+    }
+
+    /**
+     * 풀에서 꺼낸 아이템을 생성자와 같은 상태로 되돌립니다.
+     */
+    public void reset(double x, double y) {
+        reuse(x, y);
+        init();
+    }
+
+    private void init() {
         moveSpeed = 200;
         dy = moveSpeed;
-        this.type = EntityType.ITEM;
     }
 
     @Override
@@ -21,11 +33,4 @@ public class ServerEvolveItemEntity extends Entity {
         }
 
     }
-
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerPlayerShipEntity){
-            game.removeEntity(this.getId());
-        }
-    }
 }
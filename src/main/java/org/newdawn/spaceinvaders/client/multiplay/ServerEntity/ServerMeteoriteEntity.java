@@ -13,9 +13,23 @@ public class ServerMeteoriteEntity extends Entity {
 
     public ServerMeteoriteEntity(ServerGame game, double x, double y) {
         super(game, 64, 64, x, y);
+        init();
+        this.type = EntityType.METEOR;
+    }
+
+    /**
+     * 풀에서 꺼낸 운석을 생성자와 같은 상태로 되돌립니다.
+     */
+    public void reset(double x, double y) {
+        reuse(x, y);
+        init();
+    }
+
+    private void init() {
+        lastFrameChange = 0;
+        frameNumber = 0;
         moveSpeed = 300;
         dy = moveSpeed;
-        this.type = EntityType.METEOR;
     }
 
     @Override
@@ -37,14 +51,4 @@ public class ServerMeteoriteEntity extends Entity {
     }
 
     public int getFrameNumber(){ return frameNumber; }
-
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerPlayerShipEntity){
-            game.removeEntity(this.getId());
-        } else if (otherEntity instanceof ServerShotEntity) {
-            game.removeEntity(this.getId());
-            game.removeEntity(otherEntity.getId());
-        }
-    }
 }
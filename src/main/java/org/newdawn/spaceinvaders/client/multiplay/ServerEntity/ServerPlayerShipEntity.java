@@ -5,16 +5,31 @@ import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
 
 public class ServerPlayerShipEntity extends Entity {
 
-    private long lastFireTime = 0;
+    // 클라이언트 예측(ShipPredictor)도 같은 값을 써야 보정이 작게 유지된다.
+    public static final double MOVE_SPEED = 250;
+    public static final int SHIP_WIDTH = 30;
+    public static final int SHIP_HEIGHT = 30;
+    private static final int WORLD_WIDTH = 800;
+
+    // 게임 시간은 0 부터 시작하므로 첫 발사가 쿨다운에 걸리지 않게 충분히 과거로 둔다.
+    private long lastFireTime = Long.MIN_VALUE / 2;
     public int upgradeCount = 0;
     private boolean playerStunned = false;
     private long stunDuration = 0;
     private long stunStartTime = 0;
+    private int heldButtons = 0;
+    private int lastInputSequence = -1;
+    // 이 플레이어가 쏜 총알의 지연 보상 틱 수. 통계 스레드가 RTT 로 계산해 게임 루프에서 넣어 준다.
+    private int rewindTicks = 0;
 
     public ServerPlayerShipEntity(ServerGame serverGame, double x, double y) {
-        super(serverGame,30,30, x, y);
+        this(serverGame, serverGame.reservePlayerShipId(), x, y);
+    }
+
+    public ServerPlayerShipEntity(ServerGame serverGame, int id, double x, double y) {
+        super(serverGame, id, SHIP_WIDTH,SHIP_HEIGHT, x, y);
         this.type = EntityType.PLAYER;
-        moveSpeed = 250;
+        moveSpeed = MOVE_SPEED;
         dx = moveSpeed;
     }
 
@@ -22,12 +37,20 @@ public class ServerPlayerShipEntity extends Entity {
     @Override
     public void tick() {
         super.tick();
-        if (getX()<0){
-            setX(0);
+        setX(clampX(getX()));
+    }
+
+    /**
+     * 우주선이 화면 밖으로 나가지 않도록 x 좌표를 제한합니다.
+     */
+    public static double clampX(double x){
+        if (x<0){
+            return 0;
         }
-        if (getX()>800-getWidth()){
-            setX(800-getWidth());
+        if (x>WORLD_WIDTH-SHIP_WIDTH){
+            return WORLD_WIDTH-SHIP_WIDTH;
         }
+        return x;
     }
 
     public void upgrade(){
@@ -40,7 +63,7 @@ public class ServerPlayerShipEntity extends Entity {
         if (!playerStunned){
             this.playerStunned = true;
             this.stunDuration = durationMs;
-            this.stunStartTime = System.currentTimeMillis();
+            this.stunStartTime = game.getTimeMillis();
             this.dx = 0;
             System.out.println("Player stunned!");
         }
@@ -48,7 +71,7 @@ public class ServerPlayerShipEntity extends Entity {
 
     public boolean isPlayerStunned(){
         if (playerStunned) {
-            long elapsedTime = System.currentTimeMillis() - stunStartTime;
+            long elapsedTime = game.getTimeMillis() - stunStartTime;
             if (elapsedTime >= stunDuration) {
                 this.playerStunned = false;
                 System.out.println("Player " + getId() + " is no longer stunned.");
@@ -70,28 +93,48 @@ public class ServerPlayerShipEntity extends Entity {
     }
 
 
+    public int getHeldButtons(){
+        return heldButtons;
+    }
+    public void setHeldButtons(int heldButtons){
+        this.heldButtons = heldButtons;
+    }
+
+    public int getLastInputSequence(){
+        return lastInputSequence;
+    }
+    public void setLastInputSequence(int lastInputSequence){
+        this.lastInputSequence = lastInputSequence;
+    }
+
+    public int getRewindTicks(){
+        return rewindTicks;
+    }
+    public void setRewindTicks(int rewindTicks){
+        this.rewindTicks = rewindTicks;
+    }
+
     public long getLastFireTime(){
         return lastFireTime;
     }
     public void setLastFireTime(){
-        lastFireTime = System.currentTimeMillis();
+        lastFireTime = game.getTimeMillis();
     }
 
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerAlienShotEntity || otherEntity instanceof ServerAlienEntity || otherEntity instanceof  ServerReflectAlienEntity){
-            game.notifyDeath(this.getId());
-            resetUpgrade();
-            setPlayerStunned();
-
-        } else if (otherEntity instanceof ServerEvolveItemEntity) {
-            game.removeEntity(otherEntity.getId());
-            upgrade();
-        } else if (otherEntity instanceof ServerMeteoriteEntity) {
-            this.applyStun(1500);
-        } else if (otherEntity instanceof ServerLaserEntity) {
-            game.notifyDeath(this.getId());
-            resetUpgrade();
-        }
+    // 외계인, 외계인 총알, 반사 외계인과 부딪혔을 때
+    void hitByEnemy() {
+        game.notifyDeath(this.getId());
+        resetUpgrade();
+        setPlayerStunned();
+    }
+
+    void pickUp(Entity item) {
+        game.removeEntity(item.getId());
+        upgrade();
+    }
+
+    void hitByLaser() {
+        game.notifyDeath(this.getId());
+        resetUpgrade();
     }
 }
@@ -33,11 +33,8 @@ public class ServerReflectAlienEntity extends Entity {
         }
     }
 
-    @Override
-    public void handleCollision(Entity otherEntity) {
-        if (otherEntity instanceof ServerShotEntity){
-            game.removeEntity(otherEntity.getId());
-            game.notifyDeath(this.getId());
-        }
+    void hitByShot(Entity shot) {
+        game.removeEntity(shot.getId());
+        game.notifyDeath(this.getId());
     }
 }
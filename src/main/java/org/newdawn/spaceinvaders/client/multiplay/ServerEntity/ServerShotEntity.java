@@ -6,20 +6,39 @@ import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
 public class ServerShotEntity extends Entity {
 
 
-    private final int ownerId;
+    private int ownerId;
     private int upgradeLevel;
     private int damage = 50;
+    // 쏜 클라이언트의 화면이 서버보다 몇 틱 뒤처져 있는지. 0 이면 지연 보상을 하지 않는다.
+    private int rewindTicks;
+    private int age;
 
     public ServerShotEntity(ServerGame serverGame, double x, double y, int ownerId, int upgradeLevel) {
         super(serverGame,10,10, x, y);
         this.type = EntityType.SHOT;
+        init(ownerId, upgradeLevel);
+    }
+
+    /**
+     * 풀에서 꺼낸 총알을 생성자와 같은 상태로 되돌립니다.
+     */
+    public void reset(double x, double y, int ownerId, int upgradeLevel) {
+        reuse(x, y);
+        init(ownerId, upgradeLevel);
+    }
+
+    private void init(int ownerId, int upgradeLevel) {
         this.ownerId = ownerId;
         this.upgradeLevel = upgradeLevel;
+        this.damage = 50;
+        this.rewindTicks = 0;
+        this.age = 0;
         moveSpeed = 300;
     }
 
     @Override
     public void tick() {
+        age++;
         setY(getY()-moveSpeed/ Server.TICKS_PER_SECOND);
         if (getY()<0){this.game.removeEntity(this.getId());}
 
@@ -29,11 +48,17 @@ public class ServerShotEntity extends Entity {
 
     public int getOwnerId(){ return ownerId; }
 
-    public int getDamage(){
-        return damage*(getUpgradeLevel()+1);
+    public void setRewindTicks(int rewindTicks){ this.rewindTicks = rewindTicks; }
+
+    /**
+     * 이번 틱 충돌 판정에서 상대 위치를 몇 틱 전으로 되돌릴지. 발사 직후 rewindTicks 동안만 되돌리고,
+     * 그 뒤에는 클라이언트도 서버가 판정한 결과를 보고 있으므로 현재 위치로 판정합니다.
+     */
+    public int getCollisionRewindTicks(){
+        return age <= rewindTicks ? rewindTicks : 0;
     }
 
-    @Override
-    public void handleCollision(Entity otherEntity) {
+    public int getDamage(){
+        return damage*(getUpgradeLevel()+1);
     }
 }
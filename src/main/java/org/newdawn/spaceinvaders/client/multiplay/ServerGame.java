@@ -1,8 +1,13 @@
 package org.newdawn.spaceinvaders.client.multiplay;
 
 import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.*;
+import org.newdawn.spaceinvaders.client.multiplay.collision.Broadphase;
+import org.newdawn.spaceinvaders.client.multiplay.journal.MatchJournal;
 
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.*;
 
 public class ServerGame {
@@ -13,14 +18,35 @@ public class ServerGame {
     private Server server;
 
     Logger logger = Logger.getLogger(getClass().getName());
+    // 저널에 상태 체크섬을 남기는 간격
+    private static final int CHECKSUM_INTERVAL_TICKS = Server.TICKS_PER_SECOND;
 
     private final EntityManager entityManager;
     private final EntityFactory entityFactory;
     private final StageManager stageManager;
     private final GameRules gameRules;
+    private final InputQueue inputQueue = new InputQueue();
+    // 시뮬레이션의 모든 난수와 시간은 시드와 틱 번호에서만 나온다. 같은 시드와 같은 입력이면 같은 경기가 된다.
+    private final long seed;
+    private final Random random;
+    private int tick = 0;
+    // 저널을 켰을 때만 있다. 게임 루프 스레드만 쓴다.
+    private MatchJournal journal;
+    // 서버 없이(리플레이, 테스트) 돌릴 때 쓰는 플레이어 정보
+    private final Map<Integer, PlayerData> localPlayerDataMap = new ConcurrentHashMap<>();
 
     public ServerGame(Server server){
+        this(server, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param server 없으면 null. 점수는 DB 에 저장하지 않습니다.
+     * @param seed 시뮬레이션 난수 시드
+     */
+    public ServerGame(Server server, long seed){
         this.server = server;
+        this.seed = seed;
+        this.random = new Random(seed);
         this.entityManager = new EntityManager();
         this.entityFactory = new EntityFactory(this, this.entityManager);
         this.stageManager = new StageManager(this, entityManager, entityFactory);
@@ -33,6 +59,20 @@ public class ServerGame {
         return entityManager.getEntities();
     }
 
+    /**
+     * 충돌 후보를 추리는 방식을 바꿉니다. 게임 루프를 시작하기 전에 호출합니다.
+     */
+    public void setBroadphase(Broadphase broadphase){
+        entityManager.setBroadphase(broadphase);
+    }
+
+    /**
+     * false 면 CollisionMatrix 로 쌍을 거르지 않고 모든 쌍에 handleCollision 을 부릅니다. 비교용입니다.
+     */
+    public void setCollisionFilter(boolean collisionFilter){
+        entityManager.setCollisionFilter(collisionFilter);
+    }
+
     public EntityFactory getEntityFactory(){
         return entityFactory;
     }
@@ -46,14 +86,78 @@ public class ServerGame {
     }
 
     public Map<Integer, PlayerData> getPlayerDataMap() {
-        return server.getPlayerDataMap();
+        return server != null ? server.getPlayerDataMap() : localPlayerDataMap;
+    }
+
+    public void insertScore(String username, int score) {
+        if (server != null) {
+            server.getLoginHost().insertScore(username, score);
+        }
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return 다음에 실행할 틱 번호
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * 틱 번호로 센 게임 시간. 쿨다운과 지속 시간은 벽시계 대신 이것으로 잽니다.
+     */
+    public long getTimeMillis() {
+        return tick * 1000L / Server.TICKS_PER_SECOND;
     }
 
     public void removeEntity(final int id){
         entityManager.removeEntity(id);
     }
 
+    /**
+     * 게임 루프 밖(IO 스레드)에서 플레이어 우주선을 제거할 때 사용합니다. 다음 틱 시작에 제거됩니다.
+     */
+    public void removePlayerEntity(final int id){
+        inputQueue.execute(() -> {
+            if (journal != null) {
+                journal.leave(tick, id);
+            }
+            entityManager.removeEntity(id);
+        });
+    }
+
+    /**
+     * 통계 스레드에서 호출합니다. 이 우주선이 쏘는 총알부터 rewindTicks 만큼 되돌린 위치로 판정합니다.
+     */
+    public void setRewindTicks(int playerShipId, int rewindTicks){
+        inputQueue.execute(() -> {
+            if (journal != null) {
+                journal.rewind(tick, playerShipId, rewindTicks);
+            }
+            if (entityManager.getEntity(playerShipId) instanceof ServerPlayerShipEntity playerShip){
+                playerShip.setRewindTicks(rewindTicks);
+            }
+        });
+    }
+
+    /**
+     * 아직 적용되지 않은 플레이어 생성/제거 같은 명령 수.
+     */
+    public int getPendingCommandCount(){
+        return inputQueue.getPendingCommandCount();
+    }
+
     public void tick(){
+        // 틱 사이에 들어온 입력/명령은 여기서만 적용된다.
+        inputQueue.drain(gameRules, journal, tick);
+        gameRules.applyHeldInputs();
         entityManager.updateAll();
 
         stageManager.spawnMeteorsIfNeeded();
@@ -62,6 +166,44 @@ public class ServerGame {
         updateAlienLogic();
         // 5. 요청된 보스 로직을 업데이트합니다.
         updateBossLogic();
+
+        tick++;
+        // 체크섬의 틱 번호는 "이 틱을 시작하기 전의 상태"를 뜻한다.
+        if (journal != null && tick % CHECKSUM_INTERVAL_TICKS == 0) {
+            journal.checksum(tick, stateChecksum());
+        }
+    }
+
+    /**
+     * 리플레이가 같은 경기를 만들었는지 비교하는 값. 엔티티 id, 종류, 위치, 체력을 섞습니다.
+     */
+    public long stateChecksum() {
+        long hash = tick;
+        for (Entity entity : entityManager.getEntities().values()) {
+            hash = hash * 31 + entity.getId();
+            hash = hash * 31 + entity.getType().ordinal();
+            hash = hash * 31 + Double.doubleToLongBits(entity.getX());
+            hash = hash * 31 + Double.doubleToLongBits(entity.getY());
+            hash = hash * 31 + entity.getCurrentHP();
+        }
+        return hash;
+    }
+
+    /**
+     * 게임 루프가 돌기 전에 부르거나 게임 루프 스레드에서 부릅니다.
+     */
+    public void setJournal(MatchJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * 게임 루프 스레드에서 부릅니다.
+     */
+    public void closeJournal() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
     }
 
     private void updateAlienLogic() {
@@ -111,12 +253,32 @@ public class ServerGame {
         gameRules.setAlienCount(alienCount);
     }
 
+    /**
+     * IO 스레드에서 호출됩니다. id 는 바로 발급하고 엔티티 목록에는 다음 틱 시작에 추가합니다.
+     */
     public int spawnPlayerEntity() {
-        ServerPlayerShipEntity playerShip = entityFactory.createPlayerShip(370, 550);
+        int playerShipId = reservePlayerShipId();
+        spawnPlayerEntity(playerShipId);
+        logger.log(Level.INFO,"Server: 플레이어 {0} 생성 예약 완료.", playerShipId);
+        return playerShipId;
+    }
+
+    /**
+     * 미리 받은 id 로 우주선을 다음 틱 시작에 추가합니다. 리플레이는 저널에 적힌 id 로 이것을 부릅니다.
+     */
+    public void spawnPlayerEntity(int playerShipId) {
+        ServerPlayerShipEntity playerShip = new ServerPlayerShipEntity(this, playerShipId, 370, 550);
+        inputQueue.execute(() -> {
+            if (journal != null) {
+                journal.join(tick, playerShipId);
+            }
+            entityManager.addEntity(playerShip);
+        });
+        getPlayerDataMap().computeIfAbsent(playerShipId, id -> new PlayerData("Gues- "+id));
+    }
 
-        server.getPlayerDataMap().computeIfAbsent(playerShip.getId(), id -> new PlayerData("Gues- "+id));
-        logger.log(Level.INFO,"Server: 플레이어 생성 완료. 총 엔티티 수: {0}",entityManager.getEntities().size());
-        return playerShip.getId();
+    public int reservePlayerShipId() {
+        return entityManager.reservePlayerId();
     }
 
     public void requestLogicUpdate(){
@@ -126,8 +288,25 @@ public class ServerGame {
         bossLogicUpdateRequested = true;
     }
 
+    /**
+     * 입력은 바로 적용하지 않고 큐에 넣어 다음 틱 시작에 게임 루프 스레드에서 적용합니다.
+     */
     public void processPlayerInput(int playerShipId, PlayerInput receivedInput){
-        gameRules.processPlayerInput(playerShipId, receivedInput);
+        inputQueue.submit(playerShipId, receivedInput);
+    }
+
+    public void processPlayerInput(int playerShipId, InputState inputState){
+        inputQueue.submit(playerShipId, inputState);
+    }
+
+    /**
+     * 이 우주선에 마지막으로 적용된 입력 번호. 게임 루프 스레드에서만 호출합니다.
+     */
+    public int getLastInputSequence(int playerShipId){
+        if (entityManager.getEntity(playerShipId) instanceof ServerPlayerShipEntity playerShip){
+            return playerShip.getLastInputSequence();
+        }
+        return -1;
     }
 
     public void notifyBossKilled(int killerId) {
@@ -0,0 +1,103 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Server} 의 진단 값. 스냅샷 인코딩 시간은 게임 루프 스레드가 기록하고,
+ * 통계 스레드가 1초마다 {@link #sample(Iterable)} 로 평균을 냅니다.
+ */
+public class ServerStats implements ServerStatsMBean {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private final Server server;
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong encodeMaxNanos = new AtomicLong();
+    private final AtomicLong encodeCount = new AtomicLong();
+    private volatile int snapshotsPerSecond;
+    private volatile double encodeMicros;
+    private volatile double encodeMaxMicros;
+    private volatile double writeStallMillisPerSecond;
+
+    public ServerStats(Server server) {
+        this.server = server;
+    }
+
+    /**
+     * 게임 루프 스레드에서 스냅샷을 보낼 때마다 호출합니다. 할당하지 않습니다.
+     */
+    public void recordSnapshotEncode(long nanos) {
+        encodeNanos.addAndGet(nanos);
+        encodeMaxNanos.accumulateAndGet(nanos, Math::max);
+        encodeCount.incrementAndGet();
+    }
+
+    /**
+     * 연결별 초당 값을 갱신하고 서버 값을 다시 계산합니다.
+     */
+    public void sample(Iterable<ClientHandler> clients) {
+        double stall = 0;
+        for (ClientHandler client : clients) {
+            client.getStats().sample();
+            stall += client.getStats().getWriteStallMillisPerSecond();
+        }
+        writeStallMillisPerSecond = stall;
+
+        long count = encodeCount.getAndSet(0);
+        long total = encodeNanos.getAndSet(0);
+        long max = encodeMaxNanos.getAndSet(0);
+        snapshotsPerSecond = (int) count;
+        encodeMicros = count == 0 ? 0 : total / NANOS_PER_MICRO / count;
+        encodeMaxMicros = max / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public int getConnections() {
+        return server.getConnectionCount();
+    }
+
+    @Override
+    public int getPlayers() {
+        return server.getPlayerCount();
+    }
+
+    @Override
+    public int getSpectators() {
+        return server.getSpectatorCount();
+    }
+
+    @Override
+    public int getDetachedSessions() {
+        return server.getSessions().getDetachedCount();
+    }
+
+    @Override
+    public boolean isGameStarted() {
+        return server.isGameStarted();
+    }
+
+    @Override
+    public long getTicks() {
+        return server.getTickCount();
+    }
+
+    @Override
+    public int getSnapshotsPerSecond() {
+        return snapshotsPerSecond;
+    }
+
+    @Override
+    public double getSnapshotEncodeMicros() {
+        return encodeMicros;
+    }
+
+    @Override
+    public double getSnapshotEncodeMaxMicros() {
+        return encodeMaxMicros;
+    }
+
+    @Override
+    public double getWriteStallMillisPerSecond() {
+        return writeStallMillisPerSecond;
+    }
+}
@@ -0,0 +1,32 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+/**
+ * 서버 전체의 진단 값. org.newdawn.spaceinvaders:type=Server,port=&lt;서버 포트&gt; 로 등록됩니다.
+ * 연결별 값은 type=Client 쪽을 봅니다.
+ */
+public interface ServerStatsMBean {
+
+    int getConnections();
+
+    int getPlayers();
+
+    /** 직접 붙은 관전자 수. 중계 서버 하나는 관전자 하나로 센다. */
+    int getSpectators();
+
+    /** 연결이 끊겨 재접속을 기다리는 플레이어 수 */
+    int getDetachedSessions();
+
+    boolean isGameStarted();
+
+    long getTicks();
+
+    int getSnapshotsPerSecond();
+
+    /** 지난 1초 동안 스냅샷 한 번(캡처 + 월드 인코딩 + 연결별 헤더/큐잉)에 걸린 평균 시간 */
+    double getSnapshotEncodeMicros();
+
+    double getSnapshotEncodeMaxMicros();
+
+    /** 모든 연결의 소켓 쓰기 대기 시간 합. 지난 1초 기준 */
+    double getWriteStallMillisPerSecond();
+}
@@ -0,0 +1,132 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 플레이어 세션 토큰과 우주선의 연결을 관리합니다. 연결이 끊겨도 유예 시간 동안은 세션을 남겨 두고,
+ * 그 안에 같은 토큰으로 다시 참가하면 원래 우주선에 다시 붙입니다.
+ * <p>
+ * 참가/퇴장 때만 불리므로 한 잠금으로 충분합니다. IO 스레드와 통계 스레드에서 호출됩니다.
+ *
+ * @param <T> 세션을 가진 연결 (서버에서는 ClientHandler)
+ */
+public class SessionRegistry<T> {
+
+    private static final class Session<T> {
+        final int shipId;
+        T owner;
+        // 끊긴 시각. 연결되어 있으면 -1
+        long detachedAtNanos = -1;
+
+        Session(int shipId, T owner) {
+            this.shipId = shipId;
+            this.owner = owner;
+        }
+    }
+
+    private final Map<Long, Session<T>> sessions = new HashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long graceNanos;
+
+    /**
+     * @param graceNanos 끊긴 세션을 남겨 두는 시간. 0 이하면 세션을 쓰지 않는다.
+     */
+    public SessionRegistry(long graceNanos) {
+        this.graceNanos = graceNanos;
+    }
+
+    /**
+     * 새 세션을 만듭니다. 토큰은 추측할 수 없도록 SecureRandom 으로 만들고, 0 은 쓰지 않습니다.
+     *
+     * @return 세션 토큰. 유예를 쓰지 않으면 세션을 만들지 않고 0
+     */
+    public synchronized long issue(int shipId, T owner) {
+        if (graceNanos <= 0) {
+            return 0;
+        }
+        long token;
+        do {
+            token = random.nextLong();
+        } while (token == 0 || sessions.containsKey(token));
+        sessions.put(token, new Session<>(shipId, owner));
+        return token;
+    }
+
+    /**
+     * 세션을 새 연결로 넘깁니다. 이전 연결이 아직 살아 있으면(반쯤 끊긴 TCP 등) 잠금을 푼 뒤 supersede 로 알려
+     * 닫게 합니다.
+     *
+     * @return 다시 붙은 우주선 id. 없거나 만료된 토큰이면 -1
+     */
+    public int resume(long token, T owner, Consumer<T> supersede) {
+        int shipId;
+        T previous;
+        synchronized (this) {
+            Session<T> session = sessions.get(token);
+            if (session == null) {
+                return -1;
+            }
+            previous = session.detachedAtNanos < 0 ? session.owner : null;
+            session.owner = owner;
+            session.detachedAtNanos = -1;
+            shipId = session.shipId;
+        }
+        if (previous != null && previous != owner) {
+            supersede.accept(previous);
+        }
+        return shipId;
+    }
+
+    /**
+     * 연결이 끊긴 세션을 유예 상태로 돌립니다.
+     *
+     * @return 세션이 이미 다른 연결로 넘어갔으면 false. 그 우주선은 새 연결의 것이다.
+     */
+    public synchronized boolean detach(long token, T owner, long nowNanos) {
+        Session<T> session = sessions.get(token);
+        if (session == null || session.owner != owner) {
+            return false;
+        }
+        session.detachedAtNanos = nowNanos;
+        return true;
+    }
+
+    /**
+     * 유예 시간이 지난 세션을 지웁니다.
+     *
+     * @return 지운 세션의 우주선 id
+     */
+    public synchronized List<Integer> expire(long nowNanos) {
+        List<Integer> expired = new ArrayList<>();
+        Iterator<Session<T>> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            Session<T> session = it.next();
+            if (session.detachedAtNanos >= 0 && nowNanos - session.detachedAtNanos >= graceNanos) {
+                expired.add(session.shipId);
+                it.remove();
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /** 끊긴 채 다시 붙기를 기다리는 세션 수 */
+    public synchronized int getDetachedCount() {
+        int count = 0;
+        for (Session<T> session : sessions.values()) {
+            if (session.detachedAtNanos >= 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -44,7 +44,7 @@ public class StageManager {
     }
     //스테이지에 따라 메테오 생성
     public void spawnMeteorsIfNeeded() {
-        if (currentStageIndex > 2 && Math.random() < 0.003) {
+        if (currentStageIndex > 2 && game.getRandom().nextDouble() < 0.003) {
             factory.createMeteor();
         }
     }
@@ -0,0 +1,80 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import java.util.Arrays;
+
+/**
+ * 한 틱의 충돌 판정에 쓰는 엔티티 사각형들. 인덱스는 EntityManager 가 넣은 순서(id 순)입니다.
+ * <p>
+ * 오른쪽/아래 끝을 x + width 로 미리 계산해 두므로 {@link #overlaps} 는 Entity.isColliding 과 같은 값을 냅니다.
+ * 배열은 엔티티 수가 늘 때만 키웁니다.
+ * <p>
+ * 사각형마다 종류 비트(category)와 상대할 종류 비트(mask)를 둘 수 있습니다. 브로드페이즈는
+ * {@link #canCollide} 가 false 인 쌍은 겹쳐도 내보내지 않습니다. 기본값은 모두와 상대합니다.
+ */
+public class Bounds {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    double[] left = new double[INITIAL_CAPACITY];
+    double[] top = new double[INITIAL_CAPACITY];
+    double[] right = new double[INITIAL_CAPACITY];
+    double[] bottom = new double[INITIAL_CAPACITY];
+    int[] category = new int[INITIAL_CAPACITY];
+    int[] mask = new int[INITIAL_CAPACITY];
+    int count;
+
+    /**
+     * 사각형 count 개를 넣을 준비를 합니다. 이전 값은 버립니다.
+     */
+    public void reset(int count) {
+        if (left.length < count) {
+            int capacity = Math.max(count, left.length * 2);
+            left = Arrays.copyOf(left, capacity);
+            top = Arrays.copyOf(top, capacity);
+            right = Arrays.copyOf(right, capacity);
+            bottom = Arrays.copyOf(bottom, capacity);
+            category = Arrays.copyOf(category, capacity);
+            mask = Arrays.copyOf(mask, capacity);
+        }
+        this.count = count;
+    }
+
+    public void set(int index, double x, double y, double width, double height) {
+        left[index] = x;
+        top[index] = y;
+        right[index] = x + width;
+        bottom[index] = y + height;
+        category[index] = -1;
+        mask[index] = -1;
+    }
+
+    /**
+     * set 뒤에 부릅니다. 두 사각형은 서로의 mask 에 상대 category 가 있어야 짝이 됩니다.
+     */
+    public void setFilter(int index, int category, int mask) {
+        this.category[index] = category;
+        this.mask[index] = mask;
+    }
+
+    public boolean canCollide(int i, int j) {
+        return (mask[i] & category[j]) != 0 && (mask[j] & category[i]) != 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 두 사각형이 겹치는지. 변이 맞닿기만 한 것은 겹치지 않은 것으로 봅니다.
+     */
+    public boolean overlaps(int i, int j) {
+        return left[i] < right[j] && right[i] > left[j] && top[i] < bottom[j] && bottom[i] > top[j];
+    }
+
+    /**
+     * index 번째 사각형이 넣을 때와 달라졌는지. 충돌 처리 중에 움직인 엔티티를 찾는 데 씁니다.
+     */
+    public boolean differs(int index, double x, double y, double width, double height) {
+        return left[index] != x || top[index] != y || right[index] != x + width || bottom[index] != y + height;
+    }
+}
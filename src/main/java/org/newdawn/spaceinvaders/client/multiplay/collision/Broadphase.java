@@ -0,0 +1,37 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import java.util.Locale;
+
+/**
+ * 충돌 판정 전에 겹치는 사각형 쌍을 추려 내는 단계. 모든 쌍을 비교하는 O(n²) 대신 공간 구조로 후보를 줄입니다.
+ * 게임 루프 스레드에서만 사용하며, 구현은 틱 사이에 배열을 재사용합니다.
+ * <p>
+ * -Dspaceinvaders.broadphase=grid(기본) | sweep | scan | brute 로 고릅니다.
+ */
+public interface Broadphase {
+
+    /**
+     * 서로 상대하는({@link Bounds#canCollide}) 쌍 중 겹치는 쌍 (i &lt; j) 을 모두 pairs 에 넣습니다.
+     * 순서는 정해져 있지 않습니다.
+     */
+    void findPairs(Bounds bounds, PairList pairs);
+
+    /**
+     * 설정한 브로드페이즈를 만듭니다.
+     *
+     * @return brute 면 null. EntityManager 는 예전처럼 모든 쌍을 직접 비교합니다.
+     */
+    static Broadphase configured() {
+        return create(System.getProperty("spaceinvaders.broadphase", "grid"));
+    }
+
+    static Broadphase create(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "grid" -> new GridBroadphase();
+            case "sweep" -> new SweepBroadphase();
+            case "scan" -> new ScanBroadphase();
+            case "brute" -> null;
+            default -> throw new IllegalArgumentException("알 수 없는 브로드페이즈: " + name);
+        };
+    }
+}
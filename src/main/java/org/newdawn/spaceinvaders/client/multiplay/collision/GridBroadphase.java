@@ -0,0 +1,126 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import java.util.Arrays;
+
+/**
+ * 800x600 화면을 같은 크기의 칸으로 나눈 격자. 사각형을 걸치는 칸마다 넣고, 같은 칸에 든 것끼리만 비교합니다.
+ * 화면 밖의 사각형은 가장자리 칸에 넣으므로 빠뜨리지 않습니다.
+ * <p>
+ * 칸 목록은 계수 정렬로 배열 하나에 모아 두어 틱마다 할당하지 않습니다. 여러 칸에 걸친 쌍은
+ * 두 사각형의 왼쪽 위 칸 중 더 오른쪽 아래에 있는 칸에서만 내보내 중복을 없앱니다.
+ */
+public class GridBroadphase implements Broadphase {
+
+    public static final int ARENA_WIDTH = 800;
+    public static final int ARENA_HEIGHT = 600;
+    // 외계인(약 40px) 하나가 보통 한두 칸에 들어가는 크기
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellCursor;
+    private int[] cellItems = new int[256];
+    private int[] minColumn = new int[64];
+    private int[] maxColumn = new int[64];
+    private int[] minRow = new int[64];
+    private int[] maxRow = new int[64];
+
+    public GridBroadphase() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public GridBroadphase(int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.columns = (ARENA_WIDTH + cellSize - 1) / cellSize;
+        this.rows = (ARENA_HEIGHT + cellSize - 1) / cellSize;
+        this.cellStart = new int[columns * rows + 1];
+        this.cellCursor = new int[columns * rows];
+    }
+
+    @Override
+    public void findPairs(Bounds bounds, PairList pairs) {
+        int count = bounds.size();
+        ensureCapacity(count);
+
+        // 1. 칸마다 몇 개가 들어가는지 센다.
+        Arrays.fill(cellStart, 0);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int c0 = column(bounds.left[i]);
+            int c1 = column(bounds.right[i]);
+            int r0 = row(bounds.top[i]);
+            int r1 = row(bounds.bottom[i]);
+            minColumn[i] = c0;
+            maxColumn[i] = c1;
+            minRow[i] = r0;
+            maxRow[i] = r1;
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+            total += (c1 - c0 + 1) * (r1 - r0 + 1);
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+            cellCursor[cell] = cellStart[cell];
+        }
+
+        // 2. 인덱스 순으로 채우므로 칸 안에서도 인덱스가 오름차순이다.
+        if (cellItems.length < total) {
+            cellItems = new int[Math.max(total, cellItems.length * 2)];
+        }
+        for (int i = 0; i < count; i++) {
+            for (int r = minRow[i]; r <= maxRow[i]; r++) {
+                for (int c = minColumn[i]; c <= maxColumn[i]; c++) {
+                    cellItems[cellCursor[r * columns + c]++] = i;
+                }
+            }
+        }
+
+        // 3. 같은 칸에 든 것끼리 비교한다.
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int cell = r * columns + c;
+                int end = cellStart[cell + 1];
+                for (int a = cellStart[cell]; a < end; a++) {
+                    int i = cellItems[a];
+                    for (int b = a + 1; b < end; b++) {
+                        int j = cellItems[b];
+                        if (Math.max(minColumn[i], minColumn[j]) == c && Math.max(minRow[i], minRow[j]) == r
+                                && bounds.canCollide(i, j) && bounds.overlaps(i, j)) {
+                            pairs.add(i, j);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return clamp((int) Math.floor(x / cellSize), columns);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor(y / cellSize), rows);
+    }
+
+    private static int clamp(int cell, int cells) {
+        return Math.max(0, Math.min(cells - 1, cell));
+    }
+
+    private void ensureCapacity(int count) {
+        if (minColumn.length < count) {
+            int capacity = Math.max(count, minColumn.length * 2);
+            minColumn = new int[capacity];
+            maxColumn = new int[capacity];
+            minRow = new int[capacity];
+            maxRow = new int[capacity];
+        }
+    }
+}
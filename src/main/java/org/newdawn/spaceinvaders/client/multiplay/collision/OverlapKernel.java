@@ -0,0 +1,38 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 사각형 하나를 연속된 구간의 사각형들과 한꺼번에 비교하는 겹침 판정.
+ * jdk.incubator.vector 모듈이 있으면 SIMD 로, 없으면 스칼라로 비교합니다.
+ * <p>
+ * 벡터 구현은 mvn -Psimd 로 빌드했을 때만 들어 있고, 쓰려면 JVM 도 --add-modules jdk.incubator.vector 로 띄웁니다.
+ * -Dspaceinvaders.simd=false 면 모듈이 있어도 스칼라로 비교합니다.
+ */
+public interface OverlapKernel {
+
+    /**
+     * i 번째 사각형과 겹치고 서로 상대하는({@link Bounds#canCollide}) j 를 [from, to) 에서 찾아
+     * 오름차순으로 hits 에 넣습니다. i 자신은 넣지 않습니다.
+     *
+     * @param hits 길이가 to - from 이상이어야 합니다.
+     * @return 찾은 개수
+     */
+    int scan(Bounds bounds, int i, int from, int to, int[] hits);
+
+    static OverlapKernel create() {
+        if (Boolean.parseBoolean(System.getProperty("spaceinvaders.simd", "true"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // 모듈이 없는 JVM 에서도 이 인터페이스는 로드되도록 이름으로 찾는다.
+                return (OverlapKernel) Class.forName(OverlapKernel.class.getPackageName() + ".VectorOverlapKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                Logger.getLogger(OverlapKernel.class.getName())
+                        .log(Level.WARNING, "벡터 충돌 판정을 쓸 수 없어 스칼라로 판정합니다.", e);
+            }
+        }
+        return new ScalarOverlapKernel();
+    }
+}
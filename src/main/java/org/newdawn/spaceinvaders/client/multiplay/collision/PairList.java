@@ -0,0 +1,39 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import java.util.Arrays;
+
+/**
+ * 브로드페이즈가 찾은 (i, j) 쌍. i &lt; j 이고 같은 쌍은 한 번만 들어갑니다. 매 틱 비워서 다시 씁니다.
+ */
+public class PairList {
+
+    private int[] first = new int[256];
+    private int[] second = new int[256];
+    private int size;
+
+    public void add(int i, int j) {
+        if (size == first.length) {
+            first = Arrays.copyOf(first, size * 2);
+            second = Arrays.copyOf(second, size * 2);
+        }
+        first[size] = i;
+        second[size] = j;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getFirst(int index) {
+        return first[index];
+    }
+
+    public int getSecond(int index) {
+        return second[index];
+    }
+}
@@ -0,0 +1,21 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+/**
+ * 한 칸씩 비교하는 기본 구현. 벡터 모듈이 없을 때 쓰고, 벡터 구현의 나머지 칸도 이렇게 비교합니다.
+ */
+public class ScalarOverlapKernel implements OverlapKernel {
+
+    @Override
+    public int scan(Bounds bounds, int i, int from, int to, int[] hits) {
+        return scanTail(bounds, i, from, to, hits, 0);
+    }
+
+    static int scanTail(Bounds bounds, int i, int from, int to, int[] hits, int found) {
+        for (int j = from; j < to; j++) {
+            if (j != i && bounds.overlaps(i, j) && bounds.canCollide(i, j)) {
+                hits[found++] = j;
+            }
+        }
+        return found;
+    }
+}
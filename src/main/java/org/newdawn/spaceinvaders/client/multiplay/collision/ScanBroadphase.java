@@ -0,0 +1,37 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+/**
+ * 모든 쌍을 비교하되, 엔티티 하나를 뒤쪽 전체와 {@link OverlapKernel} 로 한꺼번에 비교합니다.
+ * 공간 구조를 만들 필요가 없어 총알이 많고 전체 수는 수백 개 이하인 화면에서 쓸 만합니다.
+ */
+public class ScanBroadphase implements Broadphase {
+
+    private final OverlapKernel kernel;
+    private int[] hits = new int[64];
+
+    public ScanBroadphase() {
+        this(OverlapKernel.create());
+    }
+
+    public ScanBroadphase(OverlapKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    public OverlapKernel getKernel() {
+        return kernel;
+    }
+
+    @Override
+    public void findPairs(Bounds bounds, PairList pairs) {
+        int count = bounds.size();
+        if (hits.length < count) {
+            hits = new int[Math.max(count, hits.length * 2)];
+        }
+        for (int i = 0; i < count - 1; i++) {
+            int found = kernel.scan(bounds, i, i + 1, count, hits);
+            for (int k = 0; k < found; k++) {
+                pairs.add(i, hits[k]);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import java.util.Arrays;
+
+/**
+ * 정렬 후 훑기(sort and sweep). 왼쪽 끝 x 로 정렬한 뒤, 각 사각형의 오른쪽 끝을 넘는 것이 나올 때까지만 비교합니다.
+ * 화면 크기와 상관없이 동작하고, 엔티티가 가로로 흩어져 있을수록 빠릅니다.
+ * <p>
+ * 정렬 키는 [왼쪽 끝을 float 로 바꾼 정렬용 비트 32][인덱스 32] 인 long 하나라 기본형 정렬로 끝납니다.
+ * float 변환은 순서를 뒤집지 않으므로, 키가 오른쪽 끝(float)보다 커지면 그 뒤는 모두 겹치지 않습니다.
+ */
+public class SweepBroadphase implements Broadphase {
+
+    private long[] keys = new long[64];
+
+    @Override
+    public void findPairs(Bounds bounds, PairList pairs) {
+        int count = bounds.size();
+        if (keys.length < count) {
+            keys = new long[Math.max(count, keys.length * 2)];
+        }
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) sortableBits((float) bounds.left[i]) << 32) | i;
+        }
+        Arrays.sort(keys, 0, count);
+
+        for (int a = 0; a < count; a++) {
+            int i = (int) keys[a];
+            int limit = sortableBits((float) bounds.right[i]);
+            for (int b = a + 1; b < count; b++) {
+                if ((int) (keys[b] >> 32) > limit) {
+                    break;
+                }
+                int j = (int) keys[b];
+                if (bounds.canCollide(i, j) && bounds.overlaps(i, j)) {
+                    pairs.add(Math.min(i, j), Math.max(i, j));
+                }
+            }
+        }
+    }
+
+    // 부호 있는 int 로 비교했을 때 float 크기 순서와 같아지는 비트
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+}
@@ -0,0 +1,43 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API 구현. 후보의 네 변을 레인 수만큼 한 번에 읽어 비교하고, 겹친 레인만 필터를 확인합니다.
+ * 비교 연산은 스칼라와 같은 엄격한 부등호라 NaN 이나 맞닿은 변도 같은 결과가 나옵니다.
+ * <p>
+ * OverlapKernel.create() 가 이름으로만 만듭니다. 모듈 없이 이 클래스를 직접 쓰면 NoClassDefFoundError 가 납니다.
+ */
+class VectorOverlapKernel implements OverlapKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public int scan(Bounds bounds, int i, int from, int to, int[] hits) {
+        double left = bounds.left[i];
+        double top = bounds.top[i];
+        double right = bounds.right[i];
+        double bottom = bounds.bottom[i];
+        int found = 0;
+        int j = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; j < upper; j += SPECIES.length()) {
+            VectorMask<Double> overlap = DoubleVector.fromArray(SPECIES, bounds.right, j).compare(VectorOperators.GT, left)
+                    .and(DoubleVector.fromArray(SPECIES, bounds.left, j).compare(VectorOperators.LT, right))
+                    .and(DoubleVector.fromArray(SPECIES, bounds.bottom, j).compare(VectorOperators.GT, top))
+                    .and(DoubleVector.fromArray(SPECIES, bounds.top, j).compare(VectorOperators.LT, bottom));
+            long lanes = overlap.toLong();
+            while (lanes != 0) {
+                int k = j + Long.numberOfTrailingZeros(lanes);
+                lanes &= lanes - 1;
+                if (k != i && bounds.canCollide(i, k)) {
+                    hits[found++] = k;
+                }
+            }
+        }
+        return ScalarOverlapKernel.scanTail(bounds, i, j, to, hits, found);
+    }
+}
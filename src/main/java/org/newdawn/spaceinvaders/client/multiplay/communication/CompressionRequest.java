@@ -0,0 +1,15 @@
+package org.newdawn.spaceinvaders.client.multiplay.communication;
+
+import java.io.Serializable;
+
+public class CompressionRequest implements Serializable {
+    private boolean enabled;
+
+    public CompressionRequest(boolean enabled){
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+}
@@ -0,0 +1,38 @@
+package org.newdawn.spaceinvaders.client.multiplay.communication;
+
+import java.io.Serializable;
+
+/**
+ * 연결 직후 클라이언트가 보내는 첫 메시지. 이 연결을 어떤 용도로 쓸지 알린다.
+ */
+public class JoinRequest implements Serializable {
+    public enum Role {
+        // 우주선을 받아 게임에 참가한다.
+        PLAYER,
+        // 로그인/회원가입/랭킹 요청만 주고받는다. 우주선도 스냅샷도 없다.
+        CONTROL,
+        // 스냅샷만 받는 관전자. 우주선이 생기지 않고 입력은 무시된다.
+        SPECTATOR
+    }
+
+    private Role role;
+    // 끊기기 전에 서버가 준 세션 토큰. 0 이면 새로 참가한다.
+    private long sessionToken;
+
+    public JoinRequest(Role role){
+        this(role, 0);
+    }
+
+    public JoinRequest(Role role, long sessionToken){
+        this.role = role;
+        this.sessionToken = sessionToken;
+    }
+
+    public Role getRole(){
+        return role;
+    }
+
+    public long getSessionToken(){
+        return sessionToken;
+    }
+}
@@ -0,0 +1,15 @@
+package org.newdawn.spaceinvaders.client.multiplay.communication;
+
+import java.io.Serializable;
+
+public class SnapshotAck implements Serializable {
+    private int sequence;
+
+    public SnapshotAck(int sequence){
+        this.sequence = sequence;
+    }
+
+    public int getSequence(){
+        return sequence;
+    }
+}
@@ -0,0 +1,112 @@
+package org.newdawn.spaceinvaders.client.multiplay.journal;
+
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.PlayerInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link MatchJournal} 파일을 앞에서부터 한 레코드씩 읽습니다. 닫히지 않은 저널도 쓴 데까지 읽을 수 있습니다.
+ */
+public class JournalReader {
+
+    private static final PlayerInput.Action[] ACTIONS = PlayerInput.Action.values();
+
+    private final ByteBuffer data;
+    private final long seed;
+    private final int ticksPerSecond;
+    private int kind;
+    private int tick;
+    private int shipId;
+    private int value;
+    private int sequence;
+    private long checksum;
+
+    private JournalReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.remaining() < MatchJournal.HEADER_SIZE || data.getInt() != MatchJournal.MAGIC) {
+            throw new IOException("경기 저널 파일이 아닙니다.");
+        }
+        int version = data.getShort() & 0xFFFF;
+        if (version != MatchJournal.VERSION) {
+            throw new IOException("지원하지 않는 저널 버전: " + version);
+        }
+        this.seed = data.getLong();
+        this.ticksPerSecond = data.getShort() & 0xFFFF;
+    }
+
+    public static JournalReader open(Path path) throws IOException {
+        return new JournalReader(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+    /**
+     * 다음 레코드로 넘어갑니다.
+     *
+     * @return 끝이거나 마지막 레코드가 잘렸으면 false
+     */
+    public boolean next() {
+        if (data.remaining() < MatchJournal.RECORD_HEADER) {
+            return false;
+        }
+        int start = data.position();
+        kind = data.get() & 0xFF;
+        if (kind == MatchJournal.END) {
+            return false;
+        }
+        tick = data.getInt();
+        shipId = data.getInt();
+        int payload = payloadSize(kind);
+        if (payload < 0 || data.remaining() < payload) {
+            data.position(start);
+            return false;
+        }
+        switch (kind) {
+            case MatchJournal.INPUT, MatchJournal.STATE -> {
+                value = data.get() & 0xFF;
+                sequence = data.getInt();
+            }
+            case MatchJournal.REWIND -> value = data.getShort() & 0xFFFF;
+            case MatchJournal.CHECKSUM -> checksum = data.getLong();
+            default -> {
+                // 참가/퇴장은 값이 없다.
+            }
+        }
+        return true;
+    }
+
+    private static int payloadSize(int kind) {
+        return switch (kind) {
+            case MatchJournal.JOIN, MatchJournal.LEAVE -> 0;
+            case MatchJournal.INPUT, MatchJournal.STATE -> 5;
+            case MatchJournal.REWIND -> 2;
+            case MatchJournal.CHECKSUM -> 8;
+            default -> -1;
+        };
+    }
+
+    public long getSeed() { return seed; }
+
+    public int getTicksPerSecond() { return ticksPerSecond; }
+
+    public int getKind() { return kind; }
+
+    public int getTick() { return tick; }
+
+    public int getShipId() { return shipId; }
+
+    /** REWIND 레코드의 되돌릴 틱 수 */
+    public int getRewindTicks() { return value; }
+
+    public long getChecksum() { return checksum; }
+
+    public PlayerInput getInput() {
+        return new PlayerInput(ACTIONS[value], sequence);
+    }
+
+    public InputState getState() {
+        return new InputState(value, sequence);
+    }
+}
@@ -0,0 +1,163 @@
+package org.newdawn.spaceinvaders.client.multiplay.journal;
+
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.PlayerInput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 한 경기의 입력 저널. 시드와, 틱마다 실제로 적용된 입력과 참가/퇴장을 적용한 순서대로 덧붙여 씁니다.
+ * 같은 시드로 ServerGame 을 만들고 이 입력을 같은 틱에 다시 넣으면 같은 경기가 됩니다. ({@link MatchReplay})
+ * <p>
+ * 파일은 메모리 매핑한 구역에 씁니다. 게임 루프 스레드는 메모리에 쓰기만 하고 디스크로 내보내는 것은 OS 가 합니다.
+ * 프로세스가 죽어도 쓴 데까지는 파일에 남고, 뒤에 남은 0 은 읽을 때 끝으로 봅니다.
+ * 게임 루프 스레드에서만 사용합니다.
+ * <pre>
+ * 헤더:   [magic i32][version u16][seed i64][ticksPerSecond u16]
+ * 레코드: [kind u8][tick i32][shipId i32][값]
+ * </pre>
+ */
+public class MatchJournal implements Closeable {
+
+    static final int MAGIC = 0x53494A4E; // "SIJN"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4 + 2 + 8 + 2;
+
+    static final int END = 0;
+    static final int JOIN = 1;
+    static final int LEAVE = 2;
+    static final int INPUT = 3;     // [action u8][sequence i32]
+    static final int STATE = 4;     // [buttons u8][sequence i32]
+    static final int REWIND = 5;    // [ticks u16]
+    static final int CHECKSUM = 6;  // [checksum i64], 우주선이 없으므로 shipId 는 -1
+    static final int RECORD_HEADER = 1 + 4 + 4;
+    private static final int MAX_RECORD = RECORD_HEADER + 8;
+    // 한 번에 매핑하는 크기. 입력 레코드 하나가 14바이트라 한 구역에 보통 경기 한 판이 다 들어간다.
+    private static final int REGION_SIZE = 1 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private boolean failed = false;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private MatchJournal(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.region = channel.map(FileChannel.MapMode.READ_WRITE, 0, REGION_SIZE);
+    }
+
+    /**
+     * 새 저널 파일을 만듭니다. 같은 이름의 파일이 있으면 실패합니다.
+     */
+    public static MatchJournal create(Path path, long seed, int ticksPerSecond) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MatchJournal journal = new MatchJournal(path, channel);
+            journal.region.putInt(MAGIC).putShort((short) VERSION).putLong(seed).putShort((short) ticksPerSecond);
+            return journal;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void join(int tick, int shipId) {
+        begin(JOIN, tick, shipId);
+    }
+
+    public void leave(int tick, int shipId) {
+        begin(LEAVE, tick, shipId);
+    }
+
+    public void input(int tick, int shipId, PlayerInput input) {
+        if (begin(INPUT, tick, shipId)) {
+            region.put((byte) input.getAction().ordinal()).putInt(input.getSequence());
+        }
+    }
+
+    public void state(int tick, int shipId, InputState state) {
+        if (begin(STATE, tick, shipId)) {
+            region.put((byte) state.getButtons()).putInt(state.getSequence());
+        }
+    }
+
+    public void rewind(int tick, int shipId, int rewindTicks) {
+        if (begin(REWIND, tick, shipId)) {
+            region.putShort((short) rewindTicks);
+        }
+    }
+
+    public void checksum(int tick, long checksum) {
+        if (begin(CHECKSUM, tick, -1)) {
+            region.putLong(checksum);
+        }
+    }
+
+    /**
+     * @return 지금까지 쓴 바이트 수 (헤더 포함)
+     */
+    public long getLength() {
+        return regionStart + region.position();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 쓴 길이로 파일을 자르고 닫습니다. 자르지 못해도 뒤에 남는 0 은 읽을 때 무시됩니다.
+     */
+    @Override
+    public void close() {
+        long length = getLength();
+        try {
+            region.force();
+            channel.truncate(length);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "저널 파일 길이를 줄이지 못함", e);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "저널 파일 닫기 실패: {0}", e.getMessage());
+        }
+        logger.log(Level.INFO, "경기 저널 저장: {0} ({1} bytes)", new Object[]{path, length});
+    }
+
+    // 레코드 하나가 들어갈 자리를 확보하고 머리를 쓴다. 기록을 멈췄으면 false
+    private boolean begin(int kind, int tick, int shipId) {
+        if (failed) {
+            return false;
+        }
+        if (region.remaining() < MAX_RECORD && !nextRegion()) {
+            return false;
+        }
+        region.put((byte) kind).putInt(tick).putInt(shipId);
+        return true;
+    }
+
+    private boolean nextRegion() {
+        try {
+            long start = regionStart + region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_SIZE);
+            regionStart = start;
+            return true;
+        } catch (IOException e) {
+            // 저널 때문에 경기를 멈추지는 않는다.
+            failed = true;
+            logger.log(Level.WARNING, "저널 구역을 매핑하지 못해 기록을 멈춥니다: {0}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.newdawn.spaceinvaders.client.multiplay.journal;
+
+import org.newdawn.spaceinvaders.client.multiplay.Server;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 입력 저널로 경기를 서버 없이 다시 돌립니다. 기록된 체크섬과 비교해 처음 어긋난 틱을 알려 주므로
+ * 운영 중 생긴 버그를 재현하거나, 같은 입력으로 시뮬레이션 성능을 잴 때 씁니다.
+ * <pre>
+ * java -cp target/classes org.newdawn.spaceinvaders.client.multiplay.journal.MatchReplay match.journal
+ * </pre>
+ */
+public final class MatchReplay {
+
+    /**
+     * 리플레이 결과. 끝난 뒤의 게임 상태도 들고 있어 테스트나 디버깅에서 살펴볼 수 있습니다.
+     */
+    public static final class Result {
+        private final ServerGame game;
+        private final int events;
+        private final int checksums;
+        private final int firstMismatchTick;
+        private final long elapsedNanos;
+
+        private Result(ServerGame game, int events, int checksums, int firstMismatchTick, long elapsedNanos) {
+            this.game = game;
+            this.events = events;
+            this.checksums = checksums;
+            this.firstMismatchTick = firstMismatchTick;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public ServerGame getGame() { return game; }
+
+        public int getTicks() { return game.getTick(); }
+
+        public int getEvents() { return events; }
+
+        public int getChecksums() { return checksums; }
+
+        /** @return 체크섬이 처음 어긋난 틱. 모두 같으면 -1 */
+        public int getFirstMismatchTick() { return firstMismatchTick; }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+
+    private MatchReplay() {
+    }
+
+    public static Result replay(Path path) throws IOException {
+        JournalReader reader = JournalReader.open(path);
+        if (reader.getTicksPerSecond() != Server.TICKS_PER_SECOND) {
+            throw new IOException("틱 주기가 다른 저널입니다: " + reader.getTicksPerSecond());
+        }
+        long start = System.nanoTime();
+        ServerGame game = new ServerGame(null, reader.getSeed());
+        int events = 0;
+        int checksums = 0;
+        int firstMismatchTick = -1;
+        while (reader.next()) {
+            if (reader.getKind() == MatchJournal.CHECKSUM) {
+                // 체크섬은 그 틱을 시작하기 전의 상태다.
+                runUntil(game, reader.getTick());
+                checksums++;
+                if (firstMismatchTick < 0 && game.stateChecksum() != reader.getChecksum()) {
+                    firstMismatchTick = reader.getTick();
+                }
+                continue;
+            }
+            // 같은 틱의 입력은 모두 넣은 뒤에 그 틱을 돌린다. 큐가 적용 순서를 기록할 때와 똑같이 맞춘다.
+            runUntil(game, reader.getTick());
+            apply(game, reader);
+            events++;
+        }
+        return new Result(game, events, checksums, firstMismatchTick, System.nanoTime() - start);
+    }
+
+    private static void runUntil(ServerGame game, int tick) {
+        while (game.getTick() < tick) {
+            game.tick();
+        }
+    }
+
+    private static void apply(ServerGame game, JournalReader reader) {
+        int shipId = reader.getShipId();
+        switch (reader.getKind()) {
+            case MatchJournal.JOIN -> game.spawnPlayerEntity(shipId);
+            case MatchJournal.LEAVE -> game.removePlayerEntity(shipId);
+            case MatchJournal.INPUT -> game.processPlayerInput(shipId, reader.getInput());
+            case MatchJournal.STATE -> game.processPlayerInput(shipId, reader.getState());
+            case MatchJournal.REWIND -> game.setRewindTicks(shipId, reader.getRewindTicks());
+            default -> throw new IllegalStateException("알 수 없는 저널 레코드: " + reader.getKind());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("사용법: MatchReplay <저널 파일>");
+            System.exit(2);
+        }
+        Result result = replay(Paths.get(args[0]));
+        double seconds = result.getElapsedNanos() / 1e9;
+        System.out.printf("틱 %d (게임 시간 %.1f초), 입력 %d, 체크섬 %d개%n", result.getTicks(),
+                (double) result.getTicks() / Server.TICKS_PER_SECOND, result.getEvents(), result.getChecksums());
+        System.out.printf("재생 %.3f초, 틱당 %.1fµs%n", seconds,
+                result.getTicks() == 0 ? 0.0 : result.getElapsedNanos() / 1000.0 / result.getTicks());
+        if (result.getFirstMismatchTick() >= 0) {
+            System.out.printf("틱 %d 에서 상태가 어긋났습니다.%n", result.getFirstMismatchTick());
+            System.exit(1);
+        }
+        System.out.println("기록과 같은 경기를 재현했습니다.");
+    }
+}
@@ -0,0 +1,79 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 보내는 프레임용 direct ByteBuffer 풀. 256B 부터 64KB 까지 2의 거듭제곱 크기별로 버퍼를 모아 두고 재사용합니다.
+ * direct 버퍼는 소켓에 쓸 때 JDK 가 임시 direct 버퍼로 한 번 더 복사하지 않습니다.
+ * 어느 스레드에서든 쓸 수 있습니다.
+ * <p>
+ * 돌려받지 못한 버퍼는 GC 가 치우므로 누수가 아니라 재사용을 못 한 것일 뿐입니다.
+ */
+public class BufferPool {
+
+    static final int MIN_SIZE = 256;
+    static final int MAX_SIZE = 64 * 1024;
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SIZE);
+    // 크기별로 보관하는 최대 개수. 넘치는 버퍼는 GC 에 맡긴다.
+    private static final int MAX_POOLED_PER_SIZE = 1024;
+
+    // ArrayBlockingQueue 는 넣고 뺄 때 노드를 만들지 않는다.
+    private final ArrayBlockingQueue<ByteBuffer>[] free;
+    private final AtomicLong allocations = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public BufferPool() {
+        free = new ArrayBlockingQueue[sizeClass(MAX_SIZE) + 1];
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ArrayBlockingQueue<>(MAX_POOLED_PER_SIZE);
+        }
+    }
+
+    /**
+     * @return position 0, limit 이 capacity 인 버퍼. capacity 는 size 이상입니다.
+     * {@link #MAX_SIZE} 보다 크면 풀 밖의 힙 버퍼를 돌려줍니다.
+     */
+    public ByteBuffer acquire(int size) {
+        if (size > MAX_SIZE) {
+            return ByteBuffer.allocate(size);
+        }
+        int sizeClass = sizeClass(size);
+        ByteBuffer buffer = free[sizeClass].poll();
+        if (buffer == null) {
+            allocations.incrementAndGet();
+            return ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * 버퍼를 풀에 돌려줍니다. 이 풀에서 나온 버퍼가 아니면 무시하므로 어떤 프레임이든 넘겨도 됩니다.
+     * 돌려준 뒤에는 그 버퍼를 더 쓰면 안 됩니다.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() > MAX_SIZE) {
+            return;
+        }
+        int sizeClass = sizeClass(buffer.capacity());
+        if ((MIN_SIZE << sizeClass) == buffer.capacity()) {
+            free[sizeClass].offer(buffer);
+        }
+    }
+
+    /**
+     * @return 지금까지 새로 만든 direct 버퍼 수. 풀이 데워진 뒤에는 늘지 않아야 합니다.
+     */
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    // size 를 담을 수 있는 가장 작은 크기 등급
+    private static int sizeClass(int size) {
+        if (size <= MIN_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+}
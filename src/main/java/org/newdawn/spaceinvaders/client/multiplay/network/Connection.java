@@ -0,0 +1,343 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * NetworkServer 가 관리하는 클라이언트 연결 하나.
+ * 읽기/쓰기는 모두 담당 IO 스레드에서 논블로킹으로 처리되고,
+ * 다른 스레드는 {@link #send(ByteBuffer)} / {@link #sendSnapshot(ByteBuffer)} 로 프레임을 넘기기만 합니다.
+ * <p>
+ * 보내는 쪽 큐는 두 갈래입니다. 로그인 응답이나 VICTORY 같은 신뢰 메시지는 순서대로 모두 전달되고,
+ * 스냅샷은 최신 하나만 보관해서 느린 클라이언트에게는 오래된 스냅샷을 새 것으로 덮어씁니다.
+ * 신뢰 메시지마저 {@link #MAX_PENDING_RELIABLE} 개 넘게 밀리면 더 기다리지 않고 연결을 끊습니다.
+ * <p>
+ * 압축을 켜면 어느 쪽 큐에서 나온 프레임이든 소켓에 쓰기 직전에 압축합니다.
+ * 압축 스트림은 앞선 프레임에 의존하므로, 버려질 수 있는 스냅샷을 미리 압축해 두면 안 됩니다.
+ * <p>
+ * 스냅샷 프레임은 {@link BufferPool} 의 direct 버퍼에 바로 인코딩되고, 다 쓰거나 버려지면 풀로 돌아갑니다.
+ * 대기 중인 프레임들은 gathering write 한 번으로 함께 내보냅니다.
+ */
+public class Connection {
+
+    private static final int INITIAL_READ_BUFFER = 4 * 1024;
+    public static final int MAX_PENDING_RELIABLE = 256;
+    // write 한 번에 모아 보내는 최대 프레임 수
+    private static final int MAX_GATHER = 16;
+    private static final Logger logger = Logger.getLogger(Connection.class.getName());
+
+    private final SocketChannel channel;
+    private final IoLoop loop;
+    private final NetworkServer.Listener listener;
+    private final BufferPool bufferPool;
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingReliable = new AtomicInteger();
+    private final AtomicReference<ByteBuffer> pendingSnapshot = new AtomicReference<>();
+    private final AtomicLong droppedSnapshots = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    // 소켓 버퍼가 가득 차서 쓰기를 기다린 시간. IO 스레드만 갱신한다.
+    private final AtomicLong writeStallNanos = new AtomicLong();
+    private long stallStartedNanos;
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private SelectionKey key;
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+    // 소켓에 쓰는 중인 프레임들 [gatherStart, gatherEnd). 소켓 버퍼가 차서 절반만 나간 프레임도 여기 남는다.
+    // 스냅샷이라도 중간에 바꿔치기하면 안 된다.
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private int gatherStart;
+    private int gatherEnd;
+    // 틱마다 람다 객체를 만들지 않도록 한 번만 만든다.
+    private final Runnable flushTask = this::flush;
+    private volatile Object attachment;
+    private volatile boolean compress = false;
+    // 처음 압축할 때 만들고 연결이 끝날 때까지 유지한다. 꺼도 스트림은 이어지므로 다시 켤 수 있다.
+    private FrameDeflater deflater;
+
+    Connection(SocketChannel channel, IoLoop loop, NetworkServer.Listener listener, BufferPool bufferPool) {
+        this.channel = channel;
+        this.loop = loop;
+        this.listener = listener;
+        this.bufferPool = bufferPool;
+    }
+
+    void register(SelectionKey key) {
+        this.key = key;
+    }
+
+    public Object getAttachment() { return attachment; }
+
+    public void setAttachment(Object attachment) { this.attachment = attachment; }
+
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed.get();
+    }
+
+    /**
+     * 아직 소켓으로 넘기지 못한 프레임 수. (신뢰 메시지 + 대기 중인 스냅샷)
+     */
+    public int getQueueDepth() {
+        return pendingReliable.get() + (pendingSnapshot.get() != null ? 1 : 0);
+    }
+
+    /**
+     * 보내기 전에 더 새로운 스냅샷으로 대체되어 버려진 스냅샷 수.
+     */
+    public long getDroppedSnapshots() {
+        return droppedSnapshots.get();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * 소켓에 실제로 쓴 바이트 수. 압축을 켜면 압축된 크기입니다.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * 소켓 버퍼가 가득 차서 다음 쓰기를 기다린 누적 시간. 지금 기다리는 중인 시간은 다 쓴 뒤에 더해집니다.
+     */
+    public long getWriteStallNanos() {
+        return writeStallNanos.get();
+    }
+
+    /**
+     * 신뢰 메시지 프레임을 쓰기 큐에 넣습니다. 어느 스레드에서든 호출할 수 있고 블로킹하지 않습니다.
+     */
+    public void send(ByteBuffer frame) {
+        if (closed.get()) {
+            return;
+        }
+        if (pendingReliable.incrementAndGet() > MAX_PENDING_RELIABLE) {
+            logger.log(Level.WARNING, "전송 대기열이 가득 차 연결을 끊습니다: {0}", getRemoteAddress());
+            close();
+            return;
+        }
+        writeQueue.add(frame);
+        scheduleFlush();
+    }
+
+    /**
+     * 스냅샷 프레임을 넘깁니다. 아직 나가지 못한 이전 스냅샷이 있으면 버리고 이것으로 바꿉니다.
+     */
+    public void sendSnapshot(ByteBuffer frame) {
+        if (closed.get()) {
+            return;
+        }
+        ByteBuffer dropped = pendingSnapshot.getAndSet(frame);
+        if (dropped != null) {
+            droppedSnapshots.incrementAndGet();
+            bufferPool.release(dropped);
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * 헤더와 월드 부분을 풀의 버퍼 하나에 프레임으로 인코딩해 {@link #sendSnapshot(ByteBuffer)} 합니다.
+     * 두 버퍼는 읽기만 하므로 여러 연결이 같은 월드 버퍼를 넘겨도 됩니다. 반환 뒤에는 다시 써도 됩니다.
+     */
+    public void sendSnapshot(ByteBuffer header, ByteBuffer world) {
+        if (closed.get()) {
+            return;
+        }
+        ByteBuffer frame = bufferPool.acquire(MessageCodec.snapshotFrameSize(header, world));
+        sendSnapshot(MessageCodec.encodeSnapshot(header, world, frame));
+    }
+
+    /**
+     * 프레임을 압축할지 정합니다. 소켓에 쓰는 시점에 적용되므로 이미 대기 중인 프레임에도 적용됩니다.
+     * 받는 쪽은 COMPRESSED 프레임만 풀면 되므로 켜고 끄는 시점이 프레임 사이 어디든 상관없습니다.
+     */
+    public void setCompression(boolean enabled) {
+        this.compress = enabled;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compress;
+    }
+
+    private void scheduleFlush() {
+        if (writeScheduled.compareAndSet(false, true)) {
+            loop.execute(flushTask);
+        }
+    }
+
+    public void close() {
+        loop.execute(this::closeNow);
+    }
+
+    // ---- 이하 IO 스레드 전용 ----
+
+    private void flush() {
+        writeScheduled.set(false);
+        handleWrite();
+    }
+
+    void handleWrite() {
+        if (closed.get()) {
+            return;
+        }
+        try {
+            while (gatherStart < gatherEnd || fillGather()) {
+                bytesWritten.addAndGet(channel.write(gather, gatherStart, gatherEnd - gatherStart));
+                while (gatherStart < gatherEnd && !gather[gatherStart].hasRemaining()) {
+                    bufferPool.release(gather[gatherStart]);
+                    gather[gatherStart++] = null;
+                }
+                if (gatherStart < gatherEnd) {
+                    // 소켓 버퍼가 가득 참. 쓰기 가능해지면 이어서 보낸다.
+                    if (stallStartedNanos == 0) {
+                        stallStartedNanos = System.nanoTime();
+                    }
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            if (stallStartedNanos != 0) {
+                writeStallNanos.addAndGet(System.nanoTime() - stallStartedNanos);
+                stallStartedNanos = 0;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "쓰기 실패로 연결을 닫습니다.", e);
+            closeNow();
+        }
+    }
+
+    // 보낼 프레임을 최대 MAX_GATHER 개까지 꺼내 둔다.
+    private boolean fillGather() {
+        gatherStart = 0;
+        gatherEnd = 0;
+        ByteBuffer frame;
+        while (gatherEnd < MAX_GATHER && (frame = nextFrame()) != null) {
+            gather[gatherEnd++] = frame;
+        }
+        return gatherEnd > 0;
+    }
+
+    // 신뢰 메시지를 먼저 내보내고, 없으면 그 시점의 최신 스냅샷을 꺼낸다.
+    private ByteBuffer nextFrame() {
+        ByteBuffer frame = writeQueue.poll();
+        if (frame != null) {
+            pendingReliable.decrementAndGet();
+        } else {
+            frame = pendingSnapshot.getAndSet(null);
+        }
+        if (frame != null && compress && FrameDeflater.worthCompressing(frame)) {
+            if (deflater == null) {
+                deflater = new FrameDeflater();
+            }
+            ByteBuffer compressed = deflater.compress(frame);
+            bufferPool.release(frame);
+            frame = compressed;
+        }
+        return frame;
+    }
+
+    void handleRead() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                closeNow();
+                return;
+            }
+            bytesRead.addAndGet(read);
+            dispatchFrames();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "읽기 실패로 연결을 닫습니다.", e);
+            closeNow();
+        }
+    }
+
+    private void dispatchFrames() throws IOException {
+        readBuffer.flip();
+        while (readBuffer.remaining() >= MessageCodec.LENGTH_SIZE && !closed.get()) {
+            int start = readBuffer.position();
+            int length = readBuffer.getInt(start);
+            MessageCodec.checkLength(length);
+            if (readBuffer.remaining() < MessageCodec.LENGTH_SIZE + length) {
+                ensureReadCapacity(MessageCodec.LENGTH_SIZE + length);
+                return;
+            }
+            int end = start + MessageCodec.LENGTH_SIZE + length;
+            int type = readBuffer.get(start + MessageCodec.LENGTH_SIZE) & 0xFF;
+            ByteBuffer payload = readBuffer.duplicate();
+            payload.position(start + MessageCodec.FRAME_HEADER_SIZE).limit(end);
+            readBuffer.position(end);
+            try {
+                listener.onMessage(this, type, payload.slice());
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "메시지 처리 중 오류. 연결을 닫습니다.", e);
+                closeNow();
+                return;
+            }
+        }
+        readBuffer.compact();
+    }
+
+    // 아직 덜 도착한 프레임이 버퍼보다 크면 버퍼를 키운다. (compact 상태로 돌려놓음)
+    private void ensureReadCapacity(int frameSize) {
+        if (frameSize > readBuffer.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(frameSize);
+            bigger.put(readBuffer);
+            readBuffer = bigger;
+        } else {
+            readBuffer.compact();
+        }
+    }
+
+    void closeNow() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // intentionally ignored
+        }
+        ByteBuffer frame;
+        while ((frame = writeQueue.poll()) != null) {
+            bufferPool.release(frame);
+        }
+        pendingReliable.set(0);
+        bufferPool.release(pendingSnapshot.getAndSet(null));
+        for (int i = gatherStart; i < gatherEnd; i++) {
+            bufferPool.release(gather[i]);
+            gather[i] = null;
+        }
+        gatherStart = 0;
+        gatherEnd = 0;
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        listener.onDisconnected(this);
+    }
+}
@@ -0,0 +1,25 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+
+/**
+ * UDP 소켓을 감싼 송수신 통로. 테스트와 수동 확인에서는
+ * {@link SimulatedLink} 로 감싸 손실/지연을 흉내 냅니다.
+ */
+public interface DatagramLink extends Closeable {
+
+    void send(byte[] data, int length, SocketAddress target) throws IOException;
+
+    /**
+     * 데이터그램 하나를 받습니다. 일정 시간 동안 아무것도 오지 않으면 false 를 돌려줍니다.
+     */
+    boolean receive(DatagramPacket packet) throws IOException;
+
+    int getLocalPort();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,158 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * 연결 하나의 보내는 쪽 압축 스트림. 프레임의 [type][payload] 를 이어지는 deflate 스트림에 넣고
+ * 메시지마다 SYNC_FLUSH 해서 COMPRESSED 프레임 하나로 감쌉니다.
+ * <pre>
+ * [length i32][COMPRESSED u8][deflate 바이트]
+ * </pre>
+ * 앞선 메시지들이 사전 역할을 하므로 비슷한 스냅샷이 이어질수록 잘 줄어듭니다.
+ * 스트림 상태가 이어지므로 압축한 프레임은 반드시 그 순서대로 보내야 하고, 중간에 버리면 안 됩니다.
+ * 그래서 {@link Connection} 은 프레임을 소켓에 쓰기 직전에 IO 스레드에서 압축합니다.
+ */
+public class FrameDeflater {
+
+    // 이보다 작은 프레임(입력, ack 등)은 압축해도 이득이 없어 그대로 보낸다.
+    public static final int MIN_COMPRESS_SIZE = 64;
+    // IO 스레드에서 압축하므로 랭킹 목록처럼 큰 프레임은 빠른 수준으로 압축한다.
+    // (10,000줄 랭킹: 수준 6 은 수준 1 보다 5배 느리고 6% 더 줄어드는 데 그침. CompressionBenchmark 참고)
+    static final int LARGE_FRAME_SIZE = 16 * 1024;
+
+    private static final byte[] DICTIONARY = buildDictionary();
+
+    private final Deflater deflater;
+    private final boolean adaptive;
+    private int level;
+    private byte[] out = new byte[4 * 1024];
+
+    /**
+     * 스냅샷 크기 프레임은 기본 수준, 큰 프레임은 빠른 수준으로 압축합니다.
+     */
+    public FrameDeflater() {
+        this(Deflater.DEFAULT_COMPRESSION, true, true);
+    }
+
+    /**
+     * 모든 프레임을 같은 수준으로 압축합니다. 측정용.
+     * @param useDictionary 양쪽이 같은 값을 써야 합니다.
+     */
+    public FrameDeflater(int level, boolean useDictionary) {
+        this(level, useDictionary, false);
+    }
+
+    private FrameDeflater(int level, boolean useDictionary, boolean adaptive) {
+        this.deflater = new Deflater(level);
+        this.level = level;
+        this.adaptive = adaptive;
+        if (useDictionary) {
+            deflater.setDictionary(DICTIONARY);
+        }
+    }
+
+    /**
+     * @return 압축할 가치가 있는 크기인지
+     */
+    public static boolean worthCompressing(ByteBuffer frame) {
+        return frame.remaining() >= MIN_COMPRESS_SIZE;
+    }
+
+    /**
+     * @param frame 길이 접두부터 시작하는 프레임. position 이 프레임 끝으로 이동합니다.
+     * @return COMPRESSED 프레임
+     */
+    public ByteBuffer compress(ByteBuffer frame) {
+        if (adaptive) {
+            int wanted = frame.remaining() >= LARGE_FRAME_SIZE ? Deflater.BEST_SPEED : Deflater.DEFAULT_COMPRESSION;
+            if (wanted != level) {
+                // 다음 deflate 호출부터 적용되며 스트림은 그대로 이어진다.
+                deflater.setLevel(wanted);
+                level = wanted;
+            }
+        }
+        ByteBuffer body = frame.slice();
+        body.position(MessageCodec.LENGTH_SIZE);
+        deflater.setInput(body);
+        int length = 0;
+        while (true) {
+            // 수준을 바꾼 직후의 호출은 입력만 소비하고 flush 는 하지 않을 수 있으므로,
+            // 입력을 다 넣은 뒤의 호출에서 출력 공간이 남아야 flush 까지 끝난 것으로 본다.
+            boolean inputConsumed = deflater.needsInput();
+            if (length == out.length) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            length += deflater.deflate(out, length, out.length - length, Deflater.SYNC_FLUSH);
+            if (inputConsumed && length < out.length) {
+                break;
+            }
+        }
+        frame.position(frame.limit());
+
+        ByteBuffer compressed = ByteBuffer.allocate(MessageCodec.FRAME_HEADER_SIZE + length);
+        compressed.putInt(1 + length);
+        compressed.put((byte) MessageType.COMPRESSED);
+        compressed.put(out, 0, length);
+        compressed.flip();
+        return compressed;
+    }
+
+    /**
+     * 네이티브 메모리를 돌려줍니다. 연결이 닫힐 때 호출합니다.
+     */
+    public void end() {
+        deflater.end();
+    }
+
+    static byte[] dictionary() {
+        return DICTIONARY;
+    }
+
+    /**
+     * 전형적인 스냅샷 바이트로 사전을 만든다. 양쪽이 같은 코드로 만들므로 따로 주고받지 않는다.
+     * Stage 1 의 외계인 배치와 우주선/총알 몇 개로 이루어진 델타와 키프레임 하나.
+     * 이어지는 스냅샷은 앞선 스트림을 참조하므로 사전은 새 연결의 첫 키프레임에서 가장 효과가 크다.
+     * deflate 는 사전의 뒤쪽일수록 싸게 참조하므로 키프레임을 뒤에 둔다.
+     */
+    private static byte[] buildDictionary() {
+        WorldSnapshot keyframe = new WorldSnapshot();
+        keyframe.clear(0);
+        WorldSnapshot delta = new WorldSnapshot();
+        delta.clear(1);
+        delta.setTick(4);
+        int id = 0;
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 10; col++) {
+                int x = 100 + col * 50;
+                int y = 50 + row * 30;
+                keyframe.add(id, EntityType.ALIEN, WorldSnapshot.quantize(x), WorldSnapshot.quantize(y),
+                        WorldSnapshot.FULL_HEALTH, 0);
+                delta.add(id, EntityType.ALIEN, WorldSnapshot.quantize(x - 2.5), WorldSnapshot.quantize(y),
+                        WorldSnapshot.FULL_HEALTH, 1);
+                id++;
+            }
+        }
+        keyframe.add(id, EntityType.PLAYER, WorldSnapshot.quantize(370), WorldSnapshot.quantize(550), 0, 0);
+        delta.add(id, EntityType.PLAYER, WorldSnapshot.quantize(378.3), WorldSnapshot.quantize(550), 0, 0);
+        id++;
+        for (int shot = 0; shot < 3; shot++, id++) {
+            keyframe.add(id, EntityType.SHOT, WorldSnapshot.quantize(380), WorldSnapshot.quantize(500 - shot * 60), 0, 0);
+            delta.add(id, EntityType.SHOT, WorldSnapshot.quantize(380), WorldSnapshot.quantize(490 - shot * 60), 0, 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 * (1 + SnapshotCodec.HEADER_SIZE)
+                + SnapshotCodec.maxWorldSize(null, keyframe) + SnapshotCodec.maxWorldSize(keyframe, delta));
+        buffer.put((byte) MessageType.SNAPSHOT);
+        SnapshotCodec.encodeHeader(0, 3, GameState.GameStatus.PLAYING, 30, 1, buffer);
+        SnapshotCodec.encodeWorld(keyframe, delta, buffer);
+        buffer.put((byte) MessageType.SNAPSHOT);
+        SnapshotCodec.encodeHeader(0, 3, GameState.GameStatus.PLAYING, 30, 0, buffer);
+        SnapshotCodec.encodeWorld(null, keyframe, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+}
@@ -0,0 +1,58 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 연결 하나의 받는 쪽 압축 스트림. {@link FrameDeflater} 가 만든 COMPRESSED 프레임을 받은 순서대로 풉니다.
+ */
+public class FrameInflater {
+
+    private final Inflater inflater = new Inflater();
+    private final boolean useDictionary;
+    private byte[] out = new byte[4 * 1024];
+
+    public FrameInflater() {
+        this(true);
+    }
+
+    public FrameInflater(boolean useDictionary) {
+        this.useDictionary = useDictionary;
+    }
+
+    /**
+     * @param payload COMPRESSED 프레임의 payload
+     * @return 원래 프레임의 type 바이트부터 시작하는 버퍼. 다음 호출 때 재사용됩니다.
+     */
+    public ByteBuffer inflate(ByteBuffer payload) throws IOException {
+        inflater.setInput(payload);
+        int length = 0;
+        try {
+            while (true) {
+                length += inflater.inflate(out, length, out.length - length);
+                if (inflater.needsDictionary()) {
+                    if (!useDictionary) {
+                        throw new IOException("사전을 요구하는 압축 스트림");
+                    }
+                    inflater.setDictionary(FrameDeflater.dictionary());
+                } else if (length == out.length) {
+                    MessageCodec.checkLength(out.length * 2);
+                    out = Arrays.copyOf(out, out.length * 2);
+                } else if (inflater.needsInput() || inflater.finished()) {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("압축 해제 실패", e);
+        }
+        MessageCodec.checkLength(length);
+        return ByteBuffer.wrap(out, 0, length);
+    }
+
+    public void end() {
+        inflater.end();
+    }
+}
@@ -0,0 +1,131 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.IOException;
+import java.nio.channels.*;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selector 하나와 그것을 돌리는 IO 스레드 하나.
+ * 연결 등록, 쓰기 요청, 종료 같은 작업은 {@link #execute(Runnable)} 로 넘겨
+ * 항상 이 스레드에서 처리되게 합니다.
+ */
+final class IoLoop implements Runnable {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final NetworkServer server;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    IoLoop(NetworkServer server, String name) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void join() throws InterruptedException {
+        thread.join();
+    }
+
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+    }
+
+    void registerAcceptor(ServerSocketChannel serverChannel) {
+        execute(() -> {
+            try {
+                serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (ClosedChannelException e) {
+                logger.log(Level.WARNING, "서버 소켓 등록 실패", e);
+            }
+        });
+    }
+
+    void register(SocketChannel channel, NetworkServer.Listener listener) {
+        execute(() -> {
+            Connection connection = new Connection(channel, this, listener, server.getBufferPool());
+            try {
+                connection.register(channel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (ClosedChannelException e) {
+                return;
+            }
+            listener.onConnected(connection);
+        });
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                // 키 처리 중에 이 스레드가 넣은 작업도 다음 select 전에 실행된다.
+                runTasks();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "셀렉터 오류", e);
+            }
+        }
+        closeAll();
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            server.acceptAll((ServerSocketChannel) key.channel());
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        if (key.isReadable()) {
+            connection.handleRead();
+        }
+        if (key.isValid() && key.isWritable()) {
+            connection.handleWrite();
+        }
+    }
+
+    private void closeAll() {
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) {
+                connection.closeNow();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // intentionally ignored
+        }
+    }
+}
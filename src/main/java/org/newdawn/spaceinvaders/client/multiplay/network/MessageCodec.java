@@ -0,0 +1,286 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.PlayerInput;
+import org.newdawn.spaceinvaders.client.multiplay.RankData;
+import org.newdawn.spaceinvaders.client.multiplay.communication.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * 길이 접두 프레임 인코딩/디코딩.
+ * <pre>
+ * [length i32][type u8][payload]   length = type 1바이트 + payload 길이
+ * </pre>
+ * 문자열은 [길이 u16][UTF-8 바이트] 로 씁니다.
+ */
+public final class MessageCodec {
+
+    public static final int LENGTH_SIZE = 4;
+    public static final int FRAME_HEADER_SIZE = LENGTH_SIZE + 1;
+    // 랭킹 전체 목록이 가장 큰 메시지이므로 넉넉하게 잡는다.
+    public static final int MAX_FRAME_LENGTH = 4 * 1024 * 1024;
+
+    private static final PlayerInput.Action[] ACTIONS = PlayerInput.Action.values();
+    private static final JoinRequest.Role[] ROLES = JoinRequest.Role.values();
+
+    private MessageCodec() { /* 유틸 클래스 */ }
+
+    /**
+     * 제어/입력 메시지 객체를 전송 가능한 프레임으로 만듭니다.
+     * @return position 0, limit 프레임 끝으로 맞춰진 버퍼
+     */
+    public static ByteBuffer encode(Object message) {
+        if (message instanceof PlayerInput input) {
+            ByteBuffer frame = beginFrame(MessageType.PLAYER_INPUT, 5);
+            frame.put((byte) input.getAction().ordinal());
+            frame.putInt(input.getSequence());
+            return endFrame(frame);
+        } else if (message instanceof InputState state) {
+            ByteBuffer frame = beginFrame(MessageType.INPUT_STATE, 5);
+            frame.put((byte) state.getButtons());
+            frame.putInt(state.getSequence());
+            return endFrame(frame);
+        } else if (message instanceof SnapshotAck ack) {
+            ByteBuffer frame = beginFrame(MessageType.SNAPSHOT_ACK, 4);
+            frame.putInt(ack.getSequence());
+            return endFrame(frame);
+        } else if (message instanceof LoginRequest req) {
+            return encodeStrings(MessageType.LOGIN_REQUEST, req.getUsername(), req.getPassword());
+        } else if (message instanceof SignUpRequest req) {
+            return encodeStrings(MessageType.SIGN_UP_REQUEST, req.getUsername(), req.getPassword());
+        } else if (message instanceof RankRequest) {
+            return encodeSignal(MessageType.RANK_REQUEST);
+        } else if (message instanceof CompressionRequest req) {
+            return encodeFlag(MessageType.COMPRESSION_REQUEST, req.isEnabled());
+        } else if (message instanceof JoinRequest req) {
+            ByteBuffer frame = beginFrame(MessageType.JOIN, 1 + 8);
+            frame.put((byte) req.getRole().ordinal());
+            frame.putLong(req.getSessionToken());
+            return endFrame(frame);
+        } else if (message instanceof LoginResponse res) {
+            byte[] username = utf8(res.getUsername());
+            ByteBuffer frame = beginFrame(MessageType.LOGIN_RESPONSE, 1 + 2 + username.length);
+            frame.put((byte) (res.isSuccess() ? 1 : 0));
+            putString(frame, username);
+            return endFrame(frame);
+        } else if (message instanceof SignUpResponse res) {
+            byte[] text = utf8(res.getMessage());
+            ByteBuffer frame = beginFrame(MessageType.SIGN_UP_RESPONSE, 1 + 2 + text.length);
+            frame.put((byte) (res.isSuccess() ? 1 : 0));
+            putString(frame, text);
+            return endFrame(frame);
+        } else if (message instanceof RankResponse res) {
+            return encodeRanking(res.getRanking());
+        }
+        throw new IllegalArgumentException("인코딩할 수 없는 메시지: " + message.getClass().getName());
+    }
+
+    public static ByteBuffer encodeSignal(int type) {
+        return endFrame(beginFrame(type, 0));
+    }
+
+    public static ByteBuffer encodeFlag(int type, boolean value) {
+        ByteBuffer frame = beginFrame(type, 1);
+        frame.put((byte) (value ? 1 : 0));
+        return endFrame(frame);
+    }
+
+    /**
+     * 요청 메시지를 상관 ID 가 붙은 REQUEST 봉투로 감쌉니다.
+     */
+    public static ByteBuffer encodeRequest(int correlationId, Object request) {
+        return wrap(MessageType.REQUEST, correlationId, encode(request));
+    }
+
+    /**
+     * 응답 메시지를 요청과 같은 상관 ID 의 RESPONSE 봉투로 감쌉니다.
+     */
+    public static ByteBuffer encodeResponse(int correlationId, Object response) {
+        return wrap(MessageType.RESPONSE, correlationId, encode(response));
+    }
+
+    public static ByteBuffer encodePing(long sentNanos, int roundTripMicros) {
+        ByteBuffer frame = beginFrame(MessageType.PING, 12);
+        frame.putLong(sentNanos);
+        frame.putInt(roundTripMicros);
+        return endFrame(frame);
+    }
+
+    public static ByteBuffer encodePong(long sentNanos) {
+        ByteBuffer frame = beginFrame(MessageType.PONG, 8);
+        frame.putLong(sentNanos);
+        return endFrame(frame);
+    }
+
+    public static ByteBuffer encodeUdpOffer(int token) {
+        ByteBuffer frame = beginFrame(MessageType.UDP_OFFER, 4);
+        frame.putInt(token);
+        return endFrame(frame);
+    }
+
+    public static ByteBuffer encodeSession(long token, int playerShipId, boolean resumed) {
+        ByteBuffer frame = beginFrame(MessageType.SESSION, 8 + 4 + 1);
+        frame.putLong(token);
+        frame.putInt(playerShipId);
+        frame.put((byte) (resumed ? 1 : 0));
+        return endFrame(frame);
+    }
+
+    public static ByteBuffer encodeSnapshot(byte[] header, byte[] world) {
+        ByteBuffer frame = beginFrame(MessageType.SNAPSHOT, header.length + world.length);
+        frame.put(header);
+        frame.put(world);
+        return endFrame(frame);
+    }
+
+    /**
+     * 스냅샷 프레임을 out 에 바로 씁니다. header 와 world 는 여러 연결이 공유할 수 있으므로
+     * position 을 바꾸지 않고 읽습니다.
+     * @param out 프레임이 들어갈 만큼 남은 버퍼. 끝나면 flip 되어 있습니다.
+     */
+    public static ByteBuffer encodeSnapshot(ByteBuffer header, ByteBuffer world, ByteBuffer out) {
+        out.putInt(1 + header.remaining() + world.remaining());
+        out.put((byte) MessageType.SNAPSHOT);
+        putShared(out, header);
+        putShared(out, world);
+        return endFrame(out);
+    }
+
+    public static int snapshotFrameSize(ByteBuffer header, ByteBuffer world) {
+        return FRAME_HEADER_SIZE + header.remaining() + world.remaining();
+    }
+
+    // src 의 position 을 건드리지 않고 남은 바이트를 복사한다. (duplicate 객체도 만들지 않음)
+    static void putShared(ByteBuffer out, ByteBuffer src) {
+        int length = src.remaining();
+        out.put(out.position(), src, src.position(), length);
+        out.position(out.position() + length);
+    }
+
+    /**
+     * 스냅샷을 제외한 메시지의 payload 를 객체로 복원합니다.
+     */
+    public static Object decode(int type, ByteBuffer payload) {
+        switch (type) {
+            case MessageType.PLAYER_INPUT:
+                return new PlayerInput(ACTIONS[payload.get()], payload.getInt());
+            case MessageType.INPUT_STATE:
+                return new InputState(payload.get() & 0xFF, payload.getInt());
+            case MessageType.SNAPSHOT_ACK:
+                return new SnapshotAck(payload.getInt());
+            case MessageType.LOGIN_REQUEST:
+                return new LoginRequest(getString(payload), getString(payload));
+            case MessageType.SIGN_UP_REQUEST:
+                return new SignUpRequest(getString(payload), getString(payload));
+            case MessageType.RANK_REQUEST:
+                return new RankRequest();
+            case MessageType.COMPRESSION_REQUEST:
+                return new CompressionRequest(payload.get() != 0);
+            case MessageType.JOIN:
+                JoinRequest.Role role = ROLES[payload.get()];
+                // 토큰이 없던 이전 형식도 받는다.
+                return new JoinRequest(role, payload.remaining() >= 8 ? payload.getLong() : 0);
+            case MessageType.LOGIN_RESPONSE:
+                return new LoginResponse(payload.get() != 0, getString(payload));
+            case MessageType.SIGN_UP_RESPONSE:
+                return new SignUpResponse(payload.get() != 0, getString(payload));
+            case MessageType.RANK_RESPONSE:
+                return decodeRanking(payload);
+            default:
+                throw new IllegalArgumentException("알 수 없는 메시지 타입: " + type);
+        }
+    }
+
+    /**
+     * 블로킹 스트림에서 프레임 하나를 읽습니다. (클라이언트용)
+     * @return type 바이트가 첫 바이트인 버퍼
+     */
+    public static ByteBuffer readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] body = new byte[length];
+        in.readFully(body);
+        return ByteBuffer.wrap(body);
+    }
+
+    static void checkLength(int length) throws IOException {
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("잘못된 프레임 길이: " + length);
+        }
+    }
+
+    // [type][payload] 앞에 봉투 타입과 상관 ID 를 붙인다.
+    private static ByteBuffer wrap(int type, int correlationId, ByteBuffer inner) {
+        int innerLength = inner.remaining() - LENGTH_SIZE;
+        ByteBuffer frame = beginFrame(type, 4 + innerLength);
+        frame.putInt(correlationId);
+        frame.put(inner.array(), inner.arrayOffset() + inner.position() + LENGTH_SIZE, innerLength);
+        return endFrame(frame);
+    }
+
+    private static ByteBuffer encodeStrings(int type, String first, String second) {
+        byte[] a = utf8(first);
+        byte[] b = utf8(second);
+        ByteBuffer frame = beginFrame(type, 4 + a.length + b.length);
+        putString(frame, a);
+        putString(frame, b);
+        return endFrame(frame);
+    }
+
+    private static ByteBuffer encodeRanking(ArrayList<RankData> ranking) {
+        byte[][] names = new byte[ranking.size()][];
+        int size = 4;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = utf8(ranking.get(i).getUsername());
+            size += 2 + names[i].length + 4;
+        }
+        ByteBuffer frame = beginFrame(MessageType.RANK_RESPONSE, size);
+        frame.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            putString(frame, names[i]);
+            frame.putInt(ranking.get(i).getScore());
+        }
+        return endFrame(frame);
+    }
+
+    private static RankResponse decodeRanking(ByteBuffer payload) {
+        int count = payload.getInt();
+        ArrayList<RankData> ranking = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ranking.add(new RankData(getString(payload), payload.getInt()));
+        }
+        return new RankResponse(ranking);
+    }
+
+    private static ByteBuffer beginFrame(int type, int payloadLength) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + payloadLength);
+        frame.putInt(1 + payloadLength);
+        frame.put((byte) type);
+        return frame;
+    }
+
+    private static ByteBuffer endFrame(ByteBuffer frame) {
+        frame.flip();
+        return frame;
+    }
+
+    private static byte[] utf8(String value) {
+        return (value == null ? "" : value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
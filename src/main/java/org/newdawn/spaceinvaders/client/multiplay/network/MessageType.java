@@ -0,0 +1,49 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+/**
+ * 프레임의 타입 바이트 값. 한 번 배포된 값은 바꾸지 않습니다.
+ */
+public final class MessageType {
+
+    // 서버 -> 클라이언트
+    public static final int SNAPSHOT = 1;
+    public static final int VICTORY = 2;
+    public static final int LOGIN_RESPONSE = 3;
+    public static final int SIGN_UP_RESPONSE = 4;
+    public static final int RANK_RESPONSE = 5;
+    // TCP 로 UDP 세션 토큰을 알려준다. [token i32]
+    public static final int UDP_OFFER = 6;
+    // UDP 신뢰 이벤트 봉투. {@link ReliableChannel} 참고
+    public static final int RELIABLE = 7;
+    // 압축 요청에 대한 응답. [enabled u8]
+    public static final int COMPRESSION = 8;
+    // 압축된 프레임 봉투. {@link FrameDeflater} 참고
+    public static final int COMPRESSED = 9;
+    // 상관 ID 가 붙은 요청에 대한 응답 봉투. [correlationId i32][type u8][payload]
+    public static final int RESPONSE = 10;
+    // 연결 확인 겸 RTT 측정. [sentNanos i64][지난 RTT 마이크로초 i32, 모르면 -1]
+    public static final int PING = 11;
+    // 참가한 플레이어에게 주는 세션. 끊긴 뒤 이 토큰으로 다시 JOIN 하면 같은 우주선으로 돌아온다.
+    // [token i64][playerShipId i32][resumed u8]
+    public static final int SESSION = 12;
+
+    // 클라이언트 -> 서버
+    public static final int PLAYER_INPUT = 20;
+    public static final int SNAPSHOT_ACK = 21;
+    public static final int LOGIN_REQUEST = 22;
+    public static final int SIGN_UP_REQUEST = 23;
+    public static final int RANK_REQUEST = 24;
+    public static final int INPUT_STATE = 25;
+    public static final int UDP_HELLO = 26;
+    public static final int RELIABLE_ACK = 27;
+    // 이 연결의 서버 -> 클라이언트 압축을 켜거나 끈다. [enabled u8]
+    public static final int COMPRESSION_REQUEST = 28;
+    // 연결의 역할을 알린다. [role u8][sessionToken i64, 새 참가면 0] {@link org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest.Role}
+    public static final int JOIN = 29;
+    // 응답을 짝지을 상관 ID 를 붙인 요청 봉투. [correlationId i32][type u8][payload]
+    public static final int REQUEST = 30;
+    // PING 의 sentNanos 를 그대로 돌려준다. [sentNanos i64]
+    public static final int PONG = 31;
+
+    private MessageType() { /* 상수 클래스 */ }
+}
@@ -0,0 +1,103 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * java.nio Selector 기반 서버. 고정된 수의 IO 스레드가 모든 연결을 나눠 맡으므로
+ * 로비/랭킹 조회처럼 대부분 놀고 있는 연결이 수천 개여도 스레드 수는 늘지 않습니다.
+ * 첫 번째 IO 스레드가 accept 도 함께 처리합니다.
+ */
+public class NetworkServer {
+
+    /**
+     * 모든 콜백은 해당 연결을 맡은 IO 스레드에서 호출되므로 오래 블로킹하면 안 됩니다.
+     */
+    public interface Listener {
+        void onConnected(Connection connection);
+
+        /**
+         * @param payload 콜백이 끝나면 재사용되는 버퍼이므로 필요한 값은 바로 읽어야 합니다.
+         */
+        void onMessage(Connection connection, int type, ByteBuffer payload);
+
+        void onDisconnected(Connection connection);
+    }
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final ServerSocketChannel serverChannel;
+    private final IoLoop[] loops;
+    private final Listener listener;
+    // 모든 연결이 같이 쓰는 보내는 프레임 버퍼 풀
+    private final BufferPool bufferPool = new BufferPool();
+    private int nextLoop = 0;
+
+    public NetworkServer(int port, int ioThreads, Listener listener) throws IOException {
+        this.listener = listener;
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port), 1024);
+        this.serverChannel.configureBlocking(false);
+        this.loops = new IoLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new IoLoop(this, "net-io-" + i);
+        }
+    }
+
+    BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void start() {
+        for (IoLoop loop : loops) {
+            loop.start();
+        }
+        loops[0].registerAcceptor(serverChannel);
+    }
+
+    /**
+     * IO 스레드가 모두 끝날 때까지 기다립니다.
+     */
+    public void awaitTermination() throws InterruptedException {
+        for (IoLoop loop : loops) {
+            loop.join();
+        }
+    }
+
+    public void close() {
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // intentionally ignored
+        }
+        for (IoLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    // 첫 번째 IO 스레드에서만 호출된다.
+    void acceptAll(ServerSocketChannel channel) {
+        try {
+            SocketChannel socket;
+            while ((socket = channel.accept()) != null) {
+                socket.configureBlocking(false);
+                socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                loops[nextLoop].register(socket, listener);
+                nextLoop = (nextLoop + 1) % loops.length;
+            }
+        } catch (IOException e) {
+            if (channel.isOpen()) {
+                logger.log(Level.WARNING, "클라이언트 소켓 수락 중 오류 발생", e);
+            }
+        }
+    }
+}
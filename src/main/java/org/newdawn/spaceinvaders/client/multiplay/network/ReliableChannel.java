@@ -0,0 +1,94 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * UDP 위의 신뢰 이벤트 채널 한 방향. 보내는 쪽은 ack 가 올 때까지 주기적으로 다시 보내고,
+ * 받는 쪽은 중복을 버리고 번호 순서대로만 전달합니다.
+ * <pre>
+ * 데이터그램 본문: [eventSequence i32][type u8][payload]
+ * </pre>
+ * 한 연결 안에서 양쪽 절반을 각각 한 스레드씩 쓰므로 메서드는 동기화되어 있습니다.
+ */
+public class ReliableChannel {
+
+    static final long RESEND_INTERVAL_NANOS = 100_000_000L;
+
+    private static final class Pending {
+        final byte[] body;
+        long lastSentNanos;
+
+        Pending(byte[] body, long lastSentNanos) {
+            this.body = body;
+            this.lastSentNanos = lastSentNanos;
+        }
+    }
+
+    // 보내는 쪽
+    private int nextSequence = 0;
+    private final Map<Integer, Pending> unacked = new TreeMap<>();
+
+    // 받는 쪽
+    private int expectedSequence = 0;
+    private final Map<Integer, ByteBuffer> outOfOrder = new TreeMap<>();
+
+    /**
+     * 새 이벤트를 등록하고 처음 보낼 본문을 돌려줍니다.
+     */
+    public synchronized byte[] enqueue(int type, byte[] payload, long nowNanos) {
+        ByteBuffer body = ByteBuffer.allocate(5 + payload.length);
+        body.putInt(nextSequence++);
+        body.put((byte) type);
+        body.put(payload);
+        byte[] bytes = body.array();
+        unacked.put(nextSequence - 1, new Pending(bytes, nowNanos));
+        return bytes;
+    }
+
+    public synchronized void acknowledge(int sequence) {
+        unacked.remove(sequence);
+    }
+
+    /**
+     * 재전송 시간이 지난 이벤트 본문을 넘겨줍니다.
+     */
+    public synchronized void collectResends(long nowNanos, Consumer<byte[]> resend) {
+        for (Pending pending : unacked.values()) {
+            if (nowNanos - pending.lastSentNanos >= RESEND_INTERVAL_NANOS) {
+                pending.lastSentNanos = nowNanos;
+                resend.accept(pending.body);
+            }
+        }
+    }
+
+    public synchronized int getUnackedCount() {
+        return unacked.size();
+    }
+
+    /**
+     * 받은 이벤트 본문을 처리합니다. 새 이벤트면 (뒤에 밀려 있던 것까지) 순서대로 전달합니다.
+     * 중복이든 아니든 보낸 쪽에는 ack 를 보내야 합니다.
+     * @param deliver type 바이트부터 시작하는 버퍼를 받는 콜백. 콜백이 끝나면 버퍼는 재사용될 수 있습니다.
+     * @return ack 로 돌려보낼 이벤트 번호
+     */
+    public synchronized int receive(ByteBuffer body, Consumer<ByteBuffer> deliver) {
+        int sequence = body.getInt();
+        if (sequence == expectedSequence) {
+            deliver.accept(body.slice());
+            expectedSequence++;
+            ByteBuffer next;
+            while ((next = outOfOrder.remove(expectedSequence)) != null) {
+                deliver.accept(next);
+                expectedSequence++;
+            }
+        } else if (sequence > expectedSequence) {
+            ByteBuffer copy = ByteBuffer.allocate(body.remaining());
+            copy.put(body).flip();
+            outOfOrder.putIfAbsent(sequence, copy);
+        }
+        return sequence;
+    }
+}
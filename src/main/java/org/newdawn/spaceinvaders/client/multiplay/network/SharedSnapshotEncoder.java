@@ -0,0 +1,82 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 한 틱 동안 월드 부분 인코딩 결과를 기준 스냅샷별로 캐시합니다.
+ * 같은 스냅샷을 확인한 클라이언트들은 같은 버퍼를 그대로 공유하므로
+ * 클라이언트 수가 늘어도 인코딩 비용은 서로 다른 기준 스냅샷 수만큼만 듭니다.
+ * 게임 루프 스레드에서만 사용합니다.
+ */
+public class SharedSnapshotEncoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final SnapshotHistory history;
+    // 기준 스냅샷 슬롯별 인코딩 버퍼. 틱마다 새로 만들지 않고 다시 쓴다.
+    private final ByteBuffer[] deltas;
+    private final int[] deltaBaselines;
+    private WorldSnapshot current;
+    private ByteBuffer keyframe;
+    private boolean keyframeEncoded;
+    private int encodeCount;
+
+    public SharedSnapshotEncoder(SnapshotHistory history) {
+        this.history = history;
+        this.deltas = new ByteBuffer[history.capacity()];
+        this.deltaBaselines = new int[history.capacity()];
+    }
+
+    /**
+     * 새 틱의 스냅샷으로 캐시를 초기화합니다. 이전 틱에 돌려준 버퍼는 더 이상 유효하지 않습니다.
+     */
+    public void begin(WorldSnapshot current) {
+        this.current = current;
+        this.keyframeEncoded = false;
+        this.encodeCount = 0;
+        Arrays.fill(deltaBaselines, SnapshotCodec.NO_BASELINE);
+    }
+
+    /**
+     * @param ackedSequence 클라이언트가 마지막으로 확인한 스냅샷 번호
+     * @return 이번 틱의 월드 부분 (키프레임 또는 델타). 여러 클라이언트가 공유하므로
+     *         position/limit 을 바꾸지 말고 읽어야 합니다. (duplicate 또는 절대 위치로 읽기)
+     */
+    public ByteBuffer worldFor(int ackedSequence) {
+        WorldSnapshot baseline = history.get(ackedSequence);
+        if (baseline == null) {
+            if (!keyframeEncoded) {
+                keyframe = encode(null, keyframe);
+                keyframeEncoded = true;
+            }
+            return keyframe;
+        }
+        int slot = Math.floorMod(ackedSequence, deltas.length);
+        if (deltaBaselines[slot] != ackedSequence) {
+            deltas[slot] = encode(baseline, deltas[slot]);
+            deltaBaselines[slot] = ackedSequence;
+        }
+        return deltas[slot];
+    }
+
+    private ByteBuffer encode(WorldSnapshot baseline, ByteBuffer target) {
+        int required = SnapshotCodec.maxWorldSize(baseline, current);
+        if (target == null || target.capacity() < required) {
+            int capacity = target == null ? INITIAL_BUFFER_SIZE : target.capacity() * 2;
+            target = ByteBuffer.allocate(Math.max(required, capacity));
+        }
+        target.clear();
+        SnapshotCodec.encodeWorld(baseline, current, target);
+        target.flip();
+        encodeCount++;
+        return target;
+    }
+
+    /**
+     * @return 이번 틱에 실제로 인코딩한 횟수
+     */
+    public int getEncodeCount() {
+        return encodeCount;
+    }
+}
@@ -0,0 +1,87 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 보내는 데이터그램을 일정 확률로 버리고, 남은 것은 지연(+흔들림)을 준 뒤 보내는 링크.
+ * 지연이 제각각이라 순서가 뒤바뀌는 것도 함께 재현됩니다. 루프백에서 UDP 전송을 시험할 때 씁니다.
+ * <p>
+ * -Dspaceinvaders.udp.loss=0.2 -Dspaceinvaders.udp.latencyMs=50 -Dspaceinvaders.udp.jitterMs=20
+ * 을 주면 {@link #wrapIfConfigured(DatagramLink)} 가 실제 게임에서도 적용합니다.
+ */
+public class SimulatedLink implements DatagramLink {
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final DatagramLink inner;
+    private final double lossRate;
+    private final int latencyMs;
+    private final int jitterMs;
+    private final Random random;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "udp-simulator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SimulatedLink(DatagramLink inner, double lossRate, int latencyMs, int jitterMs, long seed) {
+        this.inner = inner;
+        this.lossRate = lossRate;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.random = new Random(seed);
+    }
+
+    public static DatagramLink wrapIfConfigured(DatagramLink link) {
+        double loss = Double.parseDouble(System.getProperty("spaceinvaders.udp.loss", "0"));
+        int latency = Integer.getInteger("spaceinvaders.udp.latencyMs", 0);
+        int jitter = Integer.getInteger("spaceinvaders.udp.jitterMs", 0);
+        if (loss <= 0 && latency <= 0 && jitter <= 0) {
+            return link;
+        }
+        return new SimulatedLink(link, loss, latency, jitter, System.nanoTime());
+    }
+
+    @Override
+    public void send(byte[] data, int length, SocketAddress target) {
+        long delay;
+        synchronized (random) {
+            if (random.nextDouble() < lossRate) {
+                return;
+            }
+            delay = latencyMs + (jitterMs > 0 ? random.nextInt(jitterMs + 1) : 0);
+        }
+        byte[] copy = Arrays.copyOf(data, length);
+        scheduler.schedule(() -> {
+            try {
+                inner.send(copy, copy.length, target);
+            } catch (IOException e) {
+                logger.log(Level.FINE, "지연 전송 실패", e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean receive(DatagramPacket packet) throws IOException {
+        return inner.receive(packet);
+    }
+
+    @Override
+    public int getLocalPort() {
+        return inner.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        inner.close();
+    }
+}
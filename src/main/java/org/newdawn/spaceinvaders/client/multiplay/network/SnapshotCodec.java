@@ -0,0 +1,178 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * GameState 스냅샷을 직접 정의한 바이너리 포맷으로 인코딩합니다.
+ * 디코딩은 기준 스냅샷을 기억하고 있어야 하므로 {@link SnapshotDecoder} 가 담당합니다.
+ *
+ * 포맷 (버전 5, 빅엔디언). 앞의 헤더는 플레이어마다 다르고 나머지 월드 부분은
+ * 같은 기준 스냅샷을 쓰는 모든 클라이언트가 공유합니다.
+ * <pre>
+ * 헤더: [version u8][status u8][score i32][lives u8][playerShipId i32][lastInputSequence i32]
+ * 월드: [sequence i32][baseSequence i32][tick i32]
+ * [removedCount u16] + [id i32] * removedCount
+ * [recordCount u16]  + 레코드 * recordCount
+ * 레코드: [id i32][mask u8] + mask 에 표시된 필드만 순서대로
+ *   TYPE u8, X i16, Y i16, VARIANT u8, HEALTH u8
+ * </pre>
+ * X, Y 는 1/16 픽셀 고정소수점, HEALTH 는 최대 체력 대비 비율입니다 ({@link WorldSnapshot} 참고).
+ * baseSequence 가 -1 이면 키프레임(빈 상태 기준)이고, 그 외에는 클라이언트가 확인(ack)한
+ * 스냅샷 대비 추가/삭제/변경된 엔티티만 담긴 델타입니다.
+ * playerShipId/lastInputSequence 는 받는 클라이언트의 우주선과 서버가 처리한 마지막 입력 번호로,
+ * 클라이언트 예측 보정에 쓰입니다.
+ * tick 은 스냅샷을 찍은 서버 틱으로, 전송 주기가 시뮬레이션 주기보다 낮아도
+ * 클라이언트가 스냅샷 사이 간격을 알 수 있게 합니다.
+ * 엔티티는 양쪽 스냅샷 모두 id 오름차순이어야 합니다.
+ */
+public final class SnapshotCodec {
+
+    public static final int VERSION = 5;
+    public static final int NO_BASELINE = -1;
+    public static final int HEADER_SIZE = 15;
+    private static final int WORLD_HEADER_SIZE = 12;
+
+    static final int FIELD_TYPE = 1;
+    static final int FIELD_X = 1 << 1;
+    static final int FIELD_Y = 1 << 2;
+    static final int FIELD_VARIANT = 1 << 3;
+    static final int FIELD_HEALTH = 1 << 4;
+
+    private static final int MAX_RECORD_SIZE = 12;
+    private static final int COUNT_SIZE = 2;
+
+    private SnapshotCodec() { /* 유틸 클래스 */ }
+
+    public static int maxWorldSize(WorldSnapshot baseline, WorldSnapshot current) {
+        int removed = baseline == null ? 0 : baseline.size() * 4;
+        return WORLD_HEADER_SIZE + COUNT_SIZE * 2 + removed + current.size() * MAX_RECORD_SIZE;
+    }
+
+    public static byte[] encode(WorldSnapshot baseline, WorldSnapshot current, int score, int lives, GameState.GameStatus status) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + maxWorldSize(baseline, current));
+        encodeHeader(score, lives, status, -1, -1, buffer);
+        encodeWorld(baseline, current, buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public static byte[] encodeHeader(int score, int lives, GameState.GameStatus status) {
+        return encodeHeader(score, lives, status, -1, -1);
+    }
+
+    public static byte[] encodeHeader(int score, int lives, GameState.GameStatus status, int playerShipId, int lastInputSequence) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        encodeHeader(score, lives, status, playerShipId, lastInputSequence, buffer);
+        return buffer.array();
+    }
+
+    public static void encodeHeader(int score, int lives, GameState.GameStatus status,
+                                    int playerShipId, int lastInputSequence, ByteBuffer out) {
+        out.put((byte) VERSION);
+        out.put((byte) status.ordinal());
+        out.putInt(score);
+        out.put((byte) lives);
+        out.putInt(playerShipId);
+        out.putInt(lastInputSequence);
+    }
+
+    /**
+     * @param baseline 클라이언트가 마지막으로 확인한 스냅샷. null 이면 키프레임을 보냅니다.
+     */
+    public static void encodeWorld(WorldSnapshot baseline, WorldSnapshot current, ByteBuffer out) {
+        out.putInt(current.getSequence());
+        out.putInt(baseline == null ? NO_BASELINE : baseline.getSequence());
+        out.putInt(current.getTick());
+        writeRemoved(baseline, current, out);
+        writeRecords(baseline, current, out);
+    }
+
+    private static void writeRemoved(WorldSnapshot baseline, WorldSnapshot current, ByteBuffer out) {
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        if (baseline == null) {
+            return;
+        }
+        int removed = 0;
+        int c = 0;
+        for (int b = 0; b < baseline.size(); b++) {
+            int id = baseline.getId(b);
+            while (c < current.size() && current.getId(c) < id) {
+                c++;
+            }
+            if (c >= current.size() || current.getId(c) != id) {
+                out.putInt(id);
+                removed++;
+            }
+        }
+        out.putShort(countPosition, (short) removed);
+    }
+
+    private static void writeRecords(WorldSnapshot baseline, WorldSnapshot current, ByteBuffer out) {
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        int records = 0;
+        int b = 0;
+        for (int c = 0; c < current.size(); c++) {
+            int id = current.getId(c);
+            int mask;
+            if (baseline == null) {
+                mask = fullMask(current.getType(c));
+            } else {
+                while (b < baseline.size() && baseline.getId(b) < id) {
+                    b++;
+                }
+                mask = (b < baseline.size() && baseline.getId(b) == id)
+                        ? changedMask(baseline, b, current, c)
+                        : fullMask(current.getType(c));
+            }
+            if (mask != 0) {
+                writeRecord(current, c, mask, out);
+                records++;
+            }
+        }
+        out.putShort(countPosition, (short) records);
+    }
+
+    static int fullMask(EntityType type) {
+        switch (type) {
+            case PLAYER:
+            case SHOT:
+            case METEOR:
+                return FIELD_TYPE | FIELD_X | FIELD_Y | FIELD_VARIANT;
+            case ALIEN:
+            case BOSS:
+                return FIELD_TYPE | FIELD_X | FIELD_Y | FIELD_VARIANT | FIELD_HEALTH;
+            default:
+                return FIELD_TYPE | FIELD_X | FIELD_Y;
+        }
+    }
+
+    private static int changedMask(WorldSnapshot baseline, int b, WorldSnapshot current, int c) {
+        EntityType type = current.getType(c);
+        if (baseline.getType(b) != type) {
+            return fullMask(type);
+        }
+        int mask = 0;
+        if (baseline.getFixedX(b) != current.getFixedX(c)) mask |= FIELD_X;
+        if (baseline.getFixedY(b) != current.getFixedY(c)) mask |= FIELD_Y;
+        if (baseline.getVariant(b) != current.getVariant(c)) mask |= FIELD_VARIANT;
+        if (baseline.getHealth(b) != current.getHealth(c)) mask |= FIELD_HEALTH;
+        return mask & fullMask(type);
+    }
+
+    private static void writeRecord(WorldSnapshot world, int index, int mask, ByteBuffer out) {
+        out.putInt(world.getId(index));
+        out.put((byte) mask);
+        if ((mask & FIELD_TYPE) != 0) out.put((byte) world.getType(index).ordinal());
+        if ((mask & FIELD_X) != 0) out.putShort((short) world.getFixedX(index));
+        if ((mask & FIELD_Y) != 0) out.putShort((short) world.getFixedY(index));
+        if ((mask & FIELD_VARIANT) != 0) out.put((byte) world.getVariant(index));
+        if ((mask & FIELD_HEALTH) != 0) out.put((byte) world.getHealth(index));
+    }
+}
@@ -0,0 +1,130 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.newdawn.spaceinvaders.client.multiplay.network.SnapshotCodec.*;
+
+/**
+ * 클라이언트 측 스냅샷 디코더. 최근에 받은 스냅샷을 기억해 두었다가
+ * 델타를 해당 기준 스냅샷에 적용해 전체 엔티티 목록을 복원합니다.
+ * 연결마다 하나씩 사용합니다.
+ */
+public class SnapshotDecoder {
+
+    // 서버 쪽 SnapshotHistory 보다 넉넉하게 유지한다.
+    private static final int HISTORY_SIZE = 64;
+    private static final EntityType[] TYPES = EntityType.values();
+    private static final GameState.GameStatus[] STATUSES = GameState.GameStatus.values();
+
+    private final WorldSnapshot[] history = new WorldSnapshot[HISTORY_SIZE];
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    /**
+     * @return 복원된 게임 상태. 기준 스냅샷을 더 이상 갖고 있지 않으면 null
+     */
+    public GameState decode(ByteBuffer in) {
+        return decode(in, in);
+    }
+
+    /**
+     * 플레이어별 헤더와 공유 월드 부분이 따로 도착한 경우에 사용합니다.
+     */
+    public GameState decode(ByteBuffer header, ByteBuffer in) {
+        int version = header.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("지원하지 않는 스냅샷 버전: " + version);
+        }
+        GameState.GameStatus status = STATUSES[header.get()];
+        int score = header.getInt();
+        int lives = header.get();
+        int playerShipId = header.getInt();
+        int lastInputSequence = header.getInt();
+        int sequence = in.getInt();
+        int baseSequence = in.getInt();
+        int tick = in.getInt();
+
+        WorldSnapshot baseline = findBaseline(baseSequence);
+        if (baseline == null) {
+            logger.log(Level.FINE, "기준 스냅샷 {0} 없음. 키프레임을 기다립니다.", baseSequence);
+            return null;
+        }
+
+        int[] removed = new int[in.getShort() & 0xFFFF];
+        for (int i = 0; i < removed.length; i++) {
+            removed[i] = in.getInt();
+        }
+
+        WorldSnapshot current = new WorldSnapshot();
+        current.clear(sequence);
+        current.setTick(tick);
+        int recordCount = in.getShort() & 0xFFFF;
+        int b = 0;
+        int r = 0;
+        for (int i = 0; i < recordCount; i++) {
+            int id = in.getInt();
+            int mask = in.get() & 0xFF;
+            // 레코드보다 앞선 기준 엔티티는 변경 없음 또는 삭제
+            while (b < baseline.size() && baseline.getId(b) < id) {
+                r = copyUnlessRemoved(baseline, b++, removed, r, current);
+            }
+            boolean known = b < baseline.size() && baseline.getId(b) == id;
+            readRecord(in, id, mask, known ? baseline : null, b, current);
+            if (known) {
+                b++;
+            }
+        }
+        while (b < baseline.size()) {
+            r = copyUnlessRemoved(baseline, b++, removed, r, current);
+        }
+
+        history[Math.floorMod(sequence, HISTORY_SIZE)] = current;
+        return new GameState(current, score, lives, status, playerShipId, lastInputSequence);
+    }
+
+    private WorldSnapshot findBaseline(int baseSequence) {
+        if (baseSequence == NO_BASELINE) {
+            WorldSnapshot empty = new WorldSnapshot();
+            empty.clear(NO_BASELINE);
+            return empty;
+        }
+        WorldSnapshot candidate = history[Math.floorMod(baseSequence, HISTORY_SIZE)];
+        return candidate != null && candidate.getSequence() == baseSequence ? candidate : null;
+    }
+
+    private static int copyUnlessRemoved(WorldSnapshot baseline, int index, int[] removed, int r, WorldSnapshot out) {
+        int id = baseline.getId(index);
+        while (r < removed.length && removed[r] < id) {
+            r++;
+        }
+        if (r < removed.length && removed[r] == id) {
+            return r + 1;
+        }
+        out.add(id, baseline.getType(index), baseline.getFixedX(index), baseline.getFixedY(index),
+                baseline.getHealth(index), baseline.getVariant(index));
+        return r;
+    }
+
+    private static void readRecord(ByteBuffer in, int id, int mask, WorldSnapshot baseline, int index, WorldSnapshot out) {
+        EntityType type = baseline != null ? baseline.getType(index) : null;
+        int x = baseline != null ? baseline.getFixedX(index) : 0;
+        int y = baseline != null ? baseline.getFixedY(index) : 0;
+        int variant = baseline != null ? baseline.getVariant(index) : 0;
+        int health = baseline != null ? baseline.getHealth(index) : 0;
+
+        if ((mask & FIELD_TYPE) != 0) type = TYPES[in.get()];
+        if ((mask & FIELD_X) != 0) x = in.getShort();
+        if ((mask & FIELD_Y) != 0) y = in.getShort();
+        if ((mask & FIELD_VARIANT) != 0) variant = in.get();
+        if ((mask & FIELD_HEALTH) != 0) health = in.get() & 0xFF;
+
+        if (type == null) {
+            throw new IllegalArgumentException("타입 정보 없는 새 엔티티: " + id);
+        }
+        out.add(id, type, x, y, health, variant);
+    }
+}
@@ -0,0 +1,51 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+/**
+ * 서버가 최근에 보낸 스냅샷을 보관하는 고정 크기 링 버퍼.
+ * 클라이언트가 확인한 스냅샷이 아직 남아 있으면 델타의 기준으로 쓰고,
+ * 이미 밀려났다면 null 을 돌려주어 키프레임을 보내게 합니다.
+ */
+public class SnapshotHistory {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final WorldSnapshot[] ring;
+    private int latestSequence = SnapshotCodec.NO_BASELINE;
+
+    public SnapshotHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SnapshotHistory(int capacity) {
+        ring = new WorldSnapshot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new WorldSnapshot();
+            ring[i].clear(SnapshotCodec.NO_BASELINE);
+        }
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    /**
+     * 다음 스냅샷을 기록할 슬롯을 비워서 돌려줍니다. 가장 오래된 스냅샷을 재사용합니다.
+     */
+    public WorldSnapshot next(int sequence) {
+        WorldSnapshot slot = ring[Math.floorMod(sequence, ring.length)];
+        slot.clear(sequence);
+        latestSequence = sequence;
+        return slot;
+    }
+
+    /**
+     * @return 해당 번호의 스냅샷. 너무 오래되었거나 없으면 null
+     */
+    public WorldSnapshot get(int sequence) {
+        if (sequence < 0 || sequence > latestSequence || latestSequence - sequence >= ring.length) {
+            return null;
+        }
+        WorldSnapshot candidate = ring[Math.floorMod(sequence, ring.length)];
+        return candidate.getSequence() == sequence ? candidate : null;
+    }
+}
@@ -0,0 +1,179 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 게임플레이용 UDP 전송(클라이언트 쪽). 형식은 {@link UdpServer} 참고.
+ * <p>
+ * 서버가 응답할 때까지 HELLO 를 반복해 보내고, 보낸 입력은 스냅샷 헤더로 처리가 확인될 때까지
+ * 매 데이터그램에 함께 실어 다시 보냅니다. 번호가 이전보다 작은 스냅샷은 버립니다.
+ */
+public class UdpClient implements Runnable {
+
+    private static final long HELLO_INTERVAL_NANOS = 100_000_000L;
+    // 입력 상태는 바뀔 때만 보내므로, 그 사이 유실에 대비해 확인될 때까지 이 간격으로 다시 보낸다.
+    private static final long INPUT_RESEND_INTERVAL_NANOS = 30_000_000L;
+
+    /**
+     * 콜백은 UDP 수신 스레드에서 호출되며, 버퍼는 콜백이 끝나면 재사용됩니다.
+     */
+    public interface Listener {
+        /** @param payload 스냅샷 헤더 + 월드 (TCP SNAPSHOT 프레임의 payload 와 같음) */
+        void onSnapshot(ByteBuffer payload);
+
+        /** @param message type 바이트부터 시작하는 신뢰 이벤트 */
+        void onReliable(ByteBuffer message);
+    }
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final DatagramLink link;
+    private final SocketAddress server;
+    private final int token;
+    private final Listener listener;
+    private final ReliableChannel reliable = new ReliableChannel();
+    private final ArrayDeque<InputState> pendingInputs = new ArrayDeque<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean established = false;
+    private int lastSnapshotSequence = -1;
+    private long lastHelloNanos;
+    private long lastInputSentNanos;
+
+    public UdpClient(DatagramLink link, SocketAddress server, int token, Listener listener) {
+        this.link = link;
+        this.server = server;
+        this.token = token;
+        this.listener = listener;
+        this.thread = new Thread(this, "client-udp");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void close() {
+        running = false;
+        link.close();
+    }
+
+    public boolean isEstablished() {
+        return established;
+    }
+
+    public void sendInput(InputState state) {
+        synchronized (pendingInputs) {
+            if (pendingInputs.size() == UdpServer.MAX_INPUTS_PER_DATAGRAM) {
+                pendingInputs.pollFirst();
+            }
+            pendingInputs.addLast(state);
+            sendPendingInputs(System.nanoTime());
+        }
+    }
+
+    /**
+     * 서버가 이 번호까지 입력을 처리했음을 스냅샷으로 알려오면 호출합니다.
+     */
+    public void acknowledgeInputs(int sequence) {
+        synchronized (pendingInputs) {
+            while (!pendingInputs.isEmpty() && pendingInputs.peekFirst().getSequence() <= sequence) {
+                pendingInputs.pollFirst();
+            }
+        }
+    }
+
+    public void sendSnapshotAck(int sequence) {
+        ByteBuffer datagram = begin(MessageType.SNAPSHOT_ACK, 4);
+        datagram.putInt(sequence);
+        send(datagram);
+    }
+
+    @Override
+    public void run() {
+        byte[] buffer = new byte[UdpServer.MAX_DATAGRAM_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (running) {
+            try {
+                long now = System.nanoTime();
+                if (!established && now - lastHelloNanos >= HELLO_INTERVAL_NANOS) {
+                    lastHelloNanos = now;
+                    send(begin(MessageType.UDP_HELLO, 0));
+                }
+                synchronized (pendingInputs) {
+                    if (!pendingInputs.isEmpty() && now - lastInputSentNanos >= INPUT_RESEND_INTERVAL_NANOS) {
+                        sendPendingInputs(now);
+                    }
+                }
+                packet.setLength(buffer.length);
+                if (link.receive(packet)) {
+                    handle(ByteBuffer.wrap(buffer, 0, packet.getLength()));
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "UDP 수신 오류", e);
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "잘못된 데이터그램 무시", e);
+            }
+        }
+    }
+
+    private void handle(ByteBuffer datagram) {
+        established = true;
+        int type = datagram.get() & 0xFF;
+        switch (type) {
+            case MessageType.UDP_HELLO:
+                break;
+            case MessageType.SNAPSHOT:
+                int sequence = datagram.getInt();
+                if (sequence > lastSnapshotSequence) {
+                    lastSnapshotSequence = sequence;
+                    listener.onSnapshot(datagram.slice());
+                }
+                break;
+            case MessageType.RELIABLE:
+                int eventSequence = reliable.receive(datagram, listener::onReliable);
+                ByteBuffer ack = begin(MessageType.RELIABLE_ACK, 4);
+                ack.putInt(eventSequence);
+                send(ack);
+                break;
+            default:
+                logger.log(Level.FINE, "알 수 없는 UDP 메시지 타입: {0}", type);
+        }
+    }
+
+    // pendingInputs 잠금을 잡은 상태에서 호출
+    private void sendPendingInputs(long now) {
+        lastInputSentNanos = now;
+        ByteBuffer datagram = begin(MessageType.INPUT_STATE, 1 + pendingInputs.size() * 5);
+        datagram.put((byte) pendingInputs.size());
+        for (InputState state : pendingInputs) {
+            datagram.put((byte) state.getButtons());
+            datagram.putInt(state.getSequence());
+        }
+        send(datagram);
+    }
+
+    private ByteBuffer begin(int type, int bodyLength) {
+        ByteBuffer datagram = ByteBuffer.allocate(5 + bodyLength);
+        datagram.putInt(token);
+        datagram.put((byte) type);
+        return datagram;
+    }
+
+    private void send(ByteBuffer datagram) {
+        try {
+            link.send(datagram.array(), datagram.position(), server);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "UDP 전송 실패", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+
+/**
+ * 실제 DatagramSocket 을 쓰는 {@link DatagramLink}.
+ * 수신은 짧은 타임아웃으로 깨어나므로 호출하는 쪽 루프에서 재전송 같은 주기 작업을 함께 처리할 수 있습니다.
+ */
+public class UdpLink implements DatagramLink {
+
+    static final int RECEIVE_TIMEOUT_MS = 20;
+
+    private final DatagramSocket socket;
+
+    public UdpLink(DatagramSocket socket) throws IOException {
+        this.socket = socket;
+        this.socket.setSoTimeout(RECEIVE_TIMEOUT_MS);
+    }
+
+    @Override
+    public void send(byte[] data, int length, SocketAddress target) throws IOException {
+        socket.send(new DatagramPacket(data, length, target));
+    }
+
+    @Override
+    public boolean receive(DatagramPacket packet) throws IOException {
+        try {
+            socket.receive(packet);
+            return true;
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public int getLocalPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
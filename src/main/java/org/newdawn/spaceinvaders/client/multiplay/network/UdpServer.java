@@ -0,0 +1,226 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 게임플레이용 UDP 전송(서버 쪽). 로그인/랭킹과 세션 시작은 계속 TCP 로 하고,
+ * TCP 로 받은 토큰을 붙인 데이터그램으로 클라이언트를 구분합니다.
+ * <ul>
+ *   <li>스냅샷: 신뢰성 없이 번호만 붙여 보냄. 늦게 도착한 것은 클라이언트가 버림</li>
+ *   <li>입력: 클라이언트가 ack 받지 못한 입력을 매번 함께 실어 보냄</li>
+ *   <li>VICTORY 같은 이벤트: {@link ReliableChannel} 로 ack 될 때까지 재전송</li>
+ * </ul>
+ * <pre>
+ * 클라이언트 -> 서버: [token i32][type u8][body]
+ * 서버 -> 클라이언트: [type u8][body]
+ * </pre>
+ * 수신과 재전송은 전용 스레드 하나가 처리합니다.
+ */
+public class UdpServer implements Runnable {
+
+    // 경로 MTU 를 넘지 않도록 잡은 값. 이보다 큰 스냅샷은 TCP 로 보낸다.
+    public static final int MAX_DATAGRAM_SIZE = 1200;
+    static final int MAX_INPUTS_PER_DATAGRAM = 16;
+
+    /**
+     * 콜백은 UDP 수신 스레드에서 호출됩니다.
+     */
+    public interface Listener {
+        /** 새로 받은 입력만, 보낸 순서대로 전달됩니다. */
+        void onInputState(InputState state);
+
+        void onSnapshotAck(int sequence);
+    }
+
+    private static final class Session {
+        final Listener listener;
+        final ReliableChannel reliable = new ReliableChannel();
+        final AtomicLong bytesSent = new AtomicLong();
+        final AtomicLong bytesReceived = new AtomicLong();
+        volatile SocketAddress address;
+        int snapshotSequence = 0;
+        int lastInputSequence = Integer.MIN_VALUE;
+
+        Session(Listener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final DatagramLink link;
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public UdpServer(DatagramLink link) {
+        this.link = link;
+        this.thread = new Thread(this, "net-udp");
+        this.thread.setDaemon(true);
+    }
+
+    public int getPort() {
+        return link.getLocalPort();
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void close() {
+        running = false;
+        link.close();
+    }
+
+    public void register(int token, Listener listener) {
+        sessions.put(token, new Session(listener));
+    }
+
+    public void unregister(int token) {
+        sessions.remove(token);
+    }
+
+    public long getBytesSent(int token) {
+        Session session = sessions.get(token);
+        return session == null ? 0 : session.bytesSent.get();
+    }
+
+    public long getBytesReceived(int token) {
+        Session session = sessions.get(token);
+        return session == null ? 0 : session.bytesReceived.get();
+    }
+
+    /**
+     * 클라이언트가 UDP 로 한 번이라도 연락해 와서 주소를 알고 있는지.
+     */
+    public boolean isEstablished(int token) {
+        Session session = sessions.get(token);
+        return session != null && session.address != null;
+    }
+
+    /**
+     * @return UDP 로 보냈으면 true. 세션이 없거나 데이터그램 하나에 담기지 않으면 false (TCP 로 보내야 함)
+     */
+    public boolean sendSnapshot(int token, byte[] header, byte[] world) {
+        return sendSnapshot(token, ByteBuffer.wrap(header), ByteBuffer.wrap(world));
+    }
+
+    /**
+     * @param world 여러 세션이 공유할 수 있으므로 position 을 바꾸지 않고 읽습니다.
+     */
+    public boolean sendSnapshot(int token, ByteBuffer header, ByteBuffer world) {
+        Session session = sessions.get(token);
+        int size = 1 + 4 + header.remaining() + world.remaining();
+        if (session == null || session.address == null || size > MAX_DATAGRAM_SIZE) {
+            return false;
+        }
+        ByteBuffer datagram = ByteBuffer.allocate(size);
+        datagram.put((byte) MessageType.SNAPSHOT);
+        datagram.putInt(session.snapshotSequence++);
+        MessageCodec.putShared(datagram, header);
+        MessageCodec.putShared(datagram, world);
+        send(datagram.array(), session);
+        return true;
+    }
+
+    /**
+     * 신뢰 이벤트를 보냅니다. 클라이언트가 ack 할 때까지 이 서버의 스레드가 재전송합니다.
+     */
+    public boolean sendReliable(int token, int type, byte[] payload) {
+        Session session = sessions.get(token);
+        if (session == null || session.address == null) {
+            return false;
+        }
+        sendReliableBody(session.reliable.enqueue(type, payload, System.nanoTime()), session);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        byte[] buffer = new byte[MAX_DATAGRAM_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (running) {
+            try {
+                packet.setLength(buffer.length);
+                if (link.receive(packet)) {
+                    handle(ByteBuffer.wrap(buffer, 0, packet.getLength()), packet.getSocketAddress());
+                }
+                resendReliable();
+            } catch (IOException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "UDP 수신 오류", e);
+                }
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "잘못된 데이터그램 무시", e);
+            }
+        }
+    }
+
+    private void handle(ByteBuffer datagram, SocketAddress from) {
+        Session session = sessions.get(datagram.getInt());
+        if (session == null) {
+            return;
+        }
+        // NAT 뒤에서 포트가 바뀌어도 마지막으로 받은 주소로 보낸다.
+        session.address = from;
+        session.bytesReceived.addAndGet(datagram.limit());
+        int type = datagram.get() & 0xFF;
+        switch (type) {
+            case MessageType.UDP_HELLO:
+                send(new byte[]{(byte) MessageType.UDP_HELLO}, session);
+                break;
+            case MessageType.INPUT_STATE:
+                int count = datagram.get() & 0xFF;
+                for (int i = 0; i < count; i++) {
+                    InputState state = new InputState(datagram.get() & 0xFF, datagram.getInt());
+                    if (state.getSequence() > session.lastInputSequence) {
+                        session.lastInputSequence = state.getSequence();
+                        session.listener.onInputState(state);
+                    }
+                }
+                break;
+            case MessageType.SNAPSHOT_ACK:
+                session.listener.onSnapshotAck(datagram.getInt());
+                break;
+            case MessageType.RELIABLE_ACK:
+                session.reliable.acknowledge(datagram.getInt());
+                break;
+            default:
+                logger.log(Level.FINE, "알 수 없는 UDP 메시지 타입: {0}", type);
+        }
+    }
+
+    private void resendReliable() {
+        long now = System.nanoTime();
+        for (Session session : sessions.values()) {
+            if (session.address != null) {
+                session.reliable.collectResends(now, body -> sendReliableBody(body, session));
+            }
+        }
+    }
+
+    private void sendReliableBody(byte[] body, Session session) {
+        byte[] datagram = new byte[1 + body.length];
+        datagram[0] = (byte) MessageType.RELIABLE;
+        System.arraycopy(body, 0, datagram, 1, body.length);
+        send(datagram, session);
+    }
+
+    private void send(byte[] datagram, Session session) {
+        try {
+            link.send(datagram, datagram.length, session.address);
+            session.bytesSent.addAndGet(datagram.length);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "UDP 전송 실패", e);
+        }
+    }
+}
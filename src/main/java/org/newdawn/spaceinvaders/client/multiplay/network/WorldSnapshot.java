@@ -0,0 +1,141 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.*;
+
+import java.util.Arrays;
+
+/**
+ * 한 틱의 월드 상태를 네트워크 전송용으로 담아두는 스냅샷.
+ * 엔티티 객체 대신 타입별로 필요한 값만 원시 배열에 저장하므로
+ * 매 틱 재사용해도 추가 할당이 거의 없습니다.
+ * <p>
+ * 좌표는 1/16 픽셀 단위 고정소수점(12.4)으로 양자화해 short 에 담습니다 (범위 ±2048 픽셀).
+ * 크기와 속도처럼 타입별로 정해져 있거나 클라이언트가 쓰지 않는 값은 담지 않고,
+ * 체력은 최대 체력 대비 비율(0~{@value #FULL_HEALTH})로만 담습니다.
+ */
+public class WorldSnapshot {
+
+    private static final int INITIAL_CAPACITY = 64;
+    public static final int FRACTION_BITS = 4;
+    private static final double SCALE = 1 << FRACTION_BITS;
+    private static final int HALF_PIXEL = 1 << (FRACTION_BITS - 1);
+    public static final int FULL_HEALTH = 255;
+
+    private int sequence;
+    private int tick;
+    private int count;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private EntityType[] types = new EntityType[INITIAL_CAPACITY];
+    private short[] xs = new short[INITIAL_CAPACITY];
+    private short[] ys = new short[INITIAL_CAPACITY];
+    private byte[] healths = new byte[INITIAL_CAPACITY];
+    private byte[] variants = new byte[INITIAL_CAPACITY];
+
+    public void clear(int sequence) {
+        this.sequence = sequence;
+        this.count = 0;
+    }
+
+    /**
+     * 엔티티 목록에서 현재 틱의 상태를 읽어 스냅샷을 다시 채웁니다.
+     * @param sequence 스냅샷 번호
+     * @param entities id 오름차순으로 순회되는 엔티티 목록
+     */
+    public void capture(int sequence, Iterable<Entity> entities) {
+        clear(sequence);
+        for (Entity entity : entities) {
+            int health = 0;
+            int variant = 0;
+            switch (entity.getType()) {
+                case PLAYER:
+                    variant = ((ServerPlayerShipEntity) entity).getUpgradeCount();
+                    break;
+                case SHOT:
+                    variant = ((ServerShotEntity) entity).getUpgradeLevel();
+                    break;
+                case ALIEN:
+                    variant = ((ServerAlienEntity) entity).getFrameNumber();
+                    health = health(entity.getCurrentHP(), entity.getMaxHP());
+                    break;
+                case BOSS:
+                    variant = ((ServerBossEntity) entity).getFrameNumber();
+                    health = health(entity.getCurrentHP(), entity.getMaxHP());
+                    break;
+                case METEOR:
+                    variant = ((ServerMeteoriteEntity) entity).getFrameNumber();
+                    break;
+                default:
+                    break;
+            }
+            add(entity.getId(), entity.getType(), quantize(entity.getX()), quantize(entity.getY()), health, variant);
+        }
+    }
+
+    /**
+     * @param x 고정소수점 x ({@link #quantize(double)})
+     * @param y 고정소수점 y
+     * @param health 0~{@value #FULL_HEALTH} 체력 비율 ({@link #health(int, int)})
+     */
+    public void add(int id, EntityType type, int x, int y, int health, int variant) {
+        ensureCapacity(count + 1);
+        ids[count] = id;
+        types[count] = type;
+        xs[count] = (short) x;
+        ys[count] = (short) y;
+        healths[count] = (byte) health;
+        variants[count] = (byte) variant;
+        count++;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        healths = Arrays.copyOf(healths, capacity);
+        variants = Arrays.copyOf(variants, capacity);
+    }
+
+    /**
+     * 픽셀 좌표를 고정소수점으로 바꿉니다. 오차는 최대 1/32 픽셀이고, 범위를 벗어나면 잘립니다.
+     */
+    public static int quantize(double pixels) {
+        long fixed = Math.round(pixels * SCALE);
+        return (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, fixed));
+    }
+
+    public static double toPixels(int fixed) {
+        return fixed / SCALE;
+    }
+
+    /**
+     * 외계인 최대 체력은 스테이지마다 달라지므로 최대 체력 대신 비율을 보낸다.
+     * 살아 있으면 0 이 되지 않도록 올림한다.
+     */
+    public static int health(int hp, int maxHp) {
+        if (hp <= 0 || maxHp <= 0) {
+            return 0;
+        }
+        return (int) Math.min(FULL_HEALTH, ((long) hp * FULL_HEALTH + maxHp - 1) / maxHp);
+    }
+
+    public int getSequence() { return sequence; }
+    /** 스냅샷을 찍은 서버 시뮬레이션 틱. 전송 주기와 무관하게 시간 축으로 쓰입니다. */
+    public int getTick() { return tick; }
+    public void setTick(int tick) { this.tick = tick; }
+    public int size() { return count; }
+    public int getId(int index) { return ids[index]; }
+    public EntityType getType(int index) { return types[index]; }
+    /** 그리기용 픽셀 좌표 (반올림) */
+    public int getX(int index) { return (xs[index] + HALF_PIXEL) >> FRACTION_BITS; }
+    public int getY(int index) { return (ys[index] + HALF_PIXEL) >> FRACTION_BITS; }
+    /** 양자화된 고정소수점 좌표 그대로 */
+    public int getFixedX(int index) { return xs[index]; }
+    public int getFixedY(int index) { return ys[index]; }
+    public int getHealth(int index) { return healths[index] & 0xFF; }
+    public int getVariant(int index) { return variants[index]; }
+}
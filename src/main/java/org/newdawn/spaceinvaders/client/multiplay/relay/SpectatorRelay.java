@@ -0,0 +1,282 @@
+package org.newdawn.spaceinvaders.client.multiplay.relay;
+
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.communication.CompressionRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SnapshotAck;
+import org.newdawn.spaceinvaders.client.multiplay.network.*;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 관전 중계 서버. 게임 서버에 관전자 하나로 붙어 스냅샷을 받고, 자기에게 붙은 관전자들에게 다시 나눠 보냅니다.
+ * 관전자가 몇 명이든 게임 서버의 틱에는 연결 하나만큼의 비용만 듭니다.
+ * <p>
+ * 받은 스냅샷은 복원해서 자체 기록에 넣고, 관전자마다 그 관전자가 확인한 스냅샷을 기준으로 델타를 다시 만듭니다.
+ * 같은 기준끼리는 인코딩을 공유합니다. 나눠 보내는 일은 게임 서버 수신 스레드에서 하고,
+ * 소켓 쓰기는 NetworkServer 의 IO 스레드가 합니다. 게임 서버와 연결이 끊기면 관전자 연결을 모두 닫고 끝납니다.
+ * <pre>
+ * java -cp ... org.newdawn.spaceinvaders.client.multiplay.relay.SpectatorRelay [게임 서버 host] [게임 서버 port] [관전자 port]
+ * </pre>
+ */
+public class SpectatorRelay implements NetworkServer.Listener, Closeable {
+
+    public static final int DEFAULT_PORT = 12347;
+    private static final int IO_THREADS = 2;
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    // 게임 서버보다 먼저 띄워도 되도록 잠시 동안 연결을 다시 시도한다.
+    private static final long CONNECT_WAIT_MS = 10_000;
+    private static final long CONNECT_POLL_MS = 100;
+
+    private static final class Spectator {
+        final Connection connection;
+        volatile boolean joined = false;
+        volatile int ackedSequence = -1;
+
+        Spectator(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final String upstreamHost;
+    private final int upstreamPort;
+    private final NetworkServer downstream;
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    // 아래는 게임 서버 수신 스레드만 쓴다.
+    private final SnapshotDecoder decoder = new SnapshotDecoder();
+    private final SnapshotHistory history = new SnapshotHistory();
+    private final SharedSnapshotEncoder encoder = new SharedSnapshotEncoder(history);
+    private final ByteBuffer header = ByteBuffer.allocate(SnapshotCodec.HEADER_SIZE);
+    private DataOutputStream upstreamOut;
+
+    private final AtomicLong relayedSnapshots = new AtomicLong();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile Socket upstream;
+    private volatile boolean closed = false;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    /**
+     * @param port 관전자를 받을 포트. 0 이면 비어 있는 포트
+     */
+    public SpectatorRelay(String upstreamHost, int upstreamPort, int port) throws IOException {
+        this.upstreamHost = upstreamHost;
+        this.upstreamPort = upstreamPort;
+        this.downstream = new NetworkServer(port, IO_THREADS, this);
+    }
+
+    public void start() {
+        downstream.start();
+        Thread thread = new Thread(this::runUpstream, "relay-upstream");
+        thread.start();
+        logger.log(Level.INFO, "관전 중계 서버 시작: 포트 {0,number,#}, 게임 서버 {1}:{2,number,#}",
+                new Object[]{downstream.getPort(), upstreamHost, upstreamPort});
+    }
+
+    public int getPort() {
+        return downstream.getPort();
+    }
+
+    public int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    public long getRelayedSnapshots() {
+        return relayedSnapshots.get();
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        finished.await();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        Socket socket = upstream;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 이미 닫힘
+            }
+        }
+        downstream.close();
+        finished.countDown();
+    }
+
+    private void runUpstream() {
+        String reason = "게임 서버 연결 종료";
+        try (Socket socket = connectWhenReady()) {
+            upstream = socket;
+            if (closed) {
+                return;
+            }
+            upstreamOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            sendUpstream(MessageCodec.encode(new JoinRequest(JoinRequest.Role.SPECTATOR)));
+            if (Boolean.getBoolean("spaceinvaders.compression")) {
+                sendUpstream(MessageCodec.encode(new CompressionRequest(true)));
+            }
+            readUpstream(in);
+        } catch (IOException e) {
+            if (!closed && !(e instanceof EOFException)) {
+                reason = e.toString();
+            }
+        } finally {
+            logger.log(Level.INFO, "관전 중계 서버 종료: {0}", reason);
+            close();
+        }
+    }
+
+    private void readUpstream(DataInputStream in) throws IOException {
+        FrameInflater inflater = new FrameInflater();
+        try {
+            while (!closed) {
+                ByteBuffer frame = MessageCodec.readFrame(in);
+                int type = frame.get() & 0xFF;
+                if (type == MessageType.COMPRESSED) {
+                    frame = inflater.inflate(frame);
+                    type = frame.get() & 0xFF;
+                }
+                if (type == MessageType.SNAPSHOT) {
+                    relaySnapshot(frame);
+                } else if (type == MessageType.PING) {
+                    // 게임 서버의 RTT 통계가 중계 서버까지의 값이 되도록 답한다.
+                    sendUpstream(MessageCodec.encodePong(frame.getLong()));
+                } else if (type == MessageType.VICTORY) {
+                    for (Spectator spectator : spectators) {
+                        if (spectator.joined) {
+                            spectator.connection.send(MessageCodec.encodeSignal(MessageType.VICTORY));
+                        }
+                    }
+                } else {
+                    logger.log(Level.FINE, "중계 서버가 무시한 메시지: {0}", type);
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void relaySnapshot(ByteBuffer frame) throws IOException {
+        GameState state = decoder.decode(frame);
+        if (state == null) {
+            return; // 키프레임을 기다린다.
+        }
+        WorldSnapshot received = state.getWorld();
+        sendUpstream(MessageCodec.encode(new SnapshotAck(received.getSequence())));
+
+        // 관전자들이 확인한 스냅샷을 기준으로 쓸 수 있도록 자체 기록에 옮겨 둔다.
+        WorldSnapshot world = history.next(received.getSequence());
+        world.clear(received.getSequence());
+        world.setTick(received.getTick());
+        for (int i = 0; i < received.size(); i++) {
+            world.add(received.getId(i), received.getType(i), received.getFixedX(i), received.getFixedY(i),
+                    received.getHealth(i), received.getVariant(i));
+        }
+        encoder.begin(world);
+        header.clear();
+        SnapshotCodec.encodeHeader(state.getCurrentScore(), state.getRemainingLives(), state.getStatus(), -1, -1, header);
+        header.flip();
+        for (Spectator spectator : spectators) {
+            if (spectator.joined) {
+                spectator.connection.sendSnapshot(header, encoder.worldFor(spectator.ackedSequence));
+            }
+        }
+        relayedSnapshots.incrementAndGet();
+    }
+
+    private void sendUpstream(ByteBuffer frame) throws IOException {
+        upstreamOut.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        upstreamOut.flush();
+    }
+
+    private Socket connectWhenReady() throws IOException {
+        long deadline = System.currentTimeMillis() + CONNECT_WAIT_MS;
+        while (true) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(upstreamHost, upstreamPort), CONNECT_TIMEOUT_MS);
+                socket.setTcpNoDelay(true);
+                return socket;
+            } catch (ConnectException e) {
+                socket.close();
+                if (closed || System.currentTimeMillis() >= deadline) {
+                    throw e;
+                }
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            try {
+                Thread.sleep(CONNECT_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("게임 서버 연결 대기 중 중단됨");
+            }
+        }
+    }
+
+    @Override
+    public void onConnected(Connection connection) {
+        Spectator spectator = new Spectator(connection);
+        connection.setAttachment(spectator);
+        spectators.add(spectator);
+    }
+
+    @Override
+    public void onMessage(Connection connection, int type, ByteBuffer payload) {
+        Spectator spectator = (Spectator) connection.getAttachment();
+        if (type == MessageType.JOIN) {
+            JoinRequest req = (JoinRequest) MessageCodec.decode(type, payload);
+            if (req.getRole() != JoinRequest.Role.SPECTATOR) {
+                logger.log(Level.WARNING, "중계 서버는 관전만 받습니다. {0} 연결을 닫습니다: {1}",
+                        new Object[]{req.getRole(), connection.getRemoteAddress()});
+                connection.close();
+                return;
+            }
+            spectator.joined = true;
+            logger.log(Level.INFO, "관전자 연결: {0}. 현재 {1}명", new Object[]{connection.getRemoteAddress(), spectators.size()});
+        } else if (type == MessageType.SNAPSHOT_ACK) {
+            int sequence = ((SnapshotAck) MessageCodec.decode(type, payload)).getSequence();
+            // 순서가 뒤바뀐 ack 로 기준이 과거로 돌아가지 않도록 최신 값만 유지
+            if (sequence > spectator.ackedSequence) {
+                spectator.ackedSequence = sequence;
+            }
+        } else if (type == MessageType.COMPRESSION_REQUEST) {
+            boolean enabled = ((CompressionRequest) MessageCodec.decode(type, payload)).isEnabled();
+            connection.setCompression(enabled);
+            connection.send(MessageCodec.encodeFlag(MessageType.COMPRESSION, enabled));
+        }
+        // 관전자의 입력과 PONG 은 쓰지 않는다.
+    }
+
+    @Override
+    public void onDisconnected(Connection connection) {
+        spectators.remove((Spectator) connection.getAttachment());
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int upstreamPort = args.length > 1 ? Integer.parseInt(args[1]) : 12345;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PORT;
+        SpectatorRelay relay = new SpectatorRelay(host, upstreamPort, port);
+        relay.start();
+        relay.awaitTermination();
+        // 남은 IO 스레드와 상관없이 프로세스를 끝낸다.
+        System.exit(0);
+    }
+}
@@ -0,0 +1,162 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.communication.*;
+import org.newdawn.spaceinvaders.client.multiplay.network.Connection;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageCodec;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageType;
+import org.newdawn.spaceinvaders.client.multiplay.network.NetworkServer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ControlClientTest {
+
+    private final BlockingQueue<Object> serverReceived = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Object> delivered = new LinkedBlockingQueue<>();
+    // 서버는 로그인 요청 두 개가 모이면 나중 것부터 답한다.
+    private final List<Integer> heldIds = new ArrayList<>();
+    private final List<LoginRequest> heldRequests = new ArrayList<>();
+    private NetworkServer server;
+    private ControlClient client;
+
+    @Before
+    public void start() throws IOException {
+        server = new NetworkServer(0, 1, new NetworkServer.Listener() {
+            @Override
+            public void onConnected(Connection connection) {
+                connections.add(connection);
+            }
+
+            @Override
+            public void onMessage(Connection connection, int type, ByteBuffer payload) {
+                if (type != MessageType.REQUEST) {
+                    serverReceived.add(MessageCodec.decode(type, payload));
+                    return;
+                }
+                int correlationId = payload.getInt();
+                Object request = MessageCodec.decode(payload.get() & 0xFF, payload);
+                serverReceived.add(request);
+                if (request instanceof RankRequest) {
+                    connection.send(MessageCodec.encodeResponse(correlationId, new RankResponse(new ArrayList<>())));
+                } else if (request instanceof LoginRequest req) {
+                    heldIds.add(correlationId);
+                    heldRequests.add(req);
+                    if (heldIds.size() == 2) {
+                        for (int i = 1; i >= 0; i--) {
+                            connection.send(MessageCodec.encodeResponse(heldIds.get(i),
+                                    new LoginResponse(true, heldRequests.get(i).getUsername())));
+                        }
+                    }
+                }
+                // 회원가입 요청에는 답하지 않는다.
+            }
+
+            @Override
+            public void onDisconnected(Connection connection) {
+                // 사용 안 함
+            }
+        });
+        server.start();
+        client = new ControlClient(new RecordingListener(), "localhost", server.getPort());
+    }
+
+    @After
+    public void stop() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void requestsShareOneConnectionAndResponsesAreMatchedById() throws Exception {
+        client.request(new LoginRequest("kim", "pw"));
+        client.request(new RankRequest());
+        client.request(new LoginRequest("lee", "pw"));
+
+        assertEquals(JoinRequest.Role.CONTROL, ((JoinRequest) serverReceived.poll(2, TimeUnit.SECONDS)).getRole());
+        Set<String> logins = new HashSet<>();
+        boolean rank = false;
+        for (int i = 0; i < 3; i++) {
+            Object response = delivered.poll(2, TimeUnit.SECONDS);
+            assertNotNull("응답 " + i + " 을 받지 못함", response);
+            if (response instanceof LoginResponse res) {
+                logins.add(res.getUsername());
+            } else {
+                rank |= response instanceof RankResponse;
+            }
+        }
+        assertEquals(Set.of("kim", "lee"), logins);
+        assertTrue(rank);
+        assertEquals(1, connections.size());
+    }
+
+    @Test
+    public void pendingRequestsFailWhenConnectionDrops() throws Exception {
+        SignUpRequest request = new SignUpRequest("park", "pw");
+        client.request(request);
+        Connection connection = connections.poll(2, TimeUnit.SECONDS);
+        assertNotNull(connection);
+        assertTrue(serverReceived.poll(2, TimeUnit.SECONDS) instanceof JoinRequest);
+        assertSame(SignUpRequest.class, serverReceived.poll(2, TimeUnit.SECONDS).getClass());
+        connection.close();
+
+        Object failed = delivered.poll(2, TimeUnit.SECONDS);
+        assertSame(request, failed);
+
+        // 다음 요청은 새 연결로 간다.
+        client.request(new RankRequest());
+        assertTrue(delivered.poll(2, TimeUnit.SECONDS) instanceof RankResponse);
+        assertNotNull(connections.poll(2, TimeUnit.SECONDS));
+    }
+
+    // 응답은 그대로, 실패한 요청은 요청 객체를 기록한다.
+    private final class RecordingListener implements NetworkListener {
+        @Override
+        public void onGameStateUpdate(GameState newState) {
+            fail("제어 연결로 스냅샷이 오면 안 됨");
+        }
+
+        @Override
+        public void onVictory() {
+            fail("제어 연결로 승리 신호가 오면 안 됨");
+        }
+
+        @Override
+        public void onLoginResponse(LoginResponse response) {
+            delivered.add(response);
+        }
+
+        @Override
+        public void onSignUpResponse(SignUpResponse response) {
+            delivered.add(response);
+        }
+
+        @Override
+        public void onRankResponse(RankResponse response) {
+            delivered.add(response);
+        }
+
+        @Override
+        public void onDisconnected(String reason) {
+            // 제어 연결은 호출하지 않는다.
+        }
+
+        @Override
+        public void onRequestFailed(Object request, String reason) {
+            delivered.add(request);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.LoginResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SignUpResponse;
+import org.newdawn.spaceinvaders.client.multiplay.network.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 가짜 서버가 연결을 끊으면 클라이언트가 받은 세션 토큰으로 다시 붙고, 게임 쪽에는 끊김을 알리지 않는지 봅니다.
+ * UDP 가 열리지 않는 경우 입력이 TCP 로 가는지도 봅니다.
+ */
+public class NetworkClientResumeTest {
+
+    private static final long TOKEN = 0x1234_5678_9ABCL;
+    private static final int SHIP_ID = 1 << 24;
+
+    private final BlockingQueue<JoinRequest> joins = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    private final BlockingQueue<GameState> states = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> disconnects = new LinkedBlockingQueue<>();
+    private final BlockingQueue<InputState> tcpInputs = new LinkedBlockingQueue<>();
+    // 참가할 때 UDP 를 제안한다. 이 포트에는 UDP 소켓이 없으므로 UDP 세션은 열리지 않는다.
+    private volatile boolean offerUdp;
+    // 다시 붙으면 스냅샷 번호를 처음부터 센다. (서버를 다시 띄운 경우처럼)
+    private volatile boolean restartSequenceOnResume;
+    // 실제 서버처럼 연결이 바뀌어도 스냅샷 번호는 이어진다.
+    private final AtomicInteger sequence = new AtomicInteger();
+    private NetworkServer server;
+    private NetworkClient client;
+
+    @Before
+    public void start() throws IOException {
+        server = new NetworkServer(0, 1, new NetworkServer.Listener() {
+            @Override
+            public void onConnected(Connection connection) {
+                // JOIN 을 받은 뒤에 쓴다.
+            }
+
+            @Override
+            public void onMessage(Connection connection, int type, ByteBuffer payload) {
+                if (type == MessageType.INPUT_STATE) {
+                    tcpInputs.add((InputState) MessageCodec.decode(type, payload));
+                    return;
+                }
+                if (type != MessageType.JOIN) {
+                    return;
+                }
+                JoinRequest req = (JoinRequest) MessageCodec.decode(type, payload);
+                joins.add(req);
+                connection.send(MessageCodec.encodeSession(TOKEN, SHIP_ID, req.getSessionToken() == TOKEN));
+                if (offerUdp) {
+                    connection.send(MessageCodec.encodeUdpOffer(1));
+                }
+                if (restartSequenceOnResume && req.getSessionToken() == TOKEN) {
+                    sequence.set(0);
+                }
+                connection.sendSnapshot(header(), keyframe(sequence.getAndIncrement()));
+                connections.add(connection);
+            }
+
+            @Override
+            public void onDisconnected(Connection connection) {
+                // 사용 안 함
+            }
+        });
+        server.start();
+        client = new NetworkClient(new RecordingListener());
+    }
+
+    @After
+    public void stop() {
+        client.disconnectIfConnected();
+        server.close();
+    }
+
+    @Test
+    public void reconnectsWithSessionTokenAfterConnectionDrops() throws Exception {
+        client.startMultiplay("localhost", server.getPort(), JoinRequest.Role.PLAYER);
+        assertEquals(0, joins.poll(2, TimeUnit.SECONDS).getSessionToken());
+        assertNotNull(states.poll(2, TimeUnit.SECONDS));
+
+        // 서버 쪽에서 연결이 끊긴다.
+        connections.poll(2, TimeUnit.SECONDS).close();
+
+        JoinRequest resumed = joins.poll(5, TimeUnit.SECONDS);
+        assertNotNull("다시 붙지 않음", resumed);
+        assertEquals(JoinRequest.Role.PLAYER, resumed.getRole());
+        assertEquals(TOKEN, resumed.getSessionToken());
+        // 새 연결의 첫 스냅샷은 키프레임이므로 새 디코더로 바로 풀린다.
+        GameState state = states.poll(2, TimeUnit.SECONDS);
+        assertNotNull(state);
+        assertEquals(SHIP_ID, state.getPlayerShipId());
+        assertTrue(disconnects.isEmpty());
+    }
+
+    @Test
+    public void resumedConnectionStartsSnapshotNumbersAfresh() throws Exception {
+        restartSequenceOnResume = true;
+        sequence.set(100);
+        client.startMultiplay("localhost", server.getPort(), JoinRequest.Role.PLAYER);
+        assertNotNull(joins.poll(2, TimeUnit.SECONDS));
+        assertEquals(100, states.poll(2, TimeUnit.SECONDS).getWorld().getSequence());
+
+        connections.poll(2, TimeUnit.SECONDS).close();
+        assertEquals(TOKEN, joins.poll(5, TimeUnit.SECONDS).getSessionToken());
+        // 이전 연결에서 받은 번호보다 작아도 새 연결의 키프레임은 버리지 않는다.
+        GameState state = states.poll(2, TimeUnit.SECONDS);
+        assertNotNull("다시 붙은 뒤의 스냅샷을 버림", state);
+        assertEquals(0, state.getWorld().getSequence());
+    }
+
+    @Test
+    public void closingByHandDoesNotReconnect() throws Exception {
+        client.startMultiplay("localhost", server.getPort(), JoinRequest.Role.PLAYER);
+        assertNotNull(joins.poll(2, TimeUnit.SECONDS));
+        assertNotNull(states.poll(2, TimeUnit.SECONDS));
+
+        client.disconnectIfConnected();
+        assertNotNull(disconnects.poll(2, TimeUnit.SECONDS));
+        assertNull(joins.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void inputGoesOverTcpUntilUdpIsEstablished() throws Exception {
+        offerUdp = true;
+        client.startMultiplay("localhost", server.getPort(), JoinRequest.Role.PLAYER);
+        assertNotNull(joins.poll(2, TimeUnit.SECONDS));
+        // 제안은 스냅샷보다 먼저 오므로 스냅샷을 받았으면 UdpClient 가 만들어져 있다.
+        assertNotNull(states.poll(2, TimeUnit.SECONDS));
+
+        client.sendToServer(new InputState(InputState.RIGHT, 1));
+        InputState received = tcpInputs.poll(2, TimeUnit.SECONDS);
+        assertNotNull("입력이 TCP 로 오지 않음", received);
+        assertEquals(InputState.RIGHT, received.getButtons());
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(SnapshotCodec.HEADER_SIZE);
+        SnapshotCodec.encodeHeader(0, 3, GameState.GameStatus.PLAYING, SHIP_ID, -1, header);
+        header.flip();
+        return header;
+    }
+
+    private static ByteBuffer keyframe(int sequence) {
+        SnapshotHistory history = new SnapshotHistory();
+        SharedSnapshotEncoder encoder = new SharedSnapshotEncoder(history);
+        WorldSnapshot world = history.next(sequence);
+        world.clear(sequence);
+        world.add(SHIP_ID, EntityType.PLAYER, WorldSnapshot.quantize(370), WorldSnapshot.quantize(550),
+                WorldSnapshot.FULL_HEALTH, 0);
+        encoder.begin(world);
+        return encoder.worldFor(-1);
+    }
+
+    private final class RecordingListener implements NetworkListener {
+        @Override
+        public void onGameStateUpdate(GameState newState) {
+            states.add(newState);
+        }
+
+        @Override
+        public void onVictory() {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onLoginResponse(LoginResponse response) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onSignUpResponse(SignUpResponse response) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onRankResponse(RankResponse response) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onDisconnected(String reason) {
+            disconnects.add(reason);
+        }
+
+        @Override
+        public void onRequestFailed(Object request, String reason) {
+            // 사용 안 함
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
+
+import static org.junit.Assert.*;
+
+public class ShipPredictorTest {
+
+    private static final long MS = 1_000_000L;
+    private static final int SHIP_ID = 7;
+
+    private static GameState snapshot(int shipX, int lastInputSequence) {
+        WorldSnapshot world = new WorldSnapshot();
+        world.clear(0);
+        world.add(3, EntityType.ALIEN, 0, 0, WorldSnapshot.FULL_HEALTH, 0);
+        world.add(SHIP_ID, EntityType.PLAYER, WorldSnapshot.quantize(shipX), WorldSnapshot.quantize(550), 0, 0);
+        return new GameState(world, 0, 3, GameState.GameStatus.PLAYING, SHIP_ID, lastInputSequence);
+    }
+
+    @Test
+    public void movesImmediatelyWithoutWaitingForServer() {
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(snapshot(400, 0), 0);
+        predictor.recordInput(1, 1, 0);
+        // 250px/s 로 100ms 면 25px
+        assertEquals(425, predictor.getX(100 * MS));
+    }
+
+    @Test
+    public void replaysUnacknowledgedInputsOnServerCorrection() {
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(snapshot(400, 0), 0);
+        predictor.recordInput(1, 1, 0);
+        predictor.recordInput(2, 1, 40 * MS);
+        predictor.recordInput(3, -1, 80 * MS);
+
+        // 서버는 1번까지 처리했고 예측보다 2px 덜 갔다고 알려온다.
+        predictor.reconcile(snapshot(408, 1), 100 * MS);
+        // 408 + 2번(+40ms) + 3번(-20ms) = 408 + 10 - 5
+        assertEquals(413, predictor.getX(100 * MS));
+    }
+
+    @Test
+    public void keepsMovingInLastDirectionAfterAllInputsAreAcknowledged() {
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.recordInput(1, -1, 0);
+        predictor.reconcile(snapshot(400, 1), 10 * MS);
+        assertEquals(395, predictor.getX(30 * MS));
+    }
+
+    @Test
+    public void staysInsideScreenBounds() {
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(snapshot(10, 0), 0);
+        predictor.recordInput(1, -1, 0);
+        assertEquals(0, predictor.getX(1000 * MS));
+    }
+
+    @Test
+    public void forgetsShipWhenItLeavesTheWorld() {
+        ShipPredictor predictor = new ShipPredictor();
+        predictor.reconcile(snapshot(10, 0), 0);
+        assertTrue(predictor.hasShip());
+        WorldSnapshot empty = new WorldSnapshot();
+        empty.clear(1);
+        predictor.reconcile(new GameState(empty, 0, 0, GameState.GameStatus.PLAYING, SHIP_ID, 0), 0);
+        assertFalse(predictor.hasShip());
+    }
+}
@@ -0,0 +1,68 @@
+package org.newdawn.spaceinvaders.client;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.Server;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+import org.newdawn.spaceinvaders.client.multiplay.network.WorldSnapshot;
+
+import static org.junit.Assert.*;
+
+public class SnapshotInterpolatorTest {
+
+    private static final long NANOS_PER_TICK = 1_000_000_000L / Server.TICKS_PER_SECOND;
+    // 30Hz 전송 = 4틱마다 한 번
+    private static final int TICKS_PER_SNAPSHOT = 4;
+    private static final long INTERVAL = NANOS_PER_TICK * TICKS_PER_SNAPSHOT;
+
+    private static GameState state(int sequence, int shipX, int alienX) {
+        WorldSnapshot world = new WorldSnapshot();
+        world.clear(sequence);
+        world.setTick(sequence * TICKS_PER_SNAPSHOT);
+        world.add(1, EntityType.PLAYER, WorldSnapshot.quantize(shipX), WorldSnapshot.quantize(500), 0, 0);
+        world.add(2, EntityType.ALIEN, WorldSnapshot.quantize(alienX), WorldSnapshot.quantize(100), WorldSnapshot.FULL_HEALTH, 0);
+        return new GameState(world, 0, 3, GameState.GameStatus.PLAYING);
+    }
+
+    @Test
+    public void drawsBetweenSnapshotsTwoIntervalsBehind() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+        for (int seq = 0; seq < 4; seq++) {
+            interpolator.add(state(seq, seq * 40, 200), seq * INTERVAL);
+        }
+        // 최신(seq 3)을 받은 시점에는 두 간격 전인 seq 1 을 그린다.
+        assertEquals(40, interpolator.sample(3 * INTERVAL).getWorld().getX(0));
+        // 반 간격 뒤에는 seq 1 과 2 의 중간
+        GameState half = interpolator.sample(3 * INTERVAL + INTERVAL / 2);
+        assertEquals(60, half.getWorld().getX(0));
+        assertEquals(200, half.getWorld().getX(1));
+    }
+
+    @Test
+    public void doesNotExtrapolatePastNewestSnapshot() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+        interpolator.add(state(0, 0, 0), 0);
+        interpolator.add(state(1, 40, 0), INTERVAL);
+        assertEquals(40, interpolator.sample(100 * INTERVAL).getWorld().getX(0));
+    }
+
+    @Test
+    public void teleportIsNotSmeared() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+        interpolator.add(state(0, 0, 0), 0);
+        interpolator.add(state(1, 700, 0), INTERVAL);
+        interpolator.add(state(2, 700, 0), 2 * INTERVAL);
+        assertEquals(700, interpolator.sample(2 * INTERVAL + INTERVAL / 2).getWorld().getX(0));
+    }
+
+    @Test
+    public void lateSnapshotDoesNotIncreaseLatencyEstimate() {
+        SnapshotInterpolator interpolator = new SnapshotInterpolator();
+        interpolator.add(state(0, 0, 0), 0);
+        interpolator.add(state(1, 40, 0), INTERVAL);
+        // 한 간격 늦게 도착한 스냅샷
+        interpolator.add(state(2, 80, 0), 3 * INTERVAL);
+        interpolator.add(state(3, 120, 0), 3 * INTERVAL);
+        assertEquals(40, interpolator.sample(3 * INTERVAL).getWorld().getX(0), 2);
+    }
+}
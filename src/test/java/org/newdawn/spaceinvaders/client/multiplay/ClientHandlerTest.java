@@ -0,0 +1,91 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SnapshotAck;
+import org.newdawn.spaceinvaders.client.multiplay.journal.MatchJournal;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.*;
+
+public class ClientHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void closingControlConnectionDoesNotTouchTheGame() throws Exception {
+        Server server = startServer();
+        ServerGame game = server.getServerGame();
+        MatchJournal journal = MatchJournal.create(folder.getRoot().toPath().resolve("control.journal"),
+                game.getSeed(), Server.TICKS_PER_SECOND);
+        game.setJournal(journal);
+        long journalLength = journal.getLength();
+
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            send(socket, new JoinRequest(JoinRequest.Role.CONTROL));
+            awaitEquals(1, server::getConnectionCount);
+        }
+        awaitEquals(0, server::getConnectionCount);
+
+        // 끊긴 연결이 우주선을 지우는 명령을 넣었다면 여기서 실행되어 저널에 LEAVE 가 남는다.
+        assertEquals(0, game.getPendingCommandCount());
+        game.tick();
+        assertEquals(journalLength, journal.getLength());
+        game.closeJournal();
+    }
+
+    @Test
+    public void olderInputStateDoesNotOverrideNewerOne() throws Exception {
+        // 참가자가 둘이 될 때까지 게임 루프가 돌지 않으므로 틱은 여기서 돌린다.
+        Server server = startServer();
+        ServerGame game = server.getServerGame();
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            send(socket, new JoinRequest(JoinRequest.Role.PLAYER));
+            send(socket, new InputState(InputState.RIGHT, 5));
+            send(socket, new InputState(InputState.LEFT, 3));
+            // 같은 연결의 메시지는 순서대로 처리되므로 ack 가 보이면 앞의 입력도 처리된 것이다.
+            send(socket, new SnapshotAck(77));
+            awaitEquals(1, server::getConnectionCount);
+            ClientHandler handler = server.getClientHandlers().get(0);
+            awaitEquals(77, handler::getAckedSequence);
+
+            game.tick();
+            ServerPlayerShipEntity ship = (ServerPlayerShipEntity) game.getEntities().get(handler.getPlayershipId());
+            assertEquals(InputState.RIGHT, ship.getHeldButtons());
+            assertEquals(5, game.getLastInputSequence(ship.getId()));
+        }
+    }
+
+    private static Server startServer() {
+        Server server = new Server(0, 2);
+        Thread thread = new Thread(server, "test-server");
+        thread.setDaemon(true);
+        thread.start();
+        return server;
+    }
+
+    private static void send(Socket socket, Object message) throws IOException {
+        ByteBuffer frame = MessageCodec.encode(message);
+        OutputStream out = socket.getOutputStream();
+        out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        out.flush();
+    }
+
+    private static void awaitEquals(int expected, IntSupplier actual) throws InterruptedException {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (actual.getAsInt() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, actual.getAsInt());
+    }
+}
@@ -0,0 +1,89 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * 5스테이지 보스전(외계인 12마리 + 보스, 두 명이 계속 쏘고 가끔 운석)을 오래 돌리며
+ * 풀을 끈 경우(용량 0)와 켠 경우의 틱당 할당량과 young GC 횟수를 비교합니다.
+ * 힙이 작을수록 차이가 잘 보입니다.
+ * 실행: mvn test-compile 후 java -Xmx64m -Xmn8m 로 이 클래스의 main 실행
+ */
+public class EntityPoolBenchmark {
+
+    // 2만 틱마다 새 경기를 시작한다. (120Hz 로 약 2분 45초)
+    private static final int TICKS_PER_GAME = 20_000;
+    private static final int GAMES = 15;
+
+    public static void main(String[] args) {
+        run(0); // 워밍업
+        System.out.println("capacity  bytes/tick  youngGCs  hits      misses");
+        for (int capacity : new int[]{0, EntityPool.DEFAULT_CAPACITY, 0, EntityPool.DEFAULT_CAPACITY}) {
+            run(capacity);
+        }
+    }
+
+    private static void run(int capacity) {
+        System.setProperty("spaceinvaders.entityPoolCapacity", Integer.toString(capacity));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        System.gc();
+        long gcBefore = youngCollections();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long hits = 0;
+        long misses = 0;
+        for (int g = 0; g < GAMES; g++) {
+            ServerGame game = bossFight(g);
+            int[] players = {game.spawnPlayerEntity(), game.spawnPlayerEntity()};
+            for (int tick = 0; tick < TICKS_PER_GAME; tick++) {
+                if (tick % 50 == 0) {
+                    int direction = (tick / 50) % 2 == 0 ? InputState.LEFT : InputState.RIGHT;
+                    game.processPlayerInput(players[0], new InputState(direction | InputState.FIRE, tick));
+                    game.processPlayerInput(players[1], new InputState(InputState.FIRE, tick));
+                }
+                if (tick % 600 == 0) {
+                    game.getEntityFactory().createMeteor();
+                }
+                game.tick();
+            }
+            for (EntityPool<?> pool : game.getEntityFactory().getPools()) {
+                hits += pool.getHits();
+                misses += pool.getMisses();
+            }
+        }
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        long collections = youngCollections() - gcBefore;
+        System.out.printf("%8d  %10d  %8d  %8d  %8d%n", capacity, bytes / ((long) GAMES * TICKS_PER_GAME), collections,
+                hits, misses);
+        System.clearProperty("spaceinvaders.entityPoolCapacity");
+    }
+
+    private static ServerGame bossFight(int seed) {
+        ServerGame game = new ServerGame(null, seed);
+        for (Entity entity : game.getEntities().values()) {
+            game.removeEntity(entity.getId());
+        }
+        game.tick();
+        // Stage5.initialize 와 같은 배치에 보스를 더한다.
+        EntityFactory factory = game.getEntityFactory();
+        for (int x = 0; x < 12; x++) {
+            factory.createAlien(100 + (x * 50), 50, 120, 200, true);
+        }
+        factory.createBoss(350, 50);
+        game.setAlienCount(13);
+        return game;
+    }
+
+    private static long youngCollections() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String name = gc.getName();
+            if (!name.contains("Old") && !name.contains("MarkSweep")) {
+                count += gc.getCollectionCount();
+            }
+        }
+        return count;
+    }
+}
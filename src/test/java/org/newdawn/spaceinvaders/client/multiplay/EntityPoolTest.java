@@ -0,0 +1,97 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerAlienShotEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerShotEntity;
+
+import static org.junit.Assert.*;
+
+public class EntityPoolTest {
+
+    @Test
+    public void removedShotIsReusedWithNewIdAndFreshState() {
+        ServerGame game = new ServerGame(null, 1);
+        EntityFactory factory = game.getEntityFactory();
+        ServerAlienShotEntity first = factory.createAlienShot(100, 100);
+        first.setHorizontalMovement(50);
+        game.tick();
+        int firstId = first.getId();
+        game.removeEntity(firstId);
+        game.tick();
+
+        ServerAlienShotEntity second = factory.createAlienShot(200, 300);
+        assertSame(first, second);
+        assertNotEquals(firstId, second.getId());
+        assertEquals(200, second.getX(), 0);
+        assertEquals(300, second.getY(), 0);
+        game.tick();
+        // 옆으로 가던 속도는 남지 않는다.
+        assertEquals(200, second.getX(), 0);
+        assertSame(second, game.getEntities().get(second.getId()));
+        assertNull(game.getEntities().get(firstId));
+    }
+
+    @Test
+    public void pooledGameRunsTheSameAsUnpooled() {
+        ServerGame pooled = new ServerGame(null, 5);
+        System.setProperty("spaceinvaders.entityPoolCapacity", "0");
+        ServerGame unpooled;
+        try {
+            unpooled = new ServerGame(null, 5);
+        } finally {
+            System.clearProperty("spaceinvaders.entityPoolCapacity");
+        }
+        ServerGame[] games = {pooled, unpooled};
+        for (ServerGame game : games) {
+            game.spawnPlayerEntity();
+        }
+        for (int tick = 0; tick < 3000; tick++) {
+            for (ServerGame game : games) {
+                if (tick % 30 == 0) {
+                    int direction = (tick / 30) % 2 == 0 ? InputState.LEFT : InputState.RIGHT;
+                    game.processPlayerInput(firstPlayer(game), new InputState(direction | InputState.FIRE, tick));
+                }
+                if (tick % 200 == 0) {
+                    game.getEntityFactory().createMeteor();
+                }
+                game.tick();
+            }
+            assertEquals("tick " + tick, unpooled.stateChecksum(), pooled.stateChecksum());
+        }
+        long hits = 0;
+        for (EntityPool<?> pool : pooled.getEntityFactory().getPools()) {
+            hits += pool.getHits();
+        }
+        assertTrue(hits > 0);
+        for (EntityPool<?> pool : unpooled.getEntityFactory().getPools()) {
+            assertEquals(0, pool.getHits());
+        }
+    }
+
+    @Test
+    public void rejectsOtherClassesAndDropsWhenFull() {
+        ServerGame game = new ServerGame(null, 1);
+        EntityPool<ServerShotEntity> pool = new EntityPool<>("playerShot", ServerShotEntity.class, 1);
+        Entity subclass = new ServerShotEntity(game, 0, 0, 0, 0) {
+        };
+        assertFalse(pool.release(subclass));
+        assertFalse(pool.release(new ServerAlienShotEntity(game, 0, 0)));
+
+        assertNull(pool.acquire());
+        assertTrue(pool.release(new ServerShotEntity(game, 0, 0, 0, 0)));
+        assertFalse(pool.release(new ServerShotEntity(game, 0, 0, 0, 0)));
+        assertEquals(1, pool.getFree());
+        assertNotNull(pool.acquire());
+        assertEquals(0, pool.getFree());
+
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getReleased());
+        assertEquals(1, pool.getDropped());
+    }
+
+    private static int firstPlayer(ServerGame game) {
+        return game.getPlayerDataMap().keySet().stream().mapToInt(Integer::intValue).min().orElse(-1);
+    }
+}
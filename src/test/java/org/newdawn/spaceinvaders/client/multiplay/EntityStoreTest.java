@@ -0,0 +1,69 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerAlienShotEntity;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EntityStoreTest {
+
+    private ServerGame game;
+    private EntityStore store;
+
+    @Before
+    public void setUp() {
+        game = new ServerGame(null, 1);
+        store = new EntityStore();
+    }
+
+    @Test
+    public void viewHandedOutDuringATickNeverChanges() {
+        Entity first = shot();
+        Entity second = shot();
+        store.add(second);
+        store.add(first);
+        Map<Integer, Entity> frame = store.view();
+        assertEquals(List.of(first, second), List.copyOf(frame.values()));
+
+        Entity third = shot();
+        store.add(third);
+        store.remove(first.getId());
+        // 추가는 다시 읽으면 보이고, 제거는 틱이 끝나야 반영된다.
+        assertEquals(List.of(first, second, third), List.copyOf(store.view().values()));
+        store.applyRemovals();
+        assertEquals(List.of(second, third), List.copyOf(store.view().values()));
+
+        assertEquals(List.of(first, second), List.copyOf(frame.values()));
+        assertSame(first, frame.get(first.getId()));
+        assertNull(store.view().get(first.getId()));
+        assertSame(third, store.view().get(third.getId()));
+    }
+
+    @Test
+    public void entityAddedAndRemovedInTheSameTickIsDropped() {
+        Entity kept = shot();
+        Entity dropped = shot();
+        store.add(kept);
+        store.add(dropped);
+        store.remove(dropped.getId());
+        store.applyRemovals();
+        assertEquals(List.of(kept), List.copyOf(store.view().values()));
+    }
+
+    @Test
+    public void viewIsReadOnly() {
+        store.add(shot());
+        Map<Integer, Entity> view = store.view();
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(view.keySet().iterator().next()));
+        assertThrows(UnsupportedOperationException.class, () -> view.values().clear());
+    }
+
+    private Entity shot() {
+        return new ServerAlienShotEntity(game, 0, 0);
+    }
+}
@@ -0,0 +1,100 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.network.MessageCodec;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class HeldInputTest {
+
+    private ServerGame game;
+    private ServerPlayerShipEntity ship;
+    private final InputQueue queue = new InputQueue();
+
+    @Before
+    public void setUp() {
+        game = new ServerGame(null);
+        ship = game.getEntityFactory().createPlayerShip(370, 550);
+    }
+
+    @Test
+    public void heldStateKeepsApplyingEveryTickUntilChanged() {
+        queue.submit(ship.getId(), new InputState(InputState.RIGHT, 1));
+        queue.drain(game.getGameRules());
+        for (int i = 0; i < Server.TICKS_PER_SECOND; i++) {
+            game.getGameRules().applyHeldInputs();
+            ship.tick();
+        }
+        // 메시지 한 번으로 1초 동안 250px 이동
+        assertEquals(370 + ServerPlayerShipEntity.MOVE_SPEED, ship.getX(), 1.0);
+
+        queue.submit(ship.getId(), new InputState(0, 2));
+        queue.drain(game.getGameRules());
+        game.getGameRules().applyHeldInputs();
+        double stopped = ship.getX();
+        ship.tick();
+        assertEquals(stopped, ship.getX(), 0.0);
+    }
+
+    @Test
+    public void inputsAreCoalescedPerTickInShipOrder() {
+        ServerPlayerShipEntity other = game.getEntityFactory().createPlayerShip(100, 550);
+        // 도착 순서와 무관하게 우주선 id 순서로, 같은 우주선은 마지막 상태만 적용된다.
+        queue.submit(other.getId(), new InputState(InputState.LEFT, 7));
+        queue.submit(ship.getId(), new InputState(InputState.LEFT, 1));
+        queue.submit(ship.getId(), new InputState(InputState.RIGHT, 2));
+        queue.submit(ship.getId(), new InputState(0, 3));
+
+        assertEquals(-1, ship.getLastInputSequence());
+        queue.drain(game.getGameRules());
+
+        assertEquals(0, ship.getHeldButtons());
+        assertEquals(3, ship.getLastInputSequence());
+        assertEquals(InputState.LEFT, other.getHeldButtons());
+        assertEquals(7, other.getLastInputSequence());
+        assertEquals(2, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void commandsRunOnDrainBeforeInputs() {
+        int[] order = new int[1];
+        queue.submit(ship.getId(), new InputState(InputState.RIGHT, 1));
+        queue.execute(() -> order[0] = ship.getHeldButtons() == 0 ? 1 : -1);
+        assertEquals(0, order[0]);
+        queue.drain(game.getGameRules());
+        assertEquals(1, order[0]);
+    }
+
+    @Test
+    public void rightWinsWhenBothDirectionsAreHeld() {
+        assertEquals(1, InputState.direction(InputState.LEFT | InputState.RIGHT));
+        assertEquals(-1, InputState.direction(InputState.LEFT | InputState.FIRE));
+        assertEquals(0, InputState.direction(InputState.FIRE));
+    }
+
+    @Test
+    public void stunnedShipIgnoresHeldDirection() {
+        queue.submit(ship.getId(), new InputState(InputState.LEFT, 1));
+        queue.drain(game.getGameRules());
+        ship.applyStun(10_000);
+        game.getGameRules().applyHeldInputs();
+        double before = ship.getX();
+        ship.tick();
+        assertEquals(before, ship.getX(), 0.0);
+    }
+
+    @Test
+    public void inputStateIsFiveBytesOnTheWire() {
+        ByteBuffer frame = MessageCodec.encode(new InputState(InputState.LEFT | InputState.FIRE, 12345));
+        assertEquals(MessageCodec.FRAME_HEADER_SIZE + 5, frame.remaining());
+        frame.position(MessageCodec.LENGTH_SIZE);
+        int type = frame.get() & 0xFF;
+        InputState decoded = (InputState) MessageCodec.decode(type, frame.slice());
+        assertEquals(InputState.LEFT | InputState.FIRE, decoded.getButtons());
+        assertEquals(12345, decoded.getSequence());
+    }
+}
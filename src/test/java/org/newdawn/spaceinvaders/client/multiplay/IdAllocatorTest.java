@@ -0,0 +1,116 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerAlienShotEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerShotEntity;
+
+import static org.junit.Assert.*;
+
+public class IdAllocatorTest {
+
+    @Test
+    public void releasedSlotComesBackWithNextGeneration() {
+        IdAllocator ids = new IdAllocator(0);
+        int first = ids.allocate();
+        int second = ids.allocate();
+        assertTrue(ids.release(first));
+        // 이미 돌려받은 id 는 다시 돌려받지 않는다.
+        assertFalse(ids.release(first));
+        assertFalse(ids.isLive(first));
+
+        int third = ids.allocate();
+        assertEquals(IdAllocator.slot(first), IdAllocator.slot(third));
+        assertEquals(IdAllocator.generation(first) + 1, IdAllocator.generation(third));
+        assertNotEquals(first, third);
+        assertTrue(ids.isLive(second));
+        assertTrue(ids.isLive(third));
+        assertEquals(2, ids.getSlotCount());
+    }
+
+    @Test
+    public void reusesTheLongestFreedSlotFirst() {
+        IdAllocator ids = new IdAllocator(0);
+        int[] allocated = new int[100];
+        for (int i = 0; i < allocated.length; i++) {
+            allocated[i] = ids.allocate();
+        }
+        for (int i = allocated.length - 1; i >= 0; i--) {
+            ids.release(allocated[i]);
+        }
+        for (int i = allocated.length - 1; i >= 0; i--) {
+            assertEquals(IdAllocator.slot(allocated[i]), IdAllocator.slot(ids.allocate()));
+        }
+        assertEquals(allocated.length, ids.getLiveCount());
+    }
+
+    @Test
+    public void ignoresIdsFromAnotherRange() {
+        IdAllocator ids = new IdAllocator(0);
+        IdAllocator players = new IdAllocator(EntityManager.PLAYER_ID_BASE);
+        int id = ids.allocate();
+        int playerId = players.allocate();
+        assertTrue(EntityManager.isPlayerId(playerId));
+        assertFalse(EntityManager.isPlayerId(id));
+        assertFalse(players.release(id));
+        assertFalse(ids.release(playerId));
+        assertTrue(players.isLive(playerId));
+    }
+
+    @Test
+    public void staleIdDoesNotFindTheEntityThatReusedItsSlot() {
+        ServerGame game = new ServerGame(null, 1);
+        EntityManager manager = new EntityManager();
+        Entity first = new ServerAlienShotEntity(game, 0, 0);
+        manager.addEntity(first);
+        manager.updateAll();
+        manager.removeEntity(first.getId());
+        manager.updateAll();
+        assertNull(manager.getEntity(first.getId()));
+    }
+
+    @Test
+    public void slotsStayFewInALongGame() {
+        ServerGame game = new ServerGame(null, 3);
+        int player = game.spawnPlayerEntity();
+        int maxGeneration = 0;
+        for (int tick = 0; tick < 6000; tick++) {
+            if (tick % 30 == 0) {
+                int direction = (tick / 30) % 2 == 0 ? InputState.LEFT : InputState.RIGHT;
+                game.processPlayerInput(player, new InputState(direction | InputState.FIRE, tick));
+            }
+            game.tick();
+            for (Entity entity : game.getEntities().values()) {
+                assertSame(entity, game.getEntities().get(entity.getId()));
+                if (!EntityManager.isPlayerId(entity.getId())) {
+                    assertTrue(IdAllocator.slot(entity.getId()) < 256);
+                    maxGeneration = Math.max(maxGeneration, IdAllocator.generation(entity.getId()));
+                }
+            }
+        }
+        assertTrue(maxGeneration > 0);
+    }
+
+    @Test
+    public void scoreGoesToTheOwnerEvenAfterItsSlotIsReused() {
+        ServerGame game = new ServerGame(null, 1);
+        int gone = game.spawnPlayerEntity();
+        game.tick();
+        game.getPlayerDataMap().get(gone).decreaseLives();
+        game.getPlayerDataMap().get(gone).decreaseLives();
+        ServerShotEntity shot = game.getEntityFactory().createPlayerShot((ServerPlayerShipEntity) game.getEntities().get(gone));
+        // 목숨이 다해 우주선이 제거된 뒤 새 플레이어가 같은 슬롯을 받는다.
+        game.notifyDeath(gone);
+        game.tick();
+        int joined = game.spawnPlayerEntity();
+        game.tick();
+        assertEquals(IdAllocator.slot(gone), IdAllocator.slot(joined));
+        assertNotEquals(gone, joined);
+
+        int before = game.getPlayerDataMap().get(joined).getScore();
+        game.notifyAlienKilled(shot, shot.getOwnerId());
+        assertEquals(before, game.getPlayerDataMap().get(joined).getScore());
+        assertTrue(game.getPlayerDataMap().get(gone).getScore() > 0);
+    }
+}
@@ -0,0 +1,95 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerShotEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LagCompensationTest {
+
+    // 틱당 2px 씩 오른쪽으로 가는 과녁
+    private static final double TARGET_SPEED = 2.0 * Server.TICKS_PER_SECOND;
+
+    private ServerGame game;
+    private EntityManager manager;
+    private final List<Entity> hits = new ArrayList<>();
+    private Entity target;
+
+    @Before
+    public void setUp() {
+        game = new ServerGame(null);
+        manager = new EntityManager();
+        target = new Entity(game, 40, 20, 100, 100) {
+            @Override
+            public void handleCollision(Entity otherEntity) {
+                hits.add(otherEntity);
+            }
+        };
+        target.setHorizontalMovement(TARGET_SPEED);
+        manager.addEntity(target);
+        for (int i = 0; i < 30; i++) {
+            manager.updateAll();
+        }
+    }
+
+    @Test
+    public void shotIsJudgedAgainstWhereTheShooterSawTheTarget() {
+        // 과녁은 이미 x=160 에 있지만 30틱 전 화면에서는 x=102 에 있었다.
+        ServerShotEntity shot = new ServerShotEntity(game, 105, 105, 0, 0);
+        shot.setRewindTicks(30);
+        manager.addEntity(shot);
+        manager.updateAll();
+
+        assertEquals(1, hits.size());
+        assertSame(shot, hits.get(0));
+    }
+
+    @Test
+    public void shotWithoutRewindUsesCurrentPositions() {
+        manager.addEntity(new ServerShotEntity(game, 105, 105, 0, 0));
+        manager.updateAll();
+
+        assertTrue(hits.isEmpty());
+    }
+
+    @Test
+    public void rewindStopsOnceTheShotHasFlownPastTheWindow() {
+        ServerShotEntity shot = new ServerShotEntity(game, 105, 200, 0, 0);
+        shot.setRewindTicks(2);
+        manager.addEntity(shot);
+        manager.updateAll();
+        assertEquals(2, shot.getCollisionRewindTicks());
+        manager.updateAll();
+        manager.updateAll();
+        assertEquals(0, shot.getCollisionRewindTicks());
+    }
+
+    @Test
+    public void historyIsBoundedAndKeepsOnlyRecentTicks() {
+        PositionHistory history = manager.getHistory();
+        assertNotNull(history.frame(29));
+        assertNull(history.frame(30));
+        for (int i = 0; i < PositionHistory.CAPACITY * 2; i++) {
+            manager.updateAll();
+        }
+        PositionHistory.Frame newest = history.frame(0);
+        PositionHistory.Frame oldest = history.frame(PositionHistory.CAPACITY - 1);
+        assertNull(history.frame(PositionHistory.CAPACITY));
+        double moved = newest.getX(newest.indexOf(target.getId())) - oldest.getX(oldest.indexOf(target.getId()));
+        assertEquals(2.0 * (PositionHistory.CAPACITY - 1), moved, 1e-6);
+        assertTrue(newest.indexOf(target.getId() + 1000) < 0);
+    }
+
+    @Test
+    public void rewindCoversRoundTripPlusInterpolationDelay() {
+        assertEquals(0, Server.rewindTicks(-1, 4));
+        // 100ms = 12틱, 보간 지연 스냅샷 2개 = 8틱
+        assertEquals(20, Server.rewindTicks(100_000_000L, 4));
+        assertEquals(PositionHistory.CAPACITY - 1, Server.rewindTicks(2_000_000_000L, 4));
+    }
+}
@@ -0,0 +1,70 @@
+package org.newdawn.spaceinvaders.client.multiplay.ServerEntity;
+
+import org.newdawn.spaceinvaders.client.multiplay.EntityFactory;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+import org.newdawn.spaceinvaders.client.multiplay.collision.Broadphase;
+import org.newdawn.spaceinvaders.client.multiplay.collision.GridBroadphase;
+
+/**
+ * 5스테이지 보스전(외계인 12마리 + 보스, 하수인/샷건/레이저 패턴)에서 두 명이 계속 쏠 때
+ * CollisionMatrix 로 쌍을 거르기 전과 후의 틱당 시간을 비교합니다. 설정마다 같은 시드로 새 게임을 돌립니다.
+ * 실행: mvn test-compile 후 이 클래스의 main 실행
+ */
+public class CollisionMatrixBenchmark {
+
+    // 보스 패턴 쿨다운이 5초라 20초면 패턴이 서너 번 돈다.
+    private static final int TICKS = 2_400;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        String[] names = {"brute, unfiltered", "brute, filtered", "grid, unfiltered", "grid, filtered"};
+        long[] nanos = new long[names.length];
+        long entityTicks = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int config = 0; config < names.length; config++) {
+                Broadphase broadphase = config < 2 ? null : new GridBroadphase();
+                ServerGame game = bossFight(broadphase, config % 2 == 1);
+                long start = System.nanoTime();
+                for (int tick = 0; tick < TICKS; tick++) {
+                    game.tick();
+                    if (config == 0) {
+                        entityTicks += game.getEntities().size();
+                    }
+                }
+                // 첫 라운드는 워밍업
+                if (round > 0) {
+                    nanos[config] += System.nanoTime() - start;
+                }
+            }
+        }
+        long measuredTicks = (long) TICKS * (ROUNDS - 1);
+        System.out.printf("entities per tick  : %.1f%n", (double) entityTicks / TICKS / ROUNDS);
+        for (int config = 0; config < names.length; config++) {
+            System.out.printf("%-18s : %.1f us/tick%n", names[config], nanos[config] / 1000.0 / measuredTicks);
+        }
+    }
+
+    private static ServerGame bossFight(Broadphase broadphase, boolean filtered) {
+        ServerGame game = new ServerGame(null, 5);
+        game.setBroadphase(broadphase);
+        game.setCollisionFilter(filtered);
+        for (Entity entity : game.getEntities().values()) {
+            game.removeEntity(entity.getId());
+        }
+        game.tick();
+
+        // Stage5.initialize 와 같은 배치에 보스를 더한다.
+        EntityFactory factory = game.getEntityFactory();
+        for (int x = 0; x < 12; x++) {
+            factory.createAlien(100 + (x * 50), 50, 120, 200, true);
+        }
+        factory.createBoss(350, 50);
+        game.setAlienCount(13);
+        for (int i = 0; i < 2; i++) {
+            int ship = game.spawnPlayerEntity();
+            game.processPlayerInput(ship, new InputState(InputState.FIRE | (i == 0 ? InputState.LEFT : InputState.RIGHT), 0));
+        }
+        return game;
+    }
+}
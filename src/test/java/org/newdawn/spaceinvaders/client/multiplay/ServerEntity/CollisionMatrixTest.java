@@ -0,0 +1,75 @@
+package org.newdawn.spaceinvaders.client.multiplay.ServerEntity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.EntityFactory;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class CollisionMatrixTest {
+
+    private final Map<EntityType, Entity> samples = new EnumMap<>(EntityType.class);
+
+    @Before
+    public void setUp() {
+        ServerGame game = new ServerGame(null, 1);
+        EntityFactory factory = game.getEntityFactory();
+        ServerPlayerShipEntity ship = factory.createPlayerShip(370, 550);
+        ServerBossEntity boss = factory.createBoss(350, 50);
+        for (Entity entity : new Entity[]{ship, boss, factory.createAlien(100, 100, 30, 200, false),
+                factory.createReflectAlien(200, 100, 30), factory.createPlayerShot(ship), factory.createAlienShot(300, 300),
+                factory.createItemDrop(400, 300), factory.createMeteor(), factory.createBossLaser(boss)}) {
+            samples.put(entity.getType(), entity);
+        }
+        assertEquals(EntityType.values().length, samples.size());
+    }
+
+    @Test
+    public void onlyPairsWithAResponseAreTested() {
+        // 표로 옮기기 전 handleCollision 의 instanceof 분기와 같다.
+        Set<String> expected = new TreeSet<>(Set.of(
+                "PLAYER>ALIEN", "PLAYER>REFLECT_ALIEN", "PLAYER>ALIEN_SHOT", "PLAYER>ITEM", "PLAYER>METEOR", "PLAYER>LASER",
+                "ALIEN>SHOT", "REFLECT_ALIEN>SHOT", "BOSS>SHOT", "BOSS>PLAYER",
+                "ALIEN_SHOT>PLAYER", "ITEM>PLAYER", "METEOR>PLAYER", "METEOR>SHOT"));
+        Set<String> responding = new TreeSet<>();
+        for (Entity self : samples.values()) {
+            for (Entity other : samples.values()) {
+                if (CollisionMatrix.responds(self, other)) {
+                    responding.add(self.getType() + ">" + other.getType());
+                }
+            }
+        }
+        assertEquals(expected, responding);
+    }
+
+    @Test
+    public void broadphaseMaskKeepsEveryPairWhereEitherSideResponds() {
+        for (Entity a : samples.values()) {
+            for (Entity b : samples.values()) {
+                boolean masked = (CollisionMatrix.mask(a.getType()) & CollisionMatrix.category(b.getType())) != 0;
+                boolean either = CollisionMatrix.responds(a, b) || CollisionMatrix.responds(b, a);
+                assertEquals(a.getType() + "-" + b.getType(), either, masked);
+            }
+            // 종류가 없는 엔티티와는 늘 짝이 된다.
+            assertNotEquals(0, CollisionMatrix.mask(a.getType()) & CollisionMatrix.category(null));
+            assertNotEquals(0, CollisionMatrix.mask(null) & CollisionMatrix.category(a.getType()));
+        }
+    }
+
+    @Test
+    public void shotDamagesAlienThroughTheTable() {
+        Entity alien = samples.get(EntityType.ALIEN);
+        Entity shot = samples.get(EntityType.SHOT);
+        CollisionMatrix.collide(shot, alien);
+        assertEquals(200, alien.getCurrentHP());
+
+        CollisionMatrix.collide(alien, shot);
+        assertEquals(200 - ((ServerShotEntity) shot).getDamage(), alien.getCurrentHP());
+    }
+}
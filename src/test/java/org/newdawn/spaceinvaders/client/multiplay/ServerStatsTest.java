@@ -0,0 +1,65 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ServerStatsTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    @Test
+    public void roundTripIsSmoothedLikeTcp() {
+        ClientStats stats = new ClientStats(null);
+        assertEquals(-1, stats.getRoundTripMillis(), 0);
+
+        stats.recordRoundTrip(40 * MILLI);
+        stats.recordRoundTrip(20 * MILLI);
+
+        assertEquals(20, stats.getRoundTripMillis(), 1e-9);
+        assertEquals(40 + 0.125 * (20 - 40), stats.getSmoothedRoundTripMillis(), 1e-9);
+    }
+
+    @Test
+    public void encodeTimesAreAveragedPerSample() {
+        ServerStats stats = new ServerStats(null);
+        stats.recordSnapshotEncode(100_000);
+        stats.recordSnapshotEncode(300_000);
+        stats.sample(Collections.emptyList());
+
+        assertEquals(2, stats.getSnapshotsPerSecond());
+        assertEquals(200, stats.getSnapshotEncodeMicros(), 1e-9);
+        assertEquals(300, stats.getSnapshotEncodeMaxMicros(), 1e-9);
+
+        // 다음 창은 새로 센다.
+        stats.sample(Collections.emptyList());
+        assertEquals(0, stats.getSnapshotsPerSecond());
+    }
+
+    @Test
+    public void statsAreReadableThroughJmx() throws Exception {
+        MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+        ObjectName clientName = new ObjectName("org.newdawn.spaceinvaders.test:type=Client,id=1");
+        ObjectName serverName = new ObjectName("org.newdawn.spaceinvaders.test:type=Server");
+        ClientStats client = new ClientStats(null);
+        client.recordRoundTrip(15 * MILLI);
+        ServerStats server = new ServerStats(null);
+        server.recordSnapshotEncode(50_000);
+        server.sample(Collections.emptyList());
+
+        mbeans.registerMBean(client, clientName);
+        mbeans.registerMBean(server, serverName);
+        try {
+            assertEquals(15.0, (Double) mbeans.getAttribute(clientName, "RoundTripMillis"), 1e-9);
+            assertEquals(50.0, (Double) mbeans.getAttribute(serverName, "SnapshotEncodeMicros"), 1e-9);
+        } finally {
+            mbeans.unregisterMBean(clientName);
+            mbeans.unregisterMBean(serverName);
+        }
+    }
+}
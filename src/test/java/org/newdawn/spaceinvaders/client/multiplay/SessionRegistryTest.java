@@ -0,0 +1,59 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionRegistryTest {
+
+    private static final long GRACE = 1_000;
+
+    private final List<String> superseded = new ArrayList<>();
+
+    @Test
+    public void detachedSessionResumesOnTheSameShipUntilGraceExpires() {
+        SessionRegistry<String> sessions = new SessionRegistry<>(GRACE);
+        long token = sessions.issue(7, "first");
+        assertNotEquals(0, token);
+
+        assertTrue(sessions.detach(token, "first", 100));
+        assertEquals(1, sessions.getDetachedCount());
+        assertTrue(sessions.expire(100 + GRACE - 1).isEmpty());
+
+        assertEquals(7, sessions.resume(token, "second", superseded::add));
+        assertEquals(0, sessions.getDetachedCount());
+        // 끊긴 연결이었으므로 닫을 것이 없다.
+        assertTrue(superseded.isEmpty());
+
+        assertTrue(sessions.detach(token, "second", 5_000));
+        assertEquals(List.of(7), sessions.expire(5_000 + GRACE));
+        assertEquals(-1, sessions.resume(token, "third", superseded::add));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    public void resumingALiveSessionClosesTheOldConnectionWithoutFreeingTheShip() {
+        SessionRegistry<String> sessions = new SessionRegistry<>(GRACE);
+        long token = sessions.issue(3, "stale");
+
+        assertEquals(3, sessions.resume(token, "fresh", superseded::add));
+        assertEquals(List.of("stale"), superseded);
+        // 늦게 끊긴 이전 연결은 세션을 유예 상태로 돌리지 못한다.
+        assertFalse(sessions.detach(token, "stale", 0));
+        assertEquals(0, sessions.getDetachedCount());
+        assertTrue(sessions.expire(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void unknownTokenAndDisabledGraceDoNotResume() {
+        SessionRegistry<String> sessions = new SessionRegistry<>(GRACE);
+        assertEquals(-1, sessions.resume(42, "someone", superseded::add));
+
+        SessionRegistry<String> disabled = new SessionRegistry<>(0);
+        assertEquals(0, disabled.issue(1, "player"));
+        assertEquals(0, disabled.size());
+    }
+}
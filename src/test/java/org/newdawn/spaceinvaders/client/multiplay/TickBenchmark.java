@@ -0,0 +1,58 @@
+package org.newdawn.spaceinvaders.client.multiplay;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 서버 틱 하나(입력 적용, 엔티티 갱신, 충돌, 정리)의 할당 바이트와 시간 분포를 출력합니다.
+ * Stage 1 에 두 명이 좌우로 움직이며 계속 쏘는 경기와, 거기에 쏘지 않는 외계인 500마리를 더한 경기를 돌립니다.
+ * 실행: mvn test-compile 후 이 클래스의 main 실행
+ */
+public class TickBenchmark {
+
+    private static final int WARMUP_TICKS = 3_000;
+    private static final int TICKS = 12_000;
+
+    public static void main(String[] args) {
+        System.out.println("scene            entities  bytes/tick  p50(us)  p99(us)  max(us)");
+        run("stage 1", 0);
+        run("stage 1 + 500", 500);
+    }
+
+    private static void run(String name, int extraAliens) {
+        ServerGame game = new ServerGame(null, 3);
+        Random random = new Random(3);
+        for (int i = 0; i < extraAliens; i++) {
+            game.getEntityFactory().createAlien(random.nextDouble() * 700 + 20, random.nextDouble() * 400,
+                    30, 1_000_000, false);
+        }
+        int first = game.spawnPlayerEntity();
+        int second = game.spawnPlayerEntity();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] nanos = new long[TICKS];
+        long entities = 0;
+        long allocated = 0;
+        for (int tick = -WARMUP_TICKS; tick < TICKS; tick++) {
+            if (tick % 60 == 0) {
+                int direction = (tick / 60) % 2 == 0 ? InputState.LEFT : InputState.RIGHT;
+                game.processPlayerInput(first, new InputState(direction | InputState.FIRE, tick));
+                game.processPlayerInput(second, new InputState(InputState.FIRE, tick));
+            }
+            long bytes = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            game.tick();
+            long elapsed = System.nanoTime() - start;
+            if (tick >= 0) {
+                allocated += threads.getThreadAllocatedBytes(threadId) - bytes;
+                nanos[tick] = elapsed;
+                entities += game.getEntities().size();
+            }
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-15s  %8d  %10d  %7.1f  %7.1f  %7.1f%n", name, entities / TICKS, allocated / TICKS,
+                nanos[TICKS / 2] / 1000.0, nanos[TICKS * 99 / 100] / 1000.0, nanos[TICKS - 1] / 1000.0);
+    }
+}
@@ -0,0 +1,246 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.EntityFactory;
+import org.newdawn.spaceinvaders.client.multiplay.EntityManager;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.PlayerData;
+import org.newdawn.spaceinvaders.client.multiplay.Server;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerShotEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BroadphaseTest {
+
+    @Test
+    public void findsTheSamePairsAsComparingEveryPair() {
+        Random random = new Random(1);
+        Broadphase[] broadphases = {new GridBroadphase(), new GridBroadphase(17), new GridBroadphase(300),
+                new SweepBroadphase(), new ScanBroadphase(), new ScanBroadphase(new ScalarOverlapKernel())};
+        Bounds bounds = new Bounds();
+        PairList pairs = new PairList();
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(400);
+            fillRandom(bounds, count, random);
+            Set<Long> expected = everyPair(bounds);
+            for (Broadphase broadphase : broadphases) {
+                pairs.clear();
+                broadphase.findPairs(bounds, pairs);
+                Set<Long> found = new HashSet<>();
+                for (int p = 0; p < pairs.size(); p++) {
+                    assertTrue(pairs.getFirst(p) < pairs.getSecond(p));
+                    assertTrue("중복된 쌍", found.add(key(pairs.getFirst(p), pairs.getSecond(p))));
+                }
+                assertEquals(broadphase.getClass().getSimpleName() + " round " + round, expected, found);
+            }
+        }
+    }
+
+    @Test
+    public void gameRunsTheSameWithEveryBroadphase() {
+        // 쌍을 거르지 않고 모든 쌍에 handleCollision 을 부르는 예전 방식이 기준이다.
+        ServerGame brute = crowdedGame(null);
+        brute.setCollisionFilter(false);
+        ServerGame filtered = crowdedGame(null);
+        ServerGame grid = crowdedGame(new GridBroadphase());
+        ServerGame sweep = crowdedGame(new SweepBroadphase());
+        ServerGame scan = crowdedGame(new ScanBroadphase());
+        ServerGame[] games = {brute, filtered, grid, sweep, scan};
+
+        for (int tick = 0; tick < 900; tick++) {
+            for (ServerGame game : games) {
+                play(game, tick);
+                game.tick();
+            }
+            assertEquals("filtered, tick " + tick, brute.stateChecksum(), filtered.stateChecksum());
+            assertEquals("grid, tick " + tick, brute.stateChecksum(), grid.stateChecksum());
+            assertEquals("sweep, tick " + tick, brute.stateChecksum(), sweep.stateChecksum());
+            assertEquals("scan, tick " + tick, brute.stateChecksum(), scan.stateChecksum());
+            assertEquals("filtered lives, tick " + tick, lives(brute), lives(filtered));
+            assertEquals("grid lives, tick " + tick, lives(brute), lives(grid));
+            assertEquals("sweep lives, tick " + tick, lives(brute), lives(sweep));
+            assertEquals("scan lives, tick " + tick, lives(brute), lives(scan));
+        }
+        for (ServerGame game : games) {
+            assertEquals(lives(brute), lives(game));
+        }
+        // 충돌 처리 중에 우주선이 부활 위치로 옮겨지는 경우를 지났는지
+        assertTrue(lives(brute) < 6);
+    }
+
+    @Test
+    public void entityMovedDuringCollisionsIsComparedAtItsNewPosition() {
+        List<String> expected = teleportScenario(null);
+        // A 가 B 와 부딪혀 C 위로 옮겨진 뒤, 같은 틱에 C 와도 부딪힌다.
+        assertEquals(List.of("A>B", "A>C", "C>A"), expected);
+        assertEquals(expected, teleportScenario(new GridBroadphase()));
+        assertEquals(expected, teleportScenario(new SweepBroadphase()));
+    }
+
+    @Test
+    public void rewoundShotFindsTargetOutsideItsCurrentCell() {
+        List<String> expected = rewindScenario(null);
+        assertEquals(List.of("target>shot", "shot>target"), expected);
+        assertEquals(expected, rewindScenario(new GridBroadphase()));
+        assertEquals(expected, rewindScenario(new SweepBroadphase()));
+    }
+
+    private static List<String> teleportScenario(Broadphase broadphase) {
+        ServerGame game = new ServerGame(null, 1);
+        EntityManager manager = new EntityManager();
+        manager.setBroadphase(broadphase);
+        List<String> handled = new ArrayList<>();
+        manager.addEntity(new Recording(game, "A", 0, 0, handled) {
+            @Override
+            public void handleCollision(Entity otherEntity) {
+                super.handleCollision(otherEntity);
+                setX(500);
+                setY(500);
+            }
+        });
+        manager.addEntity(new Recording(game, "B", 10, 10, handled));
+        manager.addEntity(new Recording(game, "C", 505, 505, handled));
+        manager.updateAll();
+        return handled;
+    }
+
+    private static List<String> rewindScenario(Broadphase broadphase) {
+        ServerGame game = new ServerGame(null, 1);
+        EntityManager manager = new EntityManager();
+        manager.setBroadphase(broadphase);
+        List<String> handled = new ArrayList<>();
+        Recording target = new Recording(game, "target", 100, 100, handled);
+        // 틱당 4px 씩 오른쪽으로 가서 30틱 뒤에는 다른 칸에 있다.
+        target.setHorizontalMovement(4.0 * Server.TICKS_PER_SECOND);
+        manager.addEntity(target);
+        for (int i = 0; i < 30; i++) {
+            manager.updateAll();
+        }
+        ServerShotEntity shot = new ServerShotEntity(game, 105, 105, 0, 0) {
+            @Override
+            public void handleCollision(Entity otherEntity) {
+                handled.add("shot>" + ((Recording) otherEntity).name);
+            }
+        };
+        shot.setRewindTicks(30);
+        manager.addEntity(shot);
+        manager.updateAll();
+        return handled;
+    }
+
+    // 부딪힌 쌍을 "자신>상대" 로 남기는 20x20 엔티티
+    private static class Recording extends Entity {
+        final String name;
+        private final List<String> handled;
+
+        Recording(ServerGame game, String name, double x, double y, List<String> handled) {
+            super(game, 20, 20, x, y);
+            this.name = name;
+            this.handled = handled;
+        }
+
+        @Override
+        public void handleCollision(Entity otherEntity) {
+            handled.add(name + ">" + (otherEntity instanceof Recording other ? other.name : "shot"));
+        }
+    }
+
+    // 화면 밖, 크기 0, 화면보다 큰 사각형과 변이 맞닿는 사각형을 섞는다.
+    private static void fillRandom(Bounds bounds, int count, Random random) {
+        bounds.reset(count);
+        for (int i = 0; i < count; i++) {
+            double x = random.nextInt(10) == 0 ? -200 + random.nextDouble() * 1200 : random.nextDouble() * 800;
+            double y = random.nextInt(10) == 0 ? -200 + random.nextDouble() * 1000 : random.nextDouble() * 600;
+            double width = switch (random.nextInt(8)) {
+                case 0 -> 0;
+                case 1 -> 300 + random.nextDouble() * 700;
+                default -> 5 + random.nextDouble() * 50;
+            };
+            double height = random.nextInt(8) == 0 ? 400 : 5 + random.nextDouble() * 50;
+            if (i > 0 && random.nextInt(10) == 0) {
+                // 앞 사각형의 오른쪽 변에 딱 붙인다.
+                x = bounds.right[i - 1];
+                y = bounds.top[i - 1];
+            }
+            bounds.set(i, x, y, width, height);
+            if (random.nextBoolean()) {
+                // 종류 네 가지 중 하나로, 상대할 종류는 무작위로 고른다. (대칭이 아니어도 된다)
+                bounds.setFilter(i, 1 << random.nextInt(4), random.nextInt(16));
+            }
+        }
+    }
+
+    private static Set<Long> everyPair(Bounds bounds) {
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 0; i < bounds.size(); i++) {
+            for (int j = i + 1; j < bounds.size(); j++) {
+                if (bounds.canCollide(i, j) && bounds.overlaps(i, j)) {
+                    pairs.add(key(i, j));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | j;
+    }
+
+    private static ServerGame crowdedGame(Broadphase broadphase) {
+        ServerGame game = new ServerGame(null, 99);
+        game.setBroadphase(broadphase);
+        EntityFactory factory = game.getEntityFactory();
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            double x = random.nextDouble() * 780;
+            double y = random.nextDouble() * 560;
+            switch (random.nextInt(4)) {
+                case 0 -> factory.createAlien(x, y, 30, 1 + random.nextInt(3), false);
+                case 1 -> factory.createAlienShot(x, y);
+                case 2 -> factory.createItemDrop(x, y);
+                default -> factory.createMeteor().setY(y);
+            }
+        }
+        // 보스가 레이저와 하수인을 만든다.
+        factory.createBoss(350, 50);
+        // 부활 위치 근처에도 몰아 둔다.
+        for (int i = 0; i < 20; i++) {
+            factory.createAlienShot(340 + random.nextDouble() * 60, 520 + random.nextDouble() * 40);
+        }
+        return game;
+    }
+
+    // 두 명이 좌우로 움직이며 쏜다. 한 명은 지연 보상으로 되돌린 위치로 판정한다.
+    private static void play(ServerGame game, int tick) {
+        if (tick == 0) {
+            game.spawnPlayerEntity();
+            game.spawnPlayerEntity();
+        }
+        if (tick == 1) {
+            int first = firstPlayer(game);
+            game.setRewindTicks(first + 1, 12);
+        }
+        if (tick > 1 && tick % 40 == 0) {
+            int first = firstPlayer(game);
+            int direction = (tick / 40) % 2 == 0 ? InputState.LEFT : InputState.RIGHT;
+            game.processPlayerInput(first, new InputState(direction | InputState.FIRE, tick));
+            game.processPlayerInput(first + 1, new InputState(InputState.FIRE, tick));
+        }
+    }
+
+    private static int firstPlayer(ServerGame game) {
+        return game.getPlayerDataMap().keySet().stream().mapToInt(Integer::intValue).min().orElse(-1);
+    }
+
+    private static int lives(ServerGame game) {
+        return game.getPlayerDataMap().values().stream().mapToInt(PlayerData::getLives).sum();
+    }
+}
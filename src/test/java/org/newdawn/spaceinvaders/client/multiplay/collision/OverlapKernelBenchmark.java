@@ -0,0 +1,116 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import org.newdawn.spaceinvaders.client.multiplay.EntityFactory;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 총알이 많은 화면(외계인 30, 우주선 4, 총알 n 개)에서 겹치는 쌍을 찾는 시간을 비교합니다.
+ * Entity.isColliding 을 모든 쌍에 부르는 지금의 반복문, 스칼라 커널, 벡터 커널, 격자 순입니다.
+ * 커널 쪽은 엔티티 좌표를 Bounds 로 옮기는 시간까지 잽니다.
+ * 실행: mvn -Psimd test-compile 후 java --add-modules jdk.incubator.vector 로 이 클래스의 main 실행
+ */
+public class OverlapKernelBenchmark {
+
+    private static final int[] SHOTS = {100, 400, 1_600};
+    private static final int WARMUP_MILLIS = 1_000;
+    private static final int MEASURE_MILLIS = 2_000;
+
+    private interface PairSearch {
+        int run(List<Entity> entities);
+    }
+
+    public static void main(String[] args) {
+        OverlapKernel vector = OverlapKernel.create();
+        System.out.println("kernel: " + vector.getClass().getSimpleName());
+        System.out.println("entities  pairs  isColliding(us)  scalar(us)  vector(us)  grid(us)");
+        for (int shots : SHOTS) {
+            List<Entity> entities = bulletHell(shots);
+            PairSearch[] searches = {
+                    OverlapKernelBenchmark::isCollidingLoop,
+                    withBroadphase(new ScanBroadphase(new ScalarOverlapKernel())),
+                    withBroadphase(new ScanBroadphase(vector)),
+                    withBroadphase(new GridBroadphase())};
+            int pairs = searches[0].run(entities);
+            double[] micros = new double[searches.length];
+            for (int s = 0; s < searches.length; s++) {
+                if (searches[s].run(entities) != pairs) {
+                    throw new IllegalStateException("쌍 수가 다릅니다: " + s);
+                }
+                micros[s] = measure(searches[s], entities);
+            }
+            System.out.printf("%8d  %5d  %15.1f  %10.1f  %10.1f  %8.1f%n",
+                    entities.size(), pairs, micros[0], micros[1], micros[2], micros[3]);
+        }
+    }
+
+    private static List<Entity> bulletHell(int shots) {
+        ServerGame game = new ServerGame(null, 22); // Stage 1: 외계인 30마리
+        EntityFactory factory = game.getEntityFactory();
+        Random random = new Random(22);
+        List<ServerPlayerShipEntity> ships = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ships.add(factory.createPlayerShip(100 + i * 180, 550));
+        }
+        for (int i = 0; i < shots; i++) {
+            if (random.nextBoolean()) {
+                factory.createPlayerShot(ships.get(random.nextInt(ships.size()))).setY(random.nextDouble() * 550);
+            } else {
+                factory.createAlienShot(random.nextDouble() * 790, random.nextDouble() * 590);
+            }
+        }
+        return new ArrayList<>(game.getEntities().values());
+    }
+
+    // EntityManager 가 brute 일 때와 같은 비교. 겹치는 쌍 수를 센다.
+    private static int isCollidingLoop(List<Entity> entities) {
+        int pairs = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            Entity entity1 = entities.get(i);
+            for (int j = i + 1; j < entities.size(); j++) {
+                if (entity1.isColliding(entities.get(j))) {
+                    pairs++;
+                }
+            }
+        }
+        return pairs;
+    }
+
+    // 필터 없이 비교해야 위 반복문과 같은 쌍이 나온다.
+    private static PairSearch withBroadphase(Broadphase broadphase) {
+        Bounds bounds = new Bounds();
+        PairList pairs = new PairList();
+        return entities -> {
+            bounds.reset(entities.size());
+            for (int i = 0; i < entities.size(); i++) {
+                Entity entity = entities.get(i);
+                bounds.set(i, entity.getX(), entity.getY(), entity.getWidth(), entity.getHeight());
+            }
+            pairs.clear();
+            broadphase.findPairs(bounds, pairs);
+            return pairs.size();
+        };
+    }
+
+    private static double measure(PairSearch search, List<Entity> entities) {
+        run(search, entities, WARMUP_MILLIS);
+        long start = System.nanoTime();
+        long calls = run(search, entities, MEASURE_MILLIS);
+        return (System.nanoTime() - start) / 1000.0 / calls;
+    }
+
+    private static long run(PairSearch search, List<Entity> entities, int millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long calls = 0;
+        do {
+            search.run(entities);
+            calls++;
+        } while (System.nanoTime() < deadline);
+        return calls;
+    }
+}
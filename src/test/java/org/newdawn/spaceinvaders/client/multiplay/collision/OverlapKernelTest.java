@@ -0,0 +1,71 @@
+package org.newdawn.spaceinvaders.client.multiplay.collision;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class OverlapKernelTest {
+
+    @Test
+    public void scalarKernelFindsEveryOverlapInTheRange() {
+        assertMatchesPairwise(new ScalarOverlapKernel());
+    }
+
+    @Test
+    public void vectorKernelFindsTheSameOverlaps() {
+        // mvn -Psimd 면 벡터 커널을 빌드하고 surefire 를 --add-modules jdk.incubator.vector 로 띄운다.
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+        OverlapKernel kernel = OverlapKernel.create();
+        assertEquals("VectorOverlapKernel", kernel.getClass().getSimpleName());
+        assertMatchesPairwise(kernel);
+    }
+
+    @Test
+    public void simdCanBeTurnedOff() {
+        System.setProperty("spaceinvaders.simd", "false");
+        try {
+            assertTrue(OverlapKernel.create() instanceof ScalarOverlapKernel);
+        } finally {
+            System.clearProperty("spaceinvaders.simd");
+        }
+    }
+
+    // 레인 수로 나누어떨어지지 않는 구간, i 가 구간 안에 있는 경우, NaN 과 맞닿은 변을 섞는다.
+    private static void assertMatchesPairwise(OverlapKernel kernel) {
+        Random random = new Random(3);
+        Bounds bounds = new Bounds();
+        int[] hits = new int[300];
+        for (int round = 0; round < 200; round++) {
+            int count = 1 + random.nextInt(300);
+            bounds.reset(count);
+            for (int k = 0; k < count; k++) {
+                double x = random.nextInt(50) == 0 ? Double.NaN : random.nextDouble() * 400;
+                double y = random.nextDouble() * 300;
+                bounds.set(k, x, y, random.nextInt(20) == 0 ? 0 : 5 + random.nextDouble() * 60, 5 + random.nextDouble() * 60);
+                if (k > 0 && random.nextInt(10) == 0) {
+                    bounds.set(k, bounds.right[k - 1], bounds.top[k - 1], 10, 10);
+                }
+                if (random.nextInt(3) == 0) {
+                    bounds.setFilter(k, 1 << random.nextInt(3), random.nextInt(8));
+                }
+            }
+            int i = random.nextInt(count);
+            int from = random.nextInt(count);
+            int to = from + random.nextInt(count - from + 1);
+
+            int[] expected = new int[to - from];
+            int expectedCount = 0;
+            for (int j = from; j < to; j++) {
+                if (j != i && bounds.canCollide(i, j) && bounds.overlaps(i, j)) {
+                    expected[expectedCount++] = j;
+                }
+            }
+            int found = kernel.scan(bounds, i, from, to, hits);
+            assertArrayEquals("round " + round, Arrays.copyOf(expected, expectedCount), Arrays.copyOf(hits, found));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.newdawn.spaceinvaders.client.multiplay.journal;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+import org.newdawn.spaceinvaders.client.multiplay.PlayerInput;
+import org.newdawn.spaceinvaders.client.multiplay.Server;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class MatchJournalTest {
+
+    private static final int TICKS = Server.TICKS_PER_SECOND * 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayRebuildsTheRecordedMatch() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("match.journal");
+        ServerGame live = new ServerGame(null, 42);
+        MatchJournal journal = MatchJournal.create(path, live.getSeed(), Server.TICKS_PER_SECOND);
+        live.setJournal(journal);
+        play(live);
+        long liveChecksum = live.stateChecksum();
+        int liveEntities = live.getEntities().size();
+        live.closeJournal();
+
+        assertEquals(journal.getLength(), Files.size(path));
+        MatchReplay.Result result = MatchReplay.replay(path);
+        assertEquals(-1, result.getFirstMismatchTick());
+        assertEquals(TICKS / Server.TICKS_PER_SECOND, result.getChecksums());
+        // 마지막 체크섬 뒤의 틱은 저널에 입력이 없으면 재생되지 않으므로 남은 틱만큼 더 돌려 비교한다.
+        ServerGame replayed = result.getGame();
+        while (replayed.getTick() < live.getTick()) {
+            replayed.tick();
+        }
+        assertEquals(liveChecksum, replayed.stateChecksum());
+        assertEquals(liveEntities, replayed.getEntities().size());
+        // 외계인을 맞혀 점수와 아이템 드롭(난수) 경로를 지났는지
+        assertTrue(live.getPlayerDataMap().values().stream().anyMatch(data -> data.getScore() > 0));
+    }
+
+    @Test
+    public void unclosedJournalIsReadableUpToTheLastRecord() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("crash.journal");
+        MatchJournal journal = MatchJournal.create(path, 7, Server.TICKS_PER_SECOND);
+        journal.join(0, 100);
+        journal.state(3, 100, new InputState(InputState.FIRE, 1));
+        journal.input(5, 100, new PlayerInput(PlayerInput.Action.SKIP_STAGE, 2));
+
+        // 닫기 전에는 매핑한 구역만큼 파일이 커져 있고 나머지는 0 이다.
+        JournalReader reader = JournalReader.open(path);
+        assertEquals(7, reader.getSeed());
+        assertTrue(reader.next());
+        assertEquals(MatchJournal.JOIN, reader.getKind());
+        assertTrue(reader.next());
+        assertEquals(3, reader.getTick());
+        assertEquals(InputState.FIRE, reader.getState().getButtons());
+        assertTrue(reader.next());
+        assertEquals(PlayerInput.Action.SKIP_STAGE, reader.getInput().getAction());
+        assertEquals(2, reader.getInput().getSequence());
+        assertFalse(reader.next());
+        journal.close();
+    }
+
+    // 두 명이 참가해 움직이며 쏘고, 중간에 한 명이 나간다. 입력은 IO 스레드처럼 틱 사이에 넣는다.
+    private static void play(ServerGame game) {
+        int first = game.spawnPlayerEntity();
+        int second = game.spawnPlayerEntity();
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick % 90 == 0) {
+                int direction = (tick / 90) % 2 == 0 ? InputState.LEFT : InputState.RIGHT;
+                game.processPlayerInput(first, new InputState(direction | InputState.FIRE, tick));
+                game.processPlayerInput(first, new InputState(InputState.FIRE, tick + 1));
+            }
+            if (tick % 70 == 0 && tick < TICKS / 2) {
+                game.processPlayerInput(second, new PlayerInput(PlayerInput.Action.FIRE, tick));
+                game.setRewindTicks(second, tick % 20);
+            }
+            if (tick == TICKS / 2) {
+                game.removePlayerEntity(second);
+            }
+            game.tick();
+        }
+    }
+}
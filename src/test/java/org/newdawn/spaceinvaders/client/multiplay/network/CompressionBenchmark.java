@@ -0,0 +1,151 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.EntityFactory;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.RankData;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+/**
+ * 연결별 압축을 켤지 판단하기 위한 측정. 압축 수준/사전 사용 여부별로
+ * 30마리 스테이지의 스냅샷 스트림과 10,000줄 랭킹 응답의 바이트 수와 CPU 시간을 비교합니다.
+ * 실행: mvn test-compile 후 이 클래스의 main 실행
+ */
+public class CompressionBenchmark {
+
+    private static final int TICKS = 2400;
+    private static final int TICKS_PER_SNAPSHOT = 4;
+    private static final int RANK_ROWS = 10_000;
+    private static final int RANK_ROUNDS = 50;
+
+    private static final class Mode {
+        final String name;
+        final Supplier<FrameDeflater> deflater;
+        final boolean dictionary;
+
+        Mode(String name, Supplier<FrameDeflater> deflater, boolean dictionary) {
+            this.name = name;
+            this.deflater = deflater;
+            this.dictionary = dictionary;
+        }
+    }
+
+    private static final Mode[] MODES = {
+            new Mode("level 1, no dictionary", () -> new FrameDeflater(Deflater.BEST_SPEED, false), false),
+            new Mode("level 1, dictionary   ", () -> new FrameDeflater(Deflater.BEST_SPEED, true), true),
+            new Mode("level 6, no dictionary", () -> new FrameDeflater(Deflater.DEFAULT_COMPRESSION, false), false),
+            new Mode("level 6, dictionary   ", () -> new FrameDeflater(Deflater.DEFAULT_COMPRESSION, true), true),
+            new Mode("default (adaptive)    ", FrameDeflater::new, true),
+    };
+
+    public static void main(String[] args) throws IOException {
+        List<ByteBuffer> deltas = snapshotStream(false);
+        List<ByteBuffer> keyframes = snapshotStream(true);
+        System.out.printf("30-alien stage, %d snapshots%n", deltas.size());
+        report("delta   ", deltas);
+        report("keyframe", keyframes);
+        // 사전은 스트림 앞부분에서만 효과가 있으므로 새 연결의 첫 키프레임을 따로 잰다.
+        report("1st key ", keyframes.subList(0, 100), true);
+
+        ArrayList<RankData> ranking = new ArrayList<>(RANK_ROWS);
+        Random random = new Random(1);
+        for (int i = 0; i < RANK_ROWS; i++) {
+            ranking.add(new RankData("user" + random.nextInt(1_000_000), 100_000 - i * 7));
+        }
+        List<ByteBuffer> rankFrames = new ArrayList<>();
+        for (int i = 0; i < RANK_ROUNDS; i++) {
+            rankFrames.add(MessageCodec.encode(new RankResponse(ranking)));
+        }
+        System.out.printf("%n%d-row ranking, %d requests (new connection each)%n", RANK_ROWS, RANK_ROUNDS);
+        report("ranking ", rankFrames, true);
+    }
+
+    // 우주선 둘이 있는 Stage 1 을 돌리며 30Hz 로 스냅샷 프레임을 만든다.
+    // 서버 없이 돌리면 외계인 처치 처리를 못 하므로 총알은 쏘지 않는다. (외계인 총알은 날아온다)
+    private static List<ByteBuffer> snapshotStream(boolean keyframesOnly) {
+        ServerGame game = new ServerGame(null);
+        EntityFactory factory = game.getEntityFactory();
+        ServerPlayerShipEntity first = factory.createPlayerShip(300, 550);
+        factory.createPlayerShip(450, 550);
+        SnapshotHistory history = new SnapshotHistory();
+        List<ByteBuffer> frames = new ArrayList<>();
+        int sequence = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            game.tick();
+            if (tick % TICKS_PER_SNAPSHOT != 0) {
+                continue;
+            }
+            WorldSnapshot world = history.next(sequence);
+            world.capture(sequence, game.getEntities().values());
+            world.setTick(tick);
+            WorldSnapshot baseline = keyframesOnly ? null : history.get(sequence - 1);
+            ByteBuffer out = ByteBuffer.allocate(SnapshotCodec.maxWorldSize(baseline, world));
+            SnapshotCodec.encodeWorld(baseline, world, out);
+            byte[] header = SnapshotCodec.encodeHeader(0, 3, GameState.GameStatus.PLAYING, first.getId(), sequence);
+            frames.add(MessageCodec.encodeSnapshot(header, Arrays.copyOf(out.array(), out.position())));
+            sequence++;
+        }
+        return frames;
+    }
+
+    private static void report(String label, List<ByteBuffer> frames) throws IOException {
+        report(label, frames, false);
+    }
+
+    private static void report(String label, List<ByteBuffer> frames, boolean freshStreamPerFrame) throws IOException {
+        long raw = 0;
+        for (ByteBuffer frame : frames) {
+            raw += frame.remaining();
+        }
+        System.out.printf("  %s uncompressed           : %8.1f bytes/frame%n", label, (double) raw / frames.size());
+        for (Mode mode : MODES) {
+            // 워밍업 한 번 후 측정
+            run(mode, frames, freshStreamPerFrame);
+            long[] result = run(mode, frames, freshStreamPerFrame);
+            System.out.printf("  %s %s: %8.1f bytes/frame (%4.1f%%), deflate %6.1f us, inflate %6.1f us%n",
+                    label, mode.name, (double) result[0] / frames.size(), 100.0 * result[0] / raw,
+                    result[1] / 1000.0 / frames.size(), result[2] / 1000.0 / frames.size());
+        }
+    }
+
+    // {압축 바이트, 압축 나노초, 해제 나노초}
+    private static long[] run(Mode mode, List<ByteBuffer> frames, boolean freshStreamPerFrame) throws IOException {
+        FrameDeflater deflater = null;
+        FrameInflater inflater = null;
+        long bytes = 0;
+        long deflateNanos = 0;
+        long inflateNanos = 0;
+        for (ByteBuffer frame : frames) {
+            if (deflater == null || freshStreamPerFrame) {
+                if (deflater != null) {
+                    deflater.end();
+                    inflater.end();
+                }
+                deflater = mode.deflater.get();
+                inflater = new FrameInflater(mode.dictionary);
+            }
+            long start = System.nanoTime();
+            ByteBuffer compressed = deflater.compress(frame.duplicate());
+            deflateNanos += System.nanoTime() - start;
+            bytes += compressed.remaining();
+
+            compressed.position(MessageCodec.FRAME_HEADER_SIZE);
+            start = System.nanoTime();
+            inflater.inflate(compressed);
+            inflateNanos += System.nanoTime() - start;
+        }
+        deflater.end();
+        inflater.end();
+        return new long[]{bytes, deflateNanos, inflateNanos};
+    }
+}
@@ -0,0 +1,82 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.RankData;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SnapshotAck;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FrameCompressionTest {
+
+    private static ByteBuffer snapshotFrame(WorldSnapshot baseline, WorldSnapshot world) {
+        byte[] header = SnapshotCodec.encodeHeader(0, 3, GameState.GameStatus.PLAYING, 30, world.getSequence());
+        ByteBuffer out = ByteBuffer.allocate(SnapshotCodec.maxWorldSize(baseline, world));
+        SnapshotCodec.encodeWorld(baseline, world, out);
+        return MessageCodec.encodeSnapshot(header, Arrays.copyOf(out.array(), out.position()));
+    }
+
+    private static WorldSnapshot aliens(int sequence, double offset) {
+        WorldSnapshot world = new WorldSnapshot();
+        world.clear(sequence);
+        world.setTick(sequence * 4);
+        for (int id = 0; id < 30; id++) {
+            world.add(id, EntityType.ALIEN, WorldSnapshot.quantize(100 + (id % 10) * 50 - offset),
+                    WorldSnapshot.quantize(50 + (id / 10) * 30), WorldSnapshot.FULL_HEALTH, sequence % 2);
+        }
+        return world;
+    }
+
+    private static byte[] body(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.remaining() - MessageCodec.LENGTH_SIZE];
+        frame.duplicate().position(frame.position() + MessageCodec.LENGTH_SIZE).get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void framesRoundTripInOrderAcrossLevelChanges() throws Exception {
+        FrameDeflater deflater = new FrameDeflater();
+        FrameInflater inflater = new FrameInflater();
+        ArrayList<RankData> ranking = new ArrayList<>();
+        // 중간의 큰 랭킹 프레임은 압축 수준을 바꿔 가며 압축된다.
+        for (int i = 0; i < 2000; i++) {
+            ranking.add(new RankData("player" + i, 10_000 - i * 7));
+        }
+
+        long raw = 0;
+        long compressed = 0;
+        WorldSnapshot previous = null;
+        for (int seq = 0; seq < 20; seq++) {
+            WorldSnapshot world = aliens(seq, seq * 2.5);
+            ByteBuffer frame = seq == 10 ? MessageCodec.encode(new RankResponse(ranking)) : snapshotFrame(previous, world);
+            byte[] expected = body(frame);
+
+            ByteBuffer packed = deflater.compress(frame);
+            assertEquals(MessageType.COMPRESSED, packed.get(MessageCodec.LENGTH_SIZE));
+            packed.position(MessageCodec.FRAME_HEADER_SIZE);
+            ByteBuffer unpacked = inflater.inflate(packed);
+
+            byte[] actual = new byte[unpacked.remaining()];
+            unpacked.get(actual);
+            assertArrayEquals(expected, actual);
+            raw += expected.length;
+            compressed += packed.limit();
+            previous = world;
+        }
+        assertTrue("raw " + raw + " compressed " + compressed, compressed * 2 < raw);
+        deflater.end();
+        inflater.end();
+    }
+
+    @Test
+    public void smallFramesAreLeftAlone() {
+        assertFalse(FrameDeflater.worthCompressing(MessageCodec.encode(new SnapshotAck(1))));
+        assertTrue(FrameDeflater.worthCompressing(snapshotFrame(null, aliens(0, 0))));
+    }
+}
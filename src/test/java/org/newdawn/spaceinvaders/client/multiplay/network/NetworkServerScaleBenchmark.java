@@ -0,0 +1,56 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 놀고 있는 연결 수를 늘려가며 서버 프로세스의 스레드 수와 힙 사용량을 출력합니다.
+ * 클라이언트 소켓도 같은 JVM 에서 열기 때문에 fd 한도(ulimit -n)가 연결 수의 2배 이상이어야 합니다.
+ * 실행: mvn test-compile 후 이 클래스의 main 실행 (인자: 최대 연결 수, 기본 5000)
+ */
+public class NetworkServerScaleBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxConnections = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        NetworkServer server = new NetworkServer(0, 2, new NetworkServer.Listener() {
+            @Override
+            public void onConnected(Connection connection) { }
+
+            @Override
+            public void onMessage(Connection connection, int type, ByteBuffer payload) { }
+
+            @Override
+            public void onDisconnected(Connection connection) { }
+        });
+        server.start();
+
+        InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+        List<SocketChannel> clients = new ArrayList<>();
+        System.out.println("connections  threads  heapUsedMB");
+        report(0);
+        for (int step = 500; step <= maxConnections; step += step < 2000 ? 500 : 1000) {
+            while (clients.size() < step) {
+                clients.add(SocketChannel.open(address));
+            }
+            Thread.sleep(200); // IO 스레드가 등록을 마칠 시간
+            report(clients.size());
+        }
+
+        for (SocketChannel client : clients) {
+            client.close();
+        }
+        server.close();
+    }
+
+    private static void report(int connections) {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        System.out.printf("%11d  %7d  %10d%n", connections, threads, usedMb);
+    }
+}
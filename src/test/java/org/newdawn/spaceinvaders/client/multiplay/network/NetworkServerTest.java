@@ -0,0 +1,213 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.PlayerInput;
+import org.newdawn.spaceinvaders.client.multiplay.communication.LoginRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.LoginResponse;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NetworkServerTest {
+
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    private NetworkServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new NetworkServer(0, 2, new NetworkServer.Listener() {
+            @Override
+            public void onConnected(Connection connection) {
+                connections.add(connection);
+            }
+
+            @Override
+            public void onMessage(Connection connection, int type, ByteBuffer payload) {
+                Object message = MessageCodec.decode(type, payload);
+                received.add(message);
+                if (message instanceof LoginRequest req) {
+                    connection.send(MessageCodec.encode(new LoginResponse(true, req.getUsername())));
+                }
+            }
+
+            @Override
+            public void onDisconnected(Connection connection) {
+                disconnected.countDown();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    private static byte[] bytes(ByteBuffer frame) {
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void requestAndResponseAreFramed() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(bytes(MessageCodec.encode(new LoginRequest("kim", "pw"))));
+
+            ByteBuffer frame = MessageCodec.readFrame(new DataInputStream(socket.getInputStream()));
+            LoginResponse response = (LoginResponse) MessageCodec.decode(frame.get() & 0xFF, frame);
+            assertTrue(response.isSuccess());
+            assertEquals("kim", response.getUsername());
+        }
+    }
+
+    @Test
+    public void connectionCountsBytesOnTheWire() throws Exception {
+        ByteBuffer request = MessageCodec.encode(new LoginRequest("kim", "pw"));
+        int requestSize = request.remaining();
+        int responseSize = MessageCodec.encode(new LoginResponse(true, "kim")).remaining();
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(bytes(request));
+            MessageCodec.readFrame(new DataInputStream(socket.getInputStream()));
+
+            Connection connection = connections.poll(2, TimeUnit.SECONDS);
+            assertNotNull(connection);
+            long deadline = System.currentTimeMillis() + 2000;
+            // 카운터는 write 가 돌아온 뒤에 오르므로 잠깐 기다릴 수 있다.
+            while (connection.getBytesWritten() < responseSize && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(requestSize, connection.getBytesRead());
+            assertEquals(responseSize, connection.getBytesWritten());
+            assertEquals(0, connection.getWriteStallNanos());
+        }
+    }
+
+    @Test
+    public void framesSplitAndCoalescedAcrossWritesAreReassembled() throws Exception {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 50; i++) {
+            stream.write(bytes(MessageCodec.encode(new PlayerInput(PlayerInput.Action.MOVE_LEFT))));
+        }
+        byte[] all = stream.toByteArray();
+
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            // 프레임 경계와 무관하게 3바이트씩 끊어서 보낸다.
+            for (int i = 0; i < all.length; i += 3) {
+                out.write(all, i, Math.min(3, all.length - i));
+                out.flush();
+            }
+            for (int i = 0; i < 50; i++) {
+                Object message = received.poll(5, TimeUnit.SECONDS);
+                assertTrue(message instanceof PlayerInput);
+            }
+        }
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void idleConnectionsDoNotAddThreads() throws Exception {
+        int before = ManagementFactory.getThreadMXBean().getThreadCount();
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                sockets.add(new Socket("localhost", server.getPort()));
+            }
+            int after = ManagementFactory.getThreadMXBean().getThreadCount();
+            assertTrue("threads grew from " + before + " to " + after, after - before < 5);
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void slowClientKeepsOnlyLatestSnapshotButEveryReliableMessage() throws Exception {
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4 * 1024);
+            socket.connect(new InetSocketAddress("localhost", server.getPort()));
+            Connection connection = connections.poll(5, TimeUnit.SECONDS);
+            assertNotNull(connection);
+
+            // 클라이언트가 읽지 않는 동안 스냅샷을 쏟아붓고 사이사이 신뢰 메시지를 섞는다.
+            int snapshots = 2000;
+            int reliable = 0;
+            byte[] padding = new byte[8 * 1024];
+            for (int seq = 0; seq < snapshots; seq++) {
+                connection.sendSnapshot(MessageCodec.encodeSnapshot(ByteBuffer.allocate(4).putInt(seq).array(), padding));
+                if (seq % 100 == 0) {
+                    connection.send(MessageCodec.encode(new LoginResponse(true, "u" + reliable++)));
+                }
+            }
+            assertTrue(connection.getQueueDepth() <= reliable + 1);
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            int responses = 0;
+            int lastSeq = -1;
+            int snapshotsRead = 0;
+            while (lastSeq != snapshots - 1 || responses < reliable) {
+                ByteBuffer frame = MessageCodec.readFrame(in);
+                int type = frame.get() & 0xFF;
+                if (type == MessageType.SNAPSHOT) {
+                    int seq = frame.getInt();
+                    assertTrue("스냅샷 순서가 뒤바뀜", seq > lastSeq);
+                    lastSeq = seq;
+                    snapshotsRead++;
+                } else {
+                    LoginResponse response = (LoginResponse) MessageCodec.decode(type, frame);
+                    assertEquals("u" + responses++, response.getUsername());
+                }
+            }
+            assertEquals(snapshots, snapshotsRead + connection.getDroppedSnapshots());
+            assertTrue(connection.getDroppedSnapshots() > 0);
+        }
+    }
+
+    @Test
+    public void compressionCanBeToggledBetweenFrames() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            Connection connection = connections.poll(5, TimeUnit.SECONDS);
+            assertNotNull(connection);
+            String longName = "player-with-a-name-long-enough-to-be-worth-compressing-";
+            boolean[] enabled = {false, true, true, false, false, true};
+
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            FrameInflater inflater = new FrameInflater();
+            for (int i = 0; i < enabled.length; i++) {
+                // 압축 여부는 소켓에 쓰는 시점에 정해지므로 하나씩 받은 뒤 다음 것을 보낸다.
+                // 중간에 껐다 켜도 압축 스트림은 이어진다.
+                connection.setCompression(enabled[i]);
+                connection.send(MessageCodec.encode(new LoginResponse(true, longName + i)));
+
+                ByteBuffer frame = MessageCodec.readFrame(in);
+                int type = frame.get() & 0xFF;
+                assertEquals(enabled[i], type == MessageType.COMPRESSED);
+                if (type == MessageType.COMPRESSED) {
+                    frame = inflater.inflate(frame);
+                    type = frame.get() & 0xFF;
+                }
+                LoginResponse response = (LoginResponse) MessageCodec.decode(type, frame);
+                assertEquals(longName + i, response.getUsername());
+            }
+            inflater.end();
+        }
+    }
+}
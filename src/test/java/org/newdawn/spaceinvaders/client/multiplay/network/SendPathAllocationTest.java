@@ -0,0 +1,140 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 스냅샷 전송 경로(월드 인코딩 + 연결별 헤더 + 프레임 큐잉)가 틱마다 거의 할당하지 않는지
+ * ThreadMXBean 으로 게임 루프 스레드와 IO 스레드의 할당 바이트를 재서 확인합니다.
+ */
+public class SendPathAllocationTest {
+
+    private static final int CLIENTS = 8;
+    private static final int WARMUP_TICKS = 3000;
+    private static final int MEASURED_TICKS = 3000;
+
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    private final List<Socket> sockets = new ArrayList<>();
+    private NetworkServer server;
+    // IO 스레드가 하나뿐이므로 onConnected 를 부른 스레드가 곧 모든 연결의 IO 스레드다.
+    private volatile long ioThreadId;
+
+    @Before
+    public void connect() throws Exception {
+        server = new NetworkServer(0, 1, new NetworkServer.Listener() {
+            @Override
+            public void onConnected(Connection connection) {
+                ioThreadId = Thread.currentThread().getId();
+                connections.add(connection);
+            }
+
+            @Override
+            public void onMessage(Connection connection, int type, ByteBuffer payload) {
+                // 사용 안 함
+            }
+
+            @Override
+            public void onDisconnected(Connection connection) {
+                // 사용 안 함
+            }
+        });
+        server.start();
+        for (int i = 0; i < CLIENTS; i++) {
+            Socket socket = new Socket("localhost", server.getPort());
+            sockets.add(socket);
+            // 받는 쪽은 읽어서 버리기만 한다.
+            Thread drain = new Thread(() -> {
+                byte[] sink = new byte[64 * 1024];
+                try (InputStream in = socket.getInputStream()) {
+                    while (in.read(sink) >= 0) {
+                        // 버림
+                    }
+                } catch (IOException ignored) {
+                    // 테스트 종료
+                }
+            });
+            drain.setDaemon(true);
+            drain.start();
+        }
+    }
+
+    @After
+    public void close() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.close();
+    }
+
+    @Test
+    public void snapshotSendPathBarelyAllocatesPerTick() throws Exception {
+        List<Connection> targets = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            targets.add(connections.poll(2, TimeUnit.SECONDS));
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        SnapshotHistory history = new SnapshotHistory();
+        SharedSnapshotEncoder encoder = new SharedSnapshotEncoder(history);
+        ByteBuffer header = ByteBuffer.allocate(SnapshotCodec.HEADER_SIZE);
+        runTicks(0, WARMUP_TICKS, history, encoder, header, targets);
+        Thread.sleep(200);
+
+        long poolAllocations = server.getBufferPool().getAllocations();
+        long loopBefore = threads.getCurrentThreadAllocatedBytes();
+        long ioBefore = threads.getThreadAllocatedBytes(ioThreadId);
+        runTicks(WARMUP_TICKS, MEASURED_TICKS, history, encoder, header, targets);
+        long loopBytes = threads.getCurrentThreadAllocatedBytes() - loopBefore;
+        Thread.sleep(200);
+        long ioBytes = threads.getThreadAllocatedBytes(ioThreadId) - ioBefore;
+
+        double loopPerTick = (double) loopBytes / MEASURED_TICKS;
+        double ioPerTick = (double) ioBytes / MEASURED_TICKS;
+        // 게임 루프 쪽에 남는 것은 IO 스레드에 flush 를 맡기는 큐 노드 정도다. (측정: 8연결 틱당 약 25바이트)
+        assertTrue("game loop bytes/tick " + loopPerTick, loopPerTick < CLIENTS * 16);
+        // IO 스레드는 selector 처리 중의 작은 객체 몇 개만 만든다. (측정: 틱당 약 6바이트)
+        assertTrue("io bytes/tick " + ioPerTick, ioPerTick < CLIENTS * 16);
+        assertEquals("pooled buffers allocated after warm-up", poolAllocations, server.getBufferPool().getAllocations());
+    }
+
+    private static void runTicks(int from, int count, SnapshotHistory history, SharedSnapshotEncoder encoder,
+                                 ByteBuffer header, List<Connection> targets) throws InterruptedException {
+        for (int sequence = from; sequence < from + count; sequence++) {
+            WorldSnapshot world = history.next(sequence);
+            world.clear(sequence);
+            world.setTick(sequence * 4);
+            for (int id = 0; id < 30; id++) {
+                world.add(id, EntityType.ALIEN, WorldSnapshot.quantize(100 + (id % 10) * 50 + (sequence % 40)),
+                        WorldSnapshot.quantize(50 + (id / 10) * 30), WorldSnapshot.FULL_HEALTH, sequence % 2);
+            }
+            encoder.begin(world);
+            for (int i = 0; i < targets.size(); i++) {
+                header.clear();
+                SnapshotCodec.encodeHeader(i * 100, 3, GameState.GameStatus.PLAYING, 30 + i, sequence, header);
+                header.flip();
+                // 클라이언트 절반은 직전 스냅샷을 확인했고, 나머지는 키프레임을 받는다.
+                targets.get(i).sendSnapshot(header, encoder.worldFor(i % 2 == 0 ? sequence - 1 : -1));
+            }
+            if (sequence % 8 == 0) {
+                // 30Hz 전송 간격만큼은 아니어도 IO 스레드가 따라올 틈을 준다.
+                Thread.sleep(1);
+            }
+        }
+    }
+}
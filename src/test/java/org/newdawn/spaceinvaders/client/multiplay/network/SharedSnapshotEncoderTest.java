@@ -0,0 +1,62 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SharedSnapshotEncoderTest {
+
+    private static void fill(WorldSnapshot world, int x) {
+        for (int id = 0; id < 30; id++) {
+            world.add(id, EntityType.ALIEN, WorldSnapshot.quantize(x + id * 50), WorldSnapshot.quantize(50),
+                    WorldSnapshot.FULL_HEALTH, 0);
+        }
+    }
+
+    @Test
+    public void encodesOncePerDistinctBaseline() {
+        SnapshotHistory history = new SnapshotHistory();
+        SharedSnapshotEncoder encoder = new SharedSnapshotEncoder(history);
+        fill(history.next(0), 100);
+        fill(history.next(1), 101);
+        WorldSnapshot current = history.next(2);
+        fill(current, 102);
+
+        encoder.begin(current);
+        ByteBuffer first = encoder.worldFor(1);
+        ByteBuffer second = encoder.worldFor(1);
+        ByteBuffer other = encoder.worldFor(0);
+        ByteBuffer keyframe = encoder.worldFor(-1);
+        ByteBuffer keyframeAgain = encoder.worldFor(-1);
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertSame(keyframe, keyframeAgain);
+        assertEquals(3, encoder.getEncodeCount());
+    }
+
+    @Test
+    public void sharedWorldDecodesWithPerPlayerHeader() {
+        SnapshotHistory history = new SnapshotHistory();
+        SharedSnapshotEncoder encoder = new SharedSnapshotEncoder(history);
+        WorldSnapshot current = history.next(0);
+        fill(current, 100);
+        encoder.begin(current);
+        ByteBuffer world = encoder.worldFor(-1);
+
+        GameState first = new SnapshotDecoder().decode(
+                ByteBuffer.wrap(SnapshotCodec.encodeHeader(10, 3, GameState.GameStatus.PLAYING)), world.duplicate());
+        GameState second = new SnapshotDecoder().decode(
+                ByteBuffer.wrap(SnapshotCodec.encodeHeader(20, 1, GameState.GameStatus.PLAYING)), world.duplicate());
+
+        assertEquals(10, first.getCurrentScore());
+        assertEquals(20, second.getCurrentScore());
+        assertEquals(1, second.getRemainingLives());
+        assertEquals(30, first.getWorld().size());
+        assertEquals(30, second.getWorld().size());
+    }
+}
@@ -0,0 +1,100 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.newdawn.spaceinvaders.client.multiplay.EntityFactory;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.Entity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.ServerPlayerShipEntity;
+import org.newdawn.spaceinvaders.client.multiplay.ServerGame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 기존 ObjectOutputStream 경로와 SnapshotCodec(키프레임/델타)의 틱당 전송 바이트/인코딩 시간,
+ * 그리고 엔티티 필드를 double 그대로 보낼 때와 양자화했을 때의 엔티티당 바이트를 비교합니다.
+ * 실행: mvn test-compile 후 이 클래스의 main 실행
+ */
+public class SnapshotCodecBenchmark {
+
+    private static final int TICKS = 100;
+    // id i32, type u8, x/y/width/height/dx/dy/moveSpeed double, hp/maxHp i32, variant u8
+    private static final int DOUBLE_FIELDS_RECORD_SIZE = 4 + 1 + 7 * 8 + 2 * 4 + 1;
+
+    // 이전 GameState 와 동일한 필드 구성
+    private static class LegacyGameState implements Serializable {
+        private final Map<Integer, Entity> entities;
+        private final int currentScore;
+        private final int remainingLives;
+        private final GameState.GameStatus status;
+
+        LegacyGameState(Map<Integer, Entity> entities, int score, int lives, GameState.GameStatus status) {
+            this.entities = entities;
+            this.currentScore = score;
+            this.remainingLives = lives;
+            this.status = status;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        ServerGame game = new ServerGame(null); // Stage 1: 외계인 30마리
+        EntityFactory factory = game.getEntityFactory();
+        ServerPlayerShipEntity first = factory.createPlayerShip(300, 550);
+        ServerPlayerShipEntity second = factory.createPlayerShip(450, 550);
+        for (int i = 0; i < 4; i++) {
+            factory.createPlayerShot(first);
+            factory.createPlayerShot(second);
+        }
+
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ObjectOutputStream objectOut = new ObjectOutputStream(sink);
+        SnapshotHistory history = new SnapshotHistory();
+
+        long legacyBytes = 0;
+        long legacyNanos = 0;
+        long codecBytes = 0;
+        long codecNanos = 0;
+        long deltaBytes = 0;
+        long entityCount = 0;
+
+        for (int tick = 0; tick < TICKS; tick++) {
+            game.tick();
+            TreeMap<Integer, Entity> entitiesCopy = new TreeMap<>(game.getEntities());
+
+            sink.reset();
+            long start = System.nanoTime();
+            objectOut.writeObject(new LegacyGameState(entitiesCopy, 10, 3, GameState.GameStatus.PLAYING));
+            objectOut.reset();
+            objectOut.flush();
+            legacyNanos += System.nanoTime() - start;
+            legacyBytes += sink.size();
+            entityCount += entitiesCopy.size();
+
+            start = System.nanoTime();
+            WorldSnapshot world = history.next(tick);
+            world.capture(tick, entitiesCopy.values());
+            byte[] encoded = SnapshotCodec.encode(null, world, 10, 3, GameState.GameStatus.PLAYING);
+            codecNanos += System.nanoTime() - start;
+            codecBytes += encoded.length;
+
+            // 직전 틱을 확인(ack)한 클라이언트 기준 델타
+            WorldSnapshot baseline = history.get(tick - 1);
+            deltaBytes += SnapshotCodec.encode(baseline, world, 10, 3, GameState.GameStatus.PLAYING).length;
+        }
+
+        System.out.printf("entities per tick      : %d%n", game.getEntities().size());
+        System.out.printf("java serialization     : %d bytes/tick, %.1f us/tick%n", legacyBytes / TICKS, legacyNanos / 1000.0 / TICKS);
+        System.out.printf("snapshot keyframe v%d   : %d bytes/tick, %.1f us/tick%n", SnapshotCodec.VERSION, codecBytes / TICKS, codecNanos / 1000.0 / TICKS);
+        System.out.printf("snapshot delta v%d      : %d bytes/tick%n", SnapshotCodec.VERSION, deltaBytes / TICKS);
+        System.out.printf("ratio                  : %.1fx smaller (keyframe), %.1fx smaller (delta)%n",
+                (double) legacyBytes / codecBytes, (double) legacyBytes / deltaBytes);
+
+        long headerBytes = (long) TICKS * SnapshotCodec.HEADER_SIZE;
+        System.out.printf("bytes/entity double    : %d%n", DOUBLE_FIELDS_RECORD_SIZE);
+        System.out.printf("bytes/entity keyframe  : %.2f%n", (double) (codecBytes - headerBytes) / entityCount);
+        System.out.printf("bytes/entity delta     : %.2f%n", (double) (deltaBytes - headerBytes) / entityCount);
+    }
+}
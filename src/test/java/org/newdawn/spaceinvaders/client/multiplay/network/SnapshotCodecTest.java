@@ -0,0 +1,156 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SnapshotCodecTest {
+
+    private static WorldSnapshot baseline() {
+        WorldSnapshot world = new WorldSnapshot();
+        world.clear(42);
+        world.setTick(168);
+        world.add(0, EntityType.ALIEN, px(100), px(50), WorldSnapshot.health(30, 50), 2);
+        world.add(1, EntityType.PLAYER, px(370.25), px(550), 0, 3);
+        world.add(2, EntityType.SHOT, px(385), px(400.5), 0, 1);
+        world.add(3, EntityType.BOSS, px(350), px(50), WorldSnapshot.health(4200, 5000), 1);
+        world.add(4, EntityType.METEOR, px(120), px(-50), 0, 15);
+        world.add(5, EntityType.LASER, px(338), px(100), 0, 0);
+        return world;
+    }
+
+    private static int px(double pixels) {
+        return WorldSnapshot.quantize(pixels);
+    }
+
+    private static void assertSameWorld(WorldSnapshot expected, WorldSnapshot actual) {
+        assertEquals(expected.getSequence(), actual.getSequence());
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getId(i), actual.getId(i));
+            assertEquals(expected.getType(i), actual.getType(i));
+            assertEquals(expected.getFixedX(i), actual.getFixedX(i));
+            assertEquals(expected.getFixedY(i), actual.getFixedY(i));
+            assertEquals(expected.getHealth(i), actual.getHealth(i));
+            assertEquals(expected.getVariant(i), actual.getVariant(i));
+        }
+    }
+
+    @Test
+    public void keyframeRoundTripKeepsTypeSpecificFields() {
+        WorldSnapshot world = baseline();
+
+        byte[] bytes = SnapshotCodec.encode(null, world, 1234, 2, GameState.GameStatus.PLAYING);
+        GameState decoded = new SnapshotDecoder().decode(ByteBuffer.wrap(bytes));
+
+        assertEquals(1234, decoded.getCurrentScore());
+        assertEquals(2, decoded.getRemainingLives());
+        assertEquals(GameState.GameStatus.PLAYING, decoded.getStatus());
+        assertSameWorld(world, decoded.getWorld());
+    }
+
+    @Test
+    public void headerCarriesPlayerShipAndLastProcessedInput() {
+        WorldSnapshot world = baseline();
+        ByteBuffer encoded = ByteBuffer.allocate(SnapshotCodec.maxWorldSize(null, world));
+        SnapshotCodec.encodeWorld(null, world, encoded);
+        encoded.flip();
+        byte[] header = SnapshotCodec.encodeHeader(0, 3, GameState.GameStatus.PLAYING, 1, 99);
+
+        GameState decoded = new SnapshotDecoder().decode(ByteBuffer.wrap(header), encoded);
+
+        assertEquals(1, decoded.getPlayerShipId());
+        assertEquals(99, decoded.getLastInputSequence());
+    }
+
+    @Test
+    public void deltaRebuildsAddedRemovedAndChangedEntities() {
+        WorldSnapshot base = baseline();
+        WorldSnapshot next = new WorldSnapshot();
+        next.clear(43);
+        next.add(0, EntityType.ALIEN, px(100.625), px(50), WorldSnapshot.health(30, 50), 2);  // x 만 변경
+        next.add(1, EntityType.PLAYER, px(370.25), px(550), 0, 3);                           // 변경 없음
+        next.add(3, EntityType.BOSS, px(350), px(50), WorldSnapshot.health(4150, 5000), 0);  // hp, 프레임 변경
+        next.add(4, EntityType.METEOR, px(120), px(-48), 0, 0);
+        next.add(7, EntityType.ALIEN_SHOT, px(10), px(20), 0, 0);                            // 추가
+        // 2, 5 는 삭제
+
+        SnapshotDecoder decoder = new SnapshotDecoder();
+        decoder.decode(ByteBuffer.wrap(SnapshotCodec.encode(null, base, 0, 3, GameState.GameStatus.PLAYING)));
+        byte[] keyframe = SnapshotCodec.encode(null, next, 0, 3, GameState.GameStatus.PLAYING);
+        byte[] delta = SnapshotCodec.encode(base, next, 0, 3, GameState.GameStatus.PLAYING);
+        GameState decoded = decoder.decode(ByteBuffer.wrap(delta));
+
+        assertSameWorld(next, decoded.getWorld());
+        assertTrue(delta.length < keyframe.length);
+    }
+
+    @Test
+    public void quantizedPositionsStayWithinHalfAStep() {
+        Random random = new Random(11);
+        WorldSnapshot world = new WorldSnapshot();
+        world.clear(0);
+        double[] xs = new double[200];
+        double[] ys = new double[200];
+        for (int id = 0; id < xs.length; id++) {
+            // 화면 밖으로 조금 나간 엔티티까지 포함
+            xs[id] = -50 + random.nextDouble() * 900;
+            ys[id] = -50 + random.nextDouble() * 750;
+            world.add(id, EntityType.ALIEN_SHOT, px(xs[id]), px(ys[id]), 0, 0);
+        }
+
+        byte[] bytes = SnapshotCodec.encode(null, world, 0, 3, GameState.GameStatus.PLAYING);
+        WorldSnapshot decoded = new SnapshotDecoder().decode(ByteBuffer.wrap(bytes)).getWorld();
+
+        double bound = 0.5 / (1 << WorldSnapshot.FRACTION_BITS);
+        for (int i = 0; i < decoded.size(); i++) {
+            assertEquals(xs[i], WorldSnapshot.toPixels(decoded.getFixedX(i)), bound);
+            assertEquals(ys[i], WorldSnapshot.toPixels(decoded.getFixedY(i)), bound);
+            assertEquals(Math.round(xs[i]), decoded.getX(i), 1);
+        }
+    }
+
+    @Test
+    public void healthRatioKeepsLivingEntitiesAboveZero() {
+        assertEquals(WorldSnapshot.FULL_HEALTH, WorldSnapshot.health(5000, 5000));
+        assertEquals(1, WorldSnapshot.health(1, 5000));
+        assertEquals(0, WorldSnapshot.health(-50, 200));
+    }
+
+    @Test
+    public void deltaAgainstUnknownBaselineIsSkipped() {
+        WorldSnapshot base = baseline();
+        WorldSnapshot next = baseline();
+        next.clear(43);
+
+        byte[] delta = SnapshotCodec.encode(base, next, 0, 3, GameState.GameStatus.PLAYING);
+
+        assertNull(new SnapshotDecoder().decode(ByteBuffer.wrap(delta)));
+    }
+
+    @Test
+    public void historyForgetsSnapshotsOlderThanItsCapacity() {
+        SnapshotHistory history = new SnapshotHistory(4);
+        for (int sequence = 0; sequence < 6; sequence++) {
+            history.next(sequence);
+        }
+
+        assertNull(history.get(1));
+        assertNotNull(history.get(2));
+        assertNotNull(history.get(5));
+        assertNull(history.get(6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownVersion() {
+        byte[] bytes = SnapshotCodec.encode(null, new WorldSnapshot(), 0, 3, GameState.GameStatus.PLAYING);
+        bytes[0] = (byte) (SnapshotCodec.VERSION + 1);
+        new SnapshotDecoder().decode(ByteBuffer.wrap(bytes));
+    }
+}
@@ -0,0 +1,114 @@
+package org.newdawn.spaceinvaders.client.multiplay.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.multiplay.InputState;
+
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+/**
+ * 루프백에서 30% 손실, 20~40ms 지연(순서 뒤바뀜 포함)을 양방향에 걸고 UDP 전송을 확인합니다.
+ */
+public class UdpTransportTest {
+
+    private static final int TOKEN = 1234;
+    private static final double LOSS = 0.3;
+
+    private final List<Integer> inputs = new CopyOnWriteArrayList<>();
+    private final List<Integer> snapshots = new CopyOnWriteArrayList<>();
+    private final List<Integer> events = new CopyOnWriteArrayList<>();
+    private volatile int serverLastInput = -1;
+    private UdpServer server;
+    private UdpClient client;
+
+    @Before
+    public void connect() throws Exception {
+        server = new UdpServer(new SimulatedLink(new UdpLink(new DatagramSocket(0)), LOSS, 20, 20, 1));
+        server.register(TOKEN, new UdpServer.Listener() {
+            @Override
+            public void onInputState(InputState state) {
+                inputs.add(state.getSequence());
+                serverLastInput = state.getSequence();
+            }
+
+            @Override
+            public void onSnapshotAck(int sequence) { }
+        });
+        server.start();
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        client = new UdpClient(new SimulatedLink(new UdpLink(new DatagramSocket(0)), LOSS, 20, 20, 2), address, TOKEN,
+                new UdpClient.Listener() {
+                    @Override
+                    public void onSnapshot(ByteBuffer payload) {
+                        // 테스트용 스냅샷: [번호 i32][서버가 받은 마지막 입력 i32]
+                        snapshots.add(payload.getInt());
+                        client.acknowledgeInputs(payload.getInt());
+                    }
+
+                    @Override
+                    public void onReliable(ByteBuffer message) {
+                        assertEquals(MessageType.VICTORY, message.get() & 0xFF);
+                        events.add(message.getInt());
+                    }
+                });
+        client.start();
+        waitUntil(() -> server.isEstablished(TOKEN) && client.isEstablished(), 5000);
+    }
+
+    @After
+    public void close() {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void gameplayTrafficSurvivesLossAndReordering() throws Exception {
+        int sent = 0;
+        for (int i = 1; i <= 50; i++) {
+            client.sendInput(new InputState(i % 4, i));
+            byte[] snapshot = ByteBuffer.allocate(8).putInt(sent++).putInt(serverLastInput).array();
+            assertTrue(server.sendSnapshot(TOKEN, snapshot, new byte[0]));
+            if (i % 10 == 0) {
+                assertTrue(server.sendReliable(TOKEN, MessageType.VICTORY, ByteBuffer.allocate(4).putInt(i / 10).array()));
+            }
+            Thread.sleep(8);
+        }
+
+        // 입력: 손실돼도 확인될 때까지 다시 실려 오므로 마지막 입력까지 중복 없이 오름차순으로 도착
+        waitUntil(() -> serverLastInput == 50, 5000);
+        for (int i = 1; i < inputs.size(); i++) {
+            assertTrue(inputs.get(i) > inputs.get(i - 1));
+        }
+        // 이벤트: 모두 정확히 한 번, 보낸 순서대로
+        waitUntil(() -> events.size() == 5, 5000);
+        assertEquals(List.of(1, 2, 3, 4, 5), events);
+        // 스냅샷: 일부는 손실되거나 늦게 와서 버려지지만, 전달된 것은 항상 더 새로운 것
+        assertTrue(snapshots.size() < sent);
+        for (int i = 1; i < snapshots.size(); i++) {
+            assertTrue(snapshots.get(i) > snapshots.get(i - 1));
+        }
+    }
+
+    @Test
+    public void oversizedSnapshotFallsBackToTcp() {
+        assertFalse(server.sendSnapshot(TOKEN, new byte[UdpServer.MAX_DATAGRAM_SIZE], new byte[0]));
+        assertFalse(server.sendSnapshot(TOKEN + 1, new byte[8], new byte[0]));
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertTrue("시간 초과", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
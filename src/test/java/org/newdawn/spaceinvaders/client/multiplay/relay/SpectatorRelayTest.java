@@ -0,0 +1,217 @@
+package org.newdawn.spaceinvaders.client.multiplay.relay;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.newdawn.spaceinvaders.client.NetworkClient;
+import org.newdawn.spaceinvaders.client.NetworkListener;
+import org.newdawn.spaceinvaders.client.multiplay.GameState;
+import org.newdawn.spaceinvaders.client.multiplay.ServerEntity.EntityType;
+import org.newdawn.spaceinvaders.client.multiplay.communication.JoinRequest;
+import org.newdawn.spaceinvaders.client.multiplay.communication.LoginResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.RankResponse;
+import org.newdawn.spaceinvaders.client.multiplay.communication.SignUpResponse;
+import org.newdawn.spaceinvaders.client.multiplay.network.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 가짜 게임 서버 하나에 중계 서버를 별도 JVM 으로 띄우고, 관전자 여럿이 중계 서버에서 스냅샷을 받는지 봅니다.
+ */
+public class SpectatorRelayTest {
+
+    private static final int SPECTATORS = 3;
+    private static final int SCORE = 1234;
+
+    private final List<JoinRequest.Role> upstreamJoins = new CopyOnWriteArrayList<>();
+    private final List<Connection> upstreamConnections = new CopyOnWriteArrayList<>();
+    private final List<NetworkClient> clients = new ArrayList<>();
+    private NetworkServer upstream;
+    private Thread broadcaster;
+    private Process relay;
+
+    @Before
+    public void startUpstream() throws IOException {
+        upstream = new NetworkServer(0, 1, new NetworkServer.Listener() {
+            @Override
+            public void onConnected(Connection connection) {
+                // JOIN 을 받은 뒤에 보낸다.
+            }
+
+            @Override
+            public void onMessage(Connection connection, int type, ByteBuffer payload) {
+                if (type == MessageType.JOIN) {
+                    upstreamJoins.add(((JoinRequest) MessageCodec.decode(type, payload)).getRole());
+                    upstreamConnections.add(connection);
+                }
+            }
+
+            @Override
+            public void onDisconnected(Connection connection) {
+                upstreamConnections.remove(connection);
+            }
+        });
+        upstream.start();
+        broadcaster = new Thread(this::broadcast, "fake-game-loop");
+        broadcaster.setDaemon(true);
+        broadcaster.start();
+    }
+
+    @After
+    public void stop() {
+        for (NetworkClient client : clients) {
+            client.disconnectIfConnected();
+        }
+        broadcaster.interrupt();
+        upstream.close();
+        if (relay != null) {
+            relay.destroyForcibly();
+        }
+    }
+
+    @Test
+    public void relayFansSnapshotsOutToSpectators() throws Exception {
+        int port = freePort();
+        relay = startRelay(upstream.getPort(), port);
+
+        List<BlockingQueue<GameState>> received = new ArrayList<>();
+        for (int i = 0; i < SPECTATORS; i++) {
+            BlockingQueue<GameState> states = new LinkedBlockingQueue<>();
+            received.add(states);
+            NetworkClient client = new NetworkClient(new SpectatorListener(states));
+            connectWhenReady(client, port);
+            clients.add(client);
+        }
+
+        for (BlockingQueue<GameState> states : received) {
+            for (int i = 0; i < 3; i++) {
+                GameState state = states.poll(5, TimeUnit.SECONDS);
+                assertNotNull("관전자가 스냅샷을 받지 못함", state);
+                assertEquals(SCORE, state.getCurrentScore());
+                assertEquals(10, state.getWorld().size());
+            }
+        }
+        // 게임 서버에는 중계 서버 한 곳만 관전자로 붙는다.
+        assertEquals(List.of(JoinRequest.Role.SPECTATOR), upstreamJoins);
+
+        // 게임 서버가 내려가면 중계 서버도 끝난다.
+        broadcaster.interrupt();
+        upstream.close();
+        assertTrue("중계 서버가 끝나지 않음", relay.waitFor(10, TimeUnit.SECONDS));
+    }
+
+    // 30Hz 로 키프레임을 보낸다. 점수와 엔티티 수만 확인하므로 델타는 쓰지 않는다.
+    private void broadcast() {
+        SnapshotHistory history = new SnapshotHistory();
+        SharedSnapshotEncoder encoder = new SharedSnapshotEncoder(history);
+        ByteBuffer header = ByteBuffer.allocate(SnapshotCodec.HEADER_SIZE);
+        int sequence = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            WorldSnapshot world = history.next(sequence);
+            world.clear(sequence);
+            for (int id = 0; id < 10; id++) {
+                world.add(id, EntityType.ALIEN, WorldSnapshot.quantize(100 + id * 40 + sequence % 20),
+                        WorldSnapshot.quantize(50), WorldSnapshot.FULL_HEALTH, 0);
+            }
+            encoder.begin(world);
+            header.clear();
+            SnapshotCodec.encodeHeader(SCORE, 3, GameState.GameStatus.PLAYING, -1, -1, header);
+            header.flip();
+            for (Connection connection : upstreamConnections) {
+                connection.sendSnapshot(header, encoder.worldFor(-1));
+            }
+            sequence++;
+            try {
+                Thread.sleep(33);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static Process startRelay(int upstreamPort, int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SpectatorRelay.class.getName(), "localhost", String.valueOf(upstreamPort), String.valueOf(port));
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    // 중계 서버 JVM 이 뜰 때까지 다시 시도한다.
+    private static void connectWhenReady(NetworkClient client, int port) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            try {
+                client.startMultiplay("localhost", port, JoinRequest.Role.SPECTATOR);
+                return;
+            } catch (ConnectException e) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw e;
+                }
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private static final class SpectatorListener implements NetworkListener {
+        private final BlockingQueue<GameState> states;
+
+        SpectatorListener(BlockingQueue<GameState> states) {
+            this.states = states;
+        }
+
+        @Override
+        public void onGameStateUpdate(GameState newState) {
+            states.add(newState);
+        }
+
+        @Override
+        public void onVictory() {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onLoginResponse(LoginResponse response) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onSignUpResponse(SignUpResponse response) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onRankResponse(RankResponse response) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onDisconnected(String reason) {
+            // 사용 안 함
+        }
+
+        @Override
+        public void onRequestFailed(Object request, String reason) {
+            // 사용 안 함
+        }
+    }
+}